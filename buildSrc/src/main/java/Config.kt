@@ -55,8 +55,11 @@ object Config {
         val springBootStarterWeb = "org.springframework.boot:spring-boot-starter-web:$springBootVersion"
         val springBootStarterAop = "org.springframework.boot:spring-boot-starter-aop:$springBootVersion"
         val springBootStarterSecurity = "org.springframework.boot:spring-boot-starter-security:$springBootVersion"
+        val springBootStarterWebflux = "org.springframework.boot:spring-boot-starter-webflux:$springBootVersion"
 
         val springWeb = "org.springframework:spring-webmvc"
+        val springWebflux = "org.springframework:spring-webflux"
+        val reactorCore = "io.projectreactor:reactor-core"
         val springSecurityWeb = "org.springframework.security:spring-security-web"
         val springSecurityConfig = "org.springframework.security:spring-security-config"
         val springAop = "org.springframework:spring-aop"
@@ -88,6 +91,7 @@ object Config {
         val mockitoKotlin = "com.nhaarman.mockitokotlin2:mockito-kotlin:2.2.0"
         val mockitoInline = "org.mockito:mockito-inline:3.6.0"
         val awaitility = "org.awaitility:awaitility-kotlin:4.0.3"
+        val reactorTest = "io.projectreactor:reactor-test"
     }
 
     object QualityPlugins {
@@ -1,6 +1,9 @@
 package io.sentry.jul;
 
-import io.sentry.Breadcrumb;
+import io.sentry.AsyncCaptureQueue;
+import io.sentry.IHub;
+import io.sentry.LogBreadcrumbs;
+import io.sentry.NoOpLogger;
 import io.sentry.Sentry;
 import io.sentry.SentryEvent;
 import io.sentry.SentryLevel;
@@ -36,6 +39,16 @@ public final class SentryHandler extends Handler {
 
   private @NotNull Level minimumBreadcrumbLevel = Level.INFO;
   private @NotNull Level minimumEventLevel = Level.SEVERE;
+  private volatile boolean async;
+  private int asyncQueueSize = AsyncCaptureQueue.DEFAULT_QUEUE_SIZE;
+  private int asyncBatchSize = AsyncCaptureQueue.DEFAULT_BATCH_SIZE;
+  private @NotNull AsyncCaptureQueue.DiscardPolicy asyncDiscardPolicy =
+      AsyncCaptureQueue.DiscardPolicy.DISCARD_NEWEST;
+  private volatile @Nullable AsyncCaptureQueue<PendingEvent> asyncQueue;
+
+  /** Formats the message of the breadcrumbs when the line is logged. */
+  private final @NotNull LogBreadcrumbs.MessageFormatter breadcrumbMessageFormatter =
+      record -> formatBreadcrumbMessage((LogRecord) record);
 
   /** Creates an instance of SentryHandler. */
   public SentryHandler() {
@@ -73,10 +86,28 @@ public final class SentryHandler extends Handler {
     }
     try {
       if (record.getLevel().intValue() >= minimumEventLevel.intValue()) {
-        Sentry.captureEvent(createEvent(record));
+        final AsyncCaptureQueue<PendingEvent> asyncQueue = getAsyncQueue();
+        if (asyncQueue != null) {
+          // the MDC must be copied and the scope snapshotted on the logging thread, so the event
+          // doesn't get the tags or breadcrumbs set after it was logged
+          asyncQueue.offer(
+              () ->
+                  new PendingEvent(
+                      record,
+                      MDC.getMDCAdapter().getCopyOfContextMap(),
+                      Sentry.getCurrentHub().snapshot()));
+        } else {
+          Sentry.captureEvent(createEvent(record));
+        }
       }
       if (record.getLevel().intValue() >= minimumBreadcrumbLevel.intValue()) {
-        Sentry.addBreadcrumb(createBreadcrumb(record));
+        Sentry.getCurrentHub()
+            .addLogBreadcrumb(
+                record.getMillis(),
+                formatLevel(record.getLevel()),
+                record.getLoggerName(),
+                record,
+                breadcrumbMessageFormatter);
       }
     } catch (RuntimeException e) {
       reportError(
@@ -101,6 +132,90 @@ public final class SentryHandler extends Handler {
     if (minimumEventLevel != null) {
       setMinimumEventLevel(parseLevelOrDefault(minimumEventLevel));
     }
+    setAsync(Boolean.parseBoolean(manager.getProperty(className + ".async")));
+    final String asyncQueueSize = manager.getProperty(className + ".asyncQueueSize");
+    if (asyncQueueSize != null) {
+      setAsyncQueueSize(parseIntOrDefault(asyncQueueSize, AsyncCaptureQueue.DEFAULT_QUEUE_SIZE));
+    }
+    final String asyncBatchSize = manager.getProperty(className + ".asyncBatchSize");
+    if (asyncBatchSize != null) {
+      setAsyncBatchSize(parseIntOrDefault(asyncBatchSize, AsyncCaptureQueue.DEFAULT_BATCH_SIZE));
+    }
+    setAsyncDiscardPolicy(
+        AsyncCaptureQueue.DiscardPolicy.parse(
+            manager.getProperty(className + ".asyncDiscardPolicy")));
+  }
+
+  /**
+   * Returns the async queue, started on first use so that the async properties can be set after the
+   * handler is created.
+   *
+   * @return the async queue or null if async mode is disabled
+   */
+  private @Nullable AsyncCaptureQueue<PendingEvent> getAsyncQueue() {
+    if (!async) {
+      return null;
+    }
+    AsyncCaptureQueue<PendingEvent> asyncQueue = this.asyncQueue;
+    if (asyncQueue == null) {
+      synchronized (this) {
+        asyncQueue = this.asyncQueue;
+        if (asyncQueue == null && async) {
+          asyncQueue =
+              new AsyncCaptureQueue<>(
+                  "SentryHandler",
+                  asyncQueueSize,
+                  asyncBatchSize,
+                  asyncDiscardPolicy,
+                  this::captureEvents,
+                  NoOpLogger.getInstance());
+          this.asyncQueue = asyncQueue;
+        }
+      }
+    }
+    return asyncQueue;
+  }
+
+  /**
+   * Creates and captures the events of a batch taken from the async queue, the events logged in a
+   * row with the same hub snapshot together.
+   *
+   * @param batch the log records
+   */
+  private void captureEvents(final @NotNull List<PendingEvent> batch) {
+    final List<SentryEvent> events = new ArrayList<>(batch.size());
+    IHub snapshot = null;
+    for (final PendingEvent pendingEvent : batch) {
+      if (snapshot != null && snapshot != pendingEvent.hub) {
+        captureEvents(snapshot, events);
+        events.clear();
+      }
+      snapshot = pendingEvent.hub;
+      try {
+        events.add(createEvent(pendingEvent.record, pendingEvent.mdcProperties));
+      } catch (RuntimeException e) {
+        reportError(
+            "An exception occurred while creating a new event in Sentry",
+            e,
+            ErrorManager.WRITE_FAILURE);
+      }
+    }
+    if (snapshot != null) {
+      captureEvents(snapshot, events);
+    }
+  }
+
+  private void captureEvents(
+      final @NotNull IHub snapshot, final @NotNull List<SentryEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+    try {
+      snapshot.captureEvents(events);
+    } catch (RuntimeException e) {
+      reportError(
+          "An exception occurred while capturing events in Sentry", e, ErrorManager.WRITE_FAILURE);
+    }
   }
 
   /**
@@ -131,20 +246,23 @@ public final class SentryHandler extends Handler {
     }
   }
 
-  private @NotNull Breadcrumb createBreadcrumb(final @NotNull LogRecord record) {
-    final Breadcrumb breadcrumb = new Breadcrumb();
-    breadcrumb.setLevel(formatLevel(record.getLevel()));
-    breadcrumb.setCategory(record.getLoggerName());
+  private int parseIntOrDefault(final @NotNull String value, final int defaultValue) {
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
+  private @Nullable String formatBreadcrumbMessage(final @NotNull LogRecord record) {
     if (record.getParameters() != null) {
       try {
-        breadcrumb.setMessage(formatMessage(record.getMessage(), record.getParameters()));
+        return formatMessage(record.getMessage(), record.getParameters());
       } catch (RuntimeException e) {
-        breadcrumb.setMessage(record.getMessage());
+        return record.getMessage();
       }
-    } else {
-      breadcrumb.setMessage(record.getMessage());
     }
-    return breadcrumb;
+    return record.getMessage();
   }
 
   /**
@@ -157,12 +275,18 @@ public final class SentryHandler extends Handler {
   @SuppressWarnings("JdkObsolete")
   @NotNull
   SentryEvent createEvent(final @NotNull LogRecord record) {
+    return createEvent(record, MDC.getMDCAdapter().getCopyOfContextMap());
+  }
+
+  // for the Android compatibility we must use old Java Date class
+  @SuppressWarnings("JdkObsolete")
+  private @NotNull SentryEvent createEvent(
+      final @NotNull LogRecord record, final @Nullable Map<String, String> mdc) {
     final SentryEvent event = new SentryEvent(new Date(record.getMillis()));
     event.setLevel(formatLevel(record.getLevel()));
     event.setLogger(record.getLoggerName());
 
     final Message sentryMessage = new Message();
-    sentryMessage.setParams(toParams(record.getParameters()));
 
     String message = record.getMessage();
     if (record.getResourceBundle() != null
@@ -170,21 +294,27 @@ public final class SentryHandler extends Handler {
       message = record.getResourceBundle().getString(record.getMessage());
     }
     sentryMessage.setMessage(message);
-    if (record.getParameters() != null) {
-      try {
-        sentryMessage.setFormatted(formatMessage(message, record.getParameters()));
-      } catch (RuntimeException e) {
-        // local formatting failed, send message and parameters without formatted string
-      }
-    }
+    final String template = message;
+    final Object[] parameters = record.getParameters();
+    // formatted when the event is sent, after sampling and beforeSend had the chance to drop it
+    sentryMessage.setFormatter(
+        m -> {
+          m.setParams(toParams(parameters));
+          if (parameters != null) {
+            try {
+              m.setFormatted(formatMessage(template, parameters));
+            } catch (RuntimeException e) {
+              // local formatting failed, send message and parameters without formatted string
+            }
+          }
+        });
     event.setMessage(sentryMessage);
 
     final Throwable throwable = record.getThrown();
     if (throwable != null) {
       event.setThrowable(throwable);
     }
-    final Map<String, String> mdcProperties =
-        CollectionUtils.shallowCopy(MDC.getMDCAdapter().getCopyOfContextMap());
+    final Map<String, String> mdcProperties = CollectionUtils.shallowCopy(mdc);
     if (mdcProperties != null && !mdcProperties.isEmpty()) {
       event.getContexts().put("MDC", mdcProperties);
     }
@@ -227,6 +357,15 @@ public final class SentryHandler extends Handler {
 
   @Override
   public void close() throws SecurityException {
+    final AsyncCaptureQueue<PendingEvent> asyncQueue;
+    synchronized (this) {
+      async = false;
+      asyncQueue = this.asyncQueue;
+      this.asyncQueue = null;
+    }
+    if (asyncQueue != null) {
+      asyncQueue.close(AsyncCaptureQueue.DEFAULT_CLOSE_TIMEOUT_MILLIS);
+    }
     try {
       Sentry.close();
     } catch (RuntimeException e) {
@@ -277,6 +416,67 @@ public final class SentryHandler extends Handler {
     return printfStyle;
   }
 
+  /**
+   * Creates and captures events on a background thread instead of the logging thread. Events are
+   * discarded according to the discard policy once the queue is full. The async settings are read
+   * when the first event is logged.
+   *
+   * @param async true to capture events asynchronously
+   */
+  public void setAsync(final boolean async) {
+    this.async = async;
+  }
+
+  public boolean isAsync() {
+    return async;
+  }
+
+  public void setAsyncQueueSize(final int asyncQueueSize) {
+    this.asyncQueueSize = asyncQueueSize;
+  }
+
+  public int getAsyncQueueSize() {
+    return asyncQueueSize;
+  }
+
+  public void setAsyncBatchSize(final int asyncBatchSize) {
+    this.asyncBatchSize = asyncBatchSize;
+  }
+
+  public int getAsyncBatchSize() {
+    return asyncBatchSize;
+  }
+
+  public void setAsyncDiscardPolicy(
+      final @Nullable AsyncCaptureQueue.DiscardPolicy asyncDiscardPolicy) {
+    if (asyncDiscardPolicy != null) {
+      this.asyncDiscardPolicy = asyncDiscardPolicy;
+    }
+  }
+
+  public @NotNull AsyncCaptureQueue.DiscardPolicy getAsyncDiscardPolicy() {
+    return asyncDiscardPolicy;
+  }
+
+  /**
+   * A log record waiting in the async queue with the MDC and a snapshot of the hub of the thread
+   * that logged it.
+   */
+  private static final class PendingEvent {
+    private final @NotNull LogRecord record;
+    private final @Nullable Map<String, String> mdcProperties;
+    private final @NotNull IHub hub;
+
+    PendingEvent(
+        final @NotNull LogRecord record,
+        final @Nullable Map<String, String> mdcProperties,
+        final @NotNull IHub hub) {
+      this.record = record;
+      this.mdcProperties = mdcProperties;
+      this.hub = hub;
+    }
+  }
+
   private static final class DropSentryFilter implements Filter {
     @Override
     public boolean isLoggable(final @NotNull LogRecord record) {
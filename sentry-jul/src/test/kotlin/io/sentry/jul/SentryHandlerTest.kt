@@ -1,7 +1,9 @@
 package io.sentry.jul
 
+import com.nhaarman.mockitokotlin2.any
 import com.nhaarman.mockitokotlin2.anyOrNull
 import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
 import com.nhaarman.mockitokotlin2.verify
 import io.sentry.Sentry
 import io.sentry.SentryLevel
@@ -11,6 +13,9 @@ import io.sentry.transport.ITransport
 import java.time.Instant
 import java.time.LocalDateTime
 import java.time.ZoneId
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
 import java.util.logging.Level
 import java.util.logging.Logger
 import kotlin.test.AfterTest
@@ -24,7 +29,7 @@ import org.awaitility.kotlin.await
 import org.slf4j.MDC
 
 class SentryHandlerTest {
-    private class Fixture(minimumBreadcrumbLevel: Level? = null, minimumEventLevel: Level? = null, val configureWithLogManager: Boolean = false, val transport: ITransport = mock()) {
+    private class Fixture(minimumBreadcrumbLevel: Level? = null, minimumEventLevel: Level? = null, val configureWithLogManager: Boolean = false, val transport: ITransport = mock(), async: Boolean = false) {
         var logger: Logger
         var handler: SentryHandler
 
@@ -36,6 +41,7 @@ class SentryHandlerTest {
             handler = SentryHandler(options, configureWithLogManager)
             handler.setMinimumBreadcrumbLevel(minimumBreadcrumbLevel)
             handler.setMinimumEventLevel(minimumEventLevel)
+            handler.isAsync = async
             handler.level = Level.ALL
             logger.handlers.forEach { logger.removeHandler(it) }
             logger.addHandler(handler)
@@ -88,6 +94,49 @@ class SentryHandlerTest {
         }
     }
 
+    @Test
+    fun `captures events on a background thread in async mode`() {
+        fixture = Fixture(minimumEventLevel = Level.SEVERE, async = true)
+        MDC.put("key", "value")
+        fixture.logger.log(Level.SEVERE, "testing async message conversion {0}, {1}", arrayOf(1, 2))
+        MDC.clear()
+
+        await.untilAsserted {
+            verify(fixture.transport).send(checkEvent { event ->
+                assertEquals("testing async message conversion 1, 2", event.message.formatted)
+                assertEquals(listOf("1", "2"), event.message.params)
+                assertEquals(mapOf("key" to "value"), event.contexts["MDC"])
+            }, anyOrNull())
+        }
+    }
+
+    @Test
+    fun `in async mode, events get the scope of the time they were logged`() {
+        fixture = Fixture(async = true)
+        val logged = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val tag = AtomicReference<String>()
+        Sentry.getCurrentHub().options.setBeforeSend { event, _ ->
+            when (event.message?.message) {
+                "first" -> {
+                    logged.countDown()
+                    release.await(10, TimeUnit.SECONDS)
+                }
+                "second" -> tag.set(event.getTag("key"))
+            }
+            event
+        }
+        fixture.logger.severe("first")
+        // the worker is busy with the first event until the scope changes
+        assertTrue(logged.await(10, TimeUnit.SECONDS))
+        Sentry.configureScope { it.setTag("key", "before") }
+        fixture.logger.severe("second")
+        Sentry.configureScope { it.setTag("key", "after") }
+        release.countDown()
+
+        await.untilAsserted { assertEquals("before", tag.get()) }
+    }
+
     @Test
     fun `converts message with printf style enabled`() {
         fixture = Fixture(minimumEventLevel = Level.SEVERE)
@@ -219,6 +268,81 @@ class SentryHandlerTest {
         }
     }
 
+    @Test
+    fun `formats breadcrumbs with the arguments of the time they were logged`() {
+        fixture = Fixture(minimumBreadcrumbLevel = Level.INFO, minimumEventLevel = Level.WARNING)
+        val argument = mutableListOf("a")
+
+        fixture.logger.log(Level.INFO, "breadcrumb {0}", argument)
+        argument[0] = "b"
+        fixture.logger.log(Level.INFO, "breadcrumb {0}", argument)
+        fixture.logger.warning("testing message with breadcrumbs")
+
+        await.untilAsserted {
+            verify(fixture.transport).send(checkEvent { event ->
+                assertEquals(listOf("breadcrumb [a]", "breadcrumb [b]"), event.breadcrumbs.map { it.message })
+            }, anyOrNull())
+        }
+    }
+
+    @Test
+    fun `formats the message of events kept by beforeSend`() {
+        fixture = Fixture(minimumEventLevel = Level.FINE)
+        Sentry.getCurrentHub().options.setBeforeSend { event, _ ->
+            event.setTag("kept", "true")
+            event
+        }
+        fixture.logger.log(Level.FINE, "lazy message {0}", "argument")
+
+        await.untilAsserted {
+            verify(fixture.transport).send(checkEvent { event ->
+                assertEquals("lazy message {0}", event.message.message)
+                assertEquals("lazy message argument", event.message.formatted)
+                assertEquals(listOf("argument"), event.message.params)
+                assertEquals("true", event.getTag("kept"))
+            }, anyOrNull())
+        }
+    }
+
+    @Test
+    fun `does not format the message of events dropped by beforeSend`() {
+        fixture = Fixture(minimumEventLevel = Level.FINE)
+        val argument = CountingArgument()
+        var dropped = false
+        Sentry.getCurrentHub().options.setBeforeSend { _, _ ->
+            dropped = true
+            null
+        }
+        // the console handler of the root logger would format the message
+        fixture.logger.useParentHandlers = false
+        try {
+            fixture.logger.log(Level.FINE, "lazy message {0}", argument)
+        } finally {
+            fixture.logger.useParentHandlers = true
+        }
+
+        assertTrue(dropped)
+        assertEquals(0, argument.formatted)
+        verify(fixture.transport, never()).send(any(), anyOrNull())
+    }
+
+    @Test
+    fun `does not format the message of events dropped by sampling`() {
+        fixture = Fixture(minimumEventLevel = Level.FINE)
+        val argument = CountingArgument()
+        Sentry.getCurrentHub().options.sampleRate = Double.MIN_VALUE
+        // the console handler of the root logger would format the message
+        fixture.logger.useParentHandlers = false
+        try {
+            fixture.logger.log(Level.FINE, "lazy message {0}", argument)
+        } finally {
+            fixture.logger.useParentHandlers = true
+        }
+
+        assertEquals(0, argument.formatted)
+        verify(fixture.transport, never()).send(any(), anyOrNull())
+    }
+
     @Test
     fun `does not attach breadcrumbs with level lower than minimumBreadcrumbLevel`() {
         fixture = Fixture(minimumBreadcrumbLevel = Level.INFO, minimumEventLevel = Level.WARNING)
@@ -318,4 +442,14 @@ class SentryHandlerTest {
             }, anyOrNull())
         }
     }
+
+    /** Counts how many times it is formatted. */
+    private class CountingArgument {
+        var formatted = 0
+
+        override fun toString(): String {
+            formatted++
+            return "argument"
+        }
+    }
 }
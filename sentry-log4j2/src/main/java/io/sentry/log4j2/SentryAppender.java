@@ -1,10 +1,12 @@
 package io.sentry.log4j2;
 
-import io.sentry.Breadcrumb;
+import io.sentry.AsyncCaptureQueue;
 import io.sentry.DateUtils;
 import io.sentry.HubAdapter;
 import io.sentry.IHub;
 import io.sentry.ITransportFactory;
+import io.sentry.LogBreadcrumbs;
+import io.sentry.NoOpLogger;
 import io.sentry.Sentry;
 import io.sentry.SentryEvent;
 import io.sentry.SentryLevel;
@@ -12,13 +14,12 @@ import io.sentry.SentryOptions;
 import io.sentry.protocol.Message;
 import io.sentry.protocol.SdkVersion;
 import io.sentry.util.CollectionUtils;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.Filter;
 import org.apache.logging.log4j.core.LogEvent;
@@ -34,11 +35,21 @@ import org.jetbrains.annotations.Nullable;
 /** Appender for Log4j2 in charge of sending the logged events to a Sentry server. */
 @Plugin(name = "Sentry", category = "Core", elementType = "appender", printObject = true)
 public final class SentryAppender extends AbstractAppender {
+  /** Formats the message of the breadcrumbs when the line is logged. */
+  private static final @NotNull LogBreadcrumbs.MessageFormatter BREADCRUMB_MESSAGE_FORMATTER =
+      message -> ((org.apache.logging.log4j.message.Message) message).getFormattedMessage();
+
   private final @Nullable String dsn;
   private final @Nullable ITransportFactory transportFactory;
   private @NotNull Level minimumBreadcrumbLevel = Level.INFO;
   private @NotNull Level minimumEventLevel = Level.ERROR;
   private final @NotNull IHub hub;
+  private boolean async;
+  private int asyncQueueSize = AsyncCaptureQueue.DEFAULT_QUEUE_SIZE;
+  private int asyncBatchSize = AsyncCaptureQueue.DEFAULT_BATCH_SIZE;
+  private @NotNull AsyncCaptureQueue.DiscardPolicy asyncDiscardPolicy =
+      AsyncCaptureQueue.DiscardPolicy.DISCARD_NEWEST;
+  private @Nullable AsyncCaptureQueue<PendingEvent> asyncQueue;
 
   public SentryAppender(
       final @NotNull String name,
@@ -68,6 +79,10 @@ public final class SentryAppender extends AbstractAppender {
    * @param minimumEventLevel The min. level of the event.
    * @param dsn the Sentry DSN.
    * @param filter The filter, if any, to use.
+   * @param async If events are created and captured on a background thread.
+   * @param asyncQueueSize The max number of events waiting to be captured in async mode.
+   * @param asyncBatchSize The max number of events captured in one batch in async mode.
+   * @param asyncDiscardPolicy What happens to events logged when the async queue is full.
    * @return The SentryAppender.
    */
   @PluginFactory
@@ -76,20 +91,32 @@ public final class SentryAppender extends AbstractAppender {
       @PluginAttribute("minimumBreadcrumbLevel") final Level minimumBreadcrumbLevel,
       @PluginAttribute("minimumEventLevel") final Level minimumEventLevel,
       @PluginAttribute("dsn") final String dsn,
-      @PluginElement("filter") final Filter filter) {
+      @PluginElement("filter") final Filter filter,
+      @PluginAttribute("async") final boolean async,
+      @PluginAttribute(value = "asyncQueueSize", defaultInt = AsyncCaptureQueue.DEFAULT_QUEUE_SIZE)
+          final int asyncQueueSize,
+      @PluginAttribute(value = "asyncBatchSize", defaultInt = AsyncCaptureQueue.DEFAULT_BATCH_SIZE)
+          final int asyncBatchSize,
+      @PluginAttribute("asyncDiscardPolicy") final String asyncDiscardPolicy) {
 
     if (name == null) {
       LOGGER.error("No name provided for SentryAppender");
       return null;
     }
-    return new SentryAppender(
-        name,
-        filter,
-        dsn,
-        minimumBreadcrumbLevel,
-        minimumEventLevel,
-        null,
-        HubAdapter.getInstance());
+    final SentryAppender appender =
+        new SentryAppender(
+            name,
+            filter,
+            dsn,
+            minimumBreadcrumbLevel,
+            minimumEventLevel,
+            null,
+            HubAdapter.getInstance());
+    appender.setAsync(async);
+    appender.setAsyncQueueSize(asyncQueueSize);
+    appender.setAsyncBatchSize(asyncBatchSize);
+    appender.setAsyncDiscardPolicy(AsyncCaptureQueue.DiscardPolicy.parse(asyncDiscardPolicy));
+    return appender;
   }
 
   @Override
@@ -108,16 +135,51 @@ public final class SentryAppender extends AbstractAppender {
         LOGGER.info("Failed to init Sentry during appender initialization: " + e.getMessage());
       }
     }
+    if (async) {
+      asyncQueue =
+          new AsyncCaptureQueue<>(
+              "SentryLog4j2Appender",
+              asyncQueueSize,
+              asyncBatchSize,
+              asyncDiscardPolicy,
+              this::captureEvents,
+              NoOpLogger.getInstance());
+    }
     super.start();
   }
 
+  @Override
+  public boolean stop(final long timeout, final @NotNull TimeUnit timeUnit) {
+    final AsyncCaptureQueue<PendingEvent> asyncQueue = this.asyncQueue;
+    if (asyncQueue != null) {
+      asyncQueue.close(
+          timeout > 0
+              ? timeUnit.toMillis(timeout)
+              : AsyncCaptureQueue.DEFAULT_CLOSE_TIMEOUT_MILLIS);
+      this.asyncQueue = null;
+    }
+    return super.stop(timeout, timeUnit);
+  }
+
   @Override
   public void append(final @NotNull LogEvent eventObject) {
     if (eventObject.getLevel().isMoreSpecificThan(minimumEventLevel)) {
-      hub.captureEvent(createEvent(eventObject));
+      final AsyncCaptureQueue<PendingEvent> asyncQueue = this.asyncQueue;
+      if (asyncQueue != null) {
+        // mutable log events are reused once this method returns
+        asyncQueue.offer(() -> new PendingEvent(eventObject.toImmutable(), snapshotCurrentHub()));
+      } else {
+        hub.captureEvent(createEvent(eventObject));
+      }
     }
     if (eventObject.getLevel().isMoreSpecificThan(minimumBreadcrumbLevel)) {
-      hub.addBreadcrumb(createBreadcrumb(eventObject));
+      // the message is formatted right away, before a reusable message is overwritten
+      hub.addLogBreadcrumb(
+          eventObject.getTimeMillis(),
+          formatLevel(eventObject.getLevel()),
+          eventObject.getLoggerName(),
+          eventObject.getMessage(),
+          BREADCRUMB_MESSAGE_FORMATTER);
     }
   }
 
@@ -132,9 +194,14 @@ public final class SentryAppender extends AbstractAppender {
   final @NotNull SentryEvent createEvent(final @NotNull LogEvent loggingEvent) {
     final SentryEvent event = new SentryEvent(DateUtils.getDateTime(loggingEvent.getTimeMillis()));
     final Message message = new Message();
-    message.setMessage(loggingEvent.getMessage().getFormat());
-    message.setFormatted(loggingEvent.getMessage().getFormattedMessage());
-    message.setParams(toParams(loggingEvent.getMessage().getParameters()));
+    final org.apache.logging.log4j.message.Message logMessage = loggingEvent.getMessage();
+    message.setMessage(logMessage.getFormat());
+    // formatted when the event is sent, after sampling and beforeSend had the chance to drop it
+    message.setFormatter(
+        m -> {
+          m.setFormatted(logMessage.getFormattedMessage());
+          m.setParams(toParams(logMessage.getParameters()));
+        });
     event.setMessage(message);
     event.setLogger(loggingEvent.getLoggerName());
     event.setLevel(formatLevel(loggingEvent.getLevel()));
@@ -157,29 +224,51 @@ public final class SentryAppender extends AbstractAppender {
     return event;
   }
 
-  private @NotNull List<String> toParams(final @Nullable Object[] arguments) {
-    if (arguments != null) {
-      return Arrays.stream(arguments)
-          .filter(Objects::nonNull)
-          .map(Object::toString)
-          .collect(Collectors.toList());
-    } else {
-      return Collections.emptyList();
-    }
+  /**
+   * Takes a snapshot of the hub events logged on the current thread are captured with. {@link
+   * HubAdapter} resolves the hub of the calling thread, so the async worker must be given the hub
+   * of the thread that logged, and a snapshot of it so the event doesn't get the tags or
+   * breadcrumbs set after it was logged.
+   *
+   * @return the snapshot of the hub
+   */
+  private @NotNull IHub snapshotCurrentHub() {
+    return (hub instanceof HubAdapter ? Sentry.getCurrentHub() : hub).snapshot();
   }
 
   /**
-   * Creates {@link Breadcrumb} from log4j2 {@link LogEvent}.
+   * Creates and captures the events of a batch taken from the async queue, the events logged in a
+   * row with the same hub snapshot together.
    *
-   * @param loggingEvent the log4j2 event
-   * @return the sentry breadcrumb
+   * @param batch the logged events
    */
-  private @NotNull Breadcrumb createBreadcrumb(final @NotNull LogEvent loggingEvent) {
-    final Breadcrumb breadcrumb = new Breadcrumb();
-    breadcrumb.setLevel(formatLevel(loggingEvent.getLevel()));
-    breadcrumb.setCategory(loggingEvent.getLoggerName());
-    breadcrumb.setMessage(loggingEvent.getMessage().getFormattedMessage());
-    return breadcrumb;
+  private void captureEvents(final @NotNull List<PendingEvent> batch) {
+    final List<SentryEvent> events = new ArrayList<>(batch.size());
+    IHub snapshot = null;
+    for (final PendingEvent pendingEvent : batch) {
+      if (snapshot != null && snapshot != pendingEvent.hub) {
+        snapshot.captureEvents(events);
+        events.clear();
+      }
+      snapshot = pendingEvent.hub;
+      events.add(createEvent(pendingEvent.loggingEvent));
+    }
+    if (snapshot != null) {
+      snapshot.captureEvents(events);
+    }
+  }
+
+  private static @NotNull List<String> toParams(final @Nullable Object[] arguments) {
+    if (arguments == null || arguments.length == 0) {
+      return Collections.emptyList();
+    }
+    final List<String> params = new ArrayList<>(arguments.length);
+    for (final Object argument : arguments) {
+      if (argument != null) {
+        params.add(argument.toString());
+      }
+    }
+    return params;
   }
 
   /**
@@ -213,4 +302,59 @@ public final class SentryAppender extends AbstractAppender {
 
     return sdkVersion;
   }
+
+  /**
+   * Creates and captures events on a background thread instead of the logging thread. Events are
+   * discarded according to the discard policy once the queue is full. Must be set before the
+   * appender is started.
+   *
+   * @param async true to capture events asynchronously
+   */
+  public void setAsync(final boolean async) {
+    this.async = async;
+  }
+
+  public boolean isAsync() {
+    return async;
+  }
+
+  public void setAsyncQueueSize(final int asyncQueueSize) {
+    this.asyncQueueSize = asyncQueueSize;
+  }
+
+  public int getAsyncQueueSize() {
+    return asyncQueueSize;
+  }
+
+  public void setAsyncBatchSize(final int asyncBatchSize) {
+    this.asyncBatchSize = asyncBatchSize;
+  }
+
+  public int getAsyncBatchSize() {
+    return asyncBatchSize;
+  }
+
+  public void setAsyncDiscardPolicy(
+      final @Nullable AsyncCaptureQueue.DiscardPolicy asyncDiscardPolicy) {
+    if (asyncDiscardPolicy != null) {
+      this.asyncDiscardPolicy = asyncDiscardPolicy;
+    }
+  }
+
+  public @NotNull AsyncCaptureQueue.DiscardPolicy getAsyncDiscardPolicy() {
+    return asyncDiscardPolicy;
+  }
+
+  /**
+   * A log event waiting in the async queue with a snapshot of the hub of the thread that logged it.
+   */
+  private static final class PendingEvent {
+    private final @NotNull LogEvent loggingEvent;
+    private final @NotNull IHub hub;
+
+    PendingEvent(final @NotNull LogEvent loggingEvent, final @NotNull IHub hub) {
+      this.loggingEvent = loggingEvent;
+      this.hub = hub;
+    }
+  }
 }
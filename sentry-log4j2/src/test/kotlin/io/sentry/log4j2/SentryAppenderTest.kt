@@ -3,6 +3,7 @@ package io.sentry.log4j2
 import com.nhaarman.mockitokotlin2.any
 import com.nhaarman.mockitokotlin2.anyOrNull
 import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
 import com.nhaarman.mockitokotlin2.verify
 import com.nhaarman.mockitokotlin2.whenever
 import io.sentry.HubAdapter
@@ -14,6 +15,9 @@ import io.sentry.transport.ITransport
 import java.time.Instant
 import java.time.LocalDateTime
 import java.time.ZoneId
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
 import kotlin.test.AfterTest
 import kotlin.test.BeforeTest
 import kotlin.test.Test
@@ -42,13 +46,14 @@ class SentryAppenderTest {
             whenever(transportFactory.create(any(), any())).thenReturn(transport)
         }
 
-        fun getSut(transportFactory: ITransportFactory? = null, minimumBreadcrumbLevel: Level? = null, minimumEventLevel: Level? = null): ExtendedLogger {
+        fun getSut(transportFactory: ITransportFactory? = null, minimumBreadcrumbLevel: Level? = null, minimumEventLevel: Level? = null, async: Boolean = false): ExtendedLogger {
             if (transportFactory != null) {
                 this.transportFactory = transportFactory
             }
             loggerContext.start()
             val config: Configuration = loggerContext.configuration
             val appender = SentryAppender("sentry", null, "http://key@localhost/proj", minimumBreadcrumbLevel, minimumEventLevel, this.transportFactory, HubAdapter.getInstance())
+            appender.isAsync = async
             config.addAppender(appender)
 
             val ref = AppenderRef.createAppenderRef("sentry", null, null)
@@ -79,6 +84,51 @@ class SentryAppenderTest {
         ThreadContext.clearAll()
     }
 
+    @Test
+    fun `captures events on a background thread in async mode`() {
+        val logger = fixture.getSut(minimumEventLevel = Level.DEBUG, async = true)
+        ThreadContext.put("key", "value")
+        logger.debug("testing async message conversion {}, {}", 1, 2)
+        ThreadContext.clearAll()
+
+        val threadName = Thread.currentThread().name
+        await.untilAsserted {
+            verify(fixture.transport).send(checkEvent { event ->
+                assertEquals("testing async message conversion 1, 2", event.message.formatted)
+                assertEquals(listOf("1", "2"), event.message.params)
+                assertEquals(mapOf("key" to "value"), event.contexts["Context Data"])
+                assertEquals(threadName, event.getExtra("thread_name"))
+            }, anyOrNull())
+        }
+    }
+
+    @Test
+    fun `in async mode, events get the scope of the time they were logged`() {
+        val logger = fixture.getSut(async = true)
+        val logged = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val tag = AtomicReference<String>()
+        Sentry.getCurrentHub().options.setBeforeSend { event, _ ->
+            when (event.message?.message) {
+                "first" -> {
+                    logged.countDown()
+                    release.await(10, TimeUnit.SECONDS)
+                }
+                "second" -> tag.set(event.getTag("key"))
+            }
+            event
+        }
+        logger.error("first")
+        // the worker is busy with the first event until the scope changes
+        assertTrue(logged.await(10, TimeUnit.SECONDS))
+        Sentry.configureScope { it.setTag("key", "before") }
+        logger.error("second")
+        Sentry.configureScope { it.setTag("key", "after") }
+        release.countDown()
+
+        await.untilAsserted { assertEquals("before", tag.get()) }
+    }
+
     @Test
     fun `does not initialize Sentry if Sentry is already enabled`() {
         Sentry.init {
@@ -284,6 +334,71 @@ class SentryAppenderTest {
         }
     }
 
+    @Test
+    fun `formats breadcrumbs with the arguments of the time they were logged`() {
+        val logger = fixture.getSut(minimumEventLevel = Level.WARN, minimumBreadcrumbLevel = Level.INFO)
+        val argument = mutableListOf("a")
+
+        logger.info("breadcrumb {}", argument)
+        argument[0] = "b"
+        logger.info("breadcrumb {}", argument)
+        logger.warn("testing message with breadcrumbs")
+
+        await.untilAsserted {
+            verify(fixture.transport).send(checkEvent { event ->
+                assertEquals(listOf("breadcrumb [a]", "breadcrumb [b]"), event.breadcrumbs.map { it.message })
+            }, anyOrNull())
+        }
+    }
+
+    @Test
+    fun `formats the message of events kept by beforeSend`() {
+        val logger = fixture.getSut(minimumEventLevel = Level.DEBUG)
+        Sentry.getCurrentHub().options.setBeforeSend { event, _ ->
+            event.setTag("kept", "true")
+            event
+        }
+        logger.debug("lazy message {}", "argument")
+
+        await.untilAsserted {
+            verify(fixture.transport).send(checkEvent { event ->
+                assertEquals("lazy message {}", event.message.message)
+                assertEquals("lazy message argument", event.message.formatted)
+                assertEquals(listOf("argument"), event.message.params)
+                assertEquals("true", event.getTag("kept"))
+            }, anyOrNull())
+        }
+    }
+
+    @Test
+    fun `does not format the message of events dropped by beforeSend`() {
+        val logger = fixture.getSut(minimumEventLevel = Level.DEBUG)
+        val argument = CountingArgument()
+        var dropped = false
+        Sentry.getCurrentHub().options.setBeforeSend { _, _ ->
+            dropped = true
+            null
+        }
+        logger.debug("lazy message {}", argument)
+
+        assertTrue(dropped)
+        // log4j2 formats reusable messages when it creates the log event, Sentry must not format it again
+        assertEquals(1, argument.formatted)
+        verify(fixture.transport, never()).send(any(), anyOrNull())
+    }
+
+    @Test
+    fun `does not format the message of events dropped by sampling`() {
+        val logger = fixture.getSut(minimumEventLevel = Level.DEBUG)
+        val argument = CountingArgument()
+        Sentry.getCurrentHub().options.sampleRate = Double.MIN_VALUE
+        logger.debug("lazy message {}", argument)
+
+        // log4j2 formats reusable messages when it creates the log event, Sentry must not format it again
+        assertEquals(1, argument.formatted)
+        verify(fixture.transport, never()).send(any(), anyOrNull())
+    }
+
     @Test
     fun `does not attach breadcrumbs with level lower than minimumBreadcrumbLevel`() {
         val logger = fixture.getSut(minimumEventLevel = Level.WARN, minimumBreadcrumbLevel = Level.INFO)
@@ -329,4 +444,14 @@ class SentryAppenderTest {
             }, anyOrNull())
         }
     }
+
+    /** Counts how many times it is formatted. */
+    private class CountingArgument {
+        var formatted = 0
+
+        override fun toString(): String {
+            formatted++
+            return "argument"
+        }
+    }
 }
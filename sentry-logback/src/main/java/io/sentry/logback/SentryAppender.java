@@ -4,9 +4,11 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.ThrowableProxy;
 import ch.qos.logback.core.UnsynchronizedAppenderBase;
-import io.sentry.Breadcrumb;
+import io.sentry.AsyncCaptureQueue;
 import io.sentry.DateUtils;
+import io.sentry.IHub;
 import io.sentry.ITransportFactory;
+import io.sentry.LogBreadcrumbs;
 import io.sentry.Sentry;
 import io.sentry.SentryEvent;
 import io.sentry.SentryLevel;
@@ -14,23 +16,31 @@ import io.sentry.SentryOptions;
 import io.sentry.protocol.Message;
 import io.sentry.protocol.SdkVersion;
 import io.sentry.util.CollectionUtils;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /** Appender for logback in charge of sending the logged events to a Sentry server. */
 public final class SentryAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+  /** Formats the message of the breadcrumbs when the line is logged. */
+  private static final @NotNull LogBreadcrumbs.MessageFormatter BREADCRUMB_MESSAGE_FORMATTER =
+      loggingEvent -> ((ILoggingEvent) loggingEvent).getFormattedMessage();
+
   private @NotNull SentryOptions options = new SentryOptions();
   private @Nullable ITransportFactory transportFactory;
   private @NotNull Level minimumBreadcrumbLevel = Level.INFO;
   private @NotNull Level minimumEventLevel = Level.ERROR;
+  private boolean async;
+  private int asyncQueueSize = AsyncCaptureQueue.DEFAULT_QUEUE_SIZE;
+  private int asyncBatchSize = AsyncCaptureQueue.DEFAULT_BATCH_SIZE;
+  private @NotNull AsyncCaptureQueue.DiscardPolicy asyncDiscardPolicy =
+      AsyncCaptureQueue.DiscardPolicy.DISCARD_NEWEST;
+  private @Nullable AsyncCaptureQueue<PendingEvent> asyncQueue;
 
   @Override
   public void start() {
@@ -51,16 +61,53 @@ public final class SentryAppender extends UnsynchronizedAppenderBase<ILoggingEve
             .log(SentryLevel.WARNING, "DSN is null. SentryAppender is not being initialized");
       }
     }
+    if (async) {
+      asyncQueue =
+          new AsyncCaptureQueue<>(
+              "SentryLogbackAppender",
+              asyncQueueSize,
+              asyncBatchSize,
+              asyncDiscardPolicy,
+              this::captureEvents,
+              options.getLogger());
+    }
     super.start();
   }
 
+  @Override
+  public void stop() {
+    final AsyncCaptureQueue<PendingEvent> asyncQueue = this.asyncQueue;
+    if (asyncQueue != null) {
+      asyncQueue.close(AsyncCaptureQueue.DEFAULT_CLOSE_TIMEOUT_MILLIS);
+      this.asyncQueue = null;
+    }
+    super.stop();
+  }
+
   @Override
   protected void append(@NotNull ILoggingEvent eventObject) {
     if (eventObject.getLevel().isGreaterOrEqual(minimumEventLevel)) {
-      Sentry.captureEvent(createEvent(eventObject));
+      final AsyncCaptureQueue<PendingEvent> asyncQueue = this.asyncQueue;
+      if (asyncQueue != null) {
+        // message, thread name and MDC must be taken on the logging thread, and a snapshot of the
+        // scope too, so the event doesn't get the tags or breadcrumbs set after it was logged
+        asyncQueue.offer(
+            () -> {
+              eventObject.prepareForDeferredProcessing();
+              return new PendingEvent(eventObject, Sentry.getCurrentHub().snapshot());
+            });
+      } else {
+        Sentry.captureEvent(createEvent(eventObject));
+      }
     }
     if (eventObject.getLevel().isGreaterOrEqual(minimumBreadcrumbLevel)) {
-      Sentry.addBreadcrumb(createBreadcrumb(eventObject));
+      Sentry.getCurrentHub()
+          .addLogBreadcrumb(
+              eventObject.getTimeStamp(),
+              formatLevel(eventObject.getLevel()),
+              eventObject.getLoggerName(),
+              eventObject,
+              BREADCRUMB_MESSAGE_FORMATTER);
     }
   }
 
@@ -76,8 +123,12 @@ public final class SentryAppender extends UnsynchronizedAppenderBase<ILoggingEve
     final SentryEvent event = new SentryEvent(DateUtils.getDateTime(loggingEvent.getTimeStamp()));
     final Message message = new Message();
     message.setMessage(loggingEvent.getMessage());
-    message.setFormatted(loggingEvent.getFormattedMessage());
-    message.setParams(toParams(loggingEvent.getArgumentArray()));
+    // formatted when the event is sent, after sampling and beforeSend had the chance to drop it
+    message.setFormatter(
+        m -> {
+          m.setFormatted(loggingEvent.getFormattedMessage());
+          m.setParams(toParams(loggingEvent.getArgumentArray()));
+        });
     event.setMessage(message);
     event.setLogger(loggingEvent.getLoggerName());
     event.setLevel(formatLevel(loggingEvent.getLevel()));
@@ -100,29 +151,39 @@ public final class SentryAppender extends UnsynchronizedAppenderBase<ILoggingEve
     return event;
   }
 
-  private @NotNull List<String> toParams(@Nullable Object[] arguments) {
-    if (arguments != null) {
-      return Arrays.stream(arguments)
-          .filter(Objects::nonNull)
-          .map(Object::toString)
-          .collect(Collectors.toList());
-    } else {
-      return Collections.emptyList();
-    }
-  }
-
   /**
-   * Creates {@link Breadcrumb} from Logback's {@link ILoggingEvent}.
+   * Creates and captures the events of a batch taken from the async queue, the events logged in a
+   * row with the same scope snapshot together.
    *
-   * @param loggingEvent the logback event
-   * @return the sentry breadcrumb
+   * @param batch the logged events
    */
-  private @NotNull Breadcrumb createBreadcrumb(final @NotNull ILoggingEvent loggingEvent) {
-    final Breadcrumb breadcrumb = new Breadcrumb();
-    breadcrumb.setLevel(formatLevel(loggingEvent.getLevel()));
-    breadcrumb.setCategory(loggingEvent.getLoggerName());
-    breadcrumb.setMessage(loggingEvent.getFormattedMessage());
-    return breadcrumb;
+  private void captureEvents(final @NotNull List<PendingEvent> batch) {
+    final List<SentryEvent> events = new ArrayList<>(batch.size());
+    IHub snapshot = null;
+    for (final PendingEvent pendingEvent : batch) {
+      if (snapshot != null && snapshot != pendingEvent.hub) {
+        snapshot.captureEvents(events);
+        events.clear();
+      }
+      snapshot = pendingEvent.hub;
+      events.add(createEvent(pendingEvent.loggingEvent));
+    }
+    if (snapshot != null) {
+      snapshot.captureEvents(events);
+    }
+  }
+
+  private static @NotNull List<String> toParams(final @Nullable Object[] arguments) {
+    if (arguments == null || arguments.length == 0) {
+      return Collections.emptyList();
+    }
+    final List<String> params = new ArrayList<>(arguments.length);
+    for (final Object argument : arguments) {
+      if (argument != null) {
+        params.add(argument.toString());
+      }
+    }
+    return params;
   }
 
   /**
@@ -179,8 +240,64 @@ public final class SentryAppender extends UnsynchronizedAppenderBase<ILoggingEve
     return minimumEventLevel;
   }
 
+  /**
+   * Creates and captures events on a background thread instead of the logging thread. Events are
+   * discarded according to the discard policy once the queue is full. Must be set before the
+   * appender is started.
+   *
+   * @param async true to capture events asynchronously
+   */
+  public void setAsync(final boolean async) {
+    this.async = async;
+  }
+
+  public boolean isAsync() {
+    return async;
+  }
+
+  public void setAsyncQueueSize(final int asyncQueueSize) {
+    this.asyncQueueSize = asyncQueueSize;
+  }
+
+  public int getAsyncQueueSize() {
+    return asyncQueueSize;
+  }
+
+  public void setAsyncBatchSize(final int asyncBatchSize) {
+    this.asyncBatchSize = asyncBatchSize;
+  }
+
+  public int getAsyncBatchSize() {
+    return asyncBatchSize;
+  }
+
+  public void setAsyncDiscardPolicy(
+      final @Nullable AsyncCaptureQueue.DiscardPolicy asyncDiscardPolicy) {
+    if (asyncDiscardPolicy != null) {
+      this.asyncDiscardPolicy = asyncDiscardPolicy;
+    }
+  }
+
+  public @NotNull AsyncCaptureQueue.DiscardPolicy getAsyncDiscardPolicy() {
+    return asyncDiscardPolicy;
+  }
+
   @ApiStatus.Internal
   void setTransportFactory(final @Nullable ITransportFactory transportFactory) {
     this.transportFactory = transportFactory;
   }
+
+  /**
+   * A logging event waiting in the async queue with a clone of the hub of the thread that logged
+   * it.
+   */
+  private static final class PendingEvent {
+    private final @NotNull ILoggingEvent loggingEvent;
+    private final @NotNull IHub hub;
+
+    PendingEvent(final @NotNull ILoggingEvent loggingEvent, final @NotNull IHub hub) {
+      this.loggingEvent = loggingEvent;
+      this.hub = hub;
+    }
+  }
 }
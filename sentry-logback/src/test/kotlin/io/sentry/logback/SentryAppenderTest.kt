@@ -6,6 +6,7 @@ import ch.qos.logback.core.status.Status
 import com.nhaarman.mockitokotlin2.any
 import com.nhaarman.mockitokotlin2.anyOrNull
 import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
 import com.nhaarman.mockitokotlin2.verify
 import com.nhaarman.mockitokotlin2.whenever
 import io.sentry.ITransportFactory
@@ -17,6 +18,10 @@ import io.sentry.transport.ITransport
 import java.time.Instant
 import java.time.LocalDateTime
 import java.time.ZoneId
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
 import kotlin.test.AfterTest
 import kotlin.test.BeforeTest
 import kotlin.test.Test
@@ -30,7 +35,7 @@ import org.slf4j.LoggerFactory
 import org.slf4j.MDC
 
 class SentryAppenderTest {
-    private class Fixture(dsn: String? = "http://key@localhost/proj", minimumBreadcrumbLevel: Level? = null, minimumEventLevel: Level? = null) {
+    private class Fixture(dsn: String? = "http://key@localhost/proj", minimumBreadcrumbLevel: Level? = null, minimumEventLevel: Level? = null, async: Boolean = false) {
         val logger: Logger = LoggerFactory.getLogger(SentryAppenderTest::class.java)
         val loggerContext = LoggerFactory.getILoggerFactory() as LoggerContext
         val transportFactory = mock<ITransportFactory>()
@@ -45,6 +50,7 @@ class SentryAppenderTest {
             appender.setOptions(options)
             appender.setMinimumBreadcrumbLevel(minimumBreadcrumbLevel)
             appender.setMinimumEventLevel(minimumEventLevel)
+            appender.isAsync = async
             appender.context = loggerContext
             appender.setTransportFactory(transportFactory)
             val rootLogger = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME)
@@ -85,6 +91,81 @@ class SentryAppenderTest {
         }
     }
 
+    @Test
+    fun `captures events on a background thread in async mode`() {
+        fixture = Fixture(minimumEventLevel = Level.DEBUG, async = true)
+        MDC.put("key", "value")
+        fixture.logger.debug("testing async message conversion {}, {}", 1, 2)
+        MDC.clear()
+
+        val threadName = Thread.currentThread().name
+        await.untilAsserted {
+            verify(fixture.transport).send(checkEvent { event ->
+                assertEquals("testing async message conversion 1, 2", event.message.formatted)
+                assertEquals(listOf("1", "2"), event.message.params)
+                assertEquals(mapOf("key" to "value"), event.contexts["MDC"])
+                assertEquals(threadName, event.getExtra("thread_name"))
+            }, anyOrNull())
+        }
+    }
+
+    @Test
+    fun `in async mode, events get the scope of the time they were logged`() {
+        fixture = Fixture(async = true)
+        val logged = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val tag = AtomicReference<String>()
+        Sentry.getCurrentHub().options.setBeforeSend { event, _ ->
+            when (event.message?.message) {
+                "first" -> {
+                    logged.countDown()
+                    release.await(10, TimeUnit.SECONDS)
+                }
+                "second" -> tag.set(event.getTag("key"))
+            }
+            event
+        }
+        fixture.logger.error("first")
+        // the worker is busy with the first event until the scope changes
+        assertTrue(logged.await(10, TimeUnit.SECONDS))
+        Sentry.configureScope { it.setTag("key", "before") }
+        fixture.logger.error("second")
+        Sentry.configureScope { it.setTag("key", "after") }
+        release.countDown()
+
+        await.untilAsserted { assertEquals("before", tag.get()) }
+    }
+
+    @Test
+    fun `in async mode, events logged in a row share the scope snapshot until the scope changes`() {
+        fixture = Fixture(async = true)
+        val logged = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val tags = ConcurrentHashMap<String, String>()
+        Sentry.getCurrentHub().options.setBeforeSend { event, _ ->
+            val message = event.message!!.message!!
+            if (message == "first") {
+                logged.countDown()
+                release.await(10, TimeUnit.SECONDS)
+            } else {
+                tags[message] = event.getTag("key")!!
+            }
+            event
+        }
+        fixture.logger.error("first")
+        assertTrue(logged.await(10, TimeUnit.SECONDS))
+        Sentry.configureScope { it.setTag("key", "one") }
+        fixture.logger.error("second")
+        fixture.logger.error("third")
+        Sentry.configureScope { it.setTag("key", "two") }
+        fixture.logger.error("fourth")
+        release.countDown()
+
+        await.untilAsserted {
+            assertEquals(mapOf("second" to "one", "third" to "one", "fourth" to "two"), tags)
+        }
+    }
+
     @Test
     fun `converts message`() {
         fixture = Fixture(minimumEventLevel = Level.DEBUG)
@@ -261,6 +342,73 @@ class SentryAppenderTest {
         }
     }
 
+    @Test
+    fun `formats breadcrumbs with the arguments of the time they were logged`() {
+        fixture = Fixture(minimumBreadcrumbLevel = Level.INFO, minimumEventLevel = Level.WARN)
+        val argument = mutableListOf("a")
+
+        fixture.logger.info("breadcrumb {}", argument)
+        argument[0] = "b"
+        fixture.logger.info("breadcrumb {}", argument)
+        fixture.logger.warn("testing message with breadcrumbs")
+
+        await.untilAsserted {
+            verify(fixture.transport).send(checkEvent { event ->
+                assertEquals(listOf("breadcrumb [a]", "breadcrumb [b]"), event.breadcrumbs.map { it.message })
+            }, anyOrNull())
+        }
+    }
+
+    @Test
+    fun `formats the message of events kept by beforeSend`() {
+        fixture = Fixture(minimumEventLevel = Level.DEBUG)
+        Sentry.getCurrentHub().options.setBeforeSend { event, _ ->
+            event.setTag("kept", "true")
+            event
+        }
+        fixture.logger.debug("lazy message {}", "argument")
+
+        await.untilAsserted {
+            verify(fixture.transport).send(checkEvent { event ->
+                assertEquals("lazy message {}", event.message.message)
+                assertEquals("lazy message argument", event.message.formatted)
+                assertEquals(listOf("argument"), event.message.params)
+                assertEquals("true", event.getTag("kept"))
+            }, anyOrNull())
+        }
+    }
+
+    @Test
+    fun `does not format the message of events dropped by beforeSend`() {
+        fixture = Fixture(minimumEventLevel = Level.DEBUG)
+        val argument = CountingArgument()
+        var dropped = false
+        Sentry.getCurrentHub().options.setBeforeSend { _, _ ->
+            dropped = true
+            null
+        }
+        // the console appender of the default configuration would format the message
+        fixture.loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).detachAppender("console")
+        fixture.logger.debug("lazy message {}", argument)
+
+        assertTrue(dropped)
+        assertEquals(0, argument.formatted)
+        verify(fixture.transport, never()).send(any(), anyOrNull())
+    }
+
+    @Test
+    fun `does not format the message of events dropped by sampling`() {
+        fixture = Fixture(minimumEventLevel = Level.DEBUG)
+        val argument = CountingArgument()
+        Sentry.getCurrentHub().options.sampleRate = Double.MIN_VALUE
+        // the console appender of the default configuration would format the message
+        fixture.loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).detachAppender("console")
+        fixture.logger.debug("lazy message {}", argument)
+
+        assertEquals(0, argument.formatted)
+        verify(fixture.transport, never()).send(any(), anyOrNull())
+    }
+
     @Test
     fun `does not attach breadcrumbs with level lower than minimumBreadcrumbLevel`() {
         fixture = Fixture(minimumBreadcrumbLevel = Level.INFO, minimumEventLevel = Level.WARN)
@@ -323,4 +471,14 @@ class SentryAppenderTest {
         assertTrue(Sentry.isEnabled())
         System.clearProperty("sentry.dsn")
     }
+
+    /** Counts how many times it is formatted. */
+    private class CountingArgument {
+        var formatted = 0
+
+        override fun toString(): String {
+            formatted++
+            return "argument"
+        }
+    }
 }
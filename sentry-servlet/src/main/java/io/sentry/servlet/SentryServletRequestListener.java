@@ -30,6 +30,7 @@ public class SentryServletRequestListener implements ServletRequestListener {
 
   @Override
   public void requestDestroyed(@NotNull ServletRequestEvent servletRequestEvent) {
+    hub.configureScope(scope -> scope.endRequestSession());
     hub.popScope();
   }
 
@@ -46,6 +47,7 @@ public class SentryServletRequestListener implements ServletRequestListener {
       hub.configureScope(
           scope -> {
             scope.addEventProcessor(new SentryRequestHttpServletRequestProcessor(httpRequest));
+            scope.startRequestSession();
           });
     }
   }
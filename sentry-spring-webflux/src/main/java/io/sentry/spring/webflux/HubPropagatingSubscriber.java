@@ -0,0 +1,167 @@
+package io.sentry.spring.webflux;
+
+import io.sentry.IHub;
+import io.sentry.Sentry;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Fuseable;
+import reactor.core.Scannable;
+import reactor.util.context.Context;
+
+/**
+ * Binds the Hub to the signalling thread while delegating signals to the actual subscriber. The
+ * thread local is written only when the thread has another Hub bound, so consecutive operators on
+ * the same thread cost a single read.
+ *
+ * <p>It is a {@link Fuseable.QueueSubscription} that passes fusion requests through to the upstream
+ * operator, so decorating an operator does not disable the fusion of the pipeline. The Hub is bound
+ * as well when the downstream operator polls the fused upstream.
+ */
+final class HubPropagatingSubscriber<T>
+    implements CoreSubscriber<T>, Fuseable.QueueSubscription<T>, Scannable {
+  private final @NotNull CoreSubscriber<? super T> actual;
+  private final @NotNull IHub hub;
+  private final @NotNull Context context;
+  private @Nullable Subscription upstream;
+  private @Nullable Fuseable.QueueSubscription<T> queue;
+
+  HubPropagatingSubscriber(
+      final @NotNull CoreSubscriber<? super T> actual,
+      final @NotNull IHub hub,
+      final @NotNull Context context) {
+    this.actual = actual;
+    this.hub = hub;
+    this.context = context;
+  }
+
+  @Override
+  public @NotNull Context currentContext() {
+    return context;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void onSubscribe(final @NotNull Subscription subscription) {
+    upstream = subscription;
+    if (subscription instanceof Fuseable.QueueSubscription) {
+      queue = (Fuseable.QueueSubscription<T>) subscription;
+    }
+    final IHub previous = bind();
+    try {
+      actual.onSubscribe(this);
+    } finally {
+      restore(previous);
+    }
+  }
+
+  @Override
+  public void onNext(final T value) {
+    final IHub previous = bind();
+    try {
+      actual.onNext(value);
+    } finally {
+      restore(previous);
+    }
+  }
+
+  @Override
+  public void onError(final @NotNull Throwable throwable) {
+    final IHub previous = bind();
+    try {
+      actual.onError(throwable);
+    } finally {
+      restore(previous);
+    }
+  }
+
+  @Override
+  public void onComplete() {
+    final IHub previous = bind();
+    try {
+      actual.onComplete();
+    } finally {
+      restore(previous);
+    }
+  }
+
+  @Override
+  public void request(final long n) {
+    if (upstream != null) {
+      upstream.request(n);
+    }
+  }
+
+  @Override
+  public void cancel() {
+    if (upstream != null) {
+      upstream.cancel();
+    }
+  }
+
+  @Override
+  public int requestFusion(final int requestedMode) {
+    return queue != null ? queue.requestFusion(requestedMode) : Fuseable.NONE;
+  }
+
+  @Override
+  public @Nullable T poll() {
+    if (queue == null) {
+      return null;
+    }
+    final IHub previous = bind();
+    try {
+      return queue.poll();
+    } finally {
+      restore(previous);
+    }
+  }
+
+  @Override
+  public int size() {
+    return queue != null ? queue.size() : 0;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return queue == null || queue.isEmpty();
+  }
+
+  @Override
+  public void clear() {
+    if (queue != null) {
+      queue.clear();
+    }
+  }
+
+  @Override
+  public @Nullable Object scanUnsafe(final @NotNull Attr key) {
+    if (key == Attr.ACTUAL) {
+      return actual;
+    }
+    if (key == Attr.PARENT) {
+      return upstream;
+    }
+    return null;
+  }
+
+  private @Nullable IHub bind() {
+    final IHub previous = Sentry.peekCurrentHub();
+    if (previous != hub) {
+      Sentry.setCurrentHub(hub);
+    }
+    return previous;
+  }
+
+  private void restore(final @Nullable IHub previous) {
+    if (previous == hub) {
+      return;
+    }
+    if (previous != null) {
+      Sentry.setCurrentHub(previous);
+    } else {
+      Sentry.removeCurrentHub();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package io.sentry.spring.webflux;
+
+import io.sentry.IHub;
+import io.sentry.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Publisher;
+import reactor.core.CoreSubscriber;
+import reactor.core.Scannable;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+/**
+ * Propagates the {@link IHub} stored in the Reactor {@link Context} to the threads that run the
+ * operators of a reactive pipeline.
+ *
+ * <p>Reactive pipelines hop between event loop and scheduler threads, so the thread local Hub of
+ * {@link io.sentry.Sentry} does not follow the request. {@link SentryWebFilter} stores a fork of
+ * the Hub in the subscriber Context and, once {@link #registerHooks()} was called, every operator
+ * subscribed with that Context binds the Hub to the thread it signals on. Pipelines without a Hub
+ * in their Context are not decorated at all and signals never allocate. The decorated operators
+ * keep the fusion of the pipeline, see {@link HubPropagatingSubscriber}.
+ */
+public final class SentryReactor {
+  private static final @NotNull String HOOK_KEY = SentryReactor.class.getName();
+  private static final @NotNull Class<IHub> HUB_KEY = IHub.class;
+
+  private SentryReactor() {}
+
+  /**
+   * Registers the Reactor hook that binds the Hub stored in the Context when operators signal.
+   * Registering more than once has no effect.
+   */
+  public static void registerHooks() {
+    Hooks.onEachOperator(HOOK_KEY, Operators.<Object, Object>lift(SentryReactor::propagateHub));
+  }
+
+  /** Removes the hook registered with {@link #registerHooks()}. */
+  public static void resetHooks() {
+    Hooks.resetOnEachOperator(HOOK_KEY);
+  }
+
+  /**
+   * Stores the Hub in the given Context.
+   *
+   * @param context the Context
+   * @param hub the Hub
+   * @return the new Context
+   */
+  public static @NotNull Context withHub(final @NotNull Context context, final @NotNull IHub hub) {
+    Objects.requireNonNull(hub, "hub is required");
+    return context.put(HUB_KEY, hub);
+  }
+
+  /**
+   * Returns the Hub stored in the given Context.
+   *
+   * @param context the Context
+   * @return the Hub or null if there's none
+   */
+  public static @Nullable IHub getHub(final @NotNull Context context) {
+    return context.getOrDefault(HUB_KEY, null);
+  }
+
+  /**
+   * Runs the given Publisher with the given Hub stored in its Context, for pipelines that are not
+   * subscribed within {@link SentryWebFilter}, like scheduled jobs or message listeners.
+   *
+   * @param publisher the Publisher
+   * @param hub the Hub
+   * @param <T> the type of the elements
+   * @return the Publisher with the Hub in its Context
+   */
+  public static <T> @NotNull Publisher<T> withHub(
+      final @NotNull Publisher<T> publisher, final @NotNull IHub hub) {
+    Objects.requireNonNull(hub, "hub is required");
+    return Operators.<T, T>lift(
+            (scannable, subscriber) ->
+                new HubPropagatingSubscriber<>(
+                    subscriber, hub, withHub(subscriber.currentContext(), hub)))
+        .apply(publisher);
+  }
+
+  private static <T> @NotNull CoreSubscriber<? super T> propagateHub(
+      final @NotNull Scannable publisher, final @NotNull CoreSubscriber<? super T> subscriber) {
+    if (subscriber instanceof HubPropagatingSubscriber) {
+      return subscriber;
+    }
+    final Context context = subscriber.currentContext();
+    final IHub hub = getHub(context);
+    if (hub == null) {
+      return subscriber;
+    }
+    return new HubPropagatingSubscriber<>(subscriber, hub, context);
+  }
+}
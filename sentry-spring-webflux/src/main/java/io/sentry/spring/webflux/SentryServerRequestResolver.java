@@ -0,0 +1,66 @@
+package io.sentry.spring.webflux;
+
+import com.jakewharton.nopen.annotation.Open;
+import io.sentry.IHub;
+import io.sentry.protocol.Request;
+import io.sentry.util.Objects;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+/** Resolves the Sentry {@link Request} from a reactive {@link ServerHttpRequest}. */
+@Open
+public class SentryServerRequestResolver {
+  private static final List<String> SENSITIVE_HEADERS =
+      Arrays.asList("X-FORWARDED-FOR", "AUTHORIZATION", "COOKIE");
+
+  private final @NotNull IHub hub;
+
+  public SentryServerRequestResolver(final @NotNull IHub hub) {
+    this.hub = Objects.requireNonNull(hub, "hub is required");
+  }
+
+  public @NotNull Request resolveSentryRequest(final @NotNull ServerHttpRequest httpRequest) {
+    final Request sentryRequest = new Request();
+    final URI uri = httpRequest.getURI();
+    sentryRequest.setMethod(httpRequest.getMethodValue());
+    sentryRequest.setQueryString(uri.getRawQuery());
+    sentryRequest.setUrl(resolveUrl(uri));
+    sentryRequest.setHeaders(resolveHeadersMap(httpRequest.getHeaders()));
+
+    if (hub.getOptions().isSendDefaultPii()) {
+      sentryRequest.setCookies(toString(httpRequest.getHeaders().get(HttpHeaders.COOKIE)));
+    }
+    return sentryRequest;
+  }
+
+  @NotNull
+  Map<String, String> resolveHeadersMap(final @NotNull HttpHeaders headers) {
+    final Map<String, String> headersMap = new HashMap<>();
+    for (final Map.Entry<String, List<String>> header : headers.entrySet()) {
+      // do not copy personal information identifiable headers
+      if (hub.getOptions().isSendDefaultPii()
+          || !SENSITIVE_HEADERS.contains(header.getKey().toUpperCase(Locale.ROOT))) {
+        headersMap.put(header.getKey(), toString(header.getValue()));
+      }
+    }
+    return headersMap;
+  }
+
+  private static @NotNull String resolveUrl(final @NotNull URI uri) {
+    final String url = uri.toString();
+    final int queryStart = url.indexOf('?');
+    return queryStart >= 0 ? url.substring(0, queryStart) : url;
+  }
+
+  private static @Nullable String toString(final @Nullable List<String> values) {
+    return values != null ? String.join(",", values) : null;
+  }
+}
@@ -0,0 +1,77 @@
+package io.sentry.spring.webflux;
+
+import com.jakewharton.nopen.annotation.Open;
+import io.sentry.HubAdapter;
+import io.sentry.IHub;
+import io.sentry.ISpan;
+import io.sentry.SentryTraceHeader;
+import io.sentry.SpanStatus;
+import io.sentry.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Creates a span around every {@link org.springframework.web.reactive.function.client.WebClient}
+ * request made while a span is active and adds the {@code sentry-trace} header to the request.
+ *
+ * <p>The active span is resolved from the Hub stored in the Reactor Context, see {@link
+ * SentryReactor}, and from the Hub passed in the constructor if there's none.
+ */
+@Open
+public class SentrySpanExchangeFilterFunction implements ExchangeFilterFunction {
+  private final @NotNull IHub hub;
+
+  public SentrySpanExchangeFilterFunction() {
+    this(HubAdapter.getInstance());
+  }
+
+  public SentrySpanExchangeFilterFunction(final @NotNull IHub hub) {
+    this.hub = Objects.requireNonNull(hub, "hub is required");
+  }
+
+  @Override
+  public @NotNull Mono<ClientResponse> filter(
+      final @NotNull ClientRequest request, final @NotNull ExchangeFunction next) {
+    return Mono.subscriberContext()
+        .flatMap(
+            context -> {
+              final IHub contextHub = SentryReactor.getHub(context);
+              final ISpan activeSpan = (contextHub != null ? contextHub : hub).getSpan();
+              if (activeSpan == null) {
+                return next.exchange(request);
+              }
+              return exchange(request, next, activeSpan.startChild("http.client"));
+            });
+  }
+
+  private @NotNull Mono<ClientResponse> exchange(
+      final @NotNull ClientRequest request,
+      final @NotNull ExchangeFunction next,
+      final @NotNull ISpan span) {
+    span.setDescription(request.method().name() + " " + request.url());
+
+    final SentryTraceHeader sentryTraceHeader = span.toSentryTrace();
+    final ClientRequest tracedRequest =
+        ClientRequest.from(request)
+            .header(sentryTraceHeader.getName(), sentryTraceHeader.getValue())
+            .build();
+
+    return next.exchange(tracedRequest)
+        .doOnSuccess(
+            response -> {
+              if (response != null) {
+                span.setStatus(SpanStatus.fromHttpStatusCode(response.rawStatusCode()));
+              }
+            })
+        .doOnError(
+            throwable -> {
+              span.setThrowable(throwable);
+              span.setStatus(SpanStatus.INTERNAL_ERROR);
+            })
+        .doFinally(signal -> span.finish());
+  }
+}
@@ -0,0 +1,179 @@
+package io.sentry.spring.webflux;
+
+import com.jakewharton.nopen.annotation.Open;
+import io.sentry.Breadcrumb;
+import io.sentry.CustomSamplingContext;
+import io.sentry.HubAdapter;
+import io.sentry.IHub;
+import io.sentry.ITransaction;
+import io.sentry.SentryEvent;
+import io.sentry.SentryLevel;
+import io.sentry.SentryOptions;
+import io.sentry.SentryTraceHeader;
+import io.sentry.SpanStatus;
+import io.sentry.TransactionContext;
+import io.sentry.exception.ExceptionMechanismException;
+import io.sentry.exception.InvalidSentryTraceHeaderException;
+import io.sentry.protocol.Mechanism;
+import io.sentry.protocol.Request;
+import io.sentry.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Forks the Hub for every incoming HTTP request of a Spring WebFlux application and stores the fork
+ * in the Reactor Context, see {@link SentryReactor}. Attaches the request to events, records
+ * unhandled exceptions, counts the request session when {@link
+ * SentryOptions#isEnableSessionAggregation()} is enabled and, if tracing is enabled, creates a
+ * {@link ITransaction} around the request.
+ *
+ * <p>Transactions are named after the {@link HandlerMapping#BEST_MATCHING_PATTERN_ATTRIBUTE}
+ * exchange attribute for requests that have been routed to a handler, and after the path otherwise.
+ * Exceptions for client errors, a {@link ResponseStatusException} with a 4xx status, are not
+ * captured.
+ */
+@Open
+public class SentryWebFilter implements WebFilter, Ordered {
+  /** Operation used by transactions created in {@link SentryWebFilter}. */
+  private static final String TRANSACTION_OP = "http.server";
+
+  private final @NotNull IHub hub;
+  private final @NotNull SentryServerRequestResolver requestResolver;
+
+  public SentryWebFilter() {
+    this(HubAdapter.getInstance());
+  }
+
+  public SentryWebFilter(final @NotNull IHub hub) {
+    this(hub, new SentryServerRequestResolver(hub));
+  }
+
+  public SentryWebFilter(
+      final @NotNull IHub hub, final @NotNull SentryServerRequestResolver requestResolver) {
+    this.hub = Objects.requireNonNull(hub, "hub is required");
+    this.requestResolver = Objects.requireNonNull(requestResolver, "requestResolver is required");
+  }
+
+  @Override
+  public @NotNull Mono<Void> filter(
+      final @NotNull ServerWebExchange exchange, final @NotNull WebFilterChain chain) {
+    if (!hub.isEnabled()) {
+      return chain.filter(exchange);
+    }
+
+    final IHub requestHub = hub.fork();
+    final ServerHttpRequest request = exchange.getRequest();
+    final Request sentryRequest = requestResolver.resolveSentryRequest(request);
+    requestHub.addBreadcrumb(
+        Breadcrumb.http(request.getURI().toString(), request.getMethodValue()));
+    requestHub.configureScope(
+        scope -> {
+          scope.addEventProcessor(
+              (event, hint) -> {
+                if (event.getRequest() == null) {
+                  event.setRequest(sentryRequest);
+                }
+                return event;
+              });
+          scope.startRequestSession();
+        });
+
+    final ITransaction transaction =
+        isTracingEnabled(requestHub.getOptions()) ? startTransaction(requestHub, request) : null;
+
+    return chain
+        .filter(exchange)
+        .doOnError(throwable -> captureException(requestHub, throwable))
+        .doFinally(
+            signal -> {
+              if (transaction != null) {
+                finishTransaction(exchange, transaction, sentryRequest);
+              }
+              requestHub.configureScope(scope -> scope.endRequestSession());
+            })
+        .subscriberContext(context -> SentryReactor.withHub(context, requestHub));
+  }
+
+  @Override
+  public int getOrder() {
+    return Ordered.HIGHEST_PRECEDENCE;
+  }
+
+  private @NotNull ITransaction startTransaction(
+      final @NotNull IHub requestHub, final @NotNull ServerHttpRequest request) {
+    final String name = request.getMethodValue() + " " + request.getPath().value();
+    final String sentryTraceHeader =
+        request.getHeaders().getFirst(SentryTraceHeader.SENTRY_TRACE_HEADER);
+
+    final CustomSamplingContext customSamplingContext = new CustomSamplingContext();
+    customSamplingContext.set("request", request);
+
+    ITransaction transaction = null;
+    if (sentryTraceHeader != null) {
+      try {
+        final TransactionContext contexts =
+            TransactionContext.fromSentryTrace(
+                name, TRANSACTION_OP, new SentryTraceHeader(sentryTraceHeader));
+        transaction = requestHub.startTransaction(contexts, customSamplingContext);
+      } catch (InvalidSentryTraceHeaderException e) {
+        requestHub
+            .getOptions()
+            .getLogger()
+            .log(SentryLevel.DEBUG, "Failed to parse Sentry trace header: %s", e.getMessage());
+      }
+    }
+    if (transaction == null) {
+      transaction = requestHub.startTransaction(name, TRANSACTION_OP, customSamplingContext);
+    }
+    final ITransaction requestTransaction = transaction;
+    requestHub.configureScope(scope -> scope.setTransaction(requestTransaction));
+    return requestTransaction;
+  }
+
+  private void finishTransaction(
+      final @NotNull ServerWebExchange exchange,
+      final @NotNull ITransaction transaction,
+      final @NotNull Request sentryRequest) {
+    // the pattern is resolved by the handler mapping, if it's not set the request has not been
+    // routed to a handler and the transaction keeps the name of the raw path
+    final Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    if (pattern != null) {
+      transaction.setName(exchange.getRequest().getMethodValue() + " " + pattern);
+    }
+    transaction.setOperation(TRANSACTION_OP);
+    transaction.setRequest(sentryRequest);
+    final Integer statusCode = exchange.getResponse().getRawStatusCode();
+    if (statusCode != null) {
+      transaction.setStatus(SpanStatus.fromHttpStatusCode(statusCode));
+    }
+    transaction.finish();
+  }
+
+  private static void captureException(
+      final @NotNull IHub requestHub, final @NotNull Throwable throwable) {
+    // client errors are part of the normal flow of a web application, like 404 or 400 responses
+    if (throwable instanceof ResponseStatusException
+        && ((ResponseStatusException) throwable).getStatus().is4xxClientError()) {
+      return;
+    }
+    final Mechanism mechanism = new Mechanism();
+    mechanism.setType("SentryWebFilter");
+    mechanism.setHandled(false);
+    final Throwable mechanismException =
+        new ExceptionMechanismException(mechanism, throwable, Thread.currentThread());
+    final SentryEvent event = new SentryEvent(mechanismException);
+    event.setLevel(SentryLevel.ERROR);
+    requestHub.captureEvent(event);
+  }
+
+  private static boolean isTracingEnabled(final @NotNull SentryOptions options) {
+    return options.getTracesSampleRate() != null || options.getTracesSampler() != null;
+  }
+}
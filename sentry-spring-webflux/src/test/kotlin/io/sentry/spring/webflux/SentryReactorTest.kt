@@ -0,0 +1,100 @@
+package io.sentry.spring.webflux
+
+import com.nhaarman.mockitokotlin2.mock
+import io.sentry.IHub
+import io.sentry.Sentry
+import java.util.Optional
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+import kotlin.test.assertSame
+import reactor.core.Fuseable
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import reactor.core.scheduler.Schedulers
+import reactor.test.StepVerifier
+
+class SentryReactorTest {
+    private val scheduler = Schedulers.newSingle("sentry-reactor-test")
+
+    @BeforeTest
+    fun beforeTest() {
+        SentryReactor.registerHooks()
+    }
+
+    @AfterTest
+    fun afterTest() {
+        SentryReactor.resetHooks()
+        scheduler.dispose()
+    }
+
+    @Test
+    fun `binds the hub from the context on other threads`() {
+        val hub = mock<IHub>()
+
+        val boundHub = Mono.just(1)
+            .publishOn(scheduler)
+            .map { Optional.ofNullable(Sentry.peekCurrentHub()) }
+            .subscriberContext { SentryReactor.withHub(it, hub) }
+            .block()
+
+        assertSame(hub, boundHub!!.get())
+    }
+
+    @Test
+    fun `restores the previous hub of the thread`() {
+        val hub = mock<IHub>()
+
+        Mono.just(1)
+            .publishOn(scheduler)
+            .map { it }
+            .subscriberContext { SentryReactor.withHub(it, hub) }
+            .block()
+
+        val boundHub = Mono.fromCallable { Optional.ofNullable(Sentry.peekCurrentHub()) }
+            .subscribeOn(scheduler)
+            .block()
+        assertEquals(Optional.empty(), boundHub)
+    }
+
+    @Test
+    fun `does not bind a hub when the context has none`() {
+        val boundHub = Mono.just(1)
+            .publishOn(scheduler)
+            .map { Optional.ofNullable(Sentry.peekCurrentHub()) }
+            .block()
+
+        assertEquals(Optional.empty(), boundHub)
+    }
+
+    @Test
+    fun `withHub stores the hub for the given publisher`() {
+        val hub = mock<IHub>()
+
+        val boundHubs = Flux.from(SentryReactor.withHub(
+            Flux.just(1, 2).publishOn(scheduler).map { Optional.ofNullable(Sentry.peekCurrentHub()) }, hub))
+            .collectList()
+            .block()
+
+        assertEquals(listOf(Optional.of(hub), Optional.of(hub)), boundHubs)
+    }
+
+    @Test
+    fun `keeps the fusion of the pipeline and binds the hub when polling`() {
+        val hub = mock<IHub>()
+
+        StepVerifier.create(Flux.just(1, 2)
+            .map { Sentry.peekCurrentHub() === hub }
+            .subscriberContext { SentryReactor.withHub(it, hub) })
+            .expectFusion(Fuseable.SYNC)
+            .expectNext(true, true)
+            .verifyComplete()
+    }
+
+    @Test
+    fun `getHub returns null when the context has no hub`() {
+        assertNull(Mono.subscriberContext().map { Optional.ofNullable(SentryReactor.getHub(it)) }.block()!!.orElse(null))
+    }
+}
@@ -0,0 +1,98 @@
+package io.sentry.spring.webflux
+
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import io.sentry.IHub
+import io.sentry.SentryOptions
+import io.sentry.SentryTransaction
+import io.sentry.SpanContext
+import io.sentry.SpanStatus
+import java.net.URI
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+import org.springframework.http.HttpMethod
+import org.springframework.http.HttpStatus
+import org.springframework.web.reactive.function.client.ClientRequest
+import org.springframework.web.reactive.function.client.ClientResponse
+import org.springframework.web.reactive.function.client.ExchangeFunction
+import reactor.core.publisher.Mono
+
+class SentrySpanExchangeFilterFunctionTest {
+    private class Fixture {
+        val hub = mock<IHub>()
+        val contextHub = mock<IHub>()
+        var sentRequest: ClientRequest? = null
+        val request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/products")).build()
+
+        fun getSut(): SentrySpanExchangeFilterFunction {
+            whenever(hub.options).thenReturn(SentryOptions())
+            whenever(contextHub.options).thenReturn(SentryOptions())
+            return SentrySpanExchangeFilterFunction(hub)
+        }
+
+        fun next(status: HttpStatus = HttpStatus.OK, error: Throwable? = null) = ExchangeFunction {
+            sentRequest = it
+            if (error != null) Mono.error(error) else Mono.just(ClientResponse.create(status).build())
+        }
+
+        fun transaction(hub: IHub) = SentryTransaction("name", SpanContext("op"), hub).also {
+            whenever(hub.span).thenReturn(it)
+        }
+    }
+
+    private val fixture = Fixture()
+
+    @Test
+    fun `creates a span around the request`() {
+        val sut = fixture.getSut()
+        val transaction = fixture.transaction(fixture.hub)
+
+        sut.filter(fixture.request, fixture.next(HttpStatus.CREATED)).block()
+
+        val span = transaction.spans.single()
+        assertEquals("http.client", span.operation)
+        assertEquals("GET http://localhost/products", span.description)
+        assertEquals(SpanStatus.OK, span.status)
+        assertTrue(span.isFinished)
+        assertEquals(span.toSentryTrace().value, fixture.sentRequest!!.headers().getFirst("sentry-trace"))
+    }
+
+    @Test
+    fun `prefers the hub stored in the reactor context`() {
+        val sut = fixture.getSut()
+        val transaction = fixture.transaction(fixture.contextHub)
+
+        sut.filter(fixture.request, fixture.next())
+            .subscriberContext { SentryReactor.withHub(it, fixture.contextHub) }
+            .block()
+
+        assertEquals(1, transaction.spans.size)
+    }
+
+    @Test
+    fun `sets the span status when the request fails`() {
+        val sut = fixture.getSut()
+        val transaction = fixture.transaction(fixture.hub)
+        val exception = RuntimeException("connection refused")
+
+        runCatching { sut.filter(fixture.request, fixture.next(error = exception)).block() }
+
+        val span = transaction.spans.single()
+        assertEquals(SpanStatus.INTERNAL_ERROR, span.status)
+        assertEquals(exception, span.throwable)
+        assertTrue(span.isFinished)
+    }
+
+    @Test
+    fun `when there is no active span, request is not changed`() {
+        val sut = fixture.getSut()
+        whenever(fixture.hub.span).thenReturn(null)
+
+        sut.filter(fixture.request, fixture.next()).block()
+
+        assertEquals(fixture.request, fixture.sentRequest)
+        assertNull(fixture.sentRequest!!.headers().getFirst("sentry-trace"))
+    }
+}
@@ -0,0 +1,188 @@
+package io.sentry.spring.webflux
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.check
+import com.nhaarman.mockitokotlin2.eq
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.verifyNoMoreInteractions
+import com.nhaarman.mockitokotlin2.whenever
+import io.sentry.IHub
+import io.sentry.SentryLevel
+import io.sentry.SentryOptions
+import io.sentry.SentryTransaction
+import io.sentry.SpanContext
+import io.sentry.SpanId
+import io.sentry.SpanStatus
+import io.sentry.TransactionContext
+import io.sentry.exception.ExceptionMechanismException
+import io.sentry.protocol.SentryId
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+import org.springframework.http.HttpStatus
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest
+import org.springframework.mock.web.server.MockServerWebExchange
+import org.springframework.web.reactive.HandlerMapping
+import org.springframework.web.server.ResponseStatusException
+import org.springframework.web.server.WebFilterChain
+import org.springframework.web.util.pattern.PathPatternParser
+import reactor.core.publisher.Mono
+
+class SentryWebFilterTest {
+    private class Fixture {
+        val hub = mock<IHub>()
+        val requestHub = mock<IHub>()
+        val options = SentryOptions()
+        var contextHub: IHub? = null
+
+        fun getSut(isEnabled: Boolean = true, tracesSampleRate: Double? = 1.0): SentryWebFilter {
+            options.tracesSampleRate = tracesSampleRate
+            whenever(hub.isEnabled).thenReturn(isEnabled)
+            whenever(hub.options).thenReturn(options)
+            whenever(hub.fork()).thenReturn(requestHub)
+            whenever(requestHub.options).thenReturn(options)
+            whenever(requestHub.startTransaction(any<String>(), any(), any())).thenAnswer { SentryTransaction(it.arguments[0] as String, SpanContext(it.arguments[1] as String), requestHub) }
+            whenever(requestHub.startTransaction(any<TransactionContext>(), any())).thenAnswer { SentryTransaction((it.arguments[0] as TransactionContext).name, it.arguments[0] as SpanContext, requestHub) }
+            return SentryWebFilter(hub)
+        }
+
+        fun exchange(sentryTraceHeader: String? = null, routed: Boolean = true): MockServerWebExchange {
+            val request = MockServerHttpRequest.post("/product/12?color=red")
+            if (sentryTraceHeader != null) {
+                request.header("sentry-trace", sentryTraceHeader)
+            }
+            val exchange = MockServerWebExchange.from(request)
+            if (routed) {
+                exchange.attributes[HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE] = PathPatternParser.defaultInstance.parse("/product/{id}")
+            }
+            exchange.response.statusCode = HttpStatus.OK
+            return exchange
+        }
+
+        fun chain(result: Mono<Void> = Mono.empty()) = WebFilterChain {
+            Mono.subscriberContext().flatMap { context ->
+                contextHub = SentryReactor.getHub(context)
+                result
+            }
+        }
+    }
+
+    private val fixture = Fixture()
+
+    @Test
+    fun `stores a fork of the hub in the reactor context`() {
+        val sut = fixture.getSut()
+
+        sut.filter(fixture.exchange(), fixture.chain()).block()
+
+        assertSame(fixture.requestHub, fixture.contextHub)
+        verify(fixture.requestHub).addBreadcrumb(check<io.sentry.Breadcrumb> {
+            assertEquals("/product/12?color=red", it.data["url"])
+            assertEquals("POST", it.data["method"])
+        })
+    }
+
+    @Test
+    fun `creates transaction around the request`() {
+        val sut = fixture.getSut()
+
+        sut.filter(fixture.exchange(), fixture.chain()).block()
+
+        verify(fixture.requestHub).startTransaction(eq("POST /product/12"), eq("http.server"), any())
+        verify(fixture.requestHub).captureTransaction(check {
+            assertEquals("POST /product/{id}", it.transaction)
+            assertEquals(SpanStatus.OK, it.contexts.trace!!.status)
+            assertEquals("/product/12", it.request!!.url)
+            assertEquals("color=red", it.request!!.queryString)
+        }, eq(null))
+    }
+
+    @Test
+    fun `when sentry trace is present, transaction has parentSpanId set`() {
+        val parentSpanId = SpanId()
+        val sut = fixture.getSut()
+
+        sut.filter(fixture.exchange(sentryTraceHeader = "${SentryId()}-$parentSpanId-1"), fixture.chain()).block()
+
+        verify(fixture.requestHub).captureTransaction(check {
+            assertEquals(parentSpanId, it.contexts.trace!!.parentSpanId)
+        }, eq(null))
+    }
+
+    @Test
+    fun `when request is not routed to a handler, transaction is named after the path`() {
+        val sut = fixture.getSut()
+        val exchange = fixture.exchange(routed = false)
+        exchange.response.statusCode = HttpStatus.NOT_FOUND
+
+        sut.filter(exchange, fixture.chain()).block()
+
+        verify(fixture.requestHub).captureTransaction(check {
+            assertEquals("POST /product/12", it.transaction)
+            assertEquals(SpanStatus.NOT_FOUND, it.contexts.trace!!.status)
+            assertTrue(it.isFinished)
+        }, eq(null))
+    }
+
+    @Test
+    fun `when tracing is disabled, transaction is not started`() {
+        val sut = fixture.getSut(tracesSampleRate = null)
+
+        sut.filter(fixture.exchange(), fixture.chain()).block()
+
+        verify(fixture.requestHub, never()).startTransaction(any<String>(), any(), any())
+        assertSame(fixture.requestHub, fixture.contextHub)
+    }
+
+    @Test
+    fun `captures unhandled exceptions`() {
+        val sut = fixture.getSut()
+        val exception = IllegalStateException("boom")
+
+        val result = runCatching { sut.filter(fixture.exchange(), fixture.chain(Mono.error(exception))).block() }
+
+        assertTrue(result.isFailure)
+        verify(fixture.requestHub).captureEvent(check {
+            val throwable = it.throwable as ExceptionMechanismException
+            assertSame(exception, throwable.throwable)
+            assertFalse(throwable.exceptionMechanism.isHandled)
+            assertEquals(SentryLevel.ERROR, it.level)
+        })
+    }
+
+    @Test
+    fun `does not capture client errors`() {
+        val sut = fixture.getSut()
+        val exception = ResponseStatusException(HttpStatus.NOT_FOUND)
+
+        val result = runCatching { sut.filter(fixture.exchange(), fixture.chain(Mono.error(exception))).block() }
+
+        assertTrue(result.isFailure)
+        verify(fixture.requestHub, never()).captureEvent(any())
+    }
+
+    @Test
+    fun `captures server errors of ResponseStatusException`() {
+        val sut = fixture.getSut()
+        val exception = ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE)
+
+        runCatching { sut.filter(fixture.exchange(), fixture.chain(Mono.error(exception))).block() }
+
+        verify(fixture.requestHub).captureEvent(any())
+    }
+
+    @Test
+    fun `when hub is disabled, the hub is not forked`() {
+        val sut = fixture.getSut(isEnabled = false)
+
+        sut.filter(fixture.exchange(), fixture.chain()).block()
+
+        verify(fixture.hub).isEnabled
+        verifyNoMoreInteractions(fixture.hub)
+        assertEquals(null, fixture.contextHub)
+    }
+}
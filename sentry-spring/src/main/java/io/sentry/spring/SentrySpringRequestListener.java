@@ -45,6 +45,7 @@ public class SentrySpringRequestListener implements ServletRequestListener, Orde
 
   @Override
   public void requestDestroyed(ServletRequestEvent sre) {
+    hub.configureScope(scope -> scope.endRequestSession());
     hub.popScope();
   }
 
@@ -61,6 +62,7 @@ public class SentrySpringRequestListener implements ServletRequestListener, Orde
           scope -> {
             scope.addEventProcessor(
                 new SentryRequestHttpServletRequestProcessor(request, requestResolver));
+            scope.startRequestSession();
           });
     }
   }
@@ -0,0 +1,263 @@
+package io.sentry;
+
+import io.sentry.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Bounded queue handing records from the logging threads to a background worker, used by the
+ * logging integrations in async mode so that building and capturing events doesn't slow down the
+ * threads that log.
+ *
+ * <p>Offering a record never blocks: the queue is a lock-free {@link ConcurrentLinkedQueue} bounded
+ * by a counter, once it is full records are discarded according to the {@link DiscardPolicy}. The
+ * worker drains the queue in batches of at most {@code batchSize} records.
+ *
+ * @param <T> the type of the records
+ */
+@ApiStatus.Internal
+public final class AsyncCaptureQueue<T> {
+  /** Default max number of records waiting in the queue. */
+  public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+  /** Default max number of records processed in one batch. */
+  public static final int DEFAULT_BATCH_SIZE = 64;
+
+  /** Default max time to wait for the worker to process the queued records when closing. */
+  public static final long DEFAULT_CLOSE_TIMEOUT_MILLIS = 2000;
+
+  /** How long the worker waits for new records before checking the queue again. */
+  private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /** What happens to a record offered to a full queue. */
+  public enum DiscardPolicy {
+    /** The offered record is discarded. */
+    DISCARD_NEWEST,
+    /** The oldest record waiting in the queue is discarded to make room for the offered record. */
+    DISCARD_OLDEST;
+
+    /**
+     * Parses a discard policy ignoring case.
+     *
+     * @param name the name of the policy
+     * @return the policy or null if the name is null or unknown
+     */
+    public static @Nullable DiscardPolicy parse(final @Nullable String name) {
+      if (name != null) {
+        try {
+          return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+          // unknown policy
+        }
+      }
+      return null;
+    }
+  }
+
+  /** Processes the records taken from the queue on the worker thread. */
+  public interface BatchProcessor<T> {
+    /**
+     * Processes a batch of records.
+     *
+     * @param batch the records in the order they were offered, reused after this call returns
+     */
+    void process(@NotNull List<T> batch);
+  }
+
+  /** Creates a record once the queue made room for it. */
+  public interface RecordFactory<T> {
+    /**
+     * Creates the record, on the thread offering it.
+     *
+     * @return the record
+     */
+    @NotNull
+    T create();
+  }
+
+  private final @NotNull Queue<T> queue = new ConcurrentLinkedQueue<>();
+  private final @NotNull AtomicInteger size = new AtomicInteger();
+  private final @NotNull AtomicLong discarded = new AtomicLong();
+  private final int capacity;
+  private final int batchSize;
+  private final @NotNull DiscardPolicy discardPolicy;
+  private final @NotNull BatchProcessor<T> processor;
+  private final @NotNull ILogger logger;
+  private final @NotNull Thread worker;
+
+  private volatile boolean idle;
+  private volatile boolean closed;
+
+  /**
+   * Creates the queue and starts its worker thread.
+   *
+   * @param threadName the name of the worker thread
+   * @param capacity the max number of records waiting in the queue
+   * @param batchSize the max number of records processed in one batch
+   * @param discardPolicy what happens to records offered to a full queue
+   * @param processor processes the records on the worker thread
+   * @param logger the logger
+   */
+  public AsyncCaptureQueue(
+      final @NotNull String threadName,
+      final int capacity,
+      final int batchSize,
+      final @NotNull DiscardPolicy discardPolicy,
+      final @NotNull BatchProcessor<T> processor,
+      final @NotNull ILogger logger) {
+    if (capacity <= 0 || batchSize <= 0) {
+      throw new IllegalArgumentException("capacity and batchSize must be greater than 0.");
+    }
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.discardPolicy = Objects.requireNonNull(discardPolicy, "discardPolicy is required");
+    this.processor = Objects.requireNonNull(processor, "processor is required");
+    this.logger = Objects.requireNonNull(logger, "logger is required");
+    this.worker = new Thread(this::run, threadName);
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  /**
+   * Hands a record to the worker, never blocks.
+   *
+   * @param record the record
+   * @return false if the record was discarded because the queue is full or closed
+   */
+  public boolean offer(final @NotNull T record) {
+    if (!reserve()) {
+      return false;
+    }
+    enqueue(record);
+    return true;
+  }
+
+  /**
+   * Hands a record to the worker, never blocks. The record is created only if the queue takes it,
+   * so the work of creating it isn't wasted on records that are discarded right away.
+   *
+   * @param factory creates the record
+   * @return false if the record was discarded because the queue is full or closed
+   */
+  public boolean offer(final @NotNull RecordFactory<T> factory) {
+    if (!reserve()) {
+      return false;
+    }
+    final T record;
+    try {
+      record = factory.create();
+    } catch (RuntimeException e) {
+      size.decrementAndGet();
+      throw e;
+    }
+    enqueue(record);
+    return true;
+  }
+
+  /**
+   * Makes room for a record, discarding the oldest one if the policy says so.
+   *
+   * @return false if the record is to be discarded
+   */
+  private boolean reserve() {
+    if (closed) {
+      return false;
+    }
+    if (size.incrementAndGet() > capacity) {
+      if (discardPolicy == DiscardPolicy.DISCARD_NEWEST || queue.poll() == null) {
+        size.decrementAndGet();
+        discarded.incrementAndGet();
+        return false;
+      }
+      // the oldest record made room for this one
+      size.decrementAndGet();
+      discarded.incrementAndGet();
+    }
+    return true;
+  }
+
+  private void enqueue(final @NotNull T record) {
+    queue.offer(record);
+    if (idle) {
+      LockSupport.unpark(worker);
+    }
+  }
+
+  /**
+   * Returns the number of records discarded because the queue was full.
+   *
+   * @return the number of discarded records
+   */
+  public long getDiscardedCount() {
+    return discarded.get();
+  }
+
+  /**
+   * Returns the number of records waiting in the queue.
+   *
+   * @return the number of records
+   */
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * Stops accepting records and waits for the worker to process the records already queued.
+   *
+   * @param timeoutMillis the max time to wait for the worker
+   */
+  public void close(final long timeoutMillis) {
+    closed = true;
+    LockSupport.unpark(worker);
+    try {
+      worker.join(timeoutMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (worker.isAlive()) {
+      logger.log(
+          SentryLevel.WARNING,
+          "%d records were not processed before the async queue was closed.",
+          size.get());
+    }
+  }
+
+  private void run() {
+    final List<T> batch = new ArrayList<>(batchSize);
+    while (true) {
+      T record;
+      while (batch.size() < batchSize && (record = queue.poll()) != null) {
+        size.decrementAndGet();
+        batch.add(record);
+      }
+      if (!batch.isEmpty()) {
+        try {
+          processor.process(batch);
+        } catch (Throwable e) {
+          logger.log(SentryLevel.ERROR, "Failed to process a batch of records.", e);
+        }
+        batch.clear();
+        continue;
+      }
+      if (closed) {
+        return;
+      }
+      idle = true;
+      // re-check after announcing the idle state, so an offer racing with it isn't missed
+      if (queue.isEmpty() && !closed) {
+        LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+      }
+      idle = false;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package io.sentry;
+
+import io.sentry.hints.SubmissionResult;
+import io.sentry.transport.CurrentDateProvider;
+import io.sentry.transport.ICurrentDateProvider;
+import io.sentry.util.Objects;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+
+/**
+ * Remembers the digests of the attachments sent recently, so an attachment identical to one sent
+ * within {@link SentryOptions#getAttachmentDeduplicationWindowMillis()} is not uploaded again. Two
+ * attachments are identical if they have the same filename and the same content.
+ *
+ * <p>The digests of files are cached by path, length and modification time, so a file attached to
+ * many events is read once as long as it doesn't change.
+ */
+final class AttachmentDeduplicator {
+  /** Max number of digests remembered, the least recently seen are evicted first. */
+  static final int MAX_DIGESTS = 100;
+
+  @SuppressWarnings("CharsetObjectCanBeUsed")
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final @NotNull ICurrentDateProvider currentDateProvider;
+
+  /** The digests of files by filename, path, length and modification time. */
+  private final @NotNull Map<String, String> fileDigests =
+      new LinkedHashMap<String, String>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final @NotNull Map.Entry<String, String> eldest) {
+          return size() > MAX_DIGESTS;
+        }
+      };
+
+  private final @NotNull Map<String, Long> sentDigests =
+      new LinkedHashMap<String, Long>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final @NotNull Map.Entry<String, Long> eldest) {
+          return size() > MAX_DIGESTS;
+        }
+      };
+
+  AttachmentDeduplicator() {
+    this(CurrentDateProvider.getInstance());
+  }
+
+  @TestOnly
+  AttachmentDeduplicator(final @NotNull ICurrentDateProvider currentDateProvider) {
+    this.currentDateProvider =
+        Objects.requireNonNull(currentDateProvider, "currentDateProvider is required");
+  }
+
+  /**
+   * Computes the digest of an attachment. Files are read with a small buffer, never loaded in
+   * memory, and only if they changed since their digest was last computed.
+   *
+   * @param attachment the attachment
+   * @param maxAttachmentSize files bigger than this are dropped anyway, so they are not read
+   * @return the SHA-1 of the filename and content in hex, or null if the content can't be read
+   */
+  @Nullable
+  String digest(final @NotNull Attachment attachment, final long maxAttachmentSize) {
+    try {
+      final byte[] bytes = attachment.getBytes();
+      final String pathname = attachment.getPathname();
+      if (bytes != null) {
+        final MessageDigest messageDigest = newDigest(attachment);
+        messageDigest.update(bytes);
+        return toHex(messageDigest.digest());
+      } else if (pathname != null) {
+        final File file = new File(pathname);
+        final long length = file.length();
+        if (!file.isFile() || length > maxAttachmentSize) {
+          return null;
+        }
+        final String key =
+            attachment.getFilename() + '\0' + pathname + '\0' + length + '\0' + file.lastModified();
+        synchronized (fileDigests) {
+          final String digest = fileDigests.get(key);
+          if (digest != null) {
+            return digest;
+          }
+        }
+        final MessageDigest messageDigest = newDigest(attachment);
+        try (final InputStream inputStream = new FileInputStream(file)) {
+          final byte[] buffer = new byte[8192];
+          int read;
+          while ((read = inputStream.read(buffer)) != -1) {
+            messageDigest.update(buffer, 0, read);
+          }
+        }
+        final String digest = toHex(messageDigest.digest());
+        synchronized (fileDigests) {
+          fileDigests.put(key, digest);
+        }
+        return digest;
+      } else {
+        return null;
+      }
+    } catch (NoSuchAlgorithmException | IOException | SecurityException e) {
+      return null;
+    }
+  }
+
+  private static @NotNull MessageDigest newDigest(final @NotNull Attachment attachment)
+      throws NoSuchAlgorithmException {
+    final MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
+    messageDigest.update(attachment.getFilename().getBytes(UTF_8));
+    messageDigest.update((byte) 0);
+    return messageDigest;
+  }
+
+  /**
+   * Checks if an attachment with the digest has been sent within the window.
+   *
+   * @param digest the digest of the attachment
+   * @param windowMillis the window in millis
+   * @return true if the attachment has been sent within the window
+   */
+  synchronized boolean isSent(final @NotNull String digest, final long windowMillis) {
+    final Long sentAt = sentDigests.get(digest);
+    return sentAt != null && currentDateProvider.getCurrentTimeMillis() - sentAt < windowMillis;
+  }
+
+  /**
+   * Records that the attachment with the digest has been sent now.
+   *
+   * @param digest the digest of the attachment
+   */
+  synchronized void markSent(final @NotNull String digest) {
+    sentDigests.put(digest, currentDateProvider.getCurrentTimeMillis());
+  }
+
+  /**
+   * Creates the callback of the envelope item of an attachment, it records the attachment as sent
+   * once the transport delivered the item.
+   *
+   * @param digest the digest of the attachment
+   * @return the callback
+   */
+  @NotNull
+  SubmissionResult markSentOnDelivery(final @NotNull String digest) {
+    return new Delivery(digest);
+  }
+
+  private static @NotNull String toHex(final @NotNull byte[] bytes) {
+    final char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+      chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+    }
+    return new String(chars);
+  }
+
+  private final class Delivery implements SubmissionResult {
+    private final @NotNull String digest;
+    private volatile boolean success;
+
+    Delivery(final @NotNull String digest) {
+      this.digest = digest;
+    }
+
+    @Override
+    public void setResult(final boolean success) {
+      this.success = success;
+      if (success) {
+        markSent(digest);
+      }
+    }
+
+    @Override
+    public boolean isSuccess() {
+      return success;
+    }
+  }
+}
@@ -1,46 +1,28 @@
 package io.sentry;
 
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
-import java.util.Locale;
-import java.util.TimeZone;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 
-/** Utilities to deal with dates */
+/**
+ * Utilities to deal with dates
+ *
+ * <p>Timestamps are formatted and parsed by hand instead of through {@link
+ * java.text.SimpleDateFormat}, which allocates a {@link java.util.Calendar} and goes through field
+ * lookups for every call. Only the UTC ISO 8601 profile used by Sentry is supported:
+ * yyyy-MM-ddTHH:mm:ss with an optional fraction of up to 9 digits and the literal Z.
+ */
 @ApiStatus.Internal
 public final class DateUtils {
-  private static final String UTC = "UTC";
-  // ISO 8601
-  private static final String ISO_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
-  private static final String ISO_FORMAT_WITH_MILLIS = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
-
-  // if UTC is not found, it fallback to "GMT" which is UTC equivalent
-  private static final @NotNull TimeZone UTC_TIMEZONE = TimeZone.getTimeZone(UTC);
-
-  private static final @NotNull ThreadLocal<SimpleDateFormat> SDF_ISO_FORMAT_WITH_MILLIS_UTC =
-      new ThreadLocal<SimpleDateFormat>() {
-        @Override
-        protected SimpleDateFormat initialValue() {
-          final SimpleDateFormat simpleDateFormat =
-              new SimpleDateFormat(ISO_FORMAT_WITH_MILLIS, Locale.ROOT);
-          simpleDateFormat.setTimeZone(UTC_TIMEZONE);
-          return simpleDateFormat;
-        }
-      };
-
-  private static final @NotNull ThreadLocal<SimpleDateFormat> SDF_ISO_FORMAT_UTC =
-      new ThreadLocal<SimpleDateFormat>() {
-        @Override
-        protected SimpleDateFormat initialValue() {
-          final SimpleDateFormat simpleDateFormat = new SimpleDateFormat(ISO_FORMAT, Locale.ROOT);
-          simpleDateFormat.setTimeZone(UTC_TIMEZONE);
-          return simpleDateFormat;
-        }
-      };
+  private static final long MILLIS_PER_SECOND = 1_000;
+  private static final long NANOS_PER_SECOND = 1_000_000_000;
+  private static final long SECONDS_PER_DAY = 86_400;
+  /** Days from 0000-03-01 to 1970-01-01. */
+  private static final long DAYS_0000_TO_1970 = 719_468;
+  /** Days in a 400 years cycle of the Gregorian calendar. */
+  private static final long DAYS_PER_CYCLE = 146_097;
+  /** Length of yyyy-MM-ddTHH:mm:ss */
+  private static final int SECONDS_LENGTH = 19;
 
   private DateUtils() {}
 
@@ -51,8 +33,7 @@ public final class DateUtils {
    */
   @SuppressWarnings("JdkObsolete")
   public static @NotNull Date getCurrentDateTime() {
-    final Calendar calendar = Calendar.getInstance(UTC_TIMEZONE);
-    return calendar.getTime();
+    return new Date();
   }
 
   /**
@@ -63,17 +44,56 @@ public final class DateUtils {
    */
   public static @NotNull Date getDateTime(final @NotNull String timestamp)
       throws IllegalArgumentException {
-    try {
-      return SDF_ISO_FORMAT_WITH_MILLIS_UTC.get().parse(timestamp);
-    } catch (ParseException e) {
-      try {
-        // to keep compatibility with older envelopes
-        return SDF_ISO_FORMAT_UTC.get().parse(timestamp);
-      } catch (ParseException ignored) {
-        // invalid timestamp format
-      }
-      throw new IllegalArgumentException("timestamp is not ISO format " + timestamp);
-    }
+    return getDateTime(parse(timestamp, 3));
+  }
+
+  /**
+   * Get the UTC/ISO 8601 timestamp from Date
+   *
+   * @param date the UTC Date
+   * @return the UTC/ISO 8601 timestamp
+   */
+  public static @NotNull String getTimestamp(final @NotNull Date date) {
+    final long millis = date.getTime();
+    final char[] buffer = new char[SECONDS_LENGTH + 5];
+    final int length =
+        format(
+            floorDiv(millis, MILLIS_PER_SECOND),
+            floorMod(millis, MILLIS_PER_SECOND) * 1_000_000,
+            3,
+            buffer,
+            0);
+    return new String(buffer, 0, length);
+  }
+
+  /**
+   * Get the UTC/ISO 8601 timestamp with microsecond precision from nanoseconds since the epoch
+   *
+   * @param epochNanos the UTC nanoseconds from the epoch
+   * @return the UTC/ISO 8601 timestamp eg 2000-12-31T23:59:58.123456Z
+   */
+  public static @NotNull String getTimestampWithMicros(final long epochNanos) {
+    final char[] buffer = new char[SECONDS_LENGTH + 8];
+    final int length =
+        format(
+            floorDiv(epochNanos, NANOS_PER_SECOND),
+            floorMod(epochNanos, NANOS_PER_SECOND),
+            6,
+            buffer,
+            0);
+    return new String(buffer, 0, length);
+  }
+
+  /**
+   * Get the nanoseconds since the epoch from an UTC/ISO 8601 timestamp with up to nanosecond
+   * precision
+   *
+   * @param timestamp UTC/ISO 8601 format eg 2000-12-31T23:59:58Z or 2000-12-31T23:59:58.123456Z
+   * @return the UTC nanoseconds from the epoch
+   */
+  public static long getEpochNanos(final @NotNull String timestamp)
+      throws IllegalArgumentException {
+    return parse(timestamp, 9);
   }
 
   /**
@@ -97,25 +117,193 @@ public final class DateUtils {
   }
 
   /**
-   * Get the UTC/ISO 8601 timestamp from Date
+   * Get the Date from millis timestamp
    *
-   * @param date the UTC Date
-   * @return the UTC/ISO 8601 timestamp
+   * @param millis the UTC millis from the epoch
+   * @return the UTC Date
    */
-  public static @NotNull String getTimestamp(final @NotNull Date date) {
-    final DateFormat df = SDF_ISO_FORMAT_WITH_MILLIS_UTC.get();
-    return df.format(date);
+  @SuppressWarnings("JdkObsolete")
+  public static @NotNull Date getDateTime(final long millis) {
+    return new Date(millis);
   }
 
   /**
-   * Get the Date from millis timestamp
+   * Writes the UTC/ISO 8601 timestamp of the given instant into the buffer.
    *
-   * @param millis the UTC millis from the epoch
-   * @return the UTC Date
+   * @param epochSeconds the UTC seconds from the epoch
+   * @param nanos the nanoseconds within the second, from 0 to 999999999
+   * @param fractionDigits the number of digits of the second fraction, from 0 to 9
+   * @param buffer the buffer, with room for at least 21 + fractionDigits chars from offset
+   * @param offset the index of the first char to write
+   * @return the index after the last char written
    */
-  public static @NotNull Date getDateTime(final long millis) {
-    final Calendar calendar = Calendar.getInstance(UTC_TIMEZONE);
-    calendar.setTimeInMillis(millis);
-    return calendar.getTime();
+  static int format(
+      final long epochSeconds,
+      final long nanos,
+      final int fractionDigits,
+      final @NotNull char[] buffer,
+      int offset) {
+    final long epochDays = floorDiv(epochSeconds, SECONDS_PER_DAY);
+    final int secondOfDay = (int) floorMod(epochSeconds, SECONDS_PER_DAY);
+
+    // civil date from days, see http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+    final long days = epochDays + DAYS_0000_TO_1970;
+    final long era = floorDiv(days, DAYS_PER_CYCLE);
+    final int dayOfEra = (int) (days - era * DAYS_PER_CYCLE);
+    final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    final int shiftedMonth = (5 * dayOfYear + 2) / 153;
+    final int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+    final int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+    final long year = era * 400 + yearOfEra + (month <= 2 ? 1 : 0);
+    if (year < 0 || year > 9999) {
+      throw new IllegalArgumentException("year is out of the ISO 8601 range " + year);
+    }
+
+    offset = writeDigits((int) year, 4, buffer, offset);
+    buffer[offset++] = '-';
+    offset = writeDigits(month, 2, buffer, offset);
+    buffer[offset++] = '-';
+    offset = writeDigits(day, 2, buffer, offset);
+    buffer[offset++] = 'T';
+    offset = writeDigits(secondOfDay / 3600, 2, buffer, offset);
+    buffer[offset++] = ':';
+    offset = writeDigits(secondOfDay / 60 % 60, 2, buffer, offset);
+    buffer[offset++] = ':';
+    offset = writeDigits(secondOfDay % 60, 2, buffer, offset);
+    if (fractionDigits > 0) {
+      buffer[offset++] = '.';
+      int fraction = (int) nanos;
+      for (int i = fractionDigits; i < 9; i++) {
+        fraction /= 10;
+      }
+      offset = writeDigits(fraction, fractionDigits, buffer, offset);
+    }
+    buffer[offset++] = 'Z';
+    return offset;
+  }
+
+  /**
+   * Parses an UTC/ISO 8601 timestamp.
+   *
+   * @param timestamp UTC/ISO 8601 format eg 2000-12-31T23:59:58Z or 2000-12-31T23:59:58.123Z
+   * @param fractionDigits the precision of the result, 3 for millis and 9 for nanos
+   * @return the time from the epoch in units of 10^-fractionDigits seconds, extra digits of the
+   *     fraction are truncated
+   */
+  private static long parse(final @NotNull String timestamp, final int fractionDigits)
+      throws IllegalArgumentException {
+    final int length = timestamp.length();
+    if (length < SECONDS_LENGTH + 1
+        || timestamp.charAt(4) != '-'
+        || timestamp.charAt(7) != '-'
+        || timestamp.charAt(10) != 'T'
+        || timestamp.charAt(13) != ':'
+        || timestamp.charAt(16) != ':'
+        || timestamp.charAt(length - 1) != 'Z') {
+      throw invalidTimestamp(timestamp);
+    }
+    final int year = readDigits(timestamp, 0, 4);
+    final int month = readDigits(timestamp, 5, 2);
+    final int day = readDigits(timestamp, 8, 2);
+    final int hour = readDigits(timestamp, 11, 2);
+    final int minute = readDigits(timestamp, 14, 2);
+    final int second = readDigits(timestamp, 17, 2);
+    if (year < 0
+        || month < 1
+        || month > 12
+        || day < 1
+        || day > daysInMonth(year, month)
+        || hour < 0
+        || hour > 23
+        || minute < 0
+        || minute > 59
+        || second < 0
+        || second > 59) {
+      throw invalidTimestamp(timestamp);
+    }
+
+    long fraction = 0;
+    final int fractionEnd = length - 1;
+    if (fractionEnd > SECONDS_LENGTH) {
+      final int fractionLength = fractionEnd - SECONDS_LENGTH - 1;
+      if (timestamp.charAt(SECONDS_LENGTH) != '.' || fractionLength < 1 || fractionLength > 9) {
+        throw invalidTimestamp(timestamp);
+      }
+      for (int i = 0; i < fractionDigits; i++) {
+        final int index = SECONDS_LENGTH + 1 + i;
+        final int digit = index < fractionEnd ? readDigits(timestamp, index, 1) : 0;
+        if (digit < 0) {
+          throw invalidTimestamp(timestamp);
+        }
+        fraction = fraction * 10 + digit;
+      }
+      for (int i = SECONDS_LENGTH + 1 + fractionDigits; i < fractionEnd; i++) {
+        if (readDigits(timestamp, i, 1) < 0) {
+          throw invalidTimestamp(timestamp);
+        }
+      }
+    }
+
+    // days from civil, see http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+    final int shiftedYear = month <= 2 ? year - 1 : year;
+    final long era = floorDiv(shiftedYear, 400);
+    final int yearOfEra = (int) (shiftedYear - era * 400);
+    final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    final long epochDays = era * DAYS_PER_CYCLE + dayOfEra - DAYS_0000_TO_1970;
+    final long epochSeconds = epochDays * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+
+    long unitsPerSecond = 1;
+    for (int i = 0; i < fractionDigits; i++) {
+      unitsPerSecond *= 10;
+    }
+    return epochSeconds * unitsPerSecond + fraction;
+  }
+
+  private static int writeDigits(
+      int value, final int digits, final @NotNull char[] buffer, final int offset) {
+    for (int i = offset + digits - 1; i >= offset; i--) {
+      buffer[i] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+    return offset + digits;
+  }
+
+  /** Returns the number read from the digits or -1 if any of the chars is not a digit. */
+  private static int readDigits(
+      final @NotNull String timestamp, final int offset, final int digits) {
+    int value = 0;
+    for (int i = offset; i < offset + digits; i++) {
+      final char c = timestamp.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  private static int daysInMonth(final int year, final int month) {
+    if (month == 2) {
+      final boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+      return leap ? 29 : 28;
+    }
+    return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  private static @NotNull IllegalArgumentException invalidTimestamp(
+      final @NotNull String timestamp) {
+    return new IllegalArgumentException("timestamp is not ISO format " + timestamp);
+  }
+
+  // Math.floorDiv and Math.floorMod require Android API 24
+  private static long floorDiv(final long x, final long y) {
+    final long q = x / y;
+    return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+  }
+
+  private static long floorMod(final long x, final long y) {
+    return x - floorDiv(x, y) * y;
   }
 }
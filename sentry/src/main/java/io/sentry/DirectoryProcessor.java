@@ -7,19 +7,38 @@ import io.sentry.hints.Flushable;
 import io.sentry.hints.Retryable;
 import io.sentry.hints.SubmissionResult;
 import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 abstract class DirectoryProcessor {
 
+  /**
+   * Files are claimed by renaming them with this prefix, so only one thread or process handles each
+   * file.
+   */
+  static final String CLAIMED_FILE_PREFIX = ".claimed.";
+
+  /** A claim older than this belongs to a processor that died, the file is processed again. */
+  static final long STALE_CLAIM_MILLIS = 5 * 60 * 1000;
+
   private final @NotNull ILogger logger;
   private final long flushTimeoutMillis;
+  private final int parallelism;
 
   DirectoryProcessor(final @NotNull ILogger logger, final long flushTimeoutMillis) {
+    this(logger, flushTimeoutMillis, 1);
+  }
+
+  DirectoryProcessor(
+      final @NotNull ILogger logger, final long flushTimeoutMillis, final int parallelism) {
     this.logger = logger;
     this.flushTimeoutMillis = flushTimeoutMillis;
+    this.parallelism = Math.max(1, parallelism);
   }
 
   public void processDirectory(final @NotNull File directory) {
@@ -53,27 +72,158 @@ abstract class DirectoryProcessor {
           filteredListFiles != null ? filteredListFiles.length : 0,
           directory.getAbsolutePath());
 
-      for (File file : listFiles) {
-        // it ignores .sentry-native database folder and new ones that might come up
-        if (!file.isFile()) {
-          logger.log(SentryLevel.DEBUG, "File %s is not a File.", file.getAbsolutePath());
-          continue;
-        }
+      final ThreadPoolExecutor executor = parallelism > 1 ? createExecutor() : null;
+      try {
+        for (File file : listFiles) {
+          // it ignores .sentry-native database folder and new ones that might come up
+          if (!file.isFile()) {
+            logger.log(SentryLevel.DEBUG, "File %s is not a File.", file.getAbsolutePath());
+            continue;
+          }
 
-        logger.log(SentryLevel.DEBUG, "Processing file: %s", file.getAbsolutePath());
+          if (file.getName().startsWith(CLAIMED_FILE_PREFIX)) {
+            file = releaseStaleClaim(file);
+            if (file == null) {
+              continue;
+            }
+          }
 
-        final SendCachedEnvelopeHint hint = new SendCachedEnvelopeHint(flushTimeoutMillis, logger);
-        processFile(file, hint);
+          final File fileToProcess = file;
+          if (executor != null) {
+            executor.execute(() -> processDirectoryFile(fileToProcess));
+          } else {
+            processDirectoryFile(fileToProcess);
+          }
+        }
+      } finally {
+        if (executor != null) {
+          executor.shutdown();
+          awaitTermination(executor);
+        }
       }
     } catch (Exception e) {
       logger.log(SentryLevel.ERROR, e, "Failed processing '%s'", directory.getAbsolutePath());
     }
   }
 
+  /**
+   * Claims and processes a single file of the directory, as {@link #processDirectory(File)} does.
+   *
+   * @param file the file
+   */
+  final void processDirectoryFile(final @NotNull File file) {
+    logger.log(SentryLevel.DEBUG, "Processing file: %s", file.getAbsolutePath());
+
+    final SendCachedEnvelopeHint hint = new SendCachedEnvelopeHint(flushTimeoutMillis, logger);
+    processClaimedFile(file, hint);
+  }
+
+  /**
+   * Claims the file by renaming it, processes it and, if it's still there because it has to be
+   * retried, releases the claim. Does nothing if another thread or process claimed the file first.
+   *
+   * @param file the file
+   * @param hint the hint
+   */
+  final void processClaimedFile(final @NotNull File file, final @Nullable Object hint) {
+    if (!isRelevantFileName(file.getName()) || !file.isFile()) {
+      // processFile logs irrelevant and missing files, no need to claim them
+      processFile(file, hint);
+      return;
+    }
+
+    final File claimedFile = new File(file.getParentFile(), CLAIMED_FILE_PREFIX + file.getName());
+    if (!file.renameTo(claimedFile)) {
+      logger.log(
+          SentryLevel.DEBUG,
+          "File %s has been claimed by another processor.",
+          file.getAbsolutePath());
+      return;
+    }
+    // the time of the claim, renaming keeps the time of the last write
+    if (!claimedFile.setLastModified(System.currentTimeMillis())) {
+      logger.log(SentryLevel.DEBUG, "Failed to touch %s.", claimedFile.getAbsolutePath());
+    }
+
+    try {
+      processFile(claimedFile, hint);
+    } finally {
+      if (claimedFile.exists() && !claimedFile.renameTo(file)) {
+        logger.log(SentryLevel.ERROR, "Failed to release %s.", claimedFile.getAbsolutePath());
+      }
+    }
+  }
+
+  /**
+   * Releases the claim of a file claimed for longer than {@link #STALE_CLAIM_MILLIS}.
+   *
+   * @param claimedFile the claimed file
+   * @return the released file or null if the claim isn't stale or was released by someone else
+   */
+  final @Nullable File releaseStaleClaim(final @NotNull File claimedFile) {
+    if (System.currentTimeMillis() - claimedFile.lastModified() < STALE_CLAIM_MILLIS) {
+      logger.log(
+          SentryLevel.DEBUG,
+          "File %s is being processed by another processor.",
+          claimedFile.getAbsolutePath());
+      return null;
+    }
+    final File file =
+        new File(
+            claimedFile.getParentFile(),
+            claimedFile.getName().substring(CLAIMED_FILE_PREFIX.length()));
+    if (!claimedFile.renameTo(file)) {
+      return null;
+    }
+    logger.log(SentryLevel.INFO, "Released the stale claim of %s.", file.getAbsolutePath());
+    return file;
+  }
+
+  /**
+   * Creates the executor processing the files in parallel. Its queue is bounded, once it's full the
+   * thread listing the directory processes the next file itself.
+   *
+   * @return the executor
+   */
+  private @NotNull ThreadPoolExecutor createExecutor() {
+    final ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            parallelism,
+            parallelism,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(parallelism),
+            new DirectoryProcessorThreadFactory(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    return executor;
+  }
+
+  private void awaitTermination(final @NotNull ThreadPoolExecutor executor) {
+    try {
+      while (!executor.awaitTermination(flushTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        logger.log(SentryLevel.DEBUG, "Waiting for the files being processed.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.log(SentryLevel.ERROR, "Interrupted while waiting for the files being processed.", e);
+    }
+  }
+
   protected abstract void processFile(final @NotNull File file, final @Nullable Object hint);
 
   protected abstract boolean isRelevantFileName(String fileName);
 
+  private static final class DirectoryProcessorThreadFactory implements ThreadFactory {
+    private int cnt;
+
+    @Override
+    public @NotNull Thread newThread(final @NotNull Runnable r) {
+      final Thread ret = new Thread(r, "SentryDirectoryProcessor-" + cnt++);
+      ret.setDaemon(true);
+      return ret;
+    }
+  }
+
   private static final class SendCachedEnvelopeHint
       implements Cached, Retryable, SubmissionResult, Flushable {
     boolean retry = false;
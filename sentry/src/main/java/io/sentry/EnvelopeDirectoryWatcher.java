@@ -0,0 +1,371 @@
+package io.sentry;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Watches a dir with a {@link WatchService} and sends the envelope files that show up with an
+ * {@link OutboxSender}.
+ *
+ * <p>A file is sent once its size and last modified time stayed the same for {@link
+ * SentryOptions#getEnvelopeWatchDebounceMillis()}, so files still being written are left alone.
+ * Hidden files and files ending with {@code .tmp} are ignored, writers can create their files under
+ * such a name and rename them once complete. The dir is also scanned every {@link
+ * SentryOptions#getEnvelopeWatchPollIntervalMillis()}, when the watch service overflows and, if the
+ * dir can't be watched, instead of watching it. Scans release the claims of processors that died,
+ * see {@link DirectoryProcessor#STALE_CLAIM_MILLIS}. At most {@link
+ * SentryOptions#getEnvelopeProcessingParallelism()} files are sent at once.
+ *
+ * <p>A file left in the dir to be retried is sent again after a backoff, starting at {@link
+ * #MIN_RETRY_DELAY_MILLIS} and doubling up to {@link #MAX_RETRY_DELAY_MILLIS}.
+ */
+final class EnvelopeDirectoryWatcher implements Closeable {
+
+  /** Scan interval used if the dir can't be watched and no interval is set. */
+  static final long FALLBACK_POLL_INTERVAL_MILLIS = 5 * 1000;
+
+  /** Shortest wait between two checks of the files seen. */
+  private static final long MIN_TICK_MILLIS = 100;
+
+  /** Delay before the first retry of a file, on top of the debounce time. */
+  static final long MIN_RETRY_DELAY_MILLIS = 5 * 1000;
+
+  /** Longest delay between two retries of a file. */
+  static final long MAX_RETRY_DELAY_MILLIS = 5 * 60 * 1000;
+
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+  private final @NotNull File dir;
+  private final @NotNull OutboxSender sender;
+  private final @NotNull ILogger logger;
+  private final long debounceMillis;
+  private final long pollIntervalMillis;
+  private final long flushTimeoutMillis;
+  private final @NotNull ThreadPoolExecutor executor;
+
+  /** Files seen and not sent yet by name, only accessed by the watcher thread. */
+  private final @NotNull Map<String, Candidate> candidates = new HashMap<>();
+
+  /** Files handed to the executor and not done yet. */
+  private final @NotNull Set<String> submitted = Collections.synchronizedSet(new HashSet<>());
+
+  /** Number of times files have been retried by name, updated before they leave submitted. */
+  private final @NotNull Map<String, Integer> retries = new ConcurrentHashMap<>();
+
+  private final @NotNull CountDownLatch closed = new CountDownLatch(1);
+
+  private volatile @Nullable WatchService watchService;
+
+  /** When the dir is scanned next, it's scanned right away when started. */
+  private long nextScanMillis;
+
+  private static final class Candidate {
+    long size;
+    long lastModified;
+    /** Since when the size and last modified time didn't change. */
+    long unchangedSinceMillis;
+  }
+
+  EnvelopeDirectoryWatcher(
+      final @NotNull File dir,
+      final @NotNull OutboxSender sender,
+      final @NotNull SentryOptions options) {
+    this.dir = dir;
+    this.sender = sender;
+    this.logger = options.getLogger();
+    this.debounceMillis = Math.max(0, options.getEnvelopeWatchDebounceMillis());
+    this.pollIntervalMillis = Math.max(0, options.getEnvelopeWatchPollIntervalMillis());
+    this.flushTimeoutMillis = options.getFlushTimeoutMillis();
+
+    final int parallelism = Math.max(1, options.getEnvelopeProcessingParallelism());
+    // once the queue is full, the watcher thread sends the next file itself and stops reading
+    // events for a while
+    this.executor =
+        new ThreadPoolExecutor(
+            parallelism,
+            parallelism,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(parallelism),
+            new EnvelopeDirectoryWatcherThreadFactory(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  /** Starts watching the dir on a daemon thread. */
+  void start() {
+    watchService = openWatchService();
+
+    final Thread thread = new Thread(this::run, "SentryEnvelopeDirectoryWatcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private @Nullable WatchService openWatchService() {
+    WatchService watchService = null;
+    try {
+      watchService = FileSystems.getDefault().newWatchService();
+      dir.toPath()
+          .register(
+              watchService,
+              StandardWatchEventKinds.ENTRY_CREATE,
+              StandardWatchEventKinds.ENTRY_MODIFY);
+      return watchService;
+    } catch (IOException | RuntimeException e) {
+      logger.log(
+          SentryLevel.WARNING,
+          e,
+          "Failed to watch %s, it's scanned for new files instead.",
+          dir.getAbsolutePath());
+      closeWatchService(watchService);
+      return null;
+    }
+  }
+
+  private void run() {
+    while (closed.getCount() > 0) {
+      try {
+        final long now = System.currentTimeMillis();
+        if (now >= nextScanMillis) {
+          scan(now);
+          nextScanMillis = now + getScanIntervalMillis();
+        }
+        submitUnchangedFiles(now);
+        awaitChanges();
+      } catch (ClosedWatchServiceException e) {
+        // closed while waiting for changes
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Throwable e) {
+        logger.log(SentryLevel.ERROR, "Failed to watch the envelope files.", e);
+      }
+    }
+  }
+
+  private long getScanIntervalMillis() {
+    if (pollIntervalMillis > 0) {
+      return pollIntervalMillis;
+    }
+    // scans release stale claims, the watch service doesn't report them
+    return watchService != null
+        ? DirectoryProcessor.STALE_CLAIM_MILLIS
+        : FALLBACK_POLL_INTERVAL_MILLIS;
+  }
+
+  /** Waits for the watch service to report changes or the next check of the files seen. */
+  private void awaitChanges() throws InterruptedException {
+    final long tick = candidates.isEmpty() ? getScanIntervalMillis() : debounceMillis;
+    final long timeout =
+        Math.max(MIN_TICK_MILLIS, Math.min(tick, nextScanMillis - System.currentTimeMillis()));
+
+    final WatchService watchService = this.watchService;
+    if (watchService == null) {
+      closed.await(timeout, TimeUnit.MILLISECONDS);
+      return;
+    }
+
+    final WatchKey key = watchService.poll(timeout, TimeUnit.MILLISECONDS);
+    if (key == null) {
+      return;
+    }
+    final long now = System.currentTimeMillis();
+    for (final WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        // events were lost
+        nextScanMillis = now;
+      } else if (event.context() instanceof Path) {
+        onFileChanged(event.context().toString(), now);
+      }
+    }
+    if (!key.reset()) {
+      logger.log(
+          SentryLevel.WARNING,
+          "%s can't be watched anymore, it's scanned for new files instead.",
+          dir.getAbsolutePath());
+      closeWatchService(watchService);
+      this.watchService = null;
+      nextScanMillis = now;
+    }
+  }
+
+  /**
+   * Adds all the files of the dir to the files seen, and releases the stale claims.
+   *
+   * @param now the current time in millis
+   */
+  void scan(final long now) {
+    final File[] files = dir.listFiles();
+    if (files == null) {
+      logger.log(SentryLevel.DEBUG, "Failed to list the files of %s.", dir.getAbsolutePath());
+      return;
+    }
+    for (final File file : files) {
+      final String name = file.getName();
+      if (name.startsWith(DirectoryProcessor.CLAIMED_FILE_PREFIX)) {
+        final String claimedName = name.substring(DirectoryProcessor.CLAIMED_FILE_PREFIX.length());
+        if (!submitted.contains(claimedName) && sender.releaseStaleClaim(file) != null) {
+          onFileChanged(claimedName, now);
+        }
+      } else if (isEnvelopeFileName(name) && !candidates.containsKey(name)) {
+        onFileChanged(name, now);
+      }
+    }
+  }
+
+  /**
+   * Records that a file has been created or written to.
+   *
+   * @param name the name of the file
+   * @param now the current time in millis
+   */
+  void onFileChanged(final @NotNull String name, final long now) {
+    if (!isEnvelopeFileName(name)) {
+      return;
+    }
+    final File file = new File(dir, name);
+    Candidate candidate = candidates.get(name);
+    if (candidate == null) {
+      candidate = new Candidate();
+      candidates.put(name, candidate);
+    }
+    candidate.size = file.length();
+    candidate.lastModified = file.lastModified();
+    candidate.unchangedSinceMillis = now;
+  }
+
+  /**
+   * Sends the files seen that didn't change for the debounce time, plus the retry delay for files
+   * being retried. Files still being sent are sent again once done, if they are retried.
+   *
+   * @param now the current time in millis
+   */
+  void submitUnchangedFiles(final long now) {
+    final Iterator<Map.Entry<String, Candidate>> iterator = candidates.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<String, Candidate> entry = iterator.next();
+      final String name = entry.getKey();
+      final Candidate candidate = entry.getValue();
+      final File file = new File(dir, name);
+      if (!file.isFile()) {
+        // deleted, renamed or claimed by another processor
+        iterator.remove();
+        if (!submitted.contains(name)) {
+          retries.remove(name);
+        }
+        continue;
+      }
+      final long size = file.length();
+      final long lastModified = file.lastModified();
+      if (size != candidate.size || lastModified != candidate.lastModified) {
+        candidate.size = size;
+        candidate.lastModified = lastModified;
+        candidate.unchangedSinceMillis = now;
+      } else if (now - candidate.unchangedSinceMillis >= debounceMillis + getRetryDelayMillis(name)
+          && !submitted.contains(name)) {
+        iterator.remove();
+        submit(file);
+      }
+    }
+  }
+
+  private void submit(final @NotNull File file) {
+    final String name = file.getName();
+    submitted.add(name);
+    try {
+      executor.execute(
+          () -> {
+            try {
+              sender.processDirectoryFile(file);
+            } finally {
+              if (file.isFile()) {
+                final Integer count = retries.get(name);
+                retries.put(name, count != null ? count + 1 : 1);
+              } else {
+                retries.remove(name);
+              }
+              submitted.remove(name);
+            }
+          });
+    } catch (RuntimeException e) {
+      submitted.remove(name);
+      logger.log(SentryLevel.ERROR, e, "Failed to submit %s.", file.getAbsolutePath());
+    }
+  }
+
+  /**
+   * Returns the delay before a file is retried, doubling with each retry.
+   *
+   * @param name the name of the file
+   * @return the delay in millis, 0 if the file hasn't been retried
+   */
+  long getRetryDelayMillis(final @NotNull String name) {
+    final Integer count = retries.get(name);
+    if (count == null) {
+      return 0;
+    }
+    return Math.min(MAX_RETRY_DELAY_MILLIS, MIN_RETRY_DELAY_MILLIS << Math.min(count - 1, 16));
+  }
+
+  private static boolean isEnvelopeFileName(final @NotNull String name) {
+    return !name.startsWith(".") && !name.endsWith(TEMP_FILE_SUFFIX);
+  }
+
+  private void closeWatchService(final @Nullable WatchService watchService) {
+    if (watchService != null) {
+      try {
+        watchService.close();
+      } catch (IOException e) {
+        logger.log(SentryLevel.DEBUG, "Failed to close the watch service.", e);
+      }
+    }
+  }
+
+  /** Stops watching the dir and waits for the files being sent. */
+  @Override
+  public void close() {
+    closed.countDown();
+    closeWatchService(watchService);
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(flushTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        logger.log(SentryLevel.WARNING, "Timed out waiting for the envelope files being sent.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.log(SentryLevel.ERROR, "Interrupted while waiting for the envelope files.", e);
+    }
+  }
+
+  private static final class EnvelopeDirectoryWatcherThreadFactory implements ThreadFactory {
+    private int cnt;
+
+    @Override
+    public @NotNull Thread newThread(final @NotNull Runnable r) {
+      final Thread ret = new Thread(r, "SentryEnvelopeDirectoryWatcher-" + cnt++);
+      ret.setDaemon(true);
+      return ret;
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package io.sentry;
+
+import io.sentry.util.Objects;
+import java.io.Closeable;
+import java.io.File;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Sends the envelope files written to {@link SentryOptions#getEnvelopeWatchDirPath()} by other
+ * processes as they show up, the JVM counterpart of the outbox observer of the Android SDK. The
+ * envelopes are sent as they are, without the scope of this process.
+ */
+public final class EnvelopeDirectoryWatcherIntegration implements Integration, Closeable {
+  private @Nullable EnvelopeDirectoryWatcher watcher;
+
+  @Override
+  public void register(final @NotNull IHub hub, final @NotNull SentryOptions options) {
+    Objects.requireNonNull(hub, "Hub is required");
+    Objects.requireNonNull(options, "SentryOptions is required");
+
+    final String dirPath = options.getEnvelopeWatchDirPath();
+    if (dirPath == null || dirPath.isEmpty()) {
+      options
+          .getLogger()
+          .log(SentryLevel.DEBUG, "EnvelopeDirectoryWatcherIntegration is disabled.");
+      return;
+    }
+
+    final OutboxSender sender =
+        new OutboxSender(
+            hub,
+            options.getEnvelopeReader(),
+            options.getSerializer(),
+            options.getLogger(),
+            options.getFlushTimeoutMillis());
+    try {
+      final EnvelopeDirectoryWatcher watcher =
+          new EnvelopeDirectoryWatcher(new File(dirPath), sender, options);
+      watcher.start();
+      this.watcher = watcher;
+      options.getLogger().log(SentryLevel.DEBUG, "EnvelopeDirectoryWatcherIntegration installed.");
+    } catch (Throwable e) {
+      // java.nio.file isn't available on every platform
+      options.getLogger().log(SentryLevel.ERROR, e, "Failed to start watching %s.", dirPath);
+    }
+  }
+
+  @Override
+  public void close() {
+    final EnvelopeDirectoryWatcher watcher = this.watcher;
+    if (watcher != null) {
+      watcher.close();
+      this.watcher = null;
+    }
+  }
+}
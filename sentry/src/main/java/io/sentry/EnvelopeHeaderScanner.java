@@ -0,0 +1,361 @@
+package io.sentry;
+
+import io.sentry.protocol.SdkVersion;
+import io.sentry.protocol.SentryId;
+import java.nio.charset.Charset;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads envelope and envelope item headers directly from the bytes of an envelope, without decoding
+ * the header line to a String or going through Gson.
+ *
+ * <p>Only the fixed schema of the headers is supported: {@code event_id} and {@code sdk} for the
+ * envelope header, {@code type}, {@code length}, {@code content_type} and {@code filename} for the
+ * item headers, and unknown fields are skipped. Anything else, such as escaped characters or values
+ * of an unexpected type, makes the scan return null so the caller falls back to {@link
+ * SentryEnvelopeHeaderAdapter} and {@link SentryEnvelopeItemHeaderAdapter}, which give the exact
+ * same result for the headers supported here.
+ */
+final class EnvelopeHeaderScanner {
+
+  @SuppressWarnings("CharsetObjectCanBeUsed")
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final byte[] EVENT_ID = ascii("event_id");
+  private static final byte[] SDK = ascii("sdk");
+  private static final byte[] NAME = ascii("name");
+  private static final byte[] VERSION = ascii("version");
+  private static final byte[] INTEGRATIONS = ascii("integrations");
+  private static final byte[] PACKAGES = ascii("packages");
+  private static final byte[] CONTENT_TYPE = ascii("content_type");
+  private static final byte[] FILENAME = ascii("filename");
+  private static final byte[] TYPE = ascii("type");
+  private static final byte[] LENGTH = ascii("length");
+
+  /** Thrown when the header can't be scanned, the caller falls back to Gson. */
+  private static final class UnsupportedHeaderException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public synchronized @NotNull Throwable fillInStackTrace() {
+      // thrown for control flow only
+      return this;
+    }
+  }
+
+  private static final UnsupportedHeaderException UNSUPPORTED = new UnsupportedHeaderException();
+
+  private final @NotNull byte[] buffer;
+  private final int end;
+  private int position;
+
+  /** Start and end of the last name read, the name itself is never decoded. */
+  private int nameStart;
+
+  private int nameEnd;
+
+  /** If no member of the current object or array has been read yet. */
+  private boolean firstMember;
+
+  private EnvelopeHeaderScanner(final @NotNull byte[] buffer, final int offset, final int length) {
+    this.buffer = buffer;
+    this.position = offset;
+    this.end = offset + length;
+  }
+
+  /**
+   * Scans an envelope header.
+   *
+   * @param buffer the bytes of the envelope
+   * @param offset the offset of the header
+   * @param length the length of the header, without the line break
+   * @return the header or null if it has to be read with Gson
+   */
+  static @Nullable SentryEnvelopeHeader scanEnvelopeHeader(
+      final @NotNull byte[] buffer, final int offset, final int length) {
+    try {
+      return new EnvelopeHeaderScanner(buffer, offset, length).envelopeHeader();
+    } catch (UnsupportedHeaderException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Scans an envelope item header.
+   *
+   * @param buffer the bytes of the envelope
+   * @param offset the offset of the item header
+   * @param length the length of the item header, without the line break
+   * @return the item header or null if it has to be read with Gson
+   */
+  static @Nullable SentryEnvelopeItemHeader scanItemHeader(
+      final @NotNull byte[] buffer, final int offset, final int length) {
+    try {
+      return new EnvelopeHeaderScanner(buffer, offset, length).itemHeader();
+    } catch (UnsupportedHeaderException e) {
+      return null;
+    }
+  }
+
+  private @NotNull SentryEnvelopeHeader envelopeHeader() throws UnsupportedHeaderException {
+    SentryId eventId = null;
+    SdkVersion sdkVersion = null;
+
+    beginObject();
+    while (hasNext('}')) {
+      nextName();
+      if (nameEquals(EVENT_ID)) {
+        eventId = new SentryId(nextString());
+      } else if (nameEquals(SDK)) {
+        sdkVersion = sdkVersion();
+      } else {
+        skipValue();
+      }
+    }
+    endDocument();
+
+    return new SentryEnvelopeHeader(eventId, sdkVersion);
+  }
+
+  @SuppressWarnings("deprecation")
+  private @NotNull SdkVersion sdkVersion() throws UnsupportedHeaderException {
+    final SdkVersion sdkVersion = new SdkVersion();
+
+    beginObject();
+    while (hasNext('}')) {
+      nextName();
+      if (nameEquals(NAME)) {
+        sdkVersion.setName(nextString());
+      } else if (nameEquals(VERSION)) {
+        sdkVersion.setVersion(nextString());
+      } else if (nameEquals(INTEGRATIONS)) {
+        beginArray();
+        while (hasNext(']')) {
+          sdkVersion.addIntegration(nextString());
+        }
+      } else if (nameEquals(PACKAGES)) {
+        beginArray();
+        while (hasNext(']')) {
+          String name = null;
+          String version = null;
+          beginObject();
+          while (hasNext('}')) {
+            nextName();
+            if (nameEquals(NAME)) {
+              name = nextString();
+            } else if (nameEquals(VERSION)) {
+              version = nextString();
+            } else {
+              skipValue();
+            }
+          }
+          // packages should not contain null names or versions
+          if (name != null && version != null) {
+            sdkVersion.addPackage(name, version);
+          }
+        }
+      } else {
+        skipValue();
+      }
+    }
+    return sdkVersion;
+  }
+
+  private @NotNull SentryEnvelopeItemHeader itemHeader() throws UnsupportedHeaderException {
+    String contentType = null;
+    String fileName = null;
+    SentryItemType type = SentryItemType.Unknown;
+    int length = 0;
+
+    beginObject();
+    while (hasNext('}')) {
+      nextName();
+      if (nameEquals(CONTENT_TYPE)) {
+        contentType = nextString();
+      } else if (nameEquals(FILENAME)) {
+        fileName = nextString();
+      } else if (nameEquals(TYPE)) {
+        type = SentryItemType.valueOfLabel(nextString());
+      } else if (nameEquals(LENGTH)) {
+        length = nextInt();
+      } else {
+        skipValue();
+      }
+    }
+    endDocument();
+
+    return new SentryEnvelopeItemHeader(type, length, contentType, fileName);
+  }
+
+  private void beginObject() throws UnsupportedHeaderException {
+    expect('{');
+    firstMember = true;
+  }
+
+  private void beginArray() throws UnsupportedHeaderException {
+    expect('[');
+    firstMember = true;
+  }
+
+  /**
+   * Checks if the current object or array has another member, consuming the separating comma or the
+   * closing bracket.
+   *
+   * @param close the closing bracket of the current object or array
+   */
+  private boolean hasNext(final char close) throws UnsupportedHeaderException {
+    if (peek() == close) {
+      position++;
+      // the closed object or array was a member of the enclosing one
+      firstMember = false;
+      return false;
+    }
+    if (!firstMember) {
+      expect(',');
+    }
+    firstMember = false;
+    return true;
+  }
+
+  private void nextName() throws UnsupportedHeaderException {
+    expect('"');
+    final int start = position;
+    while (position < end && buffer[position] != '"') {
+      if (buffer[position] == '\\') {
+        throw UNSUPPORTED;
+      }
+      position++;
+    }
+    if (position >= end) {
+      throw UNSUPPORTED;
+    }
+    nameStart = start;
+    nameEnd = position;
+    position++;
+    expect(':');
+  }
+
+  private boolean nameEquals(final @NotNull byte[] name) {
+    if (nameEnd - nameStart != name.length) {
+      return false;
+    }
+    for (int i = 0; i < name.length; i++) {
+      if (buffer[nameStart + i] != name[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private @NotNull String nextString() throws UnsupportedHeaderException {
+    expect('"');
+    final int start = position;
+    while (position < end && buffer[position] != '"') {
+      if (buffer[position] == '\\') {
+        throw UNSUPPORTED;
+      }
+      position++;
+    }
+    if (position >= end) {
+      throw UNSUPPORTED;
+    }
+    final String value = new String(buffer, start, position - start, UTF_8);
+    position++;
+    return value;
+  }
+
+  private int nextInt() throws UnsupportedHeaderException {
+    skipWhitespace();
+    final boolean negative = position < end && buffer[position] == '-';
+    if (negative) {
+      position++;
+    }
+    final int start = position;
+    long value = 0;
+    while (position < end && buffer[position] >= '0' && buffer[position] <= '9') {
+      value = value * 10 + (buffer[position] - '0');
+      if (value > Integer.MAX_VALUE) {
+        throw UNSUPPORTED;
+      }
+      position++;
+    }
+    if (position == start || !isValueEnd()) {
+      // fractions, exponents and quoted numbers are left to Gson
+      throw UNSUPPORTED;
+    }
+    return (int) (negative ? -value : value);
+  }
+
+  /** Skips a value of any type, only used for the fields that aren't part of the schema. */
+  private void skipValue() throws UnsupportedHeaderException {
+    final byte next = peek();
+    if (next == '"') {
+      nextString();
+    } else if (next == '{') {
+      beginObject();
+      while (hasNext('}')) {
+        nextName();
+        skipValue();
+      }
+    } else if (next == '[') {
+      beginArray();
+      while (hasNext(']')) {
+        skipValue();
+      }
+    } else {
+      // numbers and literals
+      final int start = position;
+      while (position < end && !isValueEnd()) {
+        position++;
+      }
+      if (position == start) {
+        throw UNSUPPORTED;
+      }
+    }
+  }
+
+  private boolean isValueEnd() {
+    if (position >= end) {
+      return true;
+    }
+    final byte current = buffer[position];
+    return current == ',' || current == '}' || current == ']' || isWhitespace(current);
+  }
+
+  private void endDocument() throws UnsupportedHeaderException {
+    skipWhitespace();
+    if (position != end) {
+      throw UNSUPPORTED;
+    }
+  }
+
+  private void expect(final char expected) throws UnsupportedHeaderException {
+    if (peek() != expected) {
+      throw UNSUPPORTED;
+    }
+    position++;
+  }
+
+  private byte peek() throws UnsupportedHeaderException {
+    skipWhitespace();
+    if (position >= end) {
+      throw UNSUPPORTED;
+    }
+    return buffer[position];
+  }
+
+  private void skipWhitespace() {
+    while (position < end && isWhitespace(buffer[position])) {
+      position++;
+    }
+  }
+
+  private static boolean isWhitespace(final byte b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+  }
+
+  private static @NotNull byte[] ascii(final @NotNull String value) {
+    return value.getBytes(UTF_8);
+  }
+}
@@ -138,12 +138,23 @@ public final class EnvelopeReader implements IEnvelopeReader {
   }
 
   private SentryEnvelopeHeader deserializeEnvelopeHeader(byte[] buffer, int offset, int length) {
+    // headers are scanned from the bytes, Gson only reads the ones the scanner doesn't support
+    final SentryEnvelopeHeader header =
+        EnvelopeHeaderScanner.scanEnvelopeHeader(buffer, offset, length);
+    if (header != null) {
+      return header;
+    }
     String json = new String(buffer, offset, length, UTF_8);
     return gson.fromJson(json, SentryEnvelopeHeader.class);
   }
 
   private SentryEnvelopeItemHeader deserializeEnvelopeItemHeader(
       byte[] buffer, int offset, int length) {
+    final SentryEnvelopeItemHeader itemHeader =
+        EnvelopeHeaderScanner.scanItemHeader(buffer, offset, length);
+    if (itemHeader != null) {
+      return itemHeader;
+    }
     String json = new String(buffer, offset, length, UTF_8);
     return gson.fromJson(json, SentryEnvelopeItemHeader.class);
   }
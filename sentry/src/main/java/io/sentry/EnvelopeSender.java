@@ -27,7 +27,16 @@ public final class EnvelopeSender extends DirectoryProcessor implements IEnvelop
       final @NotNull ISerializer serializer,
       final @NotNull ILogger logger,
       final long flushTimeoutMillis) {
-    super(logger, flushTimeoutMillis);
+    this(hub, serializer, logger, flushTimeoutMillis, 1);
+  }
+
+  public EnvelopeSender(
+      final @NotNull IHub hub,
+      final @NotNull ISerializer serializer,
+      final @NotNull ILogger logger,
+      final long flushTimeoutMillis,
+      final int parallelism) {
+    super(logger, flushTimeoutMillis, parallelism);
     this.hub = Objects.requireNonNull(hub, "Hub is required.");
     this.serializer = Objects.requireNonNull(serializer, "Serializer is required.");
     this.logger = Objects.requireNonNull(logger, "Logger is required.");
@@ -105,7 +114,7 @@ public final class EnvelopeSender extends DirectoryProcessor implements IEnvelop
   public void processEnvelopeFile(@NotNull String path, @Nullable Object hint) {
     Objects.requireNonNull(path, "Path is required.");
 
-    processFile(new File(path), hint);
+    processClaimedFile(new File(path), hint);
   }
 
   private void safeDelete(File file, String errorMessageSuffix) {
@@ -15,6 +15,8 @@ import io.sentry.adapters.SentryIdDeserializerAdapter;
 import io.sentry.adapters.SentryIdSerializerAdapter;
 import io.sentry.adapters.SentryLevelDeserializerAdapter;
 import io.sentry.adapters.SentryLevelSerializerAdapter;
+import io.sentry.adapters.SentryTimestampDeserializerAdapter;
+import io.sentry.adapters.SentryTimestampSerializerAdapter;
 import io.sentry.adapters.SpanIdDeserializerAdapter;
 import io.sentry.adapters.SpanIdSerializerAdapter;
 import io.sentry.adapters.SpanStatusDeserializerAdapter;
@@ -84,6 +86,8 @@ public final class GsonSerializer implements ISerializer {
         .registerTypeAdapter(SentryId.class, new SentryIdDeserializerAdapter(logger))
         .registerTypeAdapter(Date.class, new DateSerializerAdapter(logger))
         .registerTypeAdapter(Date.class, new DateDeserializerAdapter(logger))
+        .registerTypeAdapter(SentryTimestamp.class, new SentryTimestampSerializerAdapter(logger))
+        .registerTypeAdapter(SentryTimestamp.class, new SentryTimestampDeserializerAdapter(logger))
         .registerTypeAdapter(TimeZone.class, new TimeZoneSerializerAdapter(logger))
         .registerTypeAdapter(TimeZone.class, new TimeZoneDeserializerAdapter(logger))
         .registerTypeAdapter(
@@ -177,13 +181,13 @@ public final class GsonSerializer implements ISerializer {
       for (final SentryEnvelopeItem item : envelope.getItems()) {
         try {
           // When this throws we don't write anything and continue with the next item.
-          final byte[] data = item.getData();
+          item.validateData();
 
           gson.toJson(item.getHeader(), SentryEnvelopeItemHeader.class, writer);
           writer.write("\n");
           writer.flush();
 
-          outputStream.write(data);
+          item.writeData(outputStream);
 
           writer.write("\n");
         } catch (Exception exception) {
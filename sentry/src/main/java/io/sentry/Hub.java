@@ -3,10 +3,14 @@ package io.sentry;
 import io.sentry.Stack.StackItem;
 import io.sentry.hints.SessionEndHint;
 import io.sentry.hints.SessionStartHint;
+import io.sentry.protocol.Request;
 import io.sentry.protocol.SentryId;
 import io.sentry.protocol.User;
 import io.sentry.util.Objects;
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.WeakHashMap;
 import org.jetbrains.annotations.ApiStatus;
@@ -20,6 +24,7 @@ public final class Hub implements IHub {
   private final @NotNull Stack stack;
   private final @NotNull TracesSampler tracesSampler;
   private final @NotNull WeakHashMap<Throwable, ISpan> throwableToSpan = new WeakHashMap<>();
+  private volatile @Nullable Snapshot snapshot;
 
   public Hub(final @NotNull SentryOptions options) {
     this(options, createRootStackItem(options));
@@ -28,10 +33,17 @@ public final class Hub implements IHub {
   }
 
   private Hub(final @NotNull SentryOptions options, final @NotNull Stack stack) {
+    this(options, stack, new TracesSampler(options));
+  }
+
+  private Hub(
+      final @NotNull SentryOptions options,
+      final @NotNull Stack stack,
+      final @NotNull TracesSampler tracesSampler) {
     validateOptions(options);
 
     this.options = options;
-    this.tracesSampler = new TracesSampler(options);
+    this.tracesSampler = tracesSampler;
     this.stack = stack;
     this.lastEventId = SentryId.EMPTY_ID;
 
@@ -76,6 +88,7 @@ public final class Hub implements IHub {
     } else if (event == null) {
       options.getLogger().log(SentryLevel.WARNING, "captureEvent called with null parameter.");
     } else {
+      final long start = options.getSdkMetrics().start();
       try {
         assignTraceContext(event);
         final StackItem item = stack.peek();
@@ -86,11 +99,48 @@ public final class Hub implements IHub {
             .log(
                 SentryLevel.ERROR, "Error while capturing event with id: " + event.getEventId(), e);
       }
+      options.getSdkMetrics().stop(SdkMetrics.Stage.CAPTURE_EVENT, start);
     }
     this.lastEventId = sentryId;
     return sentryId;
   }
 
+  @Override
+  public @NotNull List<SentryId> captureEvents(
+      final @NotNull Collection<SentryEvent> events, final @Nullable Object hint) {
+    if (events == null) {
+      options.getLogger().log(SentryLevel.WARNING, "captureEvents called with null parameter.");
+      return new ArrayList<>();
+    }
+    List<SentryId> sentryIds = null;
+    if (!isEnabled()) {
+      options
+          .getLogger()
+          .log(
+              SentryLevel.WARNING,
+              "Instance is disabled and this 'captureEvents' call is a no-op.");
+    } else {
+      try {
+        for (final SentryEvent event : events) {
+          if (event != null) {
+            assignTraceContext(event);
+          }
+        }
+        final StackItem item = stack.peek();
+        sentryIds = item.getClient().captureEvents(events, item.getScope(), hint);
+      } catch (Exception e) {
+        options.getLogger().log(SentryLevel.ERROR, "Error while capturing events.", e);
+      }
+    }
+    if (sentryIds == null || sentryIds.size() != events.size()) {
+      sentryIds = new ArrayList<>(Collections.nCopies(events.size(), SentryId.EMPTY_ID));
+    }
+    if (!sentryIds.isEmpty()) {
+      this.lastEventId = sentryIds.get(sentryIds.size() - 1);
+    }
+    return sentryIds;
+  }
+
   @Override
   public @NotNull SentryId captureMessage(
       final @NotNull String message, final @NotNull SentryLevel level) {
@@ -280,6 +330,27 @@ public final class Hub implements IHub {
     }
   }
 
+  @Override
+  public void addLogBreadcrumb(
+      final long timestampMillis,
+      final @Nullable SentryLevel level,
+      final @Nullable String category,
+      final @NotNull Object message,
+      final @NotNull LogBreadcrumbs.MessageFormatter formatter) {
+    if (!isEnabled()) {
+      options
+          .getLogger()
+          .log(
+              SentryLevel.WARNING,
+              "Instance is disabled and this 'addLogBreadcrumb' call is a no-op.");
+    } else {
+      stack
+          .peek()
+          .getScope()
+          .addLogBreadcrumb(timestampMillis, level, category, message, formatter);
+    }
+  }
+
   @Override
   public void setLevel(final @Nullable SentryLevel level) {
     if (!isEnabled()) {
@@ -510,7 +581,69 @@ public final class Hub implements IHub {
       options.getLogger().log(SentryLevel.WARNING, "Disabled Hub cloned.");
     }
     // Clone will be invoked in parallel
-    return new Hub(this.options, new Stack(this.stack));
+    return new Hub(this.options, new Stack(this.stack), this.tracesSampler);
+  }
+
+  /**
+   * Creates a Hub that shares this Hub's client and has a fork of the top-most Scope only, with the
+   * currently active span pinned to it. The forked Scope shares the breadcrumbs, tags, extras,
+   * contexts and attachments until either Scope changes them, see {@link Scope#fork()}. Unlike
+   * {@link #clone()}, which deep copies every Scope of the stack, it can be used to hand the Hub
+   * over to every task submitted to an executor.
+   *
+   * @return the forked Hub
+   */
+  @Override
+  public @NotNull IHub fork() {
+    if (!isEnabled()) {
+      options.getLogger().log(SentryLevel.WARNING, "Disabled Hub forked.");
+    }
+    return fork(stack.peek());
+  }
+
+  private @NotNull Hub fork(final @NotNull StackItem item) {
+    Scope forkedScope;
+    try {
+      forkedScope = item.getScope().fork();
+    } catch (CloneNotSupportedException e) {
+      options.getLogger().log(SentryLevel.ERROR, "Fork not supported");
+      forkedScope = new Scope(options);
+    }
+    final StackItem forkedItem = new StackItem(options, item.getClient(), forkedScope);
+    final ISpan span = item.getScope().getSpan();
+    if (span != null) {
+      forkedItem.getScope().setActiveSpan(span);
+    }
+    return new Hub(this.options, new Stack(options.getLogger(), forkedItem), this.tracesSampler);
+  }
+
+  /**
+   * Forks the Hub like {@link #fork()}, but hands out the same fork again as long as the top-most
+   * Scope, its user and request and the client didn't change, see {@link Scope#isForkCurrent}.
+   *
+   * @return the snapshot
+   */
+  @ApiStatus.Internal
+  @Override
+  public @NotNull IHub snapshot() {
+    final StackItem item = stack.peek();
+    final Scope scope = item.getScope();
+    final Snapshot last = snapshot;
+    if (last != null
+        && last.scope == scope
+        && last.client == item.getClient()
+        && last.user == scope.getUser()
+        && last.request == scope.getRequest()
+        && scope.isForkCurrent(last.hub.stack.peek().getScope())) {
+      return last.hub;
+    }
+    // read before forking, a change racing with the fork makes the next call fork again
+    final ISentryClient client = item.getClient();
+    final User user = scope.getUser();
+    final Request request = scope.getRequest();
+    final Hub hub = fork(item);
+    snapshot = new Snapshot(scope, client, user, request, hub);
+    return hub;
   }
 
   @ApiStatus.Internal
@@ -535,7 +668,14 @@ public final class Hub implements IHub {
                 "Capturing unfinished transaction: %s",
                 transaction.getEventId());
       }
-      if (!Boolean.TRUE.equals(transaction.isSampled())) {
+      if (options.isEnableTransactionMetrics()) {
+        options.getTransactionMetricsAggregator().record(transaction);
+      }
+      final boolean sampled = Boolean.TRUE.equals(transaction.isSampled());
+      // every finished transaction feeds the tail sampler, so it knows the usual durations
+      final boolean tailSampled =
+          options.isEnableTailSampling() && options.getTailSampler().sample(transaction);
+      if (!sampled && !tailSampled) {
         options
             .getLogger()
             .log(
@@ -543,6 +683,14 @@ public final class Hub implements IHub {
                 "Transaction %s was dropped due to sampling decision.",
                 transaction.getEventId());
       } else {
+        if (!sampled) {
+          options
+              .getLogger()
+              .log(
+                  SentryLevel.DEBUG,
+                  "Transaction %s was kept by tail sampling.",
+                  transaction.getEventId());
+        }
         StackItem item = null;
         try {
           item = stack.peek();
@@ -598,7 +746,12 @@ public final class Hub implements IHub {
       boolean samplingDecision = tracesSampler.sample(samplingContext);
       transactionContext.setSampled(samplingDecision);
 
-      transaction = new SentryTransaction(transactionContext, this);
+      final SentryTransaction sentryTransaction = new SentryTransaction(transactionContext, this);
+      final TransactionProfiler profiler = options.getTransactionProfiler();
+      if (samplingDecision && profiler != null) {
+        profiler.start(sentryTransaction);
+      }
+      transaction = sentryTransaction;
     }
     return transaction;
   }
@@ -650,4 +803,28 @@ public final class Hub implements IHub {
     }
     return null;
   }
+
+  /**
+   * A fork handed out by {@link #snapshot()} and what the top-most Scope held when it was taken.
+   */
+  private static final class Snapshot {
+    private final @NotNull Scope scope;
+    private final @NotNull ISentryClient client;
+    private final @Nullable User user;
+    private final @Nullable Request request;
+    private final @NotNull Hub hub;
+
+    Snapshot(
+        final @NotNull Scope scope,
+        final @NotNull ISentryClient client,
+        final @Nullable User user,
+        final @Nullable Request request,
+        final @NotNull Hub hub) {
+      this.scope = scope;
+      this.client = client;
+      this.user = user;
+      this.request = request;
+      this.hub = hub;
+    }
+  }
 }
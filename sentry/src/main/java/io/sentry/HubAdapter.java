@@ -2,6 +2,7 @@ package io.sentry;
 
 import io.sentry.protocol.SentryId;
 import io.sentry.protocol.User;
+import java.util.Collection;
 import java.util.List;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
@@ -27,6 +28,12 @@ public final class HubAdapter implements IHub {
     return Sentry.captureEvent(event, hint);
   }
 
+  @Override
+  public @NotNull List<SentryId> captureEvents(
+      final @NotNull Collection<SentryEvent> events, final @Nullable Object hint) {
+    return Sentry.captureEvents(events, hint);
+  }
+
   @Override
   public SentryId captureMessage(String message, SentryLevel level) {
     return Sentry.captureMessage(message, level);
@@ -68,6 +75,16 @@ public final class HubAdapter implements IHub {
     Sentry.addBreadcrumb(breadcrumb, hint);
   }
 
+  @Override
+  public void addLogBreadcrumb(
+      final long timestampMillis,
+      final @Nullable SentryLevel level,
+      final @Nullable String category,
+      final @NotNull Object message,
+      final @NotNull LogBreadcrumbs.MessageFormatter formatter) {
+    Sentry.getCurrentHub().addLogBreadcrumb(timestampMillis, level, category, message, formatter);
+  }
+
   @Override
   public void setLevel(SentryLevel level) {
     Sentry.setLevel(level);
@@ -153,6 +170,17 @@ public final class HubAdapter implements IHub {
     return Sentry.getCurrentHub().clone();
   }
 
+  @Override
+  public @NotNull IHub fork() {
+    return Sentry.getCurrentHub().fork();
+  }
+
+  @ApiStatus.Internal
+  @Override
+  public @NotNull IHub snapshot() {
+    return Sentry.getCurrentHub().snapshot();
+  }
+
   @Override
   public @NotNull SentryId captureTransaction(ITransaction transaction, Object hint) {
     return Sentry.getCurrentHub().captureTransaction(transaction, hint);
@@ -0,0 +1,15 @@
+package io.sentry;
+
+/** Controls how the current Hub is resolved on a thread when global hub mode is disabled. */
+public enum HubPropagationMode {
+  /** Every thread clones the main Hub on first access and keeps the clone for its lifetime. */
+  THREAD_LOCAL,
+  /**
+   * Threads fork the Hub of the thread that created them the first time they use their Hub, so they
+   * see the Scope the parent has at that time without sharing it, see {@link IHub#fork()}. Nothing
+   * is allocated for threads that don't use Sentry. Workers of a ForkJoinPool or ThreadPoolExecutor
+   * clone the main Hub instead, as with {@link #THREAD_LOCAL}, use {@link SentryWrapper} to run
+   * their tasks with the Hub of the thread submitting them.
+   */
+  INHERITABLE
+}
@@ -2,6 +2,8 @@ package io.sentry;
 
 import io.sentry.protocol.SentryId;
 import io.sentry.protocol.User;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
@@ -36,6 +38,33 @@ public interface IHub {
     return captureEvent(event, null);
   }
 
+  /**
+   * Captures the events. The scope is read once for all of them and they are sent by the client in
+   * one go, which is cheaper than capturing them one by one.
+   *
+   * @param events the events
+   * @param hint SDK specific but provides high level information about the origin of the events
+   * @return The Id (SentryId object) of each event, in order, an empty Id if the event was dropped
+   */
+  default @NotNull List<SentryId> captureEvents(
+      final @NotNull Collection<SentryEvent> events, final @Nullable Object hint) {
+    final List<SentryId> sentryIds = new ArrayList<>(events.size());
+    for (final SentryEvent event : events) {
+      sentryIds.add(captureEvent(event, hint));
+    }
+    return sentryIds;
+  }
+
+  /**
+   * Captures the events.
+   *
+   * @param events the events
+   * @return The Id (SentryId object) of each event, in order, an empty Id if the event was dropped
+   */
+  default @NotNull List<SentryId> captureEvents(final @NotNull Collection<SentryEvent> events) {
+    return captureEvents(events, null);
+  }
+
   /**
    * Captures the message.
    *
@@ -126,6 +155,29 @@ public interface IHub {
     addBreadcrumb(breadcrumb, null);
   }
 
+  /**
+   * Adds a breadcrumb of a log message to the current Scope. The message is formatted right away,
+   * and the Scope keeps it without creating a {@link Breadcrumb} until an event attaches the
+   * breadcrumbs, see {@link LogBreadcrumbs}.
+   *
+   * @param timestampMillis the timestamp in millis
+   * @param level the level
+   * @param category the category, usually the logger name
+   * @param message the message as logged
+   * @param formatter formats the message
+   */
+  @ApiStatus.Internal
+  default void addLogBreadcrumb(
+      final long timestampMillis,
+      final @Nullable SentryLevel level,
+      final @Nullable String category,
+      final @NotNull Object message,
+      final @NotNull LogBreadcrumbs.MessageFormatter formatter) {
+    addBreadcrumb(
+        LogBreadcrumbs.toBreadcrumb(
+            timestampMillis, level, category, message, formatter, NoOpLogger.getInstance()));
+  }
+
   /**
    * Adds a breadcrumb to the current Scope
    *
@@ -258,6 +310,29 @@ public interface IHub {
    */
   IHub clone();
 
+  /**
+   * Forks the Hub: the fork shares the client and has a copy-on-write fork of the top-most Scope
+   * only, with the currently active span pinned to it. Used to hand the Hub over to work that runs
+   * on other threads, like executor tasks or reactive pipelines.
+   *
+   * @return the forked Hub
+   */
+  default @NotNull IHub fork() {
+    return clone();
+  }
+
+  /**
+   * Takes a snapshot of the Hub to capture events later, on another thread, with the data the
+   * top-most Scope holds now. The snapshot is a fork that must not be changed, the same one is
+   * returned while the Scope doesn't change so records logged in a row can be captured together.
+   *
+   * @return the snapshot
+   */
+  @ApiStatus.Internal
+  default @NotNull IHub snapshot() {
+    return fork();
+  }
+
   /**
    * Captures the transaction and enqueues it for sending to Sentry server.
    *
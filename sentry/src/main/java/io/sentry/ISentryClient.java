@@ -2,6 +2,10 @@ package io.sentry;
 
 import io.sentry.protocol.Message;
 import io.sentry.protocol.SentryId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /** Sentry Client interface */
@@ -66,6 +70,35 @@ public interface ISentryClient {
     return captureEvent(event, null, hint);
   }
 
+  /**
+   * Captures the events. The scope is read once for all of them.
+   *
+   * @param events the events
+   * @param scope An optional scope to be applied to the events.
+   * @param hint SDK specific but provides high level information about the origin of the events.
+   * @return The Id (SentryId object) of each event, in order, an empty Id if the event was dropped
+   */
+  default @NotNull List<SentryId> captureEvents(
+      final @NotNull Collection<SentryEvent> events,
+      final @Nullable Scope scope,
+      final @Nullable Object hint) {
+    final List<SentryId> sentryIds = new ArrayList<>(events.size());
+    for (final SentryEvent event : events) {
+      sentryIds.add(captureEvent(event, scope, hint));
+    }
+    return sentryIds;
+  }
+
+  /**
+   * Captures the events.
+   *
+   * @param events the events
+   * @return The Id (SentryId object) of each event, in order, an empty Id if the event was dropped
+   */
+  default @NotNull List<SentryId> captureEvents(final @NotNull Collection<SentryEvent> events) {
+    return captureEvents(events, null, null);
+  }
+
   /**
    * Captures the message.
    *
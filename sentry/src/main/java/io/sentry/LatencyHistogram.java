@@ -0,0 +1,115 @@
+package io.sentry;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanos with power of two buckets, the bucket {@code i} counts the
+ * latencies between {@code 2^(i-1)} and {@code 2^i - 1} nanos. Recording is lock-free and the
+ * counters are striped by thread, so threads recording at the same time rarely contend on the same
+ * counter. Reading sums the stripes and isn't atomic, a read concurrent to a record may miss it.
+ */
+public final class LatencyHistogram {
+  private static final int BUCKETS = 64;
+
+  /** Number of stripes, a power of two. */
+  private static final int STRIPES = 8;
+
+  /**
+   * Each stripe has a counter per bucket followed by the sum of the latencies, padded to a multiple
+   * of 128 bytes so that two stripes never share a cache line nor the adjacent line prefetched with
+   * it.
+   */
+  private static final int STRIPE_SIZE = 80;
+
+  /** The first STRIPE_SIZE counters are unused, so that no stripe is next to the array header. */
+  private final AtomicLongArray counters = new AtomicLongArray((STRIPES + 1) * STRIPE_SIZE);
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos the latency in nanos, negative latencies count as 0
+   */
+  public void record(final long nanos) {
+    final long latency = Math.max(0, nanos);
+    final int stripe = offset((int) (Thread.currentThread().getId() & (STRIPES - 1)));
+    counters.incrementAndGet(stripe + bucketOf(latency));
+    counters.addAndGet(stripe + BUCKETS, latency);
+  }
+
+  private static int offset(final int stripe) {
+    return (stripe + 1) * STRIPE_SIZE;
+  }
+
+  private static int bucketOf(final long nanos) {
+    return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+  }
+
+  /**
+   * Returns the number of latencies recorded.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    long count = 0;
+    for (final long bucketCount : getBucketCounts()) {
+      count += bucketCount;
+    }
+    return count;
+  }
+
+  /**
+   * Returns the sum of the latencies recorded.
+   *
+   * @return the sum in nanos
+   */
+  public long getTotalNanos() {
+    long total = 0;
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      total += counters.get(offset(stripe) + BUCKETS);
+    }
+    return total;
+  }
+
+  /**
+   * Returns the count of each bucket.
+   *
+   * @return the counts, the bucket {@code i} counts the latencies below {@code 2^i} nanos and above
+   *     the previous bucket
+   */
+  public long[] getBucketCounts() {
+    final long[] bucketCounts = new long[BUCKETS];
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      for (int bucket = 0; bucket < BUCKETS; bucket++) {
+        bucketCounts[bucket] += counters.get(offset(stripe) + bucket);
+      }
+    }
+    return bucketCounts;
+  }
+
+  /**
+   * Returns an upper bound of a percentile of the latencies recorded, at most twice the actual
+   * percentile.
+   *
+   * @param percentile the percentile between 0 and 1, for instance 0.99
+   * @return the upper bound in nanos or 0 if nothing was recorded
+   */
+  public long getPercentileNanos(final double percentile) {
+    final long[] bucketCounts = getBucketCounts();
+    long count = 0;
+    for (final long bucketCount : bucketCounts) {
+      count += bucketCount;
+    }
+    if (count == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(Math.min(1, percentile) * count));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += bucketCounts[bucket];
+      if (seen >= rank) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+}
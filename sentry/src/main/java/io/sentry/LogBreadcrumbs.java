@@ -0,0 +1,199 @@
+package io.sentry;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Ring of the breadcrumbs added by the logging integrations. Log lines are stored as a timestamp, a
+ * level, a category and the formatted message, so adding a breadcrumb allocates no {@link
+ * Breadcrumb}. The message is formatted when the line is logged, so the ring doesn't keep the
+ * message objects of the logging framework nor the arguments they reference. The slots are
+ * allocated by the first breadcrumb, and a {@link Breadcrumb} is created at most once per line,
+ * when an event first attaches the breadcrumbs.
+ */
+@ApiStatus.Internal
+public final class LogBreadcrumbs {
+
+  /** Formats the message of a breadcrumb stored by a logging integration. */
+  public interface MessageFormatter {
+    /**
+     * Formats the message.
+     *
+     * @param message the message as it was given to {@link IHub#addLogBreadcrumb}
+     * @return the formatted message
+     */
+    @Nullable
+    String format(@NotNull Object message);
+  }
+
+  private final int capacity;
+
+  private @Nullable long[] timestamps;
+  private @Nullable SentryLevel[] levels;
+  private @Nullable String[] categories;
+  private @Nullable String[] messages;
+  /** The breadcrumbs created for the slots, reused by the next events. */
+  private @Nullable Breadcrumb[] breadcrumbs;
+
+  /** The slot the next breadcrumb is stored in. */
+  private int next;
+
+  private int size;
+
+  LogBreadcrumbs(final int capacity) {
+    this.capacity = Math.max(0, capacity);
+  }
+
+  /**
+   * Stores a breadcrumb, overwriting the oldest one if the ring is full.
+   *
+   * @param timestampMillis the timestamp in millis
+   * @param level the level
+   * @param category the category
+   * @param message the message as logged
+   * @param formatter formats the message
+   * @param logger the logger
+   */
+  void add(
+      final long timestampMillis,
+      final @Nullable SentryLevel level,
+      final @Nullable String category,
+      final @NotNull Object message,
+      final @NotNull MessageFormatter formatter,
+      final @NotNull ILogger logger) {
+    if (capacity == 0) {
+      return;
+    }
+    final String formatted = format(message, formatter, logger);
+    synchronized (this) {
+      if (timestamps == null) {
+        timestamps = new long[capacity];
+        levels = new SentryLevel[capacity];
+        categories = new String[capacity];
+        messages = new String[capacity];
+        breadcrumbs = new Breadcrumb[capacity];
+      }
+      timestamps[next] = timestampMillis;
+      levels[next] = level;
+      categories[next] = category;
+      messages[next] = formatted;
+      breadcrumbs[next] = null;
+      next = (next + 1) % capacity;
+      if (size < capacity) {
+        size++;
+      }
+    }
+  }
+
+  /**
+   * Merges the breadcrumbs stored with the given ones by date. Both are sorted oldest first, so the
+   * merge takes linear time. A breadcrumb and a log line with the same date keep that order.
+   *
+   * @param breadcrumbs the breadcrumbs sorted by date
+   * @return the merged breadcrumbs
+   */
+  synchronized @NotNull List<Breadcrumb> merge(final @NotNull List<Breadcrumb> breadcrumbs) {
+    final List<Breadcrumb> merged = new ArrayList<>(breadcrumbs.size() + size);
+    int index = 0;
+    for (int i = 0; i < size; i++) {
+      final int slot = (next - size + i + capacity) % capacity;
+      final long timestamp = timestamps[slot];
+      while (index < breadcrumbs.size()
+          && breadcrumbs.get(index).getTimestamp().getTime() <= timestamp) {
+        merged.add(breadcrumbs.get(index++));
+      }
+      Breadcrumb breadcrumb = this.breadcrumbs[slot];
+      if (breadcrumb == null) {
+        breadcrumb = toBreadcrumb(timestamp, levels[slot], categories[slot], messages[slot]);
+        this.breadcrumbs[slot] = breadcrumb;
+      }
+      merged.add(breadcrumb);
+    }
+    while (index < breadcrumbs.size()) {
+      merged.add(breadcrumbs.get(index++));
+    }
+    return merged;
+  }
+
+  /**
+   * Creates a breadcrumb of a log message.
+   *
+   * @param timestampMillis the timestamp in millis
+   * @param level the level
+   * @param category the category
+   * @param message the message as logged
+   * @param formatter formats the message
+   * @param logger the logger
+   * @return the breadcrumb
+   */
+  static @NotNull Breadcrumb toBreadcrumb(
+      final long timestampMillis,
+      final @Nullable SentryLevel level,
+      final @Nullable String category,
+      final @NotNull Object message,
+      final @NotNull MessageFormatter formatter,
+      final @NotNull ILogger logger) {
+    return toBreadcrumb(timestampMillis, level, category, format(message, formatter, logger));
+  }
+
+  private static @NotNull Breadcrumb toBreadcrumb(
+      final long timestampMillis,
+      final @Nullable SentryLevel level,
+      final @Nullable String category,
+      final @Nullable String message) {
+    final Breadcrumb breadcrumb = new Breadcrumb(DateUtils.getDateTime(timestampMillis));
+    breadcrumb.setLevel(level);
+    breadcrumb.setCategory(category);
+    breadcrumb.setMessage(message);
+    return breadcrumb;
+  }
+
+  private static @Nullable String format(
+      final @NotNull Object message,
+      final @NotNull MessageFormatter formatter,
+      final @NotNull ILogger logger) {
+    try {
+      return formatter.format(message);
+    } catch (RuntimeException e) {
+      logger.log(SentryLevel.ERROR, "Failed to format the message of a breadcrumb.", e);
+      return String.valueOf(message);
+    }
+  }
+
+  synchronized boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Removes all the breadcrumbs, releasing the slots. */
+  synchronized void clear() {
+    timestamps = null;
+    levels = null;
+    categories = null;
+    messages = null;
+    breadcrumbs = null;
+    next = 0;
+    size = 0;
+  }
+
+  /**
+   * Copies the ring, the breadcrumbs created already are shared.
+   *
+   * @return the copy
+   */
+  synchronized @NotNull LogBreadcrumbs copy() {
+    final LogBreadcrumbs copy = new LogBreadcrumbs(capacity);
+    if (timestamps != null) {
+      copy.timestamps = timestamps.clone();
+      copy.levels = levels.clone();
+      copy.categories = categories.clone();
+      copy.messages = messages.clone();
+      copy.breadcrumbs = breadcrumbs.clone();
+    }
+    copy.next = next;
+    copy.size = size;
+    return copy;
+  }
+}
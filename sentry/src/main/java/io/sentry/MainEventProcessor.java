@@ -44,7 +44,11 @@ public final class MainEventProcessor implements EventProcessor {
         new SentryStackTraceFactory(
             this.options.getInAppExcludes(), this.options.getInAppIncludes());
 
-    sentryExceptionFactory = new SentryExceptionFactory(sentryStackTraceFactory);
+    sentryExceptionFactory =
+        new SentryExceptionFactory(
+            sentryStackTraceFactory,
+            this.options.isTrimCommonFrames(),
+            this.options.getMaxExceptionFrames());
     sentryThreadFactory = new SentryThreadFactory(sentryStackTraceFactory, this.options);
   }
 
@@ -2,6 +2,9 @@ package io.sentry;
 
 import io.sentry.protocol.SentryId;
 import io.sentry.protocol.User;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -28,6 +31,12 @@ final class NoOpHub implements IHub {
     return SentryId.EMPTY_ID;
   }
 
+  @Override
+  public @NotNull List<SentryId> captureEvents(
+      final @NotNull Collection<SentryEvent> events, final @Nullable Object hint) {
+    return new ArrayList<>(Collections.nCopies(events.size(), SentryId.EMPTY_ID));
+  }
+
   @Override
   public SentryId captureMessage(String message, SentryLevel level) {
     return SentryId.EMPTY_ID;
@@ -58,6 +67,14 @@ final class NoOpHub implements IHub {
   @Override
   public void addBreadcrumb(Breadcrumb breadcrumb, @Nullable Object hint) {}
 
+  @Override
+  public void addLogBreadcrumb(
+      final long timestampMillis,
+      final @Nullable SentryLevel level,
+      final @Nullable String category,
+      final @NotNull Object message,
+      final @NotNull LogBreadcrumbs.MessageFormatter formatter) {}
+
   @Override
   public void setLevel(SentryLevel level) {}
 
@@ -113,6 +130,16 @@ final class NoOpHub implements IHub {
     return instance;
   }
 
+  @Override
+  public @NotNull IHub fork() {
+    return instance;
+  }
+
+  @Override
+  public @NotNull IHub snapshot() {
+    return instance;
+  }
+
   @Override
   public SentryId captureTransaction(
       final @NotNull ITransaction transaction, final @Nullable Object hint) {
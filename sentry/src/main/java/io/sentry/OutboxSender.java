@@ -7,6 +7,7 @@ import io.sentry.hints.Flushable;
 import io.sentry.hints.Resettable;
 import io.sentry.hints.Retryable;
 import io.sentry.hints.SubmissionResult;
+import io.sentry.util.ApplyScopeUtils;
 import io.sentry.util.CollectionUtils;
 import io.sentry.util.LogUtils;
 import io.sentry.util.Objects;
@@ -41,7 +42,17 @@ public final class OutboxSender extends DirectoryProcessor implements IEnvelopeS
       final @NotNull ISerializer serializer,
       final @NotNull ILogger logger,
       final long flushTimeoutMillis) {
-    super(logger, flushTimeoutMillis);
+    this(hub, envelopeReader, serializer, logger, flushTimeoutMillis, 1);
+  }
+
+  public OutboxSender(
+      final @NotNull IHub hub,
+      final @NotNull IEnvelopeReader envelopeReader,
+      final @NotNull ISerializer serializer,
+      final @NotNull ILogger logger,
+      final long flushTimeoutMillis,
+      final int parallelism) {
+    super(logger, flushTimeoutMillis, parallelism);
     this.hub = Objects.requireNonNull(hub, "Hub is required.");
     this.envelopeReader = Objects.requireNonNull(envelopeReader, "Envelope reader is required.");
     this.serializer = Objects.requireNonNull(serializer, "Serializer is required.");
@@ -98,7 +109,7 @@ public final class OutboxSender extends DirectoryProcessor implements IEnvelopeS
   public void processEnvelopeFile(@NotNull String path, @Nullable Object hint) {
     Objects.requireNonNull(path, "Path is required.");
 
-    processFile(new File(path), hint);
+    processClaimedFile(new File(path), hint);
   }
 
   private void processEnvelope(final @NotNull SentryEnvelope envelope, final @Nullable Object hint)
@@ -107,6 +118,21 @@ public final class OutboxSender extends DirectoryProcessor implements IEnvelopeS
         SentryLevel.DEBUG,
         "Processing Envelope with %d item(s)",
         CollectionUtils.size(envelope.getItems()));
+
+    if (canForwardRaw(hint)) {
+      // the events would come out of the client unchanged, no need to deserialize them
+      hub.captureEnvelope(envelope, hint);
+      logger.log(SentryLevel.DEBUG, "Envelope is being forwarded.");
+
+      if (!waitFlush(hint)) {
+        logger.log(
+            SentryLevel.WARNING,
+            "Timed out waiting for envelope submission: %s",
+            envelope.getHeader().getEventId());
+      }
+      return;
+    }
+
     int items = 0;
 
     for (final SentryEnvelopeItem item : envelope.getItems()) {
@@ -192,6 +218,31 @@ public final class OutboxSender extends DirectoryProcessor implements IEnvelopeS
     }
   }
 
+  /**
+   * Checks if the envelope can be sent as it is. Events captured with a hint that doesn't apply the
+   * scope data only go through the default event processors, which leave an event read from an
+   * envelope unchanged, so they can skip deserialization as long as no callback or sampling is set.
+   *
+   * @param hint the hint
+   * @return true if the envelope can be sent as it is
+   */
+  private boolean canForwardRaw(final @Nullable Object hint) {
+    if (ApplyScopeUtils.shouldApplyScopeData(hint)) {
+      return false;
+    }
+    final SentryOptions options = hub.getOptions();
+    if (options == null || options.getBeforeSend() != null || options.getSampleRate() != null) {
+      return false;
+    }
+    for (final EventProcessor eventProcessor : options.getEventProcessors()) {
+      if (!(eventProcessor instanceof MainEventProcessor)
+          && !(eventProcessor instanceof DuplicateEventDetectionEventProcessor)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private boolean waitFlush(final @Nullable Object hint) {
     if (hint instanceof Flushable) {
       return ((Flushable) hint).waitFlush();
@@ -0,0 +1,65 @@
+package io.sentry;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Counts the events dropped by each stage of the pre-filter pipeline. The pre-filter runs cheap
+ * checks on every captured event, in the order of {@link Stage}, before the Scope is applied and
+ * the event processors enrich the event, so dropped events cost almost nothing.
+ */
+public final class PreFilterStats {
+
+  /** The stages of the pre-filter, in the order they run. */
+  public enum Stage {
+    /** The type of the exception is in {@link SentryOptions#getIgnoredExceptionsForType()}. */
+    IGNORED_EXCEPTION,
+    /** Sentry is rate limiting errors. */
+    RATE_LIMIT,
+    /**
+     * The exception has already been captured, see {@link SentryOptions#isEnableDeduplication()}.
+     */
+    DUPLICATE,
+    /** The event was not sampled, see {@link SentryOptions#getSampleRate()}. */
+    SAMPLE_RATE;
+
+    /**
+     * Returns the name of the stage in lower case.
+     *
+     * @return the name
+     */
+    public @NotNull String getName() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  private final @NotNull AtomicLongArray dropped = new AtomicLongArray(Stage.values().length);
+
+  /**
+   * Returns the number of events dropped by a stage since the SDK was initialized.
+   *
+   * @param stage the stage
+   * @return the number of events dropped
+   */
+  public long getDroppedCount(final @NotNull Stage stage) {
+    return dropped.get(stage.ordinal());
+  }
+
+  /**
+   * Returns the number of events dropped by all the stages.
+   *
+   * @return the number of events dropped
+   */
+  public long getDroppedCount() {
+    long total = 0;
+    for (int i = 0; i < dropped.length(); i++) {
+      total += dropped.get(i);
+    }
+    return total;
+  }
+
+  void recordDrop(final @NotNull Stage stage) {
+    dropped.incrementAndGet(stage.ordinal());
+  }
+}
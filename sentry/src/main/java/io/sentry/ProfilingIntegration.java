@@ -0,0 +1,44 @@
+package io.sentry;
+
+import io.sentry.util.Objects;
+import java.io.Closeable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Installs the {@link TransactionProfiler} when {@link SentryOptions#isEnableProfiling()} is
+ * enabled. The sampler thread is started by the first profiled transaction.
+ */
+public final class ProfilingIntegration implements Integration, Closeable {
+  private @Nullable SentryOptions options;
+  private @Nullable TransactionProfiler profiler;
+
+  @Override
+  public void register(final @NotNull IHub hub, final @NotNull SentryOptions options) {
+    Objects.requireNonNull(hub, "Hub is required");
+    this.options = Objects.requireNonNull(options, "SentryOptions is required");
+
+    if (!options.isEnableProfiling()) {
+      options.getLogger().log(SentryLevel.DEBUG, "ProfilingIntegration is disabled.");
+      return;
+    }
+
+    final TransactionProfiler profiler = new TransactionProfiler(options);
+    options.setTransactionProfiler(profiler);
+    this.profiler = profiler;
+    options.getLogger().log(SentryLevel.DEBUG, "ProfilingIntegration installed.");
+  }
+
+  @Override
+  public void close() {
+    final TransactionProfiler profiler = this.profiler;
+    final SentryOptions options = this.options;
+    if (profiler != null) {
+      if (options != null && options.getTransactionProfiler() == profiler) {
+        options.setTransactionProfiler(null);
+      }
+      profiler.close();
+      this.profiler = null;
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package io.sentry;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The outcome of the request bound to a {@link Scope} when sessions are aggregated per request, see
+ * {@link SentryOptions#isEnableSessionAggregation()}.
+ */
+final class RequestSession {
+  private final @NotNull AtomicReference<SessionAggregator.Outcome> outcome =
+      new AtomicReference<>(SessionAggregator.Outcome.EXITED);
+
+  /**
+   * Marks the request as errored, or as crashed if the error was not handled. A crashed request
+   * stays crashed.
+   *
+   * @param crashed if the error was not handled
+   */
+  void update(final boolean crashed) {
+    final SessionAggregator.Outcome target =
+        crashed ? SessionAggregator.Outcome.CRASHED : SessionAggregator.Outcome.ERRORED;
+    SessionAggregator.Outcome current;
+    do {
+      current = outcome.get();
+      if (current.compareTo(target) >= 0) {
+        return;
+      }
+    } while (!outcome.compareAndSet(current, target));
+  }
+
+  @NotNull
+  SessionAggregator.Outcome getOutcome() {
+    return outcome.get();
+  }
+}
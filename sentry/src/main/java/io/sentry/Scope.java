@@ -19,12 +19,29 @@ import org.jetbrains.annotations.Nullable;
 /** Scope data to be sent with the event */
 public final class Scope implements Cloneable {
 
+  /** The collections shared with a fork, copied by the first Scope writing to them. */
+  private static final int SHARED_BREADCRUMBS = 1;
+
+  private static final int SHARED_TAGS = 1 << 1;
+  private static final int SHARED_EXTRA = 1 << 2;
+  private static final int SHARED_CONTEXTS = 1 << 3;
+  private static final int SHARED_ATTACHMENTS = 1 << 4;
+  private static final int SHARED_FINGERPRINT = 1 << 5;
+  private static final int SHARED_EVENT_PROCESSORS = 1 << 6;
+  private static final int SHARED_ALL = (1 << 7) - 1;
+
   /** Scope's SentryLevel */
   private @Nullable SentryLevel level;
 
   /** Scope's {@link ITransaction}. */
   private @Nullable ITransaction transaction;
 
+  /**
+   * Span pinned as the active one, takes precedence over the transaction's latest active span until
+   * it finishes. Set on Scopes forked to run a task on another thread.
+   */
+  private @Nullable ISpan activeSpan;
+
   /** Scope's transaction name. Used when using error reporting without the performance feature. */
   private @Nullable String transactionName;
 
@@ -40,6 +57,9 @@ public final class Scope implements Cloneable {
   /** Scope's breadcrumb queue */
   private @NotNull Queue<Breadcrumb> breadcrumbs;
 
+  /** Breadcrumbs of the logging integrations, kept apart until an event attaches them */
+  private @NotNull LogBreadcrumbs logBreadcrumbs;
+
   /** Scope's tags */
   private @NotNull Map<String, String> tags = new ConcurrentHashMap<>();
 
@@ -60,6 +80,9 @@ public final class Scope implements Cloneable {
   /** Session lock, Ops should be atomic */
   private final @NotNull Object sessionLock = new Object();
 
+  /** Scope's current request session, when sessions are aggregated per request */
+  private volatile @Nullable RequestSession requestSession;
+
   /** Transaction lock, Ops should be atomic */
   private final @NotNull Object transactionLock = new Object();
 
@@ -69,6 +92,12 @@ public final class Scope implements Cloneable {
   /** Scope's attachments */
   private @NotNull List<Attachment> attachments = new CopyOnWriteArrayList<>();
 
+  /** The SHARED_ flags of the collections this Scope shares with a fork or the Scope it forked. */
+  private volatile int shared;
+
+  /** Copy lock, a shared collection is copied once */
+  private final @NotNull Object copyLock = new Object();
+
   /**
    * Scope's ctor
    *
@@ -77,6 +106,7 @@ public final class Scope implements Cloneable {
   public Scope(final @NotNull SentryOptions options) {
     this.options = Objects.requireNonNull(options, "SentryOptions is required.");
     this.breadcrumbs = createBreadcrumbsList(this.options.getMaxBreadcrumbs());
+    this.logBreadcrumbs = new LogBreadcrumbs(this.options.getMaxBreadcrumbs());
   }
 
   /**
@@ -127,6 +157,10 @@ public final class Scope implements Cloneable {
    */
   @Nullable
   public ISpan getSpan() {
+    final ISpan pinnedSpan = activeSpan;
+    if (pinnedSpan != null && !pinnedSpan.isFinished()) {
+      return pinnedSpan;
+    }
     final ITransaction tx = transaction;
     if (tx != null) {
       final Span span = tx.getLatestActiveSpan();
@@ -149,6 +183,15 @@ public final class Scope implements Cloneable {
     }
   }
 
+  /**
+   * Pins the active span, see {@link #getSpan()}.
+   *
+   * @param span the span or null to fall back to the transaction's latest active span
+   */
+  void setActiveSpan(final @Nullable ISpan span) {
+    this.activeSpan = span;
+  }
+
   /**
    * Returns the Scope's user
    *
@@ -211,6 +254,7 @@ public final class Scope implements Cloneable {
       return;
     }
     this.fingerprint = fingerprint;
+    unshare(SHARED_FINGERPRINT);
   }
 
   /**
@@ -223,6 +267,29 @@ public final class Scope implements Cloneable {
     return breadcrumbs;
   }
 
+  /**
+   * Returns a copy of the Scope's breadcrumbs merged by date with the ones of the logging
+   * integrations, which are created the first time they are copied. At most {@link
+   * SentryOptions#getMaxBreadcrumbs()} breadcrumbs are returned, the most recent ones. The capacity
+   * of the breadcrumbs queue is fixed when the Scope is created, raising maxBreadcrumbs applies to
+   * the Scopes created later.
+   *
+   * @return the breadcrumbs sorted by date
+   */
+  @NotNull
+  List<Breadcrumb> copyBreadcrumbs() {
+    List<Breadcrumb> copy = new ArrayList<>(breadcrumbs);
+    if (!logBreadcrumbs.isEmpty()) {
+      copy = logBreadcrumbs.merge(copy);
+    }
+    // maxBreadcrumbs can be lowered at runtime, below the capacity of the queue
+    final int excess = copy.size() - options.getMaxBreadcrumbs();
+    if (excess > 0) {
+      copy.subList(0, excess).clear();
+    }
+    return copy;
+  }
+
   /**
    * Executes the BeforeBreadcrumb callback
    *
@@ -267,6 +334,7 @@ public final class Scope implements Cloneable {
       breadcrumb = executeBeforeBreadcrumb(callback, breadcrumb, hint);
     }
     if (breadcrumb != null) {
+      own(SHARED_BREADCRUMBS);
       this.breadcrumbs.add(breadcrumb);
 
       if (options.isEnableScopeSync()) {
@@ -289,9 +357,43 @@ public final class Scope implements Cloneable {
     addBreadcrumb(breadcrumb, null);
   }
 
+  /**
+   * Adds a breadcrumb of a log message without creating a {@link Breadcrumb}, see {@link
+   * LogBreadcrumbs}. The message is formatted right away. The breadcrumb is created right away if
+   * the BeforeBreadcrumb callback or scope observers need it.
+   *
+   * @param timestampMillis the timestamp in millis
+   * @param level the level
+   * @param category the category
+   * @param message the message as logged
+   * @param formatter formats the message
+   */
+  void addLogBreadcrumb(
+      final long timestampMillis,
+      final @Nullable SentryLevel level,
+      final @Nullable String category,
+      final @NotNull Object message,
+      final @NotNull LogBreadcrumbs.MessageFormatter formatter) {
+    if (options.getBeforeBreadcrumb() != null
+        || (options.isEnableScopeSync() && !options.getScopeObservers().isEmpty())) {
+      addBreadcrumb(
+          LogBreadcrumbs.toBreadcrumb(
+              timestampMillis, level, category, message, formatter, options.getLogger()));
+    } else {
+      own(SHARED_BREADCRUMBS);
+      logBreadcrumbs.add(timestampMillis, level, category, message, formatter, options.getLogger());
+    }
+  }
+
   /** Clear all the breadcrumbs */
   public void clearBreadcrumbs() {
-    breadcrumbs.clear();
+    if (unshare(SHARED_BREADCRUMBS)) {
+      breadcrumbs = createBreadcrumbsList(options.getMaxBreadcrumbs());
+      logBreadcrumbs = new LogBreadcrumbs(options.getMaxBreadcrumbs());
+    } else {
+      breadcrumbs.clear();
+      logBreadcrumbs.clear();
+    }
   }
 
   /** Clears the transaction. */
@@ -299,6 +401,7 @@ public final class Scope implements Cloneable {
     synchronized (transactionLock) {
       transaction = null;
     }
+    activeSpan = null;
     transactionName = null;
   }
 
@@ -317,13 +420,27 @@ public final class Scope implements Cloneable {
     level = null;
     user = null;
     request = null;
-    fingerprint.clear();
-    breadcrumbs.clear();
-    tags.clear();
-    extra.clear();
-    eventProcessors.clear();
+    if (shared != 0) {
+      synchronized (copyLock) {
+        shared = 0;
+        fingerprint = new ArrayList<>();
+        breadcrumbs = createBreadcrumbsList(options.getMaxBreadcrumbs());
+        logBreadcrumbs = new LogBreadcrumbs(options.getMaxBreadcrumbs());
+        tags = new ConcurrentHashMap<>();
+        extra = new ConcurrentHashMap<>();
+        contexts = new Contexts();
+        eventProcessors = new CopyOnWriteArrayList<>();
+        attachments = new CopyOnWriteArrayList<>();
+      }
+    } else {
+      fingerprint.clear();
+      breadcrumbs.clear();
+      tags.clear();
+      extra.clear();
+      eventProcessors.clear();
+      attachments.clear();
+    }
     clearTransaction();
-    attachments.clear();
   }
 
   /**
@@ -343,6 +460,7 @@ public final class Scope implements Cloneable {
    * @param value the value
    */
   public void setTag(final @NotNull String key, final @NotNull String value) {
+    own(SHARED_TAGS);
     this.tags.put(key, value);
 
     if (options.isEnableScopeSync()) {
@@ -358,6 +476,7 @@ public final class Scope implements Cloneable {
    * @param key the key
    */
   public void removeTag(final @NotNull String key) {
+    own(SHARED_TAGS);
     this.tags.remove(key);
 
     if (options.isEnableScopeSync()) {
@@ -384,6 +503,7 @@ public final class Scope implements Cloneable {
    * @param value the value
    */
   public void setExtra(final @NotNull String key, final @NotNull String value) {
+    own(SHARED_EXTRA);
     this.extra.put(key, value);
 
     if (options.isEnableScopeSync()) {
@@ -399,6 +519,7 @@ public final class Scope implements Cloneable {
    * @param key the key
    */
   public void removeExtra(final @NotNull String key) {
+    own(SHARED_EXTRA);
     this.extra.remove(key);
 
     if (options.isEnableScopeSync()) {
@@ -414,6 +535,18 @@ public final class Scope implements Cloneable {
    * @return the contexts
    */
   public @NotNull Contexts getContexts() {
+    // the contexts can be changed through the returned instance
+    own(SHARED_CONTEXTS);
+    return contexts;
+  }
+
+  /**
+   * Returns the Scope's contexts to be read only, without copying them if they are shared.
+   *
+   * @return the contexts
+   */
+  @NotNull
+  Contexts peekContexts() {
     return contexts;
   }
 
@@ -424,6 +557,7 @@ public final class Scope implements Cloneable {
    * @param value the context value
    */
   public void setContexts(final @NotNull String key, final @NotNull Object value) {
+    own(SHARED_CONTEXTS);
     this.contexts.put(key, value);
   }
 
@@ -469,6 +603,7 @@ public final class Scope implements Cloneable {
    * @param key the Key
    */
   public void removeContexts(final @NotNull String key) {
+    own(SHARED_CONTEXTS);
     contexts.remove(key);
   }
 
@@ -489,6 +624,7 @@ public final class Scope implements Cloneable {
    * @param attachment The attachment to add to the Scope's list of attachments.
    */
   public void addAttachment(final @NotNull Attachment attachment) {
+    own(SHARED_ATTACHMENTS);
     attachments.add(attachment);
   }
 
@@ -511,6 +647,7 @@ public final class Scope implements Cloneable {
   @Override
   public @NotNull Scope clone() throws CloneNotSupportedException {
     final Scope clone = (Scope) super.clone();
+    clone.shared = 0;
 
     final SentryLevel levelRef = level;
     clone.level =
@@ -534,6 +671,7 @@ public final class Scope implements Cloneable {
       breadcrumbsClone.add(breadcrumbClone);
     }
     clone.breadcrumbs = breadcrumbsClone;
+    clone.logBreadcrumbs = logBreadcrumbs.copy();
 
     final Map<String, String> tagsRef = tags;
 
@@ -566,6 +704,119 @@ public final class Scope implements Cloneable {
     return clone;
   }
 
+  /**
+   * Creates a Scope with the same data that shares the collections of this Scope, unlike {@link
+   * #clone()}. The first of the two Scopes changing a shared collection copies it, so they don't
+   * see each other's changes. The user and request are copied, they can be changed in place.
+   *
+   * @return the forked Scope
+   * @throws CloneNotSupportedException if object is not cloneable
+   */
+  @NotNull
+  Scope fork() throws CloneNotSupportedException {
+    final Scope fork = (Scope) super.clone();
+    final User userRef = user;
+    fork.user = userRef != null ? userRef.clone() : null;
+    final Request requestRef = request;
+    fork.request = requestRef != null ? requestRef.clone() : null;
+    synchronized (copyLock) {
+      shared = SHARED_ALL;
+      fork.shared = SHARED_ALL;
+    }
+    return fork;
+  }
+
+  /**
+   * Tells whether a fork of this Scope still has its data. This Scope copies a collection it shares
+   * with the fork before changing it, so the fork is current as long as both Scopes hold the same
+   * collections, level, transaction and span. The user and request the fork copied are not checked.
+   *
+   * @param fork a fork of this Scope that isn't changed
+   * @return true if this Scope didn't change since the fork was taken
+   */
+  boolean isForkCurrent(final @NotNull Scope fork) {
+    return fork.breadcrumbs == breadcrumbs
+        && fork.logBreadcrumbs == logBreadcrumbs
+        && fork.tags == tags
+        && fork.extra == extra
+        && fork.contexts == contexts
+        && fork.attachments == attachments
+        && fork.fingerprint == fingerprint
+        && fork.eventProcessors == eventProcessors
+        && fork.level == level
+        && fork.transaction == transaction
+        && fork.transactionName == transactionName
+        && fork.getSpan() == getSpan();
+  }
+
+  /**
+   * Copies the collections of the flag if they are shared, before changing them.
+   *
+   * @param flag the SHARED_ flag of the collections
+   */
+  private void own(final int flag) {
+    if ((shared & flag) == 0) {
+      return;
+    }
+    synchronized (copyLock) {
+      if ((shared & flag) == 0) {
+        return;
+      }
+      switch (flag) {
+        case SHARED_BREADCRUMBS:
+          final Queue<Breadcrumb> breadcrumbsCopy =
+              createBreadcrumbsList(options.getMaxBreadcrumbs());
+          breadcrumbsCopy.addAll(breadcrumbs);
+          breadcrumbs = breadcrumbsCopy;
+          logBreadcrumbs = logBreadcrumbs.copy();
+          break;
+        case SHARED_TAGS:
+          tags = new ConcurrentHashMap<>(tags);
+          break;
+        case SHARED_EXTRA:
+          extra = new ConcurrentHashMap<>(extra);
+          break;
+        case SHARED_CONTEXTS:
+          try {
+            contexts = contexts.clone();
+          } catch (CloneNotSupportedException e) {
+            options.getLogger().log(SentryLevel.ERROR, "Clone not supported");
+            contexts = new Contexts();
+          }
+          break;
+        case SHARED_ATTACHMENTS:
+          attachments = new CopyOnWriteArrayList<>(attachments);
+          break;
+        case SHARED_FINGERPRINT:
+          fingerprint = new ArrayList<>(fingerprint);
+          break;
+        case SHARED_EVENT_PROCESSORS:
+          eventProcessors = new CopyOnWriteArrayList<>(eventProcessors);
+          break;
+        default:
+          break;
+      }
+      shared &= ~flag;
+    }
+  }
+
+  /**
+   * Stops sharing the collections of the flag, before replacing them.
+   *
+   * @param flag the SHARED_ flag of the collections
+   * @return true if they were shared
+   */
+  private boolean unshare(final int flag) {
+    if ((shared & flag) == 0) {
+      return false;
+    }
+    synchronized (copyLock) {
+      final boolean wasShared = (shared & flag) != 0;
+      shared &= ~flag;
+      return wasShared;
+    }
+  }
+
   /**
    * Returns the Scope's event processors
    *
@@ -582,6 +833,7 @@ public final class Scope implements Cloneable {
    * @param eventProcessor the event processor
    */
   public void addEventProcessor(final @NotNull EventProcessor eventProcessor) {
+    own(SHARED_EVENT_PROCESSORS);
     eventProcessors.add(eventProcessor);
   }
 
@@ -604,6 +856,17 @@ public final class Scope implements Cloneable {
     return cloneSession;
   }
 
+  /**
+   * Returns the current session without taking the session lock. Callers must only use the atomic
+   * operations of the session, like {@link Session#recordEvent(boolean, boolean, String, long)}.
+   *
+   * @return the current session or null if none exists
+   */
+  @Nullable
+  Session getSession() {
+    return session;
+  }
+
   /** the IWithSession callback */
   interface IWithSession {
 
@@ -698,6 +961,52 @@ public final class Scope implements Cloneable {
     return previousSession;
   }
 
+  /**
+   * Starts tracking the outcome of the request handled with this Scope, if {@link
+   * SentryOptions#isEnableSessionAggregation()} is enabled. Scopes pushed on top of this one share
+   * the request session.
+   */
+  public void startRequestSession() {
+    if (!options.isEnableSessionAggregation()) {
+      return;
+    }
+    if (options.getRelease() == null || options.getRelease().isEmpty()) {
+      options
+          .getLogger()
+          .log(SentryLevel.DEBUG, "Sessions can't be aggregated without setting a release.");
+      return;
+    }
+    requestSession = new RequestSession();
+  }
+
+  /**
+   * Ends the request session started with {@link #startRequestSession()} and counts its outcome.
+   */
+  public void endRequestSession() {
+    final RequestSession current = requestSession;
+    if (current != null) {
+      requestSession = null;
+      final String release = options.getRelease();
+      if (release != null) {
+        options
+            .getSessionAggregator()
+            .record(current.getOutcome(), release, options.getEnvironment());
+      }
+    }
+  }
+
+  /**
+   * Marks the current request session, if any, as errored or crashed.
+   *
+   * @param crashed if the error was not handled
+   */
+  void updateRequestSession(final boolean crashed) {
+    final RequestSession current = requestSession;
+    if (current != null) {
+      current.update(crashed);
+    }
+  }
+
   /**
    * Mutates the current transaction atomically
    *
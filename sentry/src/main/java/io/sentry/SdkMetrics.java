@@ -0,0 +1,180 @@
+package io.sentry;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Measures the overhead of the SDK itself, when {@link SentryOptions#isEnableSdkMetrics()} is
+ * enabled: the time spent in each stage of capturing an event and the events dropped by each stage.
+ * Disabled, measuring costs a volatile read per stage.
+ *
+ * <p>The metrics are reported to {@link SentryOptions#getSdkMetricsListener()} and exposed as the
+ * {@code io.sentry:type=SdkMetrics} MXBean where JMX is available.
+ */
+public final class SdkMetrics {
+
+  /** The stages of capturing an event that are measured. */
+  public enum Stage {
+    /** {@link IHub#captureEvent}, all the other stages included. */
+    CAPTURE_EVENT,
+    /**
+     * Applying the Scope, the Scope's event processors included. The global event processors of
+     * {@link SentryOptions#getEventProcessors()} run after it and are measured by {@link
+     * #EVENT_PROCESSOR} only.
+     */
+    APPLY_SCOPE,
+    /** Each call of an {@link EventProcessor}. */
+    EVENT_PROCESSOR,
+    /** The {@link SentryOptions.BeforeSendCallback}. */
+    BEFORE_SEND,
+    /** Serializing events, transactions and sessions to JSON. */
+    SERIALIZATION,
+    /** Handing envelopes to the transport, which sends them asynchronously. */
+    TRANSPORT_SEND;
+
+    /**
+     * Returns the name of the stage in lower case.
+     *
+     * @return the name
+     */
+    public @NotNull String getName() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  /** Number of stripes of the drop counters, a power of two. */
+  private static final int STRIPES = 8;
+
+  private static final int STAGES = Stage.values().length;
+
+  /**
+   * Longs from one stripe of drop counters to the next. The counters of a stripe fit in a 64 bytes
+   * cache line and the stripes are 128 bytes apart, so threads of different stripes share neither a
+   * cache line nor the adjacent line prefetched with it.
+   */
+  private static final int STRIPE_STRIDE = 16;
+
+  private volatile boolean enabled;
+
+  private final @NotNull LatencyHistogram[] latencies = new LatencyHistogram[STAGES];
+
+  private final @NotNull ConcurrentHashMap<String, LatencyHistogram> eventProcessorLatencies =
+      new ConcurrentHashMap<>();
+
+  /** The first STRIPE_STRIDE counters are unused, so that no stripe is next to the array header. */
+  private final @NotNull AtomicLongArray dropped =
+      new AtomicLongArray((STRIPES + 1) * STRIPE_STRIDE);
+
+  SdkMetrics() {
+    for (int i = 0; i < STAGES; i++) {
+      latencies[i] = new LatencyHistogram();
+    }
+  }
+
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Starts measuring a stage.
+   *
+   * @return the start time in nanos or 0 if disabled
+   */
+  long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Records the time spent in a stage.
+   *
+   * @param stage the stage
+   * @param startNanos the value returned by {@link #start()}, nothing is recorded if 0
+   */
+  void stop(final @NotNull Stage stage, final long startNanos) {
+    if (startNanos != 0) {
+      latencies[stage.ordinal()].record(System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Records the time spent in an event processor, as the {@link Stage#EVENT_PROCESSOR} stage and
+   * per processor.
+   *
+   * @param eventProcessor the event processor
+   * @param startNanos the value returned by {@link #start()}, nothing is recorded if 0
+   */
+  void stop(final @NotNull EventProcessor eventProcessor, final long startNanos) {
+    if (startNanos != 0) {
+      final long nanos = System.nanoTime() - startNanos;
+      latencies[Stage.EVENT_PROCESSOR.ordinal()].record(nanos);
+
+      final String name = eventProcessor.getClass().getName();
+      LatencyHistogram latency = eventProcessorLatencies.get(name);
+      if (latency == null) {
+        final LatencyHistogram newLatency = new LatencyHistogram();
+        final LatencyHistogram existing = eventProcessorLatencies.putIfAbsent(name, newLatency);
+        latency = existing != null ? existing : newLatency;
+      }
+      latency.record(nanos);
+    }
+  }
+
+  /**
+   * Records that a stage dropped an event.
+   *
+   * @param stage the stage
+   */
+  void recordDrop(final @NotNull Stage stage) {
+    if (enabled) {
+      final int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+      dropped.incrementAndGet(index(stripe, stage));
+    }
+  }
+
+  /**
+   * Returns the latencies of a stage.
+   *
+   * @param stage the stage
+   * @return the latencies
+   */
+  public @NotNull LatencyHistogram getLatency(final @NotNull Stage stage) {
+    return latencies[stage.ordinal()];
+  }
+
+  /**
+   * Returns the latencies of each event processor.
+   *
+   * @return the latencies by class name of the event processor
+   */
+  public @NotNull Map<String, LatencyHistogram> getEventProcessorLatencies() {
+    return Collections.unmodifiableMap(new HashMap<>(eventProcessorLatencies));
+  }
+
+  /**
+   * Returns the number of events dropped by a stage, the events dropped before the Scope is applied
+   * are counted by {@link SentryOptions#getPreFilterStats()}.
+   *
+   * @param stage the stage
+   * @return the number of events dropped
+   */
+  public long getDroppedCount(final @NotNull Stage stage) {
+    long count = 0;
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      count += dropped.get(index(stripe, stage));
+    }
+    return count;
+  }
+
+  private static int index(final int stripe, final @NotNull Stage stage) {
+    return (stripe + 1) * STRIPE_STRIDE + stage.ordinal();
+  }
+}
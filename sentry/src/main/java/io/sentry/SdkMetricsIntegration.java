@@ -0,0 +1,85 @@
+package io.sentry;
+
+import io.sentry.util.Objects;
+import java.io.Closeable;
+import java.util.Timer;
+import java.util.TimerTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reports the metrics of the SDK overhead to {@link SentryOptions#getSdkMetricsListener()}
+ * periodically and exposes them as an MXBean where JMX is available, when {@link
+ * SentryOptions#isEnableSdkMetrics()} is enabled.
+ */
+public final class SdkMetricsIntegration implements Integration, Closeable {
+  private @Nullable SentryOptions options;
+  private @Nullable Timer timer;
+  private @Nullable SdkMetricsJmx jmx;
+
+  @Override
+  public void register(final @NotNull IHub hub, final @NotNull SentryOptions options) {
+    Objects.requireNonNull(hub, "Hub is required");
+    this.options = Objects.requireNonNull(options, "SentryOptions is required");
+
+    if (!options.isEnableSdkMetrics()) {
+      options.getLogger().log(SentryLevel.DEBUG, "SdkMetricsIntegration is disabled.");
+      return;
+    }
+
+    if (options.getSdkMetricsListener() != null) {
+      final long interval = options.getSdkMetricsReportIntervalMillis();
+      final Timer timer = new Timer("SentrySdkMetrics", true);
+      timer.schedule(
+          new TimerTask() {
+            @Override
+            public void run() {
+              report();
+            }
+          },
+          interval,
+          interval);
+      this.timer = timer;
+    }
+
+    try {
+      jmx = SdkMetricsJmx.register(options.getSdkMetrics(), options.getPreFilterStats());
+    } catch (Throwable e) {
+      // JMX isn't available on every platform
+      options.getLogger().log(SentryLevel.INFO, "SdkMetrics are not exposed through JMX.", e);
+    }
+
+    options.getLogger().log(SentryLevel.DEBUG, "SdkMetricsIntegration installed.");
+  }
+
+  /** Reports the metrics to the listener. */
+  void report() {
+    final SentryOptions options = this.options;
+    if (options == null) {
+      return;
+    }
+    final SentryOptions.SdkMetricsListener listener = options.getSdkMetricsListener();
+    if (listener == null) {
+      return;
+    }
+    try {
+      listener.onReport(options.getSdkMetrics(), options.getPreFilterStats());
+    } catch (Exception e) {
+      options.getLogger().log(SentryLevel.ERROR, "The SdkMetricsListener threw an exception.", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    final Timer timer = this.timer;
+    if (timer != null) {
+      timer.cancel();
+      this.timer = null;
+    }
+    final SdkMetricsJmx jmx = this.jmx;
+    if (jmx != null) {
+      jmx.unregister();
+      this.jmx = null;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package io.sentry;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import org.jetbrains.annotations.NotNull;
+
+/** Exposes the {@link SdkMetrics} through JMX, only loaded where JMX is available. */
+final class SdkMetricsJmx implements SdkMetricsMXBean {
+  static final String OBJECT_NAME = "io.sentry:type=SdkMetrics";
+
+  private final @NotNull SdkMetrics metrics;
+  private final @NotNull PreFilterStats preFilterStats;
+  private final @NotNull MBeanServer server;
+  private final @NotNull ObjectName name;
+
+  private SdkMetricsJmx(
+      final @NotNull SdkMetrics metrics,
+      final @NotNull PreFilterStats preFilterStats,
+      final @NotNull MBeanServer server,
+      final @NotNull ObjectName name) {
+    this.metrics = metrics;
+    this.preFilterStats = preFilterStats;
+    this.server = server;
+    this.name = name;
+  }
+
+  /**
+   * Registers the MXBean on the platform MBeanServer, replacing the one of a previous init.
+   *
+   * @param metrics the metrics
+   * @param preFilterStats the events dropped by the pre-filter
+   * @return the registered MXBean
+   * @throws JMException if it can't be registered
+   */
+  static @NotNull SdkMetricsJmx register(
+      final @NotNull SdkMetrics metrics, final @NotNull PreFilterStats preFilterStats)
+      throws JMException {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    final ObjectName name = new ObjectName(OBJECT_NAME);
+    final SdkMetricsJmx jmx = new SdkMetricsJmx(metrics, preFilterStats, server, name);
+    if (server.isRegistered(name)) {
+      server.unregisterMBean(name);
+    }
+    server.registerMBean(new StandardMBean(jmx, SdkMetricsMXBean.class, true), name);
+    return jmx;
+  }
+
+  void unregister() {
+    try {
+      server.unregisterMBean(name);
+    } catch (JMException e) {
+      // registered by another init in the meantime
+    }
+  }
+
+  @Override
+  public @NotNull Map<String, Long> getCounts() {
+    final Map<String, Long> counts = new HashMap<>();
+    for (final SdkMetrics.Stage stage : SdkMetrics.Stage.values()) {
+      counts.put(stage.getName(), metrics.getLatency(stage).getCount());
+    }
+    return counts;
+  }
+
+  @Override
+  public @NotNull Map<String, Long> getTotalNanos() {
+    final Map<String, Long> totals = new HashMap<>();
+    for (final SdkMetrics.Stage stage : SdkMetrics.Stage.values()) {
+      totals.put(stage.getName(), metrics.getLatency(stage).getTotalNanos());
+    }
+    return totals;
+  }
+
+  @Override
+  public @NotNull Map<String, Long> getP50Nanos() {
+    return getPercentileNanos(0.5);
+  }
+
+  @Override
+  public @NotNull Map<String, Long> getP99Nanos() {
+    return getPercentileNanos(0.99);
+  }
+
+  private @NotNull Map<String, Long> getPercentileNanos(final double percentile) {
+    final Map<String, Long> percentiles = new HashMap<>();
+    for (final SdkMetrics.Stage stage : SdkMetrics.Stage.values()) {
+      percentiles.put(stage.getName(), metrics.getLatency(stage).getPercentileNanos(percentile));
+    }
+    return percentiles;
+  }
+
+  @Override
+  public @NotNull Map<String, Long> getEventProcessorP99Nanos() {
+    final Map<String, Long> percentiles = new HashMap<>();
+    for (final Map.Entry<String, LatencyHistogram> entry :
+        metrics.getEventProcessorLatencies().entrySet()) {
+      percentiles.put(entry.getKey(), entry.getValue().getPercentileNanos(0.99));
+    }
+    return percentiles;
+  }
+
+  @Override
+  public @NotNull Map<String, Long> getDroppedCounts() {
+    final Map<String, Long> counts = new HashMap<>();
+    for (final PreFilterStats.Stage stage : PreFilterStats.Stage.values()) {
+      counts.put(stage.getName(), preFilterStats.getDroppedCount(stage));
+    }
+    for (final SdkMetrics.Stage stage : SdkMetrics.Stage.values()) {
+      counts.put(stage.getName(), metrics.getDroppedCount(stage));
+    }
+    return counts;
+  }
+}
@@ -0,0 +1,53 @@
+package io.sentry;
+
+import java.util.Map;
+
+/**
+ * The metrics of the SDK overhead as exposed through JMX, as {@code io.sentry:type=SdkMetrics}.
+ * Maps are keyed by the name of the stage, see {@link SdkMetrics.Stage#getName()}, or by the class
+ * name of the event processor.
+ */
+public interface SdkMetricsMXBean {
+
+  /**
+   * Returns the number of times each stage ran.
+   *
+   * @return the counts by stage
+   */
+  Map<String, Long> getCounts();
+
+  /**
+   * Returns the total time spent in each stage.
+   *
+   * @return the time in nanos by stage
+   */
+  Map<String, Long> getTotalNanos();
+
+  /**
+   * Returns an upper bound of the median time spent in each stage.
+   *
+   * @return the time in nanos by stage
+   */
+  Map<String, Long> getP50Nanos();
+
+  /**
+   * Returns an upper bound of the 99th percentile of the time spent in each stage.
+   *
+   * @return the time in nanos by stage
+   */
+  Map<String, Long> getP99Nanos();
+
+  /**
+   * Returns an upper bound of the 99th percentile of the time spent in each event processor.
+   *
+   * @return the time in nanos by class name of the event processor
+   */
+  Map<String, Long> getEventProcessorP99Nanos();
+
+  /**
+   * Returns the number of events dropped by each stage, the stages of the pre-filter included.
+   *
+   * @return the counts by stage
+   */
+  Map<String, Long> getDroppedCounts();
+}
@@ -0,0 +1,56 @@
+package io.sentry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Measures the time spent serializing entities as the {@link SdkMetrics.Stage#SERIALIZATION} stage.
+ * Envelope items serialize their entity lazily, usually on the thread of the transport.
+ */
+final class SdkMetricsSerializer implements ISerializer {
+  private final @NotNull ISerializer serializer;
+  private final @NotNull SdkMetrics metrics;
+
+  SdkMetricsSerializer(final @NotNull ISerializer serializer, final @NotNull SdkMetrics metrics) {
+    this.serializer = serializer;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public <T> T deserialize(final @NotNull Reader reader, final @NotNull Class<T> clazz) {
+    return serializer.deserialize(reader, clazz);
+  }
+
+  @Override
+  public SentryEnvelope deserializeEnvelope(final @NotNull InputStream inputStream) {
+    return serializer.deserializeEnvelope(inputStream);
+  }
+
+  @Override
+  public <T> void serialize(final @NotNull T entity, final @NotNull Writer writer)
+      throws IOException {
+    final long start = metrics.start();
+    try {
+      serializer.serialize(entity, writer);
+    } finally {
+      metrics.stop(SdkMetrics.Stage.SERIALIZATION, start);
+    }
+  }
+
+  @Override
+  public void serialize(
+      final @NotNull SentryEnvelope envelope, final @NotNull OutputStream outputStream)
+      throws Exception {
+    serializer.serialize(envelope, outputStream);
+  }
+
+  @Override
+  public @NotNull String serialize(final @NotNull Map<String, Object> data) throws Exception {
+    return serializer.serialize(data);
+  }
+}
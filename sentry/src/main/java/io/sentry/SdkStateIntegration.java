@@ -0,0 +1,43 @@
+package io.sentry;
+
+import io.sentry.util.Objects;
+import java.io.Closeable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Exposes the state of the SDK and the options adjustable at runtime as the {@code
+ * io.sentry:type=SdkState} MXBean where JMX is available, when {@link
+ * SentryOptions#isEnableSdkStateMBean()} is enabled.
+ */
+public final class SdkStateIntegration implements Integration, Closeable {
+  private @Nullable SdkStateJmx jmx;
+
+  @Override
+  public void register(final @NotNull IHub hub, final @NotNull SentryOptions options) {
+    Objects.requireNonNull(hub, "Hub is required");
+    Objects.requireNonNull(options, "SentryOptions is required");
+
+    if (!options.isEnableSdkStateMBean()) {
+      options.getLogger().log(SentryLevel.DEBUG, "SdkStateIntegration is disabled.");
+      return;
+    }
+
+    try {
+      jmx = SdkStateJmx.register(options);
+      options.getLogger().log(SentryLevel.DEBUG, "SdkStateIntegration installed.");
+    } catch (Throwable e) {
+      // JMX isn't available on every platform
+      options.getLogger().log(SentryLevel.INFO, "SdkState is not exposed through JMX.", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    final SdkStateJmx jmx = this.jmx;
+    if (jmx != null) {
+      jmx.unregister();
+      this.jmx = null;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package io.sentry;
+
+import io.sentry.cache.EnvelopeCache;
+import io.sentry.transport.ITransport;
+import io.sentry.transport.RateLimiter;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Exposes the state of the SDK through JMX, only loaded where JMX is available. The state is read
+ * when the attributes are read, and the options are written through their volatile fields.
+ */
+final class SdkStateJmx implements SdkStateMXBean {
+  static final String OBJECT_NAME = "io.sentry:type=SdkState";
+
+  static final String DROPPED_QUEUE_FULL = "transport_queue_full";
+  static final String DROPPED_RATE_LIMITED_ITEMS = "transport_rate_limited_items";
+
+  private final @NotNull SentryOptions options;
+  private final @NotNull MBeanServer server;
+  private final @NotNull ObjectName name;
+
+  private SdkStateJmx(
+      final @NotNull SentryOptions options,
+      final @NotNull MBeanServer server,
+      final @NotNull ObjectName name) {
+    this.options = options;
+    this.server = server;
+    this.name = name;
+  }
+
+  /**
+   * Registers the MXBean on the platform MBeanServer, replacing the one of a previous init.
+   *
+   * @param options the SentryOptions
+   * @return the registered MXBean
+   * @throws JMException if it can't be registered
+   */
+  static @NotNull SdkStateJmx register(final @NotNull SentryOptions options) throws JMException {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    final ObjectName name = new ObjectName(OBJECT_NAME);
+    final SdkStateJmx jmx = new SdkStateJmx(options, server, name);
+    if (server.isRegistered(name)) {
+      server.unregisterMBean(name);
+    }
+    server.registerMBean(new StandardMBean(jmx, SdkStateMXBean.class, true), name);
+    return jmx;
+  }
+
+  void unregister() {
+    try {
+      server.unregisterMBean(name);
+    } catch (JMException e) {
+      // registered by another init in the meantime
+    }
+  }
+
+  @Override
+  public int getTransportQueueSize() {
+    final ITransport transport = options.getTransport();
+    return transport != null ? transport.getQueueSize() : 0;
+  }
+
+  @Override
+  public long getCacheDirBytes() {
+    long bytes = 0;
+    for (final File file : listFiles(options.getCacheDirPath())) {
+      if (file.isFile()) {
+        bytes += file.length();
+      }
+    }
+    return bytes;
+  }
+
+  @Override
+  public int getCachedEnvelopeCount() {
+    int count = 0;
+    for (final File file : listFiles(options.getCacheDirPath())) {
+      if (file.getName().endsWith(EnvelopeCache.SUFFIX_ENVELOPE_FILE)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public int getOutboxEnvelopeCount() {
+    int count = 0;
+    for (final File file : listFiles(options.getOutboxPath())) {
+      // files being written or claimed start with a dot
+      if (file.isFile() && !file.getName().startsWith(".")) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static @NotNull Iterable<File> listFiles(final @Nullable String path) {
+    if (path == null) {
+      return Collections.emptyList();
+    }
+    final File[] files = new File(path).listFiles();
+    if (files == null) {
+      return Collections.emptyList();
+    }
+    return Arrays.asList(files);
+  }
+
+  @Override
+  public @NotNull Map<String, Long> getActiveRateLimits() {
+    final RateLimiter rateLimiter = getRateLimiter();
+    return rateLimiter != null ? rateLimiter.getActiveRateLimits() : new HashMap<>();
+  }
+
+  @Override
+  public @NotNull Map<String, Long> getDroppedCounts() {
+    final Map<String, Long> counts = new HashMap<>();
+    final PreFilterStats preFilterStats = options.getPreFilterStats();
+    for (final PreFilterStats.Stage stage : PreFilterStats.Stage.values()) {
+      counts.put(stage.getName(), preFilterStats.getDroppedCount(stage));
+    }
+    final SdkMetrics metrics = options.getSdkMetrics();
+    for (final SdkMetrics.Stage stage : SdkMetrics.Stage.values()) {
+      counts.put(stage.getName(), metrics.getDroppedCount(stage));
+    }
+    final ITransport transport = options.getTransport();
+    counts.put(DROPPED_QUEUE_FULL, transport != null ? transport.getDroppedEnvelopeCount() : 0);
+    final RateLimiter rateLimiter = getRateLimiter();
+    counts.put(
+        DROPPED_RATE_LIMITED_ITEMS, rateLimiter != null ? rateLimiter.getDroppedItemCount() : 0);
+    return counts;
+  }
+
+  private @Nullable RateLimiter getRateLimiter() {
+    final ITransport transport = options.getTransport();
+    return transport != null ? transport.getRateLimiter() : null;
+  }
+
+  @Override
+  public @Nullable Double getSampleRate() {
+    return options.getSampleRate();
+  }
+
+  @Override
+  public void setSampleRate(final @Nullable Double sampleRate) {
+    options.setSampleRate(sampleRate);
+    options.getLogger().log(SentryLevel.INFO, "sampleRate set to %s through JMX.", sampleRate);
+  }
+
+  @Override
+  public @Nullable Double getTracesSampleRate() {
+    return options.getTracesSampleRate();
+  }
+
+  @Override
+  public void setTracesSampleRate(final @Nullable Double tracesSampleRate) {
+    options.setTracesSampleRate(tracesSampleRate);
+    options
+        .getLogger()
+        .log(SentryLevel.INFO, "tracesSampleRate set to %s through JMX.", tracesSampleRate);
+  }
+
+  @Override
+  public int getMaxBreadcrumbs() {
+    return options.getMaxBreadcrumbs();
+  }
+
+  @Override
+  public void setMaxBreadcrumbs(final int maxBreadcrumbs) {
+    if (maxBreadcrumbs < 0) {
+      throw new IllegalArgumentException("maxBreadcrumbs can't be negative: " + maxBreadcrumbs);
+    }
+    options.setMaxBreadcrumbs(maxBreadcrumbs);
+    options
+        .getLogger()
+        .log(SentryLevel.INFO, "maxBreadcrumbs set to %d through JMX.", maxBreadcrumbs);
+  }
+}
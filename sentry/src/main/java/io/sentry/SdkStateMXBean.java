@@ -0,0 +1,96 @@
+package io.sentry;
+
+import java.util.Map;
+
+/**
+ * The state of the SDK and the options adjustable at runtime as exposed through JMX, as {@code
+ * io.sentry:type=SdkState}.
+ */
+public interface SdkStateMXBean {
+
+  /**
+   * Returns the number of envelopes queued or being sent by the transport.
+   *
+   * @return the number of envelopes
+   */
+  int getTransportQueueSize();
+
+  /**
+   * Returns the size of the files in the cache dir, the outbox excluded.
+   *
+   * @return the size in bytes
+   */
+  long getCacheDirBytes();
+
+  /**
+   * Returns the number of envelopes in the cache dir.
+   *
+   * @return the number of envelopes
+   */
+  int getCachedEnvelopeCount();
+
+  /**
+   * Returns the number of envelopes in the outbox.
+   *
+   * @return the number of envelopes
+   */
+  int getOutboxEnvelopeCount();
+
+  /**
+   * Returns the categories currently rate limited.
+   *
+   * @return the remaining time in millis by category
+   */
+  Map<String, Long> getActiveRateLimits();
+
+  /**
+   * Returns the number of events dropped by each stage, the envelopes dropped by the transport
+   * included. The stages measured by {@link SdkMetrics} are counted only while it's enabled.
+   *
+   * @return the counts by stage
+   */
+  Map<String, Long> getDroppedCounts();
+
+  /**
+   * Returns the sample rate of events.
+   *
+   * @return the sample rate or null if disabled
+   */
+  Double getSampleRate();
+
+  /**
+   * Sets the sample rate of events, applied to the events captured from now on.
+   *
+   * @param sampleRate the sample rate above 0.0 and up to 1.0 or null to disable it
+   */
+  void setSampleRate(Double sampleRate);
+
+  /**
+   * Returns the sample rate of transactions.
+   *
+   * @return the sample rate or null if disabled
+   */
+  Double getTracesSampleRate();
+
+  /**
+   * Sets the sample rate of transactions, applied to the transactions started from now on.
+   *
+   * @param tracesSampleRate the sample rate above 0.0 and up to 1.0 or null to disable it
+   */
+  void setTracesSampleRate(Double tracesSampleRate);
+
+  /**
+   * Returns the max breadcrumbs.
+   *
+   * @return the max breadcrumbs
+   */
+  int getMaxBreadcrumbs();
+
+  /**
+   * Sets the max breadcrumbs. Lowering it applies to the events captured from now on, raising it
+   * applies to the Scopes created from now on.
+   *
+   * @param maxBreadcrumbs the max breadcrumbs
+   */
+  void setMaxBreadcrumbs(int maxBreadcrumbs);
+}
@@ -4,9 +4,14 @@ import io.sentry.cache.EnvelopeCache;
 import io.sentry.config.PropertiesProviderFactory;
 import io.sentry.protocol.SentryId;
 import io.sentry.protocol.User;
+import io.sentry.util.VirtualThreadUtils;
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -19,6 +24,13 @@ public final class Sentry {
   /** Holds Hubs per thread or only mainHub if globalHubMode is enabled. */
   private static final @NotNull ThreadLocal<IHub> currentHub = new ThreadLocal<>();
 
+  /**
+   * Holds the Hub the children of a thread fork if hubPropagationMode is {@link
+   * HubPropagationMode#INHERITABLE}, only set in this mode. Children get a reference to it, they
+   * fork it the first time they use their Hub.
+   */
+  private static final @NotNull ThreadLocal<IHub> inheritedHub = new InheritableHubThreadLocal();
+
   /** The Main Hub or NoOp if Sentry is disabled. */
   private static volatile @NotNull IHub mainHub = NoOpHub.getInstance();
 
@@ -28,23 +40,98 @@ public final class Sentry {
   /** whether to use a single (global) Hub as opposed to one per thread. */
   private static volatile boolean globalHubMode = GLOBAL_HUB_DEFAULT_MODE;
 
+  /** how Hubs are resolved on threads when globalHubMode is disabled. */
+  private static volatile @NotNull HubPropagationMode hubPropagationMode =
+      HubPropagationMode.THREAD_LOCAL;
+
   /**
-   * Returns the current (threads) hub, if none, clones the mainHub and returns it.
+   * Returns the current (threads) hub, if none, clones the mainHub and returns it. With {@link
+   * HubPropagationMode#INHERITABLE}, a thread created by a thread using its own Hub forks that Hub
+   * instead, unless it's a worker of a pool.
    *
    * @return the hub
    */
-  static @NotNull IHub getCurrentHub() {
+  @ApiStatus.Internal
+  public static @NotNull IHub getCurrentHub() {
     if (globalHubMode) {
       return mainHub;
     }
     IHub hub = currentHub.get();
     if (hub == null) {
-      hub = mainHub.clone();
+      hub = resolveHub();
       currentHub.set(hub);
     }
     return hub;
   }
 
+  private static @NotNull IHub resolveHub() {
+    if (hubPropagationMode != HubPropagationMode.INHERITABLE) {
+      return mainHub.clone();
+    }
+    final IHub parentHub = inheritedHub.get();
+    final IHub hub =
+        parentHub != null && !isPoolWorker(Thread.currentThread())
+            ? parentHub.fork()
+            : mainHub.clone();
+    inheritedHub.set(hub);
+    return hub;
+  }
+
+  /**
+   * Checks if the thread is a worker of a pool. Workers run the tasks of unrelated requests, they
+   * must not keep the Hub of the thread that happened to create them.
+   *
+   * @param thread the current thread
+   * @return true if it's a worker of a ForkJoinPool or ThreadPoolExecutor
+   */
+  private static boolean isPoolWorker(final @NotNull Thread thread) {
+    if (thread instanceof ForkJoinWorkerThread) {
+      return true;
+    }
+    if (VirtualThreadUtils.isVirtual(thread)) {
+      return false;
+    }
+    // the stack is only walked once per thread, when its Hub is resolved
+    for (final StackTraceElement element : thread.getStackTrace()) {
+      if (element.getClassName().equals(ThreadPoolExecutor.class.getName())
+          && element.getMethodName().equals("runWorker")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Binds the given Hub to the current thread. Used to explicitly propagate a Hub to threads that
+   * are not created by the thread owning it, for example executor or event loop threads.
+   *
+   * @param hub the hub
+   */
+  @ApiStatus.Internal
+  public static void setCurrentHub(final @NotNull IHub hub) {
+    currentHub.set(hub);
+    if (hubPropagationMode == HubPropagationMode.INHERITABLE) {
+      inheritedHub.set(hub);
+    }
+  }
+
+  /**
+   * Returns the Hub bound to the current thread without cloning the mainHub if there's none.
+   *
+   * @return the hub or null if none is bound to the current thread
+   */
+  @ApiStatus.Internal
+  public static @Nullable IHub peekCurrentHub() {
+    return currentHub.get();
+  }
+
+  /** Unbinds the Hub from the current thread. */
+  @ApiStatus.Internal
+  public static void removeCurrentHub() {
+    currentHub.remove();
+    inheritedHub.remove();
+  }
+
   /**
    * Check if the current Hub is enabled/active.
    *
@@ -166,10 +253,15 @@ public final class Sentry {
     options.getLogger().log(SentryLevel.INFO, "GlobalHubMode: '%s'", String.valueOf(globalHubMode));
     Sentry.globalHubMode = globalHubMode;
 
+    options
+        .getLogger()
+        .log(SentryLevel.INFO, "HubPropagationMode: '%s'", options.getHubPropagationMode());
+    Sentry.hubPropagationMode = options.getHubPropagationMode();
+
     final IHub hub = getCurrentHub();
     mainHub = new Hub(options);
 
-    currentHub.set(mainHub);
+    setCurrentHub(mainHub);
 
     hub.close();
 
@@ -222,6 +314,20 @@ public final class Sentry {
       logger.log(SentryLevel.INFO, "No outbox dir path is defined in options.");
     }
 
+    if (options.isEnableVirtualThreads() && options.isDefaultExecutorService()) {
+      final ThreadFactory threadFactory =
+          VirtualThreadUtils.newThreadFactory("SentryExecutorServiceThread-");
+      if (threadFactory != null) {
+        // the default executor has not started any thread yet, closing it is cheap
+        options.getExecutorService().close(0);
+        options.setExecutorService(new SentryExecutorService(threadFactory));
+      } else {
+        logger.log(
+            SentryLevel.WARNING,
+            "Virtual threads are not supported by this runtime, using platform threads instead.");
+      }
+    }
+
     return true;
   }
 
@@ -254,6 +360,31 @@ public final class Sentry {
     return getCurrentHub().captureEvent(event, hint);
   }
 
+  /**
+   * Captures the events. The scope is read once for all of them, which is cheaper than capturing
+   * them one by one.
+   *
+   * @param events the events
+   * @return The Id (SentryId object) of each event, in order, an empty Id if the event was dropped
+   */
+  public static @NotNull List<SentryId> captureEvents(
+      final @NotNull Collection<SentryEvent> events) {
+    return getCurrentHub().captureEvents(events);
+  }
+
+  /**
+   * Captures the events. The scope is read once for all of them, which is cheaper than capturing
+   * them one by one.
+   *
+   * @param events the events
+   * @param hint SDK specific but provides high level information about the origin of the events
+   * @return The Id (SentryId object) of each event, in order, an empty Id if the event was dropped
+   */
+  public static @NotNull List<SentryId> captureEvents(
+      final @NotNull Collection<SentryEvent> events, final @Nullable Object hint) {
+    return getCurrentHub().captureEvents(events, hint);
+  }
+
   /**
    * Captures the message.
    *
@@ -586,6 +717,22 @@ public final class Sentry {
     return getCurrentHub().getSpan();
   }
 
+  /**
+   * Passes the parent's Hub to new threads with {@link HubPropagationMode#INHERITABLE}. Children
+   * only get a reference, nothing is allocated when a thread is created: they fork the Hub the
+   * first time they use it, see {@link #getCurrentHub()}. If the parent uses the mainHub itself,
+   * they clone the mainHub instead, so they don't keep the mainHub of a previous init.
+   */
+  private static final class InheritableHubThreadLocal extends InheritableThreadLocal<IHub> {
+    @Override
+    protected @Nullable IHub childValue(final @Nullable IHub parentValue) {
+      if (hubPropagationMode != HubPropagationMode.INHERITABLE || parentValue == mainHub) {
+        return null;
+      }
+      return parentValue;
+    }
+  }
+
   /**
    * Configuration options callback
    *
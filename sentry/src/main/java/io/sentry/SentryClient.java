@@ -1,8 +1,13 @@
 package io.sentry;
 
+import io.sentry.exception.ExceptionMechanismException;
 import io.sentry.hints.DiskFlushNotification;
+import io.sentry.protocol.Contexts;
+import io.sentry.protocol.Request;
 import io.sentry.protocol.SentryId;
+import io.sentry.protocol.User;
 import io.sentry.transport.ITransport;
+import io.sentry.transport.RateLimiter;
 import io.sentry.util.ApplyScopeUtils;
 import io.sentry.util.Objects;
 import java.io.IOException;
@@ -11,6 +16,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -26,7 +32,7 @@ public final class SentryClient implements ISentryClient {
 
   private final @NotNull SentryOptions options;
   private final @NotNull ITransport transport;
-  private final @Nullable Random random;
+  private final @NotNull Random random = new Random();
 
   private final @NotNull SortBreadcrumbsByDate sortBreadcrumbsByDate = new SortBreadcrumbsByDate();
 
@@ -47,8 +53,7 @@ public final class SentryClient implements ISentryClient {
 
     final RequestDetailsResolver requestDetailsResolver = new RequestDetailsResolver(options);
     transport = transportFactory.create(options, requestDetailsResolver.resolve());
-
-    this.random = options.getSampleRate() == null ? null : new Random();
+    options.setTransport(transport);
   }
 
   @Override
@@ -58,59 +63,200 @@ public final class SentryClient implements ISentryClient {
 
     options.getLogger().log(SentryLevel.DEBUG, "Capturing event: %s", event.getEventId());
 
-    if (ApplyScopeUtils.shouldApplyScopeData(hint)) {
-      // Event has already passed through here before it was cached
-      // Going through again could be reading data that is no longer relevant
-      // i.e proguard id, app version, threads
-      event = applyScope(event, scope, hint);
+    final PreparedEvent prepared = prepareEvent(event, scope, null, hint);
+
+    return sendEvent(prepared.event, getAttachmentsFromScope(scope), prepared.session, hint);
+  }
 
+  @Override
+  public @NotNull List<SentryId> captureEvents(
+      final @NotNull Collection<SentryEvent> events,
+      final @Nullable Scope scope,
+      final @Nullable Object hint) {
+    Objects.requireNonNull(events, "SentryEvents are required.");
+
+    options.getLogger().log(SentryLevel.DEBUG, "Capturing %d events.", events.size());
+
+    // the scope is read once for the whole batch
+    final ScopeData scopeData =
+        scope != null && ApplyScopeUtils.shouldApplyScopeData(hint)
+            ? new ScopeData(scope, true)
+            : null;
+    final List<Attachment> attachments = getAttachmentsFromScope(scope);
+
+    final List<PreparedEvent> preparedEvents = new ArrayList<>(events.size());
+    Session session = null;
+    for (final SentryEvent event : events) {
       if (event == null) {
-        options.getLogger().log(SentryLevel.DEBUG, "Event was dropped by applyScope");
+        options.getLogger().log(SentryLevel.WARNING, "captureEvents called with a null event.");
+        preparedEvents.add(new PreparedEvent(null, null));
+        continue;
       }
-    } else {
-      options
-          .getLogger()
-          .log(SentryLevel.DEBUG, "Event was cached so not applying scope: %s", event.getEventId());
+      final PreparedEvent prepared = prepareEvent(event, scope, scopeData, hint);
+      preparedEvents.add(prepared);
+      if (prepared.session != null) {
+        // only the most recent state of the session is sent
+        session = prepared.session;
+      }
+    }
+
+    // an envelope holds a single event, the session update goes with the last one
+    int last = -1;
+    for (int i = 0; i < preparedEvents.size(); i++) {
+      if (preparedEvents.get(i).event != null) {
+        last = i;
+      }
+    }
+
+    final List<SentryId> sentryIds = new ArrayList<>(preparedEvents.size());
+    for (int i = 0; i < preparedEvents.size(); i++) {
+      final SentryEvent event = preparedEvents.get(i).event;
+      if (event == null && (i != last || session == null)) {
+        sentryIds.add(SentryId.EMPTY_ID);
+        continue;
+      }
+      sentryIds.add(sendEvent(event, attachments, i == last ? session : null, hint));
+    }
+    if (last == -1 && session != null) {
+      sendEvent(null, null, session, hint);
     }
+    return sentryIds;
+  }
+
+  /** An event that went through the pipeline and the session update to send along. */
+  private static final class PreparedEvent {
+    /** The event to send or null if it was dropped. */
+    private final @Nullable SentryEvent event;
+
+    private final @Nullable Session session;
 
-    event = processEvent(event, hint, options.getEventProcessors());
+    PreparedEvent(final @Nullable SentryEvent event, final @Nullable Session session) {
+      this.event = event;
+      this.session = session;
+    }
+  }
 
+  /**
+   * Runs the event through the pre-filter, the scope, the event processors and beforeSend.
+   *
+   * @param event the SentryEvent
+   * @param scope the Scope or null
+   * @param scopeData the data read from the Scope, read now if null
+   * @param hint the hint or null
+   * @return the event to send or null if dropped, and the session update to send along
+   */
+  private @NotNull PreparedEvent prepareEvent(
+      @NotNull SentryEvent event,
+      final @Nullable Scope scope,
+      final @Nullable ScopeData scopeData,
+      final @Nullable Object hint) {
     Session session = null;
 
-    if (event != null) {
-      session = updateSessionData(event, hint, scope);
+    // cheap checks run first, so dropped events are never enriched
+    final PreFilterStats.Stage droppedBy = preFilter(event, hint);
+
+    if (droppedBy != null) {
+      options.getPreFilterStats().recordDrop(droppedBy);
+      options
+          .getLogger()
+          .log(
+              SentryLevel.DEBUG,
+              "Event %s was dropped by the pre-filter: %s",
+              event.getEventId(),
+              droppedBy.getName());
+
+      // unsampled and rate limited errors still count for the health of the session
+      if (droppedBy == PreFilterStats.Stage.SAMPLE_RATE
+          || droppedBy == PreFilterStats.Stage.RATE_LIMIT) {
+        session = updateSessionData(event, hint, scope);
+        updateRequestSession(event, hint, scope);
+      }
+      event = null;
+    } else {
+      if (ApplyScopeUtils.shouldApplyScopeData(hint)) {
+        // Event has already passed through here before it was cached
+        // Going through again could be reading data that is no longer relevant
+        // i.e proguard id, app version, threads
+        if (scope != null) {
+          final long start = options.getSdkMetrics().start();
+          event =
+              applyScope(event, scopeData != null ? scopeData : new ScopeData(scope, false), hint);
+          options.getSdkMetrics().stop(SdkMetrics.Stage.APPLY_SCOPE, start);
+        }
 
-      if (!sample()) {
+        if (event == null) {
+          options.getLogger().log(SentryLevel.DEBUG, "Event was dropped by applyScope");
+        }
+      } else {
         options
             .getLogger()
             .log(
                 SentryLevel.DEBUG,
-                "Event %s was dropped due to sampling decision.",
+                "Event was cached so not applying scope: %s",
                 event.getEventId());
-        // setting event as null to not be sent as its been discarded by sample rate
-        event = null;
+      }
+
+      if (event != null) {
+        event = processEvent(event, hint, options.getEventProcessors());
+      }
+
+      if (event != null) {
+        session = updateSessionData(event, hint, scope);
+        updateRequestSession(event, hint, scope);
       }
     }
 
     if (event != null) {
+      final long start = options.getSdkMetrics().start();
       event = executeBeforeSend(event, hint);
+      options.getSdkMetrics().stop(SdkMetrics.Stage.BEFORE_SEND, start);
 
       if (event == null) {
+        options.getSdkMetrics().recordDrop(SdkMetrics.Stage.BEFORE_SEND);
         options.getLogger().log(SentryLevel.DEBUG, "Event was dropped by beforeSend");
       }
     }
 
+    return new PreparedEvent(event, session);
+  }
+
+  /**
+   * Sends the event, its attachments and the session update in an envelope.
+   *
+   * @param event the SentryEvent or null if dropped
+   * @param attachments the attachments or null
+   * @param session the session update or null
+   * @param hint the hint or null
+   * @return the id of the event or an empty id if not sent
+   */
+  private @NotNull SentryId sendEvent(
+      final @Nullable SentryEvent event,
+      final @Nullable List<Attachment> attachments,
+      final @Nullable Session session,
+      final @Nullable Object hint) {
     SentryId sentryId = SentryId.EMPTY_ID;
 
     if (event != null) {
       sentryId = event.getEventId();
+
+      // messages of the logging integrations are formatted only once the event is going to be sent
+      if (event.getMessage() != null) {
+        event.getMessage().applyFormatter();
+      }
     }
 
     try {
-      final SentryEnvelope envelope = buildEnvelope(event, getAttachmentsFromScope(scope), session);
+      final Map<Attachment, String> attachmentDigests = new IdentityHashMap<>();
+      final SentryEnvelope envelope =
+          buildEnvelope(
+              event,
+              deduplicateAttachments(event, attachments, attachmentDigests),
+              session,
+              null,
+              attachmentDigests);
 
       if (envelope != null) {
-        transport.send(envelope, hint);
+        send(envelope, hint);
       }
     } catch (IOException e) {
       options.getLogger().log(SentryLevel.WARNING, e, "Capturing event %s failed.", sentryId);
@@ -122,6 +268,32 @@ public final class SentryClient implements ISentryClient {
     return sentryId;
   }
 
+  /**
+   * Hands the envelope to the transport.
+   *
+   * @param envelope the envelope
+   * @param hint the hint or null
+   */
+  private void send(final @NotNull SentryEnvelope envelope, final @Nullable Object hint)
+      throws IOException {
+    final long start = options.getSdkMetrics().start();
+    transport.send(envelope, hint);
+    options.getSdkMetrics().stop(SdkMetrics.Stage.TRANSPORT_SEND, start);
+  }
+
+  /**
+   * Returns the serializer of the envelope items, which measures the serialization if {@link
+   * SentryOptions#isEnableSdkMetrics()} is enabled.
+   *
+   * @return the serializer
+   */
+  private @NotNull ISerializer getSerializer() {
+    final SdkMetrics metrics = options.getSdkMetrics();
+    return metrics.isEnabled()
+        ? new SdkMetricsSerializer(options.getSerializer(), metrics)
+        : options.getSerializer();
+  }
+
   private List<Attachment> getAttachmentsFromScope(@Nullable Scope scope) {
     if (scope != null) {
       return scope.getAttachments();
@@ -133,35 +305,46 @@ public final class SentryClient implements ISentryClient {
   private @Nullable SentryEnvelope buildEnvelope(
       final @Nullable SentryBaseEvent event, final @Nullable List<Attachment> attachments)
       throws IOException {
-    return this.buildEnvelope(event, attachments, null);
+    return this.buildEnvelope(event, attachments, null, null, null);
   }
 
   private @Nullable SentryEnvelope buildEnvelope(
       final @Nullable SentryBaseEvent event,
       final @Nullable List<Attachment> attachments,
-      final @Nullable Session session)
+      final @Nullable Session session,
+      final @Nullable TransactionProfile profile,
+      final @Nullable Map<Attachment, String> attachmentDigests)
       throws IOException {
     SentryId sentryId = null;
 
     final List<SentryEnvelopeItem> envelopeItems = new ArrayList<>();
 
     if (event != null) {
-      final SentryEnvelopeItem eventItem =
-          SentryEnvelopeItem.fromEvent(options.getSerializer(), event);
+      final SentryEnvelopeItem eventItem = SentryEnvelopeItem.fromEvent(getSerializer(), event);
       envelopeItems.add(eventItem);
       sentryId = event.getEventId();
     }
 
     if (session != null) {
       final SentryEnvelopeItem sessionItem =
-          SentryEnvelopeItem.fromSession(options.getSerializer(), session);
+          SentryEnvelopeItem.fromSession(getSerializer(), session);
       envelopeItems.add(sessionItem);
     }
 
+    if (profile != null) {
+      envelopeItems.add(SentryEnvelopeItem.fromProfile(getSerializer(), profile));
+    }
+
     if (attachments != null) {
       for (final Attachment attachment : attachments) {
         final SentryEnvelopeItem attachmentItem =
             SentryEnvelopeItem.fromAttachment(attachment, options.getMaxAttachmentSize());
+        final String digest = attachmentDigests != null ? attachmentDigests.get(attachment) : null;
+        if (digest != null) {
+          // recorded as sent only if the item isn't rate limited and the transport delivers it
+          attachmentItem.setSubmissionResult(
+              options.getAttachmentDeduplicator().markSentOnDelivery(digest));
+        }
         envelopeItems.add(attachmentItem);
       }
     }
@@ -175,12 +358,71 @@ public final class SentryClient implements ISentryClient {
     return null;
   }
 
+  /**
+   * Leaves out the attachments identical to one sent within {@link
+   * SentryOptions#getAttachmentDeduplicationWindowMillis()}. The event references them in the
+   * {@code duplicate_attachments} context, by filename and SHA-1. Nothing is left out while
+   * attachments are rate limited, the ones recorded as sent may have been dropped since.
+   *
+   * @param event the event or null
+   * @param attachments the attachments or null
+   * @param digests the digests of the attachments to send are put in it, to record them as sent
+   *     once the transport delivered them
+   * @return the attachments to send
+   */
+  private @Nullable List<Attachment> deduplicateAttachments(
+      final @Nullable SentryBaseEvent event,
+      final @Nullable List<Attachment> attachments,
+      final @NotNull Map<Attachment, String> digests) {
+    final long window = options.getAttachmentDeduplicationWindowMillis();
+    if (attachments == null || attachments.isEmpty() || window <= 0) {
+      return attachments;
+    }
+    final RateLimiter rateLimiter = transport.getRateLimiter();
+    if (rateLimiter != null && rateLimiter.isRateLimited(SentryItemType.Attachment.getItemType())) {
+      return attachments;
+    }
+
+    final AttachmentDeduplicator deduplicator = options.getAttachmentDeduplicator();
+    final List<Attachment> attachmentsToSend = new ArrayList<>(attachments.size());
+    Map<String, String> duplicates = null;
+    for (final Attachment attachment : attachments) {
+      final String digest = deduplicator.digest(attachment, options.getMaxAttachmentSize());
+      if (digest != null && deduplicator.isSent(digest, window)) {
+        if (duplicates == null) {
+          duplicates = new HashMap<>();
+        }
+        duplicates.put(attachment.getFilename(), digest);
+      } else {
+        attachmentsToSend.add(attachment);
+        if (digest != null) {
+          digests.put(attachment, digest);
+        }
+      }
+    }
+
+    if (duplicates != null) {
+      options
+          .getLogger()
+          .log(SentryLevel.DEBUG, "%d attachments were already sent.", duplicates.size());
+      if (event != null) {
+        event.getContexts().put("duplicate_attachments", duplicates);
+      }
+    }
+    return attachmentsToSend;
+  }
+
   @Nullable
   private SentryEvent processEvent(
       @NotNull SentryEvent event,
       final @Nullable Object hint,
       final @NotNull List<EventProcessor> eventProcessors) {
     for (EventProcessor processor : eventProcessors) {
+      if (processor instanceof DuplicateEventDetectionEventProcessor) {
+        // already run by the pre-filter
+        continue;
+      }
+      final long start = options.getSdkMetrics().start();
       try {
         event = processor.process(event, hint);
       } catch (Exception e) {
@@ -193,7 +435,10 @@ public final class SentryClient implements ISentryClient {
                 processor.getClass().getName());
       }
 
+      options.getSdkMetrics().stop(processor, start);
+
       if (event == null) {
+        options.getSdkMetrics().recordDrop(SdkMetrics.Stage.EVENT_PROCESSOR);
         options
             .getLogger()
             .log(
@@ -206,6 +451,48 @@ public final class SentryClient implements ISentryClient {
     return event;
   }
 
+  /**
+   * Runs the stages of the pre-filter in order, each stage is cheaper than applying the Scope and
+   * running the event processors.
+   *
+   * @param event the SentryEvent
+   * @param hint the hint or null
+   * @return the stage that dropped the event or null if the event passed all the stages
+   */
+  private @Nullable PreFilterStats.Stage preFilter(
+      final @NotNull SentryEvent event, final @Nullable Object hint) {
+    final Throwable throwable = event.getOriginThrowable();
+    if (throwable != null && options.getIgnoredExceptionsForType().contains(throwable.getClass())) {
+      return PreFilterStats.Stage.IGNORED_EXCEPTION;
+    }
+
+    final RateLimiter rateLimiter = transport.getRateLimiter();
+    if (rateLimiter != null && rateLimiter.isRateLimited("event")) {
+      return PreFilterStats.Stage.RATE_LIMIT;
+    }
+
+    if (throwable != null) {
+      for (final EventProcessor processor : options.getEventProcessors()) {
+        if (processor instanceof DuplicateEventDetectionEventProcessor) {
+          try {
+            if (processor.process(event, hint) == null) {
+              return PreFilterStats.Stage.DUPLICATE;
+            }
+          } catch (Exception e) {
+            options
+                .getLogger()
+                .log(SentryLevel.ERROR, e, "An exception occurred while deduplicating the event.");
+          }
+        }
+      }
+    }
+
+    if (!sample()) {
+      return PreFilterStats.Stage.SAMPLE_RATE;
+    }
+    return null;
+  }
+
   @Override
   public void captureUserFeedback(final @NotNull UserFeedback userFeedback) {
     Objects.requireNonNull(userFeedback, "SentryEvent is required.");
@@ -220,7 +507,9 @@ public final class SentryClient implements ISentryClient {
 
     try {
       final SentryEnvelope envelope = buildEnvelope(userFeedback);
+      final long start = options.getSdkMetrics().start();
       transport.send(envelope);
+      options.getSdkMetrics().stop(SdkMetrics.Stage.TRANSPORT_SEND, start);
     } catch (IOException e) {
       options
           .getLogger()
@@ -236,7 +525,7 @@ public final class SentryClient implements ISentryClient {
     final List<SentryEnvelopeItem> envelopeItems = new ArrayList<>();
 
     final SentryEnvelopeItem userFeedbackItem =
-        SentryEnvelopeItem.fromUserFeedback(options.getSerializer(), userFeedback);
+        SentryEnvelopeItem.fromUserFeedback(getSerializer(), userFeedback);
     envelopeItems.add(userFeedbackItem);
 
     final SentryEnvelopeHeader envelopeHeader =
@@ -260,40 +549,34 @@ public final class SentryClient implements ISentryClient {
 
     if (ApplyScopeUtils.shouldApplyScopeData(hint)) {
       if (scope != null) {
-        clonedSession =
-            scope.withSession(
-                session -> {
-                  if (session != null) {
-                    Session.State status = null;
-                    if (event.isCrashed()) {
-                      status = Session.State.Crashed;
-                    }
-
-                    boolean crashedOrErrored = false;
-                    if (Session.State.Crashed == status || event.isErrored()) {
-                      crashedOrErrored = true;
-                    }
-
-                    String userAgent = null;
-                    if (event.getRequest() != null && event.getRequest().getHeaders() != null) {
-                      if (event.getRequest().getHeaders().containsKey("user-agent")) {
-                        userAgent = event.getRequest().getHeaders().get("user-agent");
-                      }
-                    }
-
-                    if (session.update(status, userAgent, crashedOrErrored)) {
-                      // if hint is DiskFlushNotification, it means we have an uncaughtException
-                      // and we can end the session.
-                      if (hint instanceof DiskFlushNotification) {
-                        session.end();
-                      }
-                    }
-                  } else {
-                    options
-                        .getLogger()
-                        .log(SentryLevel.INFO, "Session is null on scope.withSession");
-                  }
-                });
+        // the session counts errors atomically, it's only snapshotted when an update is sent
+        final Session session = scope.getSession();
+        if (session != null) {
+          String userAgent = null;
+          if (event.getRequest() != null && event.getRequest().getHeaders() != null) {
+            if (event.getRequest().getHeaders().containsKey("user-agent")) {
+              userAgent = event.getRequest().getHeaders().get("user-agent");
+            }
+          }
+
+          final boolean sendUpdate =
+              session.recordEvent(
+                  isCrashed(event),
+                  isErrored(event),
+                  userAgent,
+                  options.getSessionUpdateIntervalMillis());
+
+          // if hint is DiskFlushNotification, it means we have an uncaughtException
+          // and we can end the session.
+          if (hint instanceof DiskFlushNotification) {
+            session.end();
+            clonedSession = session.clone();
+          } else if (sendUpdate) {
+            clonedSession = session.clone();
+          }
+        } else {
+          options.getLogger().log(SentryLevel.INFO, "Session is null on scope.withSession");
+        }
       } else {
         options.getLogger().log(SentryLevel.INFO, "Scope is null on client.captureEvent");
       }
@@ -301,6 +584,44 @@ public final class SentryClient implements ISentryClient {
     return clonedSession;
   }
 
+  private void updateRequestSession(
+      final @NotNull SentryEvent event, final @Nullable Object hint, final @Nullable Scope scope) {
+    if (scope != null
+        && ApplyScopeUtils.shouldApplyScopeData(hint)
+        && (isCrashed(event) || isErrored(event))) {
+      scope.updateRequestSession(isCrashed(event));
+    }
+  }
+
+  /**
+   * Checks if the event is errored, also before the event processors converted its throwable
+   *
+   * @param event the SentryEvent
+   * @return true if errored or false otherwise
+   */
+  private static boolean isErrored(final @NotNull SentryEvent event) {
+    return event.isErrored() || event.getThrowable() != null;
+  }
+
+  /**
+   * Checks if the event is crashed, also before the event processors converted its throwable
+   *
+   * @param event the SentryEvent
+   * @return true if crashed or false otherwise
+   */
+  private static boolean isCrashed(final @NotNull SentryEvent event) {
+    if (event.isCrashed()) {
+      return true;
+    }
+    final Throwable throwable = event.getThrowable();
+    if (throwable instanceof ExceptionMechanismException) {
+      final Boolean handled =
+          ((ExceptionMechanismException) throwable).getExceptionMechanism().isHandled();
+      return handled != null && !handled;
+    }
+    return false;
+  }
+
   @ApiStatus.Internal
   @Override
   public void captureSession(final @NotNull Session session, final @Nullable Object hint) {
@@ -315,7 +636,7 @@ public final class SentryClient implements ISentryClient {
 
     SentryEnvelope envelope;
     try {
-      envelope = SentryEnvelope.from(options.getSerializer(), session, options.getSdkVersion());
+      envelope = SentryEnvelope.from(getSerializer(), session, options.getSdkVersion());
     } catch (IOException e) {
       options.getLogger().log(SentryLevel.ERROR, "Failed to capture session.", e);
       return;
@@ -331,7 +652,7 @@ public final class SentryClient implements ISentryClient {
     Objects.requireNonNull(envelope, "SentryEnvelope is required.");
 
     try {
-      transport.send(envelope, hint);
+      send(envelope, hint);
     } catch (IOException e) {
       options.getLogger().log(SentryLevel.ERROR, "Failed to capture envelope.", e);
       return SentryId.EMPTY_ID;
@@ -356,10 +677,19 @@ public final class SentryClient implements ISentryClient {
       final SentryTransaction sentryTransaction =
           processTransaction((SentryTransaction) transaction);
       try {
+        final Map<Attachment, String> attachmentDigests = new IdentityHashMap<>();
         final SentryEnvelope envelope =
-            buildEnvelope(sentryTransaction, filterForTransaction(getAttachmentsFromScope(scope)));
+            buildEnvelope(
+                sentryTransaction,
+                deduplicateAttachments(
+                    sentryTransaction,
+                    filterForTransaction(getAttachmentsFromScope(scope)),
+                    attachmentDigests),
+                null,
+                sentryTransaction.getProfile(),
+                attachmentDigests);
         if (envelope != null) {
-          transport.send(envelope, hint);
+          send(envelope, hint);
         } else {
           sentryId = SentryId.EMPTY_ID;
         }
@@ -425,67 +755,117 @@ public final class SentryClient implements ISentryClient {
   }
 
   private @Nullable SentryEvent applyScope(
-      @NotNull SentryEvent event, final @Nullable Scope scope, final @Nullable Object hint) {
-    if (scope != null) {
-      if (event.getTransaction() == null) {
-        event.setTransaction(scope.getTransactionName());
-      }
-      if (event.getUser() == null) {
-        event.setUser(scope.getUser());
-      }
-      if (event.getRequest() == null) {
-        event.setRequest(scope.getRequest());
-      }
-      if (event.getFingerprints() == null) {
-        event.setFingerprints(scope.getFingerprint());
-      }
-      if (event.getBreadcrumbs() == null) {
-        event.setBreadcrumbs(new ArrayList<>(scope.getBreadcrumbs()));
-      } else {
-        sortBreadcrumbsByDate(event, scope.getBreadcrumbs());
-      }
-      if (event.getTags() == null) {
-        event.setTags(new HashMap<>(scope.getTags()));
-      } else {
-        for (Map.Entry<String, String> item : scope.getTags().entrySet()) {
-          if (!event.getTags().containsKey(item.getKey())) {
-            event.getTags().put(item.getKey(), item.getValue());
-          }
+      @NotNull SentryEvent event, final @NotNull ScopeData scope, final @Nullable Object hint) {
+    if (event.getTransaction() == null) {
+      event.setTransaction(scope.transactionName);
+    }
+    if (event.getUser() == null) {
+      event.setUser(scope.user);
+    }
+    if (event.getRequest() == null) {
+      event.setRequest(scope.request);
+    }
+    if (event.getFingerprints() == null) {
+      event.setFingerprints(scope.fingerprint);
+    }
+    if (event.getBreadcrumbs() == null) {
+      event.setBreadcrumbs(scope.takeBreadcrumbs());
+    } else {
+      sortBreadcrumbsByDate(event, scope.breadcrumbs);
+    }
+    if (event.getTags() == null) {
+      event.setTags(new HashMap<>(scope.tags));
+    } else {
+      for (Map.Entry<String, String> item : scope.tags.entrySet()) {
+        if (!event.getTags().containsKey(item.getKey())) {
+          event.getTags().put(item.getKey(), item.getValue());
         }
       }
-      if (event.getExtras() == null) {
-        event.setExtras(new HashMap<>(scope.getExtras()));
-      } else {
-        for (Map.Entry<String, Object> item : scope.getExtras().entrySet()) {
-          if (!event.getExtras().containsKey(item.getKey())) {
-            event.getExtras().put(item.getKey(), item.getValue());
-          }
+    }
+    if (event.getExtras() == null) {
+      event.setExtras(new HashMap<>(scope.extras));
+    } else {
+      for (Map.Entry<String, Object> item : scope.extras.entrySet()) {
+        if (!event.getExtras().containsKey(item.getKey())) {
+          event.getExtras().put(item.getKey(), item.getValue());
         }
       }
-      try {
-        for (Map.Entry<String, Object> entry : scope.getContexts().clone().entrySet()) {
-          if (!event.getContexts().containsKey(entry.getKey())) {
-            event.getContexts().put(entry.getKey(), entry.getValue());
-          }
+    }
+    try {
+      for (Map.Entry<String, Object> entry : scope.copyContexts().entrySet()) {
+        if (!event.getContexts().containsKey(entry.getKey())) {
+          event.getContexts().put(entry.getKey(), entry.getValue());
         }
-      } catch (CloneNotSupportedException e) {
-        options
-            .getLogger()
-            .log(SentryLevel.ERROR, "An error has occurred when cloning Contexts", e);
-      }
-      // Level from scope exceptionally take precedence over the event
-      if (scope.getLevel() != null) {
-        event.setLevel(scope.getLevel());
-      }
-      // Set trace data from active span to connect events with transactions
-      final ISpan span = scope.getSpan();
-      if (event.getContexts().getTrace() == null && span != null) {
-        event.getContexts().setTrace(span.getSpanContext());
       }
+    } catch (CloneNotSupportedException e) {
+      options.getLogger().log(SentryLevel.ERROR, "An error has occurred when cloning Contexts", e);
+    }
+    // Level from scope exceptionally take precedence over the event
+    if (scope.level != null) {
+      event.setLevel(scope.level);
+    }
+    // Set trace data from active span to connect events with transactions
+    if (event.getContexts().getTrace() == null && scope.span != null) {
+      event.getContexts().setTrace(scope.span.getSpanContext());
+    }
 
-      event = processEvent(event, hint, scope.getEventProcessors());
+    return processEvent(event, hint, scope.eventProcessors);
+  }
+
+  /**
+   * The data of a Scope applied to events. It's read once for a batch of events, the breadcrumbs of
+   * the logging integrations are only created once.
+   */
+  private static final class ScopeData {
+    private final @Nullable String transactionName;
+    private final @Nullable User user;
+    private final @Nullable Request request;
+    private final @Nullable List<String> fingerprint;
+    private final @NotNull List<Breadcrumb> breadcrumbs;
+    private final @NotNull Map<String, String> tags;
+    private final @NotNull Map<String, Object> extras;
+    private final @NotNull Contexts contexts;
+    private final @Nullable SentryLevel level;
+    private final @Nullable ISpan span;
+    private final @NotNull List<EventProcessor> eventProcessors;
+
+    /** If the data is applied to several events, which then get their own copy of each list. */
+    private final boolean shared;
+
+    ScopeData(final @NotNull Scope scope, final boolean shared) {
+      this.shared = shared;
+      transactionName = scope.getTransactionName();
+      user = scope.getUser();
+      request = scope.getRequest();
+      fingerprint = scope.getFingerprint();
+      breadcrumbs = scope.copyBreadcrumbs();
+      tags = scope.getTags();
+      extras = scope.getExtras();
+      contexts = scope.peekContexts();
+      level = scope.getLevel();
+      span = scope.getSpan();
+      eventProcessors = scope.getEventProcessors();
+    }
+
+    /**
+     * Returns the breadcrumbs for an event to own.
+     *
+     * @return the breadcrumbs
+     */
+    @NotNull
+    List<Breadcrumb> takeBreadcrumbs() {
+      return shared ? new ArrayList<>(breadcrumbs) : breadcrumbs;
+    }
+
+    /**
+     * Returns a copy of the contexts, events must not share the values of the contexts.
+     *
+     * @return the contexts
+     */
+    @NotNull
+    Contexts copyContexts() throws CloneNotSupportedException {
+      return contexts.clone();
     }
-    return event;
   }
 
   private void sortBreadcrumbsByDate(
@@ -545,9 +925,10 @@ public final class SentryClient implements ISentryClient {
 
   private boolean sample() {
     // https://docs.sentry.io/development/sdk-dev/features/#event-sampling
-    if (options.getSampleRate() != null && random != null) {
-      final double sampling = options.getSampleRate();
-      return !(sampling < random.nextDouble()); // bad luck
+    // read once, the sample rate can be changed at runtime
+    final Double sampleRate = options.getSampleRate();
+    if (sampleRate != null) {
+      return !(sampleRate < random.nextDouble()); // bad luck
     }
     return true;
   }
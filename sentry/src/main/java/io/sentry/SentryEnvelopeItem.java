@@ -1,8 +1,8 @@
 package io.sentry;
 
 import io.sentry.exception.SentryEnvelopeException;
+import io.sentry.hints.SubmissionResult;
 import io.sentry.util.Objects;
-import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
@@ -11,9 +11,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.concurrent.Callable;
 import org.jetbrains.annotations.ApiStatus;
@@ -31,11 +35,16 @@ public final class SentryEnvelopeItem {
   private final @Nullable Callable<byte[]> dataFactory;
   // TODO: Can we have a slice or a reader here instead?
   private @Nullable byte[] data;
+  // Set for attachments read from a file, which are streamed instead of buffered
+  private final @Nullable AttachmentFile attachmentFile;
+  // Told whether the transport delivered the item, items dropped before sending are never told
+  private volatile @Nullable SubmissionResult submissionResult;
 
   SentryEnvelopeItem(final @NotNull SentryEnvelopeItemHeader header, final byte[] data) {
     this.header = Objects.requireNonNull(header, "SentryEnvelopeItemHeader is required.");
     this.data = data;
     this.dataFactory = null;
+    this.attachmentFile = null;
   }
 
   SentryEnvelopeItem(
@@ -44,6 +53,17 @@ public final class SentryEnvelopeItem {
     this.header = Objects.requireNonNull(header, "SentryEnvelopeItemHeader is required.");
     this.dataFactory = Objects.requireNonNull(dataFactory, "DataFactory is required.");
     this.data = null;
+    this.attachmentFile = null;
+  }
+
+  private SentryEnvelopeItem(
+      final @NotNull SentryEnvelopeItemHeader header,
+      final @NotNull AttachmentFile attachmentFile) {
+    this.header = Objects.requireNonNull(header, "SentryEnvelopeItemHeader is required.");
+    this.attachmentFile = attachmentFile;
+    // Don't use method reference. This can cause issues on Android
+    this.dataFactory = () -> attachmentFile.read();
+    this.data = null;
   }
 
   // TODO: Should be a Stream
@@ -54,10 +74,59 @@ public final class SentryEnvelopeItem {
     return data;
   }
 
+  /**
+   * Checks that the data of the item can be written, so a failing item is left out of the envelope
+   * before its header is written. Attachment files are only checked, not read.
+   *
+   * @throws Exception if the data can't be written
+   */
+  void validateData() throws Exception {
+    if (attachmentFile != null && data == null) {
+      attachmentFile.getLength();
+    } else {
+      getData();
+    }
+  }
+
+  /**
+   * Writes the data of the item. Attachment files are streamed from disk, so writing them uses
+   * constant memory.
+   *
+   * @param outputStream the stream the data is written to
+   * @throws Exception if the data can't be written
+   */
+  void writeData(final @NotNull OutputStream outputStream) throws Exception {
+    if (attachmentFile != null && data == null) {
+      attachmentFile.writeTo(outputStream);
+    } else {
+      outputStream.write(getData());
+    }
+  }
+
   public @NotNull SentryEnvelopeItemHeader getHeader() {
     return header;
   }
 
+  /**
+   * Returns the callback told whether the transport delivered this item.
+   *
+   * @return the callback or null
+   */
+  public @Nullable SubmissionResult getSubmissionResult() {
+    return submissionResult;
+  }
+
+  /**
+   * Sets a callback the transport tells whether it delivered this item, once the envelope holding
+   * it was sent. It is not told about items dropped before, like the rate limited ones, nor by
+   * transports that don't support it.
+   *
+   * @param submissionResult the callback or null
+   */
+  public void setSubmissionResult(final @Nullable SubmissionResult submissionResult) {
+    this.submissionResult = submissionResult;
+  }
+
   public static @NotNull SentryEnvelopeItem fromSession(
       final @NotNull ISerializer serializer, final @NotNull Session session) throws IOException {
     Objects.requireNonNull(serializer, "ISerializer is required.");
@@ -81,6 +150,29 @@ public final class SentryEnvelopeItem {
     return new SentryEnvelopeItem(itemHeader, () -> cachedItem.getBytes());
   }
 
+  static @NotNull SentryEnvelopeItem fromSessionAggregates(
+      final @NotNull ISerializer serializer, final @NotNull SessionAggregates sessionAggregates) {
+    Objects.requireNonNull(serializer, "ISerializer is required.");
+    Objects.requireNonNull(sessionAggregates, "SessionAggregates is required.");
+
+    final CachedItem cachedItem =
+        new CachedItem(
+            () -> {
+              try (final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                  final Writer writer = new BufferedWriter(new OutputStreamWriter(stream, UTF_8))) {
+                serializer.serialize(sessionAggregates, writer);
+                return stream.toByteArray();
+              }
+            });
+
+    SentryEnvelopeItemHeader itemHeader =
+        new SentryEnvelopeItemHeader(
+            SentryItemType.Sessions, () -> cachedItem.getBytes().length, "application/json", null);
+
+    // Don't use method reference. This can cause issues on Android
+    return new SentryEnvelopeItem(itemHeader, () -> cachedItem.getBytes());
+  }
+
   public @Nullable SentryEvent getEvent(final @NotNull ISerializer serializer) throws Exception {
     if (header == null || header.getType() != SentryItemType.Event) {
       return null;
@@ -118,6 +210,58 @@ public final class SentryEnvelopeItem {
     return new SentryEnvelopeItem(itemHeader, () -> cachedItem.getBytes());
   }
 
+  static @NotNull SentryEnvelopeItem fromTransactionMetrics(
+      final @NotNull ISerializer serializer, final @NotNull TransactionMetrics metrics) {
+    Objects.requireNonNull(serializer, "ISerializer is required.");
+    Objects.requireNonNull(metrics, "TransactionMetrics is required.");
+
+    final CachedItem cachedItem =
+        new CachedItem(
+            () -> {
+              try (final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                  final Writer writer = new BufferedWriter(new OutputStreamWriter(stream, UTF_8))) {
+                serializer.serialize(metrics, writer);
+                return stream.toByteArray();
+              }
+            });
+
+    SentryEnvelopeItemHeader itemHeader =
+        new SentryEnvelopeItemHeader(
+            SentryItemType.TransactionMetrics,
+            () -> cachedItem.getBytes().length,
+            "application/json",
+            null);
+
+    // Don't use method reference. This can cause issues on Android
+    return new SentryEnvelopeItem(itemHeader, () -> cachedItem.getBytes());
+  }
+
+  static @NotNull SentryEnvelopeItem fromProfile(
+      final @NotNull ISerializer serializer, final @NotNull TransactionProfile profile) {
+    Objects.requireNonNull(serializer, "ISerializer is required.");
+    Objects.requireNonNull(profile, "TransactionProfile is required.");
+
+    final CachedItem cachedItem =
+        new CachedItem(
+            () -> {
+              try (final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                  final Writer writer = new BufferedWriter(new OutputStreamWriter(stream, UTF_8))) {
+                serializer.serialize(profile, writer);
+                return stream.toByteArray();
+              }
+            });
+
+    SentryEnvelopeItemHeader itemHeader =
+        new SentryEnvelopeItemHeader(
+            SentryItemType.Attachment,
+            () -> cachedItem.getBytes().length,
+            "application/json",
+            TransactionProfile.ATTACHMENT_FILENAME);
+
+    // Don't use method reference. This can cause issues on Android
+    return new SentryEnvelopeItem(itemHeader, () -> cachedItem.getBytes());
+  }
+
   public @Nullable ITransaction getTransaction(final @NotNull ISerializer serializer)
       throws Exception {
     if (header == null || header.getType() != SentryItemType.Transaction) {
@@ -158,6 +302,19 @@ public final class SentryEnvelopeItem {
   public static SentryEnvelopeItem fromAttachment(
       final @NotNull Attachment attachment, final long maxAttachmentSize) {
 
+    if (attachment.getBytes() == null && attachment.getPathname() != null) {
+      // files are streamed from disk when the envelope is written, never buffered in memory
+      final AttachmentFile attachmentFile =
+          new AttachmentFile(attachment.getPathname(), maxAttachmentSize);
+      final SentryEnvelopeItemHeader itemHeader =
+          new SentryEnvelopeItemHeader(
+              SentryItemType.Attachment,
+              () -> (int) attachmentFile.getLength(),
+              attachment.getContentType(),
+              attachment.getFilename());
+      return new SentryEnvelopeItem(itemHeader, attachmentFile);
+    }
+
     final CachedItem cachedItem =
         new CachedItem(
             () -> {
@@ -174,50 +331,6 @@ public final class SentryEnvelopeItem {
                           maxAttachmentSize));
                 }
                 return attachment.getBytes();
-              } else if (attachment.getPathname() != null) {
-
-                try {
-                  File file = new File(attachment.getPathname());
-
-                  if (!file.isFile()) {
-                    throw new SentryEnvelopeException(
-                        String.format(
-                            "Reading the attachment %s failed, because the file located at the path is not a file.",
-                            attachment.getPathname()));
-                  }
-
-                  if (!file.canRead()) {
-                    throw new SentryEnvelopeException(
-                        String.format(
-                            "Reading the attachment %s failed, because can't read the file.",
-                            attachment.getPathname()));
-                  }
-
-                  if (file.length() > maxAttachmentSize) {
-                    throw new SentryEnvelopeException(
-                        String.format(
-                            "Dropping attachment, because the size of the it located at "
-                                + "'%s' with %d bytes is bigger than the maximum "
-                                + "allowed attachment size of %d bytes.",
-                            attachment.getPathname(), file.length(), maxAttachmentSize));
-                  }
-
-                  try (FileInputStream fileInputStream =
-                          new FileInputStream(attachment.getPathname());
-                      BufferedInputStream inputStream = new BufferedInputStream(fileInputStream);
-                      ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                    byte[] bytes = new byte[1024];
-                    int length;
-                    int offset = 0;
-                    while ((length = inputStream.read(bytes)) != -1) {
-                      outputStream.write(bytes, offset, length);
-                    }
-                    return outputStream.toByteArray();
-                  }
-                } catch (IOException | SecurityException exception) {
-                  throw new SentryEnvelopeException(
-                      String.format("Reading the attachment %s failed.", attachment.getPathname()));
-                }
               }
 
               throw new SentryEnvelopeException(
@@ -238,6 +351,89 @@ public final class SentryEnvelopeItem {
     return new SentryEnvelopeItem(itemHeader, () -> cachedItem.getBytes());
   }
 
+  /**
+   * An attachment read from a file. The length is taken from {@link File#length()} when the
+   * envelope item header is written, and exactly that many bytes are written as data, so a file
+   * that grows in the meantime, like a log, still matches the header.
+   */
+  private static final class AttachmentFile {
+    private final @NotNull String pathname;
+    private final long maxAttachmentSize;
+    private long length = -1;
+
+    AttachmentFile(final @NotNull String pathname, final long maxAttachmentSize) {
+      this.pathname = pathname;
+      this.maxAttachmentSize = maxAttachmentSize;
+    }
+
+    synchronized long getLength() throws SentryEnvelopeException {
+      if (length < 0) {
+        try {
+          final File file = new File(pathname);
+
+          if (!file.isFile()) {
+            throw new SentryEnvelopeException(
+                String.format(
+                    "Reading the attachment %s failed, because the file located at the path is not a file.",
+                    pathname));
+          }
+
+          if (!file.canRead()) {
+            throw new SentryEnvelopeException(
+                String.format(
+                    "Reading the attachment %s failed, because can't read the file.", pathname));
+          }
+
+          final long fileLength = file.length();
+          if (fileLength > maxAttachmentSize) {
+            throw new SentryEnvelopeException(
+                String.format(
+                    "Dropping attachment, because the size of the it located at "
+                        + "'%s' with %d bytes is bigger than the maximum "
+                        + "allowed attachment size of %d bytes.",
+                    pathname, fileLength, maxAttachmentSize));
+          }
+          length = fileLength;
+        } catch (SecurityException exception) {
+          throw new SentryEnvelopeException(
+              String.format("Reading the attachment %s failed.", pathname));
+        }
+      }
+      return length;
+    }
+
+    void writeTo(final @NotNull OutputStream outputStream) throws SentryEnvelopeException {
+      final long length = getLength();
+      try (final FileInputStream fileInputStream = new FileInputStream(pathname);
+          final FileChannel channel = fileInputStream.getChannel()) {
+        final WritableByteChannel target = Channels.newChannel(outputStream);
+        long position = 0;
+        while (position < length) {
+          final long transferred = channel.transferTo(position, length - position, target);
+          if (transferred <= 0) {
+            break;
+          }
+          position += transferred;
+        }
+        // the file shrank since its length was written to the header, keep the envelope valid
+        while (position < length) {
+          outputStream.write(0);
+          position++;
+        }
+      } catch (IOException | SecurityException exception) {
+        throw new SentryEnvelopeException(
+            String.format("Reading the attachment %s failed.", pathname));
+      }
+    }
+
+    @NotNull
+    byte[] read() throws SentryEnvelopeException {
+      final ByteArrayOutputStream outputStream = new ByteArrayOutputStream((int) getLength());
+      writeTo(outputStream);
+      return outputStream.toByteArray();
+    }
+  }
+
   private static class CachedItem {
     private @Nullable byte[] bytes;
     private final @Nullable Callable<byte[]> dataFactory;
@@ -4,7 +4,6 @@ import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
-import io.sentry.util.StringUtils;
 import java.io.IOException;
 import java.util.Locale;
 import org.jetbrains.annotations.ApiStatus;
@@ -62,11 +61,7 @@ public final class SentryEnvelopeItemHeaderAdapter extends TypeAdapter<SentryEnv
           fileName = reader.nextString();
           break;
         case "type":
-          try {
-            type = SentryItemType.valueOf(StringUtils.capitalize(reader.nextString()));
-          } catch (IllegalArgumentException ignored) {
-            // invalid type
-          }
+          type = SentryItemType.valueOfLabel(reader.nextString());
           break;
         case "length":
           length = reader.nextInt();
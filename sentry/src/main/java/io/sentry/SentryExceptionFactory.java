@@ -8,6 +8,8 @@ import io.sentry.protocol.SentryStackTrace;
 import io.sentry.util.Objects;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
@@ -22,14 +24,37 @@ final class SentryExceptionFactory {
   /** the SentryStackTraceFactory */
   private final @NotNull SentryStackTraceFactory sentryStackTraceFactory;
 
+  /** if the frames a cause shares with its enclosing exception are removed from the cause */
+  private final boolean trimCommonFrames;
+
+  /** the max number of frames of all the exceptions, 0 for no limit */
+  private final int maxFrames;
+
   /**
    * ctor SentryExceptionFactory
    *
    * @param sentryStackTraceFactory the sentryStackTraceFactory
    */
   public SentryExceptionFactory(final @NotNull SentryStackTraceFactory sentryStackTraceFactory) {
+    this(sentryStackTraceFactory, false, 0);
+  }
+
+  /**
+   * ctor SentryExceptionFactory
+   *
+   * @param sentryStackTraceFactory the sentryStackTraceFactory
+   * @param trimCommonFrames if the frames a cause shares with its enclosing exception are removed
+   *     from the cause
+   * @param maxFrames the max number of frames of all the exceptions, 0 for no limit
+   */
+  public SentryExceptionFactory(
+      final @NotNull SentryStackTraceFactory sentryStackTraceFactory,
+      final boolean trimCommonFrames,
+      final int maxFrames) {
     this.sentryStackTraceFactory =
         Objects.requireNonNull(sentryStackTraceFactory, "The SentryStackTraceFactory is required.");
+    this.trimCommonFrames = trimCommonFrames;
+    this.maxFrames = maxFrames;
   }
 
   /**
@@ -64,12 +89,16 @@ final class SentryExceptionFactory {
    * @param thread The optional {@link Thread} which the exception originated. Or null if not known.
    * @param snapshot if the captured {@link java.lang.Thread}'s stacktrace is a snapshot, See {@link
    *     SentryStackTrace#getSnapshot()}
+   * @param stackTrace the stack trace of the {@code throwable}
+   * @param frameCount the number of frames of the {@code stackTrace} to convert, from the innermost
    */
   private @NotNull SentryException getSentryException(
       @NotNull final Throwable throwable,
       @Nullable final Mechanism exceptionMechanism,
       @Nullable final Thread thread,
-      final boolean snapshot) {
+      final boolean snapshot,
+      final @Nullable StackTraceElement[] stackTrace,
+      final int frameCount) {
 
     final Package exceptionPackage = throwable.getClass().getPackage();
     final String fullClassName = throwable.getClass().getName();
@@ -87,7 +116,7 @@ final class SentryExceptionFactory {
         exceptionPackage != null ? exceptionPackage.getName() : null;
 
     final List<SentryStackFrame> frames =
-        sentryStackTraceFactory.getStackFrames(throwable.getStackTrace());
+        sentryStackTraceFactory.getStackFrames(stackTrace, frameCount);
     if (frames != null && !frames.isEmpty()) {
       final SentryStackTrace sentryStackTrace = new SentryStackTrace(frames);
       if (snapshot) {
@@ -112,6 +141,11 @@ final class SentryExceptionFactory {
    *
    * <p>Multiple values represent chained exceptions and should be sorted oldest to newest.
    *
+   * <p>If {@code trimCommonFrames} is enabled, the outermost frames a cause shares with its
+   * enclosing exception are left out of the cause, like the "... N more" of {@link
+   * Throwable#printStackTrace()}. If {@code maxFrames} is set, the frames of all the exceptions are
+   * limited to it, see {@link #limitFrames(Deque, int)}.
+   *
    * @param throwable throwable to transform in a queue of exceptions.
    * @return a queue of exception with StackTrace.
    */
@@ -122,6 +156,7 @@ final class SentryExceptionFactory {
     final Set<Throwable> circularityDetector = new HashSet<>();
     Mechanism exceptionMechanism;
     Thread thread;
+    StackTraceElement[] enclosingTrace = null;
 
     Throwable currentThrowable = throwable;
 
@@ -141,12 +176,91 @@ final class SentryExceptionFactory {
         thread = Thread.currentThread();
       }
 
+      final StackTraceElement[] stackTrace = currentThrowable.getStackTrace();
+      int frameCount = stackTrace != null ? stackTrace.length : 0;
+      if (trimCommonFrames && stackTrace != null && enclosingTrace != null && frameCount > 0) {
+        // a cause thrown where it is wrapped shares all its frames, keep where it was thrown
+        frameCount = Math.max(1, frameCount - countCommonFrames(stackTrace, enclosingTrace));
+      }
+
       SentryException exception =
-          getSentryException(currentThrowable, exceptionMechanism, thread, snapshot);
+          getSentryException(
+              currentThrowable, exceptionMechanism, thread, snapshot, stackTrace, frameCount);
       exceptions.addFirst(exception);
+      enclosingTrace = stackTrace;
       currentThrowable = currentThrowable.getCause();
     }
 
+    if (maxFrames > 0) {
+      limitFrames(exceptions, maxFrames);
+    }
+
     return exceptions;
   }
+
+  /**
+   * Counts the outermost frames a cause shares with its enclosing exception, the frames the JDK
+   * prints as "... N more".
+   *
+   * @param trace the stack trace of the cause
+   * @param enclosingTrace the stack trace of the enclosing exception
+   * @return the number of frames in common
+   */
+  private static int countCommonFrames(
+      final @NotNull StackTraceElement[] trace, final @NotNull StackTraceElement[] enclosingTrace) {
+    int m = trace.length - 1;
+    int n = enclosingTrace.length - 1;
+    while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+      m--;
+      n--;
+    }
+    return trace.length - 1 - m;
+  }
+
+  /**
+   * Limits the frames of all the exceptions to {@code maxFrames}. Exceptions with few frames keep
+   * all of them, the remaining budget is split evenly between the others. The frames left out are
+   * taken from the middle of a stack trace, so both the innermost frames, where the exception was
+   * thrown, and the outermost frames, the entry point, are kept. Every exception keeps at least its
+   * innermost frame, even if there are more exceptions than {@code maxFrames}.
+   *
+   * @param exceptions the exceptions
+   * @param maxFrames the max number of frames of all the exceptions
+   */
+  static void limitFrames(final @NotNull Deque<SentryException> exceptions, final int maxFrames) {
+    final List<List<SentryStackFrame>> traces = new ArrayList<>(exceptions.size());
+    int totalFrames = 0;
+    for (final SentryException exception : exceptions) {
+      final SentryStackTrace stackTrace = exception.getStacktrace();
+      if (stackTrace != null && stackTrace.getFrames() != null) {
+        traces.add(stackTrace.getFrames());
+        totalFrames += stackTrace.getFrames().size();
+      }
+    }
+    if (totalFrames <= maxFrames) {
+      return;
+    }
+
+    // smallest stack traces first, their unused share goes to the bigger ones
+    Collections.sort(
+        traces,
+        new Comparator<List<SentryStackFrame>>() {
+          @Override
+          public int compare(List<SentryStackFrame> o1, List<SentryStackFrame> o2) {
+            return Integer.compare(o1.size(), o2.size());
+          }
+        });
+
+    int budget = maxFrames;
+    for (int i = 0; i < traces.size(); i++) {
+      final List<SentryStackFrame> frames = traces.get(i);
+      final int share = Math.max(1, budget / (traces.size() - i));
+      if (frames.size() > share) {
+        // frames are sorted from the outermost to the innermost, the innermost half is rounded up
+        final int outermost = share / 2;
+        frames.subList(outermost, frames.size() - (share - outermost)).clear();
+      }
+      budget -= frames.size();
+    }
+  }
 }
@@ -3,6 +3,7 @@ package io.sentry;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.TestOnly;
@@ -20,6 +21,10 @@ final class SentryExecutorService implements ISentryExecutorService {
     this(Executors.newSingleThreadExecutor());
   }
 
+  SentryExecutorService(final @NotNull ThreadFactory threadFactory) {
+    this(Executors.newSingleThreadExecutor(threadFactory));
+  }
+
   @Override
   public Future<?> submit(final @NotNull Runnable runnable) {
     return executorService.submit(runnable);
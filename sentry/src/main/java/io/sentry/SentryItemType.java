@@ -1,16 +1,22 @@
 package io.sentry;
 
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 @ApiStatus.Internal
 public enum SentryItemType {
   Session("session"),
+  Sessions("sessions"),
   Event("event"), // DataCategory.Error
   UserFeedback("user_report"), // Sentry backend still uses user_report
   Attachment("attachment"),
   Transaction("transaction"),
+  TransactionMetrics("transaction_metrics"),
   Unknown("__unknown__"); // DataCategory.Unknown
 
+  private static final SentryItemType[] VALUES = values();
+
   private final String itemType;
 
   public static SentryItemType resolve(Object item) {
@@ -25,6 +31,22 @@ public enum SentryItemType {
     }
   }
 
+  /**
+   * Returns the item type of the type of an envelope item header, as written by {@link
+   * #getItemType()}.
+   *
+   * @param itemType the type of the item header
+   * @return the item type or {@link #Unknown} if it's not known
+   */
+  public static @NotNull SentryItemType valueOfLabel(final @Nullable String itemType) {
+    for (final SentryItemType value : VALUES) {
+      if (value.itemType.equals(itemType)) {
+        return value;
+      }
+    }
+    return Unknown;
+  }
+
   SentryItemType(final String itemType) {
     this.itemType = itemType;
   }
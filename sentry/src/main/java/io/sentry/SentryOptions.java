@@ -4,6 +4,7 @@ import com.jakewharton.nopen.annotation.Open;
 import io.sentry.cache.IEnvelopeCache;
 import io.sentry.config.PropertiesProvider;
 import io.sentry.protocol.SdkVersion;
+import io.sentry.transport.ITransport;
 import io.sentry.transport.ITransportGate;
 import io.sentry.transport.NoOpEnvelopeCache;
 import io.sentry.transport.NoOpTransportGate;
@@ -12,8 +13,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLSocketFactory;
 import org.jetbrains.annotations.ApiStatus;
@@ -27,6 +30,9 @@ public class SentryOptions {
   /** Default Log level if not specified Default is DEBUG */
   static final SentryLevel DEFAULT_DIAGNOSTIC_LEVEL = SentryLevel.DEBUG;
 
+  /** Default value for {@link SentryOptions#getMaxSpans()}. */
+  static final int DEFAULT_MAX_SPANS = 1000;
+
   /** The default HTTP proxy port to use if an HTTP Proxy hostname is set but port is not. */
   private static final String PROXY_PORT_DEFAULT = "80";
 
@@ -111,9 +117,16 @@ public class SentryOptions {
   private int maxQueueSize = cacheDirSize;
 
   /**
-   * This variable controls the total amount of breadcrumbs that should be captured Default is 100
+   * This variable controls the total amount of breadcrumbs that should be captured Default is 100.
+   * Volatile as it can be changed at runtime through the SdkState MXBean
+   */
+  private volatile int maxBreadcrumbs = 100;
+
+  /**
+   * This variable controls the max number of spans a transaction keeps. Spans started after the
+   * limit is reached are dropped and counted. Default is 1000
    */
-  private int maxBreadcrumbs = 100;
+  private int maxSpans = DEFAULT_MAX_SPANS;
 
   /** Sets the release. SDK will try to automatically configure a release out of the box */
   private @Nullable String release;
@@ -134,16 +147,18 @@ public class SentryOptions {
   /**
    * Configures the sample rate as a percentage of events to be sent in the range of 0.0 to 1.0. if
    * 1.0 is set it means that 100% of events are sent. If set to 0.1 only 10% of events will be
-   * sent. Events are picked randomly. Default is null (disabled)
+   * sent. Events are picked randomly. Default is null (disabled). Volatile as it can be changed at
+   * runtime through the SdkState MXBean
    */
-  private @Nullable Double sampleRate;
+  private volatile @Nullable Double sampleRate;
 
   /**
    * Configures the sample rate as a percentage of transactions to be sent in the range of 0.0 to
    * 1.0. if 1.0 is set it means that 100% of transactions are sent. If set to 0.1 only 10% of
-   * transactions will be sent. Transactions are picked randomly. Default is null (disabled)
+   * transactions will be sent. Transactions are picked randomly. Default is null (disabled).
+   * Volatile as it can be changed at runtime through the SdkState MXBean
    */
-  private @Nullable Double tracesSampleRate;
+  private volatile @Nullable Double tracesSampleRate;
 
   /**
    * This function is called by {@link TracesSampler} to determine if transaction is sampled - meant
@@ -215,6 +230,9 @@ public class SentryOptions {
   /** Sentry Executor Service that sends cached events and envelopes on App. start. */
   private @NotNull ISentryExecutorService executorService;
 
+  /** If the executorService was replaced by {@link #setExecutorService(ISentryExecutorService)} */
+  private boolean customExecutorService;
+
   /** connection timeout in milliseconds. */
   private int connectionTimeoutMillis = 5000;
 
@@ -261,6 +279,139 @@ public class SentryOptions {
    */
   private Boolean enableDeduplication = true;
 
+  /** Controls how the current Hub is resolved on threads that did not set one explicitly. */
+  private @NotNull HubPropagationMode hubPropagationMode = HubPropagationMode.THREAD_LOCAL;
+
+  /**
+   * Runs the SDK background workers (the {@link SentryExecutorService} and the transport) on
+   * virtual threads when the runtime supports them. Falls back to platform threads otherwise.
+   */
+  private boolean enableVirtualThreads;
+
+  /**
+   * Keeps transactions that the traces sample rate or sampler dropped when they turn out to be
+   * failed or slow once they finish.
+   */
+  private boolean enableTailSampling;
+
+  /**
+   * The percentile of the recent durations of a transaction above which tail sampling keeps the
+   * transaction. Default is 0.95
+   */
+  private double tailSamplingPercentile = 0.95;
+
+  /** The durations of the recent transactions, shared by every Hub created with these options. */
+  private final @NotNull TailSampler tailSampler = new TailSampler(this);
+
+  /**
+   * Records the duration and status of every finished transaction, sampled or not, into histograms
+   * per transaction name and operation that are sent periodically.
+   */
+  private boolean enableTransactionMetrics;
+
+  /** The interval between two sends of the transaction histograms. Default is 60 seconds */
+  private long transactionMetricsFlushIntervalMillis = 60 * 1000;
+
+  private final @NotNull TransactionMetricsAggregator transactionMetricsAggregator =
+      new TransactionMetricsAggregator();
+
+  /**
+   * Counts the outcome of every request in per minute aggregates instead of sending a session
+   * update per request, for servers where each request is a session.
+   */
+  private boolean enableSessionAggregation;
+
+  /** The interval between two sends of the session aggregates. Default is 60 seconds */
+  private long sessionAggregationFlushIntervalMillis = 60 * 1000;
+
+  private final @NotNull SessionAggregator sessionAggregator = new SessionAggregator();
+
+  /**
+   * The min interval between two session updates sent for errors. The first error, a crash or a new
+   * user agent are always sent right away. Default is 30 seconds
+   */
+  private long sessionUpdateIntervalMillis = 30 * 1000;
+
+  /**
+   * Exception types that are never sent. Events of these exact types are dropped before the Scope
+   * is applied, subclasses are not matched.
+   */
+  private final @NotNull Set<Class<? extends Throwable>> ignoredExceptionsForType =
+      new CopyOnWriteArraySet<>();
+
+  /**
+   * Removes from each cause the outermost frames it shares with its enclosing exception, as the
+   * "... N more" of {@link Throwable#printStackTrace()}. Default is false
+   */
+  private boolean trimCommonFrames;
+
+  /**
+   * The max number of stack frames of all the exceptions of an event, frames are removed from the
+   * middle of the stack traces. 0 means no limit, default is 0
+   */
+  private int maxExceptionFrames;
+
+  /**
+   * An attachment identical to one sent within this window is not sent again, the event references
+   * it instead. 0 disables the deduplication, default is 0
+   */
+  private long attachmentDeduplicationWindowMillis;
+
+  /** Remembers the attachments sent recently */
+  private final @NotNull AttachmentDeduplicator attachmentDeduplicator =
+      new AttachmentDeduplicator();
+
+  /**
+   * Number of envelope files of the cache and outbox dirs sent in parallel when they are processed,
+   * default is 1
+   */
+  private int envelopeProcessingParallelism = 1;
+
+  /**
+   * Dir watched for envelope files written by other processes, which are sent as they show up. Null
+   * disables the watcher, default is null
+   */
+  private @Nullable String envelopeWatchDirPath;
+
+  /** Time an envelope file has to stay unchanged before it's considered fully written */
+  private long envelopeWatchDebounceMillis = 1000;
+
+  /**
+   * Interval of the scans of the watched dir, catching files the file system didn't notify about. 0
+   * disables the scans unless the file system can't be watched, default is 30s
+   */
+  private long envelopeWatchPollIntervalMillis = 30 * 1000;
+
+  /** Measures the overhead of the SDK */
+  private final @NotNull SdkMetrics sdkMetrics = new SdkMetrics();
+
+  /** Receives the metrics of the SDK overhead periodically */
+  private @Nullable SdkMetricsListener sdkMetricsListener;
+
+  /** Interval of the reports to the SdkMetricsListener, default is 60s */
+  private long sdkMetricsReportIntervalMillis = 60 * 1000;
+
+  /** Counts the events dropped by the pre-filter stages */
+  private final @NotNull PreFilterStats preFilterStats = new PreFilterStats();
+
+  /** Exposes the state of the SDK and the options adjustable at runtime as an MXBean */
+  private boolean enableSdkStateMBean = false;
+
+  /** The transport of the last client created with these options */
+  private volatile @Nullable ITransport transport;
+
+  /** Samples the stacks of the threads of the sampled transactions */
+  private boolean enableProfiling = false;
+
+  /** Interval between two stack samples, default is 10ms */
+  private long profilingIntervalMillis = 10;
+
+  /** Max number of transactions profiled at the same time, default is 8 */
+  private int maxProfiledTransactions = 8;
+
+  /** The profiler of the sampled transactions, set while the ProfilingIntegration is installed */
+  private volatile @Nullable TransactionProfiler transactionProfiler;
+
   /**
    * Creates {@link SentryOptions} from properties provided by a {@link PropertiesProvider}.
    *
@@ -602,6 +753,29 @@ public class SentryOptions {
     this.maxBreadcrumbs = maxBreadcrumbs;
   }
 
+  /**
+   * Returns the max spans of a transaction. Default is 1000
+   *
+   * @return the max spans
+   */
+  public int getMaxSpans() {
+    return maxSpans;
+  }
+
+  /**
+   * Sets the max spans of a transaction. The spans started once it's reached are no-ops, counted as
+   * dropped by the transaction. 0 records no spans, only the transactions. Default is 1000
+   *
+   * @param maxSpans the max spans, at least 0
+   */
+  public void setMaxSpans(final int maxSpans) {
+    if (maxSpans < 0) {
+      throw new IllegalArgumentException(
+          "The max spans " + maxSpans + " is not valid. Use values of at least 0.");
+    }
+    this.maxSpans = maxSpans;
+  }
+
   /**
    * Returns the release
    *
@@ -996,9 +1170,19 @@ public class SentryOptions {
   void setExecutorService(final @NotNull ISentryExecutorService executorService) {
     if (executorService != null) {
       this.executorService = executorService;
+      this.customExecutorService = true;
     }
   }
 
+  /**
+   * Returns if the executorService is still the one created with the options
+   *
+   * @return true if it wasn't replaced or false otherwise
+   */
+  boolean isDefaultExecutorService() {
+    return !customExecutorService;
+  }
+
   /**
    * Returns the connection timeout in milliseconds.
    *
@@ -1259,6 +1443,593 @@ public class SentryOptions {
     this.enableDeduplication = enableDeduplication;
   }
 
+  /**
+   * Returns the hub propagation mode.
+   *
+   * @return the hub propagation mode
+   */
+  public @NotNull HubPropagationMode getHubPropagationMode() {
+    return hubPropagationMode;
+  }
+
+  /**
+   * Sets the hub propagation mode. Default is {@link HubPropagationMode#THREAD_LOCAL}.
+   *
+   * @param hubPropagationMode the hub propagation mode
+   */
+  public void setHubPropagationMode(final @NotNull HubPropagationMode hubPropagationMode) {
+    this.hubPropagationMode = hubPropagationMode;
+  }
+
+  /**
+   * Returns if the SDK background workers run on virtual threads when available.
+   *
+   * @return true if enabled false otherwise
+   */
+  public boolean isEnableVirtualThreads() {
+    return enableVirtualThreads;
+  }
+
+  /**
+   * Enables or disables running the SDK background workers on virtual threads. Has no effect on
+   * runtimes without virtual thread support.
+   *
+   * @param enableVirtualThreads true if enabled false otherwise
+   */
+  public void setEnableVirtualThreads(final boolean enableVirtualThreads) {
+    this.enableVirtualThreads = enableVirtualThreads;
+  }
+
+  /**
+   * Returns if tail sampling is enabled
+   *
+   * @return true if enabled false otherwise
+   */
+  public boolean isEnableTailSampling() {
+    return enableTailSampling;
+  }
+
+  /**
+   * Enables or disables tail sampling. When enabled, transactions dropped by the traces sample rate
+   * or sampler are still sent if they finish with an error or a failed status, or if they took
+   * longer than the {@link #getTailSamplingPercentile()} of the recent transactions with the same
+   * name.
+   *
+   * @param enableTailSampling true if enabled false otherwise
+   */
+  public void setEnableTailSampling(final boolean enableTailSampling) {
+    this.enableTailSampling = enableTailSampling;
+  }
+
+  /**
+   * Returns the duration percentile above which tail sampling keeps transactions. Default is 0.95
+   *
+   * @return the percentile between 0.0 and 1.0
+   */
+  public double getTailSamplingPercentile() {
+    return tailSamplingPercentile;
+  }
+
+  /**
+   * Sets the duration percentile above which tail sampling keeps transactions. Default is 0.95
+   *
+   * @param tailSamplingPercentile the percentile between 0.0 and 1.0
+   */
+  public void setTailSamplingPercentile(final double tailSamplingPercentile) {
+    if (tailSamplingPercentile < 0.0 || tailSamplingPercentile > 1.0) {
+      throw new IllegalArgumentException(
+          "The value " + tailSamplingPercentile + " is not valid. Use values between 0.0 and 1.0.");
+    }
+    this.tailSamplingPercentile = tailSamplingPercentile;
+  }
+
+  /**
+   * Returns the tail sampler
+   *
+   * @return the TailSampler
+   */
+  @NotNull
+  TailSampler getTailSampler() {
+    return tailSampler;
+  }
+
+  /**
+   * Returns if transaction metrics are enabled
+   *
+   * @return true if enabled false otherwise
+   */
+  public boolean isEnableTransactionMetrics() {
+    return enableTransactionMetrics;
+  }
+
+  /**
+   * Enables or disables transaction metrics. When enabled, the duration and status of every
+   * finished transaction, sampled or not, is recorded into a histogram per transaction name and
+   * operation. The histograms are sent every {@link #getTransactionMetricsFlushIntervalMillis()}.
+   * Full transactions are still sent only when sampled.
+   *
+   * @param enableTransactionMetrics true if enabled false otherwise
+   */
+  public void setEnableTransactionMetrics(final boolean enableTransactionMetrics) {
+    this.enableTransactionMetrics = enableTransactionMetrics;
+  }
+
+  /**
+   * Returns the interval between two sends of the transaction histograms. Default is 60 seconds
+   *
+   * @return the interval in millis
+   */
+  public long getTransactionMetricsFlushIntervalMillis() {
+    return transactionMetricsFlushIntervalMillis;
+  }
+
+  /**
+   * Sets the interval between two sends of the transaction histograms. Default is 60 seconds
+   *
+   * @param transactionMetricsFlushIntervalMillis the interval in millis
+   */
+  public void setTransactionMetricsFlushIntervalMillis(
+      final long transactionMetricsFlushIntervalMillis) {
+    this.transactionMetricsFlushIntervalMillis = transactionMetricsFlushIntervalMillis;
+  }
+
+  /**
+   * Returns the aggregator of the transaction histograms
+   *
+   * @return the TransactionMetricsAggregator
+   */
+  @NotNull
+  TransactionMetricsAggregator getTransactionMetricsAggregator() {
+    return transactionMetricsAggregator;
+  }
+
+  /**
+   * Returns if session aggregation is enabled
+   *
+   * @return true if enabled false otherwise
+   */
+  public boolean isEnableSessionAggregation() {
+    return enableSessionAggregation;
+  }
+
+  /**
+   * Enables or disables session aggregation. When enabled, server integrations count each request
+   * as a session that exited, errored or crashed. The counts are aggregated per minute, release and
+   * environment and sent every {@link #getSessionAggregationFlushIntervalMillis()}. Requires a
+   * release.
+   *
+   * @param enableSessionAggregation true if enabled false otherwise
+   */
+  public void setEnableSessionAggregation(final boolean enableSessionAggregation) {
+    this.enableSessionAggregation = enableSessionAggregation;
+  }
+
+  /**
+   * Returns the interval between two sends of the session aggregates. Default is 60 seconds
+   *
+   * @return the interval in millis
+   */
+  public long getSessionAggregationFlushIntervalMillis() {
+    return sessionAggregationFlushIntervalMillis;
+  }
+
+  /**
+   * Sets the interval between two sends of the session aggregates. Default is 60 seconds
+   *
+   * @param sessionAggregationFlushIntervalMillis the interval in millis
+   */
+  public void setSessionAggregationFlushIntervalMillis(
+      final long sessionAggregationFlushIntervalMillis) {
+    this.sessionAggregationFlushIntervalMillis = sessionAggregationFlushIntervalMillis;
+  }
+
+  /**
+   * Returns the min interval between two session updates sent for errors. Errors captured in
+   * between are counted and reported by the next update. Default is 30 seconds
+   *
+   * @return the interval in millis
+   */
+  public long getSessionUpdateIntervalMillis() {
+    return sessionUpdateIntervalMillis;
+  }
+
+  /**
+   * Sets the min interval between two session updates sent for errors. 0 sends an update with every
+   * error. Default is 30 seconds
+   *
+   * @param sessionUpdateIntervalMillis the interval in millis
+   */
+  public void setSessionUpdateIntervalMillis(final long sessionUpdateIntervalMillis) {
+    this.sessionUpdateIntervalMillis = sessionUpdateIntervalMillis;
+  }
+
+  /**
+   * Returns the exception types that are never sent
+   *
+   * @return the set of exception types
+   */
+  public @NotNull Set<Class<? extends Throwable>> getIgnoredExceptionsForType() {
+    return ignoredExceptionsForType;
+  }
+
+  /**
+   * Adds an exception type that is never sent. Events of this exact type are dropped before the
+   * Scope is applied and the event processors run, subclasses are not matched.
+   *
+   * @param exceptionType the exception type
+   */
+  public void addIgnoredExceptionForType(final @NotNull Class<? extends Throwable> exceptionType) {
+    ignoredExceptionsForType.add(exceptionType);
+  }
+
+  /**
+   * Returns if the frames a cause shares with its enclosing exception are removed from the cause
+   *
+   * @return true if enabled or false otherwise
+   */
+  public boolean isTrimCommonFrames() {
+    return trimCommonFrames;
+  }
+
+  /**
+   * Enables or disables removing from each cause the outermost frames it shares with its enclosing
+   * exception, as the "... N more" of {@link Throwable#printStackTrace()}. Wrapped exceptions often
+   * share most of their frames, so this reduces the size of events with long cause chains
+   *
+   * @param trimCommonFrames true if enabled or false otherwise
+   */
+  public void setTrimCommonFrames(final boolean trimCommonFrames) {
+    this.trimCommonFrames = trimCommonFrames;
+  }
+
+  /**
+   * Returns the max number of stack frames of all the exceptions of an event, 0 means no limit
+   *
+   * @return the max number of frames
+   */
+  public int getMaxExceptionFrames() {
+    return maxExceptionFrames;
+  }
+
+  /**
+   * Sets the max number of stack frames of all the exceptions of an event. Frames are removed from
+   * the middle of the stack traces, keeping the frames where the exceptions were thrown and the
+   * entry points. 0 means no limit, default is 0
+   *
+   * @param maxExceptionFrames the max number of frames
+   */
+  public void setMaxExceptionFrames(final int maxExceptionFrames) {
+    this.maxExceptionFrames = maxExceptionFrames;
+  }
+
+  /**
+   * Returns the number of events dropped by each stage of the pre-filter
+   *
+   * @return the PreFilterStats
+   */
+  public @NotNull PreFilterStats getPreFilterStats() {
+    return preFilterStats;
+  }
+
+  /**
+   * Returns the aggregator of the request sessions
+   *
+   * @return the SessionAggregator
+   */
+  @NotNull
+  SessionAggregator getSessionAggregator() {
+    return sessionAggregator;
+  }
+
+  /**
+   * Returns the window within which an identical attachment is not sent again, 0 if disabled
+   *
+   * @return the window in millis
+   */
+  public long getAttachmentDeduplicationWindowMillis() {
+    return attachmentDeduplicationWindowMillis;
+  }
+
+  /**
+   * Sets the window within which an attachment identical to one already sent, same filename and
+   * content, is not sent again. The event lists the skipped attachments and their SHA-1 in the
+   * {@code duplicate_attachments} context instead. 0 disables the deduplication, default is 0
+   *
+   * @param attachmentDeduplicationWindowMillis the window in millis
+   */
+  public void setAttachmentDeduplicationWindowMillis(
+      final long attachmentDeduplicationWindowMillis) {
+    this.attachmentDeduplicationWindowMillis = attachmentDeduplicationWindowMillis;
+  }
+
+  /**
+   * Returns the deduplicator of the attachments
+   *
+   * @return the AttachmentDeduplicator
+   */
+  @NotNull
+  AttachmentDeduplicator getAttachmentDeduplicator() {
+    return attachmentDeduplicator;
+  }
+
+  /**
+   * Returns the number of envelope files sent in parallel when the cache and outbox dirs are
+   * processed
+   *
+   * @return the parallelism
+   */
+  public int getEnvelopeProcessingParallelism() {
+    return envelopeProcessingParallelism;
+  }
+
+  /**
+   * Sets the number of envelope files sent in parallel when the cache and outbox dirs are
+   * processed. Files are claimed before being sent, so several threads or processes can drain the
+   * same dir. With more than 1, files may be sent out of order. Default is 1
+   *
+   * @param envelopeProcessingParallelism the parallelism
+   */
+  public void setEnvelopeProcessingParallelism(final int envelopeProcessingParallelism) {
+    this.envelopeProcessingParallelism = envelopeProcessingParallelism;
+  }
+
+  /**
+   * Returns the dir watched for envelope files written by other processes
+   *
+   * @return the dir path or null if disabled
+   */
+  public @Nullable String getEnvelopeWatchDirPath() {
+    return envelopeWatchDirPath;
+  }
+
+  /**
+   * Sets the dir watched for envelope files written by other processes, for instance sidecars
+   * spooling envelopes. Files are sent as they show up and deleted once sent, they aren't enriched
+   * with the scope of this process. Null disables the watcher, default is null
+   *
+   * @param envelopeWatchDirPath the dir path
+   */
+  public void setEnvelopeWatchDirPath(final @Nullable String envelopeWatchDirPath) {
+    this.envelopeWatchDirPath = envelopeWatchDirPath;
+  }
+
+  /**
+   * Returns the time a watched envelope file has to stay unchanged before it's sent
+   *
+   * @return the time in millis
+   */
+  public long getEnvelopeWatchDebounceMillis() {
+    return envelopeWatchDebounceMillis;
+  }
+
+  /**
+   * Sets the time a watched envelope file has to stay unchanged, same size and last modified time,
+   * before it's considered fully written and sent. Default is 1s
+   *
+   * @param envelopeWatchDebounceMillis the time in millis
+   */
+  public void setEnvelopeWatchDebounceMillis(final long envelopeWatchDebounceMillis) {
+    this.envelopeWatchDebounceMillis = envelopeWatchDebounceMillis;
+  }
+
+  /**
+   * Returns the interval of the scans of the watched dir
+   *
+   * @return the interval in millis
+   */
+  public long getEnvelopeWatchPollIntervalMillis() {
+    return envelopeWatchPollIntervalMillis;
+  }
+
+  /**
+   * Sets the interval of the scans of the watched dir, which catch the files the file system didn't
+   * notify about, for instance on network file systems. If the dir can't be watched at all, it's
+   * only scanned, every 5s if 0. 0 disables the scans while the dir can be watched, default is 30s
+   *
+   * @param envelopeWatchPollIntervalMillis the interval in millis
+   */
+  public void setEnvelopeWatchPollIntervalMillis(final long envelopeWatchPollIntervalMillis) {
+    this.envelopeWatchPollIntervalMillis = envelopeWatchPollIntervalMillis;
+  }
+
+  /**
+   * Returns if the overhead of the SDK is measured
+   *
+   * @return true if enabled or false otherwise
+   */
+  public boolean isEnableSdkMetrics() {
+    return sdkMetrics.isEnabled();
+  }
+
+  /**
+   * Enables measuring the overhead of the SDK, the time spent in each stage of capturing an event
+   * and the events dropped by each stage. The metrics are reported to the {@link
+   * SdkMetricsListener} and exposed through JMX where available. Default is false
+   *
+   * @param enableSdkMetrics true if enabled or false otherwise
+   */
+  public void setEnableSdkMetrics(final boolean enableSdkMetrics) {
+    sdkMetrics.setEnabled(enableSdkMetrics);
+  }
+
+  /**
+   * Returns the metrics of the SDK overhead
+   *
+   * @return the SdkMetrics
+   */
+  public @NotNull SdkMetrics getSdkMetrics() {
+    return sdkMetrics;
+  }
+
+  /**
+   * Returns the listener the metrics of the SDK overhead are reported to
+   *
+   * @return the listener or null
+   */
+  public @Nullable SdkMetricsListener getSdkMetricsListener() {
+    return sdkMetricsListener;
+  }
+
+  /**
+   * Sets the listener the metrics of the SDK overhead are reported to, every {@link
+   * #getSdkMetricsReportIntervalMillis()} while {@link #isEnableSdkMetrics()} is enabled
+   *
+   * @param sdkMetricsListener the listener or null
+   */
+  public void setSdkMetricsListener(final @Nullable SdkMetricsListener sdkMetricsListener) {
+    this.sdkMetricsListener = sdkMetricsListener;
+  }
+
+  /**
+   * Returns the interval of the reports to the SdkMetricsListener
+   *
+   * @return the interval in millis
+   */
+  public long getSdkMetricsReportIntervalMillis() {
+    return sdkMetricsReportIntervalMillis;
+  }
+
+  /**
+   * Sets the interval of the reports to the SdkMetricsListener. Default is 60s
+   *
+   * @param sdkMetricsReportIntervalMillis the interval in millis
+   */
+  public void setSdkMetricsReportIntervalMillis(final long sdkMetricsReportIntervalMillis) {
+    this.sdkMetricsReportIntervalMillis = sdkMetricsReportIntervalMillis;
+  }
+
+  /**
+   * Returns if the state of the SDK and the options adjustable at runtime are exposed as the {@code
+   * io.sentry:type=SdkState} MXBean
+   *
+   * @return true if enabled or false otherwise
+   */
+  public boolean isEnableSdkStateMBean() {
+    return enableSdkStateMBean;
+  }
+
+  /**
+   * Enables exposing the state of the SDK, like the depth of the transport queue, the cache and the
+   * rate limits, as the {@code io.sentry:type=SdkState} MXBean. The sampleRate, tracesSampleRate
+   * and maxBreadcrumbs can be changed through it at runtime. Default is false
+   *
+   * @param enableSdkStateMBean true if enabled or false otherwise
+   */
+  public void setEnableSdkStateMBean(final boolean enableSdkStateMBean) {
+    this.enableSdkStateMBean = enableSdkStateMBean;
+  }
+
+  /**
+   * Returns the transport of the last client created with these options
+   *
+   * @return the transport or null if no client was created
+   */
+  @Nullable
+  ITransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Sets the transport of the last client created with these options
+   *
+   * @param transport the transport
+   */
+  void setTransport(final @Nullable ITransport transport) {
+    this.transport = transport;
+  }
+
+  /**
+   * Returns if the stacks of the threads of the sampled transactions are sampled
+   *
+   * @return true if enabled or false otherwise
+   */
+  public boolean isEnableProfiling() {
+    return enableProfiling;
+  }
+
+  /**
+   * Enables sampling the stacks of the threads bound to the sampled transactions, the thread that
+   * started a transaction and the threads that started its spans. The samples are aggregated and
+   * sent along with the transaction. Default is false
+   *
+   * @param enableProfiling true if enabled or false otherwise
+   */
+  public void setEnableProfiling(final boolean enableProfiling) {
+    this.enableProfiling = enableProfiling;
+  }
+
+  /**
+   * Returns the interval between two stack samples
+   *
+   * @return the interval in millis
+   */
+  public long getProfilingIntervalMillis() {
+    return profilingIntervalMillis;
+  }
+
+  /**
+   * Sets the interval between two stack samples, at least 5ms. The profiler samples less often if
+   * sampling takes more than 1% of a core. Default is 10ms
+   *
+   * @param profilingIntervalMillis the interval in millis
+   */
+  public void setProfilingIntervalMillis(final long profilingIntervalMillis) {
+    if (profilingIntervalMillis < TransactionProfiler.MIN_INTERVAL_MILLIS) {
+      throw new IllegalArgumentException(
+          "The profiling interval "
+              + profilingIntervalMillis
+              + " is not valid. Use values of at least "
+              + TransactionProfiler.MIN_INTERVAL_MILLIS
+              + "ms.");
+    }
+    this.profilingIntervalMillis = profilingIntervalMillis;
+  }
+
+  /**
+   * Returns the max number of transactions profiled at the same time
+   *
+   * @return the max number of transactions
+   */
+  public int getMaxProfiledTransactions() {
+    return maxProfiledTransactions;
+  }
+
+  /**
+   * Sets the max number of transactions profiled at the same time, transactions started above it
+   * aren't profiled. Default is 8
+   *
+   * @param maxProfiledTransactions the max number of transactions
+   */
+  public void setMaxProfiledTransactions(final int maxProfiledTransactions) {
+    this.maxProfiledTransactions = maxProfiledTransactions;
+  }
+
+  /**
+   * Returns the profiler of the sampled transactions
+   *
+   * @return the profiler or null if profiling isn't enabled
+   */
+  @Nullable
+  TransactionProfiler getTransactionProfiler() {
+    return transactionProfiler;
+  }
+
+  void setTransactionProfiler(final @Nullable TransactionProfiler transactionProfiler) {
+    this.transactionProfiler = transactionProfiler;
+  }
+
+  /** Receives the metrics of the SDK overhead */
+  public interface SdkMetricsListener {
+
+    /**
+     * Reports the metrics, which are counted since the SDK was initialized.
+     *
+     * @param metrics the metrics
+     * @param preFilterStats the events dropped before the Scope is applied
+     */
+    void onReport(@NotNull SdkMetrics metrics, @NotNull PreFilterStats preFilterStats);
+  }
+
   /** The BeforeSend callback */
   public interface BeforeSendCallback {
 
@@ -1334,6 +2105,18 @@ public class SentryOptions {
 
       integrations.add(new ShutdownHookIntegration());
 
+      integrations.add(new TransactionMetricsIntegration());
+
+      integrations.add(new SessionAggregationIntegration());
+
+      integrations.add(new EnvelopeDirectoryWatcherIntegration());
+
+      integrations.add(new SdkMetricsIntegration());
+
+      integrations.add(new SdkStateIntegration());
+
+      integrations.add(new ProfilingIntegration());
+
       eventProcessors.add(new MainEventProcessor(this));
       eventProcessors.add(new DuplicateEventDetectionEventProcessor(this));
 
@@ -30,11 +30,27 @@ final class SentryStackTraceFactory {
    */
   @Nullable
   List<SentryStackFrame> getStackFrames(@Nullable final StackTraceElement[] elements) {
+    return getStackFrames(elements, elements != null ? elements.length : 0);
+  }
+
+  /**
+   * convert the first elements of an Array of Java StackTraceElements to a list of
+   * SentryStackFrames
+   *
+   * @param elements Array of Java StackTraceElements
+   * @param count the number of elements to convert, from the innermost frame
+   * @return list of SentryStackFrames or null if none
+   */
+  @Nullable
+  List<SentryStackFrame> getStackFrames(
+      @Nullable final StackTraceElement[] elements, final int count) {
     List<SentryStackFrame> sentryStackFrames = null;
 
-    if (elements != null && elements.length > 0) {
-      sentryStackFrames = new ArrayList<>();
-      for (StackTraceElement item : elements) {
+    if (elements != null && elements.length > 0 && count > 0) {
+      final int length = Math.min(count, elements.length);
+      sentryStackFrames = new ArrayList<>(length);
+      for (int i = 0; i < length; i++) {
+        final StackTraceElement item = elements[i];
         if (item != null) {
 
           // we don't want to add our own frames
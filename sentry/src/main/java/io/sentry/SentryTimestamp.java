@@ -0,0 +1,62 @@
+package io.sentry;
+
+import java.util.Date;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A point in time with nanosecond resolution, stored as nanoseconds since the epoch.
+ *
+ * <p>Timestamps of a transaction and its spans are derived from {@link System#nanoTime()} relative
+ * to a single wall-clock anchor taken when the transaction starts, see {@link SentryTransaction}.
+ * Durations between them are monotonic and sub-millisecond precise even if the wall clock jumps
+ * meanwhile. The ISO 8601 representation is only computed when the timestamp is serialized.
+ */
+@ApiStatus.Internal
+public final class SentryTimestamp implements Comparable<SentryTimestamp> {
+  private final long epochNanos;
+
+  public SentryTimestamp(final long epochNanos) {
+    this.epochNanos = epochNanos;
+  }
+
+  /**
+   * Returns the nanoseconds since the epoch.
+   *
+   * @return the nanoseconds since the epoch
+   */
+  public long getEpochNanos() {
+    return epochNanos;
+  }
+
+  /**
+   * Converts the timestamp to a Date, truncating it to millisecond precision.
+   *
+   * @return the Date
+   */
+  public @NotNull Date toDate() {
+    return DateUtils.getDateTime(epochNanos / 1_000_000);
+  }
+
+  @Override
+  public int compareTo(final @NotNull SentryTimestamp other) {
+    return Long.compare(epochNanos, other.epochNanos);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return epochNanos == ((SentryTimestamp) o).epochNanos;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (epochNanos ^ (epochNanos >>> 32));
+  }
+
+  @Override
+  public @NotNull String toString() {
+    return DateUtils.getTimestampWithMicros(epochNanos);
+  }
+}
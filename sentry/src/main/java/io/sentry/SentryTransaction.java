@@ -2,10 +2,8 @@ package io.sentry;
 
 import io.sentry.protocol.SentryId;
 import io.sentry.util.Objects;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
@@ -18,13 +16,20 @@ public final class SentryTransaction extends SentryBaseEvent implements ITransac
   private @NotNull String transaction;
 
   /** The moment in time when span was started. */
-  private final @NotNull Date startTimestamp;
+  private final @NotNull SentryTimestamp startTimestamp;
 
   /** The moment in time when span has ended. */
-  private @Nullable Date timestamp;
+  private @Nullable SentryTimestamp timestamp;
+
+  /**
+   * The {@link System#nanoTime()} at the start of the transaction. Timestamps of the transaction
+   * and its spans are computed relative to it and to {@link #startTimestamp}, so the wall clock is
+   * read only once per transaction.
+   */
+  private final transient long startNanoTime;
 
   /** A list of spans within this transaction. Can be empty. */
-  private final @NotNull List<Span> spans = new CopyOnWriteArrayList<>();
+  private final @NotNull SpanStore spans;
   /**
    * A hub this transaction is attached to. Marked as transient to be ignored during JSON
    * serialization.
@@ -35,6 +40,12 @@ public final class SentryTransaction extends SentryBaseEvent implements ITransac
 
   private final @NotNull AtomicBoolean finished = new AtomicBoolean(false);
 
+  /** The samples of the profiler while the transaction is active, if profiled. */
+  private transient volatile @Nullable TransactionProfiler.ActiveProfile activeProfile;
+
+  /** The samples of the profiler once the transaction finished, if profiled. */
+  private transient @Nullable TransactionProfile profile;
+
   /** The {@code type} property is required in JSON payload sent to Sentry. */
   @SuppressWarnings("UnusedVariable")
   private @NotNull final String type = "transaction";
@@ -51,7 +62,7 @@ public final class SentryTransaction extends SentryBaseEvent implements ITransac
   }
 
   SentryTransaction(final @NotNull TransactionContext transactionContext, final @NotNull IHub hub) {
-    this(transactionContext.getName(), transactionContext, hub);
+    this(transactionContext.getName(), transactionContext, hub, hub.getOptions().getMaxSpans());
   }
 
   /**
@@ -64,10 +75,20 @@ public final class SentryTransaction extends SentryBaseEvent implements ITransac
   @TestOnly
   public SentryTransaction(
       final @NotNull String name, final @NotNull SpanContext context, final @NotNull IHub hub) {
+    this(name, context, hub, SentryOptions.DEFAULT_MAX_SPANS);
+  }
+
+  private SentryTransaction(
+      final @NotNull String name,
+      final @NotNull SpanContext context,
+      final @NotNull IHub hub,
+      final int maxSpans) {
     this.transaction = Objects.requireNonNull(name, "name is required");
-    this.startTimestamp = DateUtils.getCurrentDateTime();
+    this.startTimestamp = new SentryTimestamp(System.currentTimeMillis() * 1_000_000);
+    this.startNanoTime = System.nanoTime();
     this.hub = Objects.requireNonNull(hub, "hub is required");
     this.context = Objects.requireNonNull(context, "contexts is required");
+    this.spans = new SpanStore(maxSpans);
   }
 
   /**
@@ -119,9 +140,17 @@ public final class SentryTransaction extends SentryBaseEvent implements ITransac
   private ISpan startChild(final @NotNull SpanId parentSpanId, final @NotNull String operation) {
     Objects.requireNonNull(parentSpanId, "parentSpanId is required");
     Objects.requireNonNull(operation, "operation is required");
+    if (spans.isFull()) {
+      // don't even allocate spans that would be dropped
+      spans.drop();
+      return NoOpSpan.getInstance();
+    }
+    final TransactionProfiler.ActiveProfile activeProfile = this.activeProfile;
+    if (activeProfile != null) {
+      activeProfile.bindCurrentThread();
+    }
     final Span span = new Span(getTraceId(), parentSpanId, this, operation, this.hub);
-    this.spans.add(span);
-    return span;
+    return spans.tryAdd(span) ? span : NoOpSpan.getInstance();
   }
 
   /**
@@ -175,10 +204,25 @@ public final class SentryTransaction extends SentryBaseEvent implements ITransac
     }
 
     this.setStatus(status);
-    this.timestamp = DateUtils.getCurrentDateTime();
+    this.timestamp = now();
+    final TransactionProfiler.ActiveProfile activeProfile = this.activeProfile;
+    if (activeProfile != null) {
+      this.profile = activeProfile.stop(this);
+      this.activeProfile = null;
+    }
     if (this.throwable != null) {
       hub.setSpanContext(this.throwable, this);
     }
+    final int droppedSpans = spans.getDroppedSpans();
+    if (droppedSpans > 0) {
+      hub.getOptions()
+          .getLogger()
+          .log(
+              SentryLevel.WARNING,
+              "Transaction '%s' reached the max spans limit, %d spans have been dropped.",
+              transaction,
+              droppedSpans);
+    }
     this.getContexts().setTrace(this.context);
     this.hub.captureTransaction(this, null);
   }
@@ -241,14 +285,36 @@ public final class SentryTransaction extends SentryBaseEvent implements ITransac
 
   @NotNull
   Date getStartTimestamp() {
-    return startTimestamp;
+    return startTimestamp.toDate();
   }
 
   @Nullable
   Date getTimestamp() {
+    return timestamp != null ? timestamp.toDate() : null;
+  }
+
+  @NotNull
+  SentryTimestamp getStartTime() {
+    return startTimestamp;
+  }
+
+  @Nullable
+  SentryTimestamp getFinishTime() {
     return timestamp;
   }
 
+  /**
+   * Returns the current time on the clock of this transaction: the start timestamp plus the
+   * monotonic time elapsed since the transaction started.
+   *
+   * @return the current time
+   */
+  @NotNull
+  SentryTimestamp now() {
+    return new SentryTimestamp(
+        startTimestamp.getEpochNanos() + (System.nanoTime() - startNanoTime));
+  }
+
   @Override
   @Nullable
   public SpanStatus getStatus() {
@@ -264,15 +330,38 @@ public final class SentryTransaction extends SentryBaseEvent implements ITransac
   /** @return the latest span that is not finished or null if not found. */
   @Override
   public @Nullable Span getLatestActiveSpan() {
-    final List<Span> spans = new ArrayList<>(this.spans);
-    if (!spans.isEmpty()) {
-      for (int i = spans.size() - 1; i >= 0; i--) {
-        if (!spans.get(i).isFinished()) {
-          return spans.get(i);
-        }
-      }
-    }
-    return null;
+    // the store is walked backwards without taking a snapshot
+    return spans.getLatestUnfinished();
+  }
+
+  /**
+   * Returns the number of spans dropped because the transaction reached {@link
+   * SentryOptions#getMaxSpans()}.
+   *
+   * @return the number of dropped spans
+   */
+  int getDroppedSpans() {
+    return spans.getDroppedSpans();
+  }
+
+  @TestOnly
+  @Nullable
+  TransactionProfiler.ActiveProfile getActiveProfile() {
+    return activeProfile;
+  }
+
+  void setActiveProfile(final @Nullable TransactionProfiler.ActiveProfile activeProfile) {
+    this.activeProfile = activeProfile;
+  }
+
+  /**
+   * Returns the samples of the profiler, once the transaction finished.
+   *
+   * @return the profile or null if the transaction wasn't profiled
+   */
+  @Nullable
+  TransactionProfile getProfile() {
+    return profile;
   }
 
   @NotNull
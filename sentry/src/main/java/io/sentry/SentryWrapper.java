@@ -0,0 +1,348 @@
+package io.sentry;
+
+import io.sentry.util.Objects;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Propagates the current {@link IHub} to tasks that run on other threads.
+ *
+ * <p>The Hub is forked when the task is wrapped (at submit time): the task gets its own copy of the
+ * current Scope, sharing the client, with the currently active span pinned to it. While the task
+ * runs, the forked Hub is bound to the executing thread and the thread's previous Hub is restored
+ * afterwards, so breadcrumbs and spans neither get lost nor leak between tasks.
+ *
+ * <p>The {@link CompletableFuture} helpers require Java 8 or Android API 24.
+ */
+public final class SentryWrapper {
+
+  private SentryWrapper() {}
+
+  /**
+   * Wraps a Runnable so it runs with a fork of the current Hub.
+   *
+   * @param runnable the Runnable
+   * @return the wrapped Runnable
+   */
+  public static @NotNull Runnable wrapRunnable(final @NotNull Runnable runnable) {
+    Objects.requireNonNull(runnable, "runnable is required");
+    final IHub hub = forkCurrentHub();
+    return () -> {
+      final IHub previous = bind(hub);
+      try {
+        runnable.run();
+      } finally {
+        restore(previous);
+      }
+    };
+  }
+
+  /**
+   * Wraps a Callable so it runs with a fork of the current Hub.
+   *
+   * @param callable the Callable
+   * @param <T> the result type
+   * @return the wrapped Callable
+   */
+  public static @NotNull <T> Callable<T> wrapCallable(final @NotNull Callable<T> callable) {
+    Objects.requireNonNull(callable, "callable is required");
+    final IHub hub = forkCurrentHub();
+    return () -> {
+      final IHub previous = bind(hub);
+      try {
+        return callable.call();
+      } finally {
+        restore(previous);
+      }
+    };
+  }
+
+  /**
+   * Wraps a Supplier so it runs with a fork of the current Hub.
+   *
+   * @param supplier the Supplier
+   * @param <T> the result type
+   * @return the wrapped Supplier
+   */
+  public static @NotNull <T> Supplier<T> wrapSupplier(final @NotNull Supplier<T> supplier) {
+    Objects.requireNonNull(supplier, "supplier is required");
+    final IHub hub = forkCurrentHub();
+    return () -> {
+      final IHub previous = bind(hub);
+      try {
+        return supplier.get();
+      } finally {
+        restore(previous);
+      }
+    };
+  }
+
+  /**
+   * Wraps an Executor so every task executed by it runs with a fork of the Hub that was current
+   * when the task was submitted. Pass it to the {@code *Async} methods of {@link
+   * CompletableFuture}.
+   *
+   * @param executor the Executor
+   * @return the wrapped Executor
+   */
+  public static @NotNull Executor wrapExecutor(final @NotNull Executor executor) {
+    Objects.requireNonNull(executor, "executor is required");
+    return runnable -> executor.execute(wrapRunnable(runnable));
+  }
+
+  /**
+   * Wraps an ExecutorService so every task submitted to it runs with a fork of the Hub that was
+   * current when the task was submitted.
+   *
+   * @param executorService the ExecutorService
+   * @return the wrapped ExecutorService
+   */
+  public static @NotNull ExecutorService wrapExecutorService(
+      final @NotNull ExecutorService executorService) {
+    Objects.requireNonNull(executorService, "executorService is required");
+    return new HubPropagatingExecutorService<>(executorService);
+  }
+
+  /**
+   * Wraps a ScheduledExecutorService so every task submitted or scheduled on it runs with a fork of
+   * the Hub that was current when the task was submitted. Periodic tasks reuse the same fork on
+   * every run.
+   *
+   * @param executorService the ScheduledExecutorService
+   * @return the wrapped ScheduledExecutorService
+   */
+  public static @NotNull ScheduledExecutorService wrapScheduledExecutorService(
+      final @NotNull ScheduledExecutorService executorService) {
+    Objects.requireNonNull(executorService, "executorService is required");
+    return new HubPropagatingScheduledExecutorService(executorService);
+  }
+
+  /**
+   * Wraps a ForkJoinPool so every task submitted to it through the {@link ExecutorService} API runs
+   * with a fork of the Hub that was current when the task was submitted. Subtasks forked from
+   * within a task inherit the task's Hub only if they are wrapped too.
+   *
+   * @param forkJoinPool the ForkJoinPool
+   * @return the wrapped pool
+   */
+  public static @NotNull ExecutorService wrapForkJoinPool(
+      final @NotNull ForkJoinPool forkJoinPool) {
+    return wrapExecutorService(forkJoinPool);
+  }
+
+  /**
+   * Same as {@link CompletableFuture#supplyAsync(Supplier)} but the supplier runs with a fork of
+   * the current Hub.
+   *
+   * @param supplier the Supplier
+   * @param <T> the result type
+   * @return the CompletableFuture
+   */
+  public static @NotNull <T> CompletableFuture<T> supplyAsync(final @NotNull Supplier<T> supplier) {
+    return CompletableFuture.supplyAsync(wrapSupplier(supplier));
+  }
+
+  /**
+   * Same as {@link CompletableFuture#supplyAsync(Supplier, Executor)} but the supplier runs with a
+   * fork of the current Hub.
+   *
+   * @param supplier the Supplier
+   * @param executor the Executor
+   * @param <T> the result type
+   * @return the CompletableFuture
+   */
+  public static @NotNull <T> CompletableFuture<T> supplyAsync(
+      final @NotNull Supplier<T> supplier, final @NotNull Executor executor) {
+    return CompletableFuture.supplyAsync(wrapSupplier(supplier), executor);
+  }
+
+  /**
+   * Same as {@link CompletableFuture#runAsync(Runnable)} but the runnable runs with a fork of the
+   * current Hub.
+   *
+   * @param runnable the Runnable
+   * @return the CompletableFuture
+   */
+  public static @NotNull CompletableFuture<Void> runAsync(final @NotNull Runnable runnable) {
+    return CompletableFuture.runAsync(wrapRunnable(runnable));
+  }
+
+  /**
+   * Same as {@link CompletableFuture#runAsync(Runnable, Executor)} but the runnable runs with a
+   * fork of the current Hub.
+   *
+   * @param runnable the Runnable
+   * @param executor the Executor
+   * @return the CompletableFuture
+   */
+  public static @NotNull CompletableFuture<Void> runAsync(
+      final @NotNull Runnable runnable, final @NotNull Executor executor) {
+    return CompletableFuture.runAsync(wrapRunnable(runnable), executor);
+  }
+
+  private static @NotNull IHub forkCurrentHub() {
+    return Sentry.getCurrentHub().fork();
+  }
+
+  private static @Nullable IHub bind(final @NotNull IHub hub) {
+    final IHub previous = Sentry.peekCurrentHub();
+    Sentry.setCurrentHub(hub);
+    return previous;
+  }
+
+  private static void restore(final @Nullable IHub previous) {
+    if (previous != null) {
+      Sentry.setCurrentHub(previous);
+    } else {
+      Sentry.removeCurrentHub();
+    }
+  }
+
+  private static @NotNull <T> List<Callable<T>> wrapCallables(
+      final @NotNull Collection<? extends Callable<T>> tasks) {
+    final List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
+    for (final Callable<T> task : tasks) {
+      wrapped.add(wrapCallable(task));
+    }
+    return wrapped;
+  }
+
+  private static class HubPropagatingExecutorService<E extends ExecutorService>
+      implements ExecutorService {
+    protected final @NotNull E delegate;
+
+    HubPropagatingExecutorService(final @NotNull E delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(final @NotNull Runnable command) {
+      delegate.execute(wrapRunnable(command));
+    }
+
+    @Override
+    public @NotNull <T> Future<T> submit(final @NotNull Callable<T> task) {
+      return delegate.submit(wrapCallable(task));
+    }
+
+    @Override
+    public @NotNull <T> Future<T> submit(final @NotNull Runnable task, final T result) {
+      return delegate.submit(wrapRunnable(task), result);
+    }
+
+    @Override
+    public @NotNull Future<?> submit(final @NotNull Runnable task) {
+      return delegate.submit(wrapRunnable(task));
+    }
+
+    @Override
+    public @NotNull <T> List<Future<T>> invokeAll(
+        final @NotNull Collection<? extends Callable<T>> tasks) throws InterruptedException {
+      return delegate.invokeAll(wrapCallables(tasks));
+    }
+
+    @Override
+    public @NotNull <T> List<Future<T>> invokeAll(
+        final @NotNull Collection<? extends Callable<T>> tasks,
+        final long timeout,
+        final @NotNull TimeUnit unit)
+        throws InterruptedException {
+      return delegate.invokeAll(wrapCallables(tasks), timeout, unit);
+    }
+
+    @Override
+    public @NotNull <T> T invokeAny(final @NotNull Collection<? extends Callable<T>> tasks)
+        throws InterruptedException, ExecutionException {
+      return delegate.invokeAny(wrapCallables(tasks));
+    }
+
+    @Override
+    public <T> T invokeAny(
+        final @NotNull Collection<? extends Callable<T>> tasks,
+        final long timeout,
+        final @NotNull TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException {
+      return delegate.invokeAny(wrapCallables(tasks), timeout, unit);
+    }
+
+    @Override
+    public void shutdown() {
+      delegate.shutdown();
+    }
+
+    @Override
+    public @NotNull List<Runnable> shutdownNow() {
+      return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final @NotNull TimeUnit unit)
+        throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+    }
+  }
+
+  private static final class HubPropagatingScheduledExecutorService
+      extends HubPropagatingExecutorService<ScheduledExecutorService>
+      implements ScheduledExecutorService {
+
+    HubPropagatingScheduledExecutorService(final @NotNull ScheduledExecutorService delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public @NotNull ScheduledFuture<?> schedule(
+        final @NotNull Runnable command, final long delay, final @NotNull TimeUnit unit) {
+      return delegate.schedule(wrapRunnable(command), delay, unit);
+    }
+
+    @Override
+    public @NotNull <V> ScheduledFuture<V> schedule(
+        final @NotNull Callable<V> callable, final long delay, final @NotNull TimeUnit unit) {
+      return delegate.schedule(wrapCallable(callable), delay, unit);
+    }
+
+    @Override
+    public @NotNull ScheduledFuture<?> scheduleAtFixedRate(
+        final @NotNull Runnable command,
+        final long initialDelay,
+        final long period,
+        final @NotNull TimeUnit unit) {
+      return delegate.scheduleAtFixedRate(wrapRunnable(command), initialDelay, period, unit);
+    }
+
+    @Override
+    public @NotNull ScheduledFuture<?> scheduleWithFixedDelay(
+        final @NotNull Runnable command,
+        final long initialDelay,
+        final long delay,
+        final @NotNull TimeUnit unit) {
+      return delegate.scheduleWithFixedDelay(wrapRunnable(command), initialDelay, delay, unit);
+    }
+  }
+}
@@ -4,6 +4,7 @@ import io.sentry.protocol.User;
 import java.util.Date;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -37,7 +38,7 @@ public final class Session {
   private @Nullable Boolean init;
 
   /** The session state */
-  private @NotNull State status;
+  private volatile @NotNull State status;
 
   /** The session sequence */
   private @Nullable Long sequence;
@@ -49,7 +50,7 @@ public final class Session {
   private final @Nullable String ipAddress;
 
   /** the user Agent */
-  private @Nullable String userAgent;
+  private volatile @Nullable String userAgent;
 
   /** the environment */
   private final @Nullable String environment;
@@ -60,6 +61,9 @@ public final class Session {
   /** The session lock, ops should be atomic */
   private final @NotNull Object sessionLock = new Object();
 
+  /** When the last update of this session to be sent was made, in millis */
+  private final @NotNull AtomicLong lastSentUpdateMillis = new AtomicLong();
+
   public Session(
       final @NotNull State status,
       final @NotNull Date started,
@@ -245,16 +249,73 @@ public final class Session {
       }
 
       if (sessionHasBeenUpdated) {
-        init = null;
-        timestamp = DateUtils.getCurrentDateTime();
-        if (timestamp != null) {
-          sequence = getSequenceTimestamp(timestamp);
-        }
+        markUpdated();
       }
       return sessionHasBeenUpdated;
     }
   }
 
+  /** Marks the session as updated now, must be called holding the session lock. */
+  private void markUpdated() {
+    init = null;
+    timestamp = DateUtils.getCurrentDateTime();
+    if (timestamp != null) {
+      sequence = getSequenceTimestamp(timestamp);
+    }
+  }
+
+  /**
+   * Counts a captured event on the session. Counting an error takes no lock, the lock is taken only
+   * if the status or the user agent changes.
+   *
+   * <p>Updates are coalesced: only the first error, a crash or a new user agent have to be sent
+   * right away. Other errors are sent at most once per update interval, in between they are only
+   * counted and reported by the next update that is sent.
+   *
+   * @param crashed if the event is a crash
+   * @param errored if the event is an error
+   * @param userAgent the user agent or null
+   * @param updateIntervalMillis the min interval between two updates sent for errors only
+   * @return true if an update of the session should be sent now
+   */
+  @ApiStatus.Internal
+  public boolean recordEvent(
+      final boolean crashed,
+      final boolean errored,
+      final @Nullable String userAgent,
+      final long updateIntervalMillis) {
+    boolean sendNow = false;
+    if (crashed || errored) {
+      sendNow = errorCount.incrementAndGet() == 1;
+    }
+    final boolean statusChanged = crashed && status != State.Crashed;
+    final boolean userAgentChanged = userAgent != null && !userAgent.equals(this.userAgent);
+    if (statusChanged || userAgentChanged) {
+      update(statusChanged ? State.Crashed : null, userAgentChanged ? userAgent : null, false);
+      sendNow = true;
+    } else if (sendNow) {
+      synchronized (sessionLock) {
+        markUpdated();
+      }
+    }
+
+    final long now = System.currentTimeMillis();
+    if (sendNow) {
+      lastSentUpdateMillis.set(now);
+    } else if (crashed || errored) {
+      final long lastSent = lastSentUpdateMillis.get();
+      sendNow =
+          now - lastSent >= updateIntervalMillis
+              && lastSentUpdateMillis.compareAndSet(lastSent, now);
+      if (sendNow) {
+        synchronized (sessionLock) {
+          markUpdated();
+        }
+      }
+    }
+    return sendNow;
+  }
+
   /**
    * Returns a logical clock.
    *
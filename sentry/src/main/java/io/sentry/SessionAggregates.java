@@ -0,0 +1,88 @@
+package io.sentry;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The request outcomes of a release and environment, per minute, sent as a {@link
+ * SentryItemType#Sessions} envelope item.
+ */
+final class SessionAggregates {
+  private final @NotNull Attributes attrs;
+  private final @NotNull List<Aggregate> aggregates = new ArrayList<>();
+
+  SessionAggregates(final @NotNull String release, final @Nullable String environment) {
+    this.attrs = new Attributes(release, environment);
+  }
+
+  void addAggregate(
+      final @NotNull Date started, final long exited, final long errored, final long crashed) {
+    aggregates.add(new Aggregate(started, exited, errored, crashed));
+  }
+
+  @NotNull
+  Attributes getAttrs() {
+    return attrs;
+  }
+
+  @NotNull
+  List<Aggregate> getAggregates() {
+    return aggregates;
+  }
+
+  static final class Attributes {
+    private final @NotNull String release;
+    private final @Nullable String environment;
+
+    Attributes(final @NotNull String release, final @Nullable String environment) {
+      this.release = release;
+      this.environment = environment;
+    }
+
+    @NotNull
+    String getRelease() {
+      return release;
+    }
+
+    @Nullable
+    String getEnvironment() {
+      return environment;
+    }
+  }
+
+  /** The outcomes of the requests started within a minute. */
+  static final class Aggregate {
+    private final @NotNull Date started;
+    private final long exited;
+    private final long errored;
+    private final long crashed;
+
+    Aggregate(
+        final @NotNull Date started, final long exited, final long errored, final long crashed) {
+      this.started = started;
+      this.exited = exited;
+      this.errored = errored;
+      this.crashed = crashed;
+    }
+
+    @NotNull
+    Date getStarted() {
+      return started;
+    }
+
+    long getExited() {
+      return exited;
+    }
+
+    long getErrored() {
+      return errored;
+    }
+
+    long getCrashed() {
+      return crashed;
+    }
+  }
+}
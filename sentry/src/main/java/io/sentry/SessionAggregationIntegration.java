@@ -0,0 +1,84 @@
+package io.sentry;
+
+import io.sentry.util.Objects;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Periodically sends the request outcomes counted when {@link
+ * SentryOptions#isEnableSessionAggregation()} is enabled, as one envelope per flush interval. The
+ * counts of the current minute are sent when the Hub is closed.
+ */
+public final class SessionAggregationIntegration implements Integration, Closeable {
+  private @Nullable IHub hub;
+  private @Nullable SentryOptions options;
+  private @Nullable Timer timer;
+
+  @Override
+  public void register(final @NotNull IHub hub, final @NotNull SentryOptions options) {
+    this.hub = Objects.requireNonNull(hub, "Hub is required");
+    this.options = Objects.requireNonNull(options, "SentryOptions is required");
+
+    if (!options.isEnableSessionAggregation()) {
+      options.getLogger().log(SentryLevel.DEBUG, "SessionAggregationIntegration is disabled.");
+      return;
+    }
+
+    final long interval = options.getSessionAggregationFlushIntervalMillis();
+    final Timer timer = new Timer("SentrySessionAggregation", true);
+    timer.schedule(
+        new TimerTask() {
+          @Override
+          public void run() {
+            flush(false);
+          }
+        },
+        interval,
+        interval);
+    this.timer = timer;
+    options.getLogger().log(SentryLevel.DEBUG, "SessionAggregationIntegration installed.");
+  }
+
+  /**
+   * Sends the counts of the minutes that are over.
+   *
+   * @param force if the counts of the current minute should be sent too
+   */
+  void flush(final boolean force) {
+    final IHub hub = this.hub;
+    final SentryOptions options = this.options;
+    if (hub == null || options == null) {
+      return;
+    }
+    final List<SessionAggregates> aggregates = options.getSessionAggregator().flush(force);
+    if (aggregates.isEmpty()) {
+      return;
+    }
+    try {
+      final List<SentryEnvelopeItem> items = new ArrayList<>(aggregates.size());
+      for (final SessionAggregates sessionAggregates : aggregates) {
+        items.add(
+            SentryEnvelopeItem.fromSessionAggregates(options.getSerializer(), sessionAggregates));
+      }
+      hub.captureEnvelope(new SentryEnvelope(null, options.getSdkVersion(), items));
+    } catch (Exception e) {
+      options.getLogger().log(SentryLevel.ERROR, "Failed to send session aggregates.", e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    final Timer timer = this.timer;
+    if (timer != null) {
+      timer.cancel();
+      this.timer = null;
+      flush(true);
+    }
+  }
+}
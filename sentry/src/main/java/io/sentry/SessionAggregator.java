@@ -0,0 +1,200 @@
+package io.sentry;
+
+import io.sentry.transport.CurrentDateProvider;
+import io.sentry.transport.ICurrentDateProvider;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+
+/**
+ * Counts the outcomes of requests per minute, release and environment, so servers can track
+ * sessions without sending an envelope per request. {@link SessionAggregationIntegration} flushes
+ * the counts periodically.
+ *
+ * <p>Counts are kept in per thread stripes padded to a cache line, so request threads don't contend
+ * on the same counter. A flushed bucket is closed and waits for the records in flight on it, a
+ * record that finds its bucket closed counts in a new bucket, so no count is lost or counted twice
+ * at minute boundaries.
+ */
+final class SessionAggregator {
+  /** The outcome of a request, in increasing order of severity. */
+  enum Outcome {
+    EXITED,
+    ERRORED,
+    CRASHED
+  }
+
+  private static final long BUCKET_MILLIS = 60 * 1000;
+  private static final int STRIPES = 8;
+  /** Longs per stripe, a stripe uses a whole 64 bytes cache line. */
+  private static final int STRIPE_SIZE = 8;
+  /** The slot of a stripe that counts the records in flight, after the outcomes. */
+  private static final int IN_FLIGHT = Outcome.values().length;
+
+  private final @NotNull ConcurrentMap<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+
+  /** The bucket of the last record, to skip the map lookup for most of the requests. */
+  private volatile @Nullable Bucket current;
+
+  private final @NotNull ICurrentDateProvider dateProvider;
+
+  SessionAggregator() {
+    this(CurrentDateProvider.getInstance());
+  }
+
+  @TestOnly
+  SessionAggregator(final @NotNull ICurrentDateProvider dateProvider) {
+    this.dateProvider = dateProvider;
+  }
+
+  /**
+   * Counts the outcome of a request.
+   *
+   * @param outcome the outcome
+   * @param release the release
+   * @param environment the environment
+   */
+  void record(
+      final @NotNull Outcome outcome,
+      final @NotNull String release,
+      final @Nullable String environment) {
+    final long started = dateProvider.getCurrentTimeMillis() / BUCKET_MILLIS * BUCKET_MILLIS;
+    final int stripe = ((int) Thread.currentThread().getId() & (STRIPES - 1)) * STRIPE_SIZE;
+    Bucket bucket = current;
+    while (true) {
+      if (bucket == null || !bucket.key.matches(started, release, environment)) {
+        bucket = getOrCreate(new BucketKey(started, release, environment));
+        current = bucket;
+      }
+      bucket.counts.incrementAndGet(stripe + IN_FLIGHT);
+      if (!bucket.closed) {
+        break;
+      }
+      // the bucket was flushed meanwhile, count in the bucket that replaces it
+      bucket.counts.decrementAndGet(stripe + IN_FLIGHT);
+      bucket = getOrCreate(bucket.key);
+      current = bucket;
+    }
+    bucket.counts.incrementAndGet(stripe + outcome.ordinal());
+    bucket.counts.decrementAndGet(stripe + IN_FLIGHT);
+  }
+
+  private @NotNull Bucket getOrCreate(final @NotNull BucketKey key) {
+    final Bucket bucket = buckets.get(key);
+    if (bucket != null) {
+      return bucket;
+    }
+    final Bucket created = new Bucket(key);
+    final Bucket existing = buckets.putIfAbsent(key, created);
+    return existing != null ? existing : created;
+  }
+
+  /**
+   * Takes the counts of the minutes that are over, or of all minutes if forced.
+   *
+   * @param force if the counts of the current minute should be taken too, when closing
+   * @return the aggregates per release and environment
+   */
+  synchronized @NotNull List<SessionAggregates> flush(final boolean force) {
+    final long currentStarted = dateProvider.getCurrentTimeMillis() / BUCKET_MILLIS * BUCKET_MILLIS;
+    final Map<BucketKey, SessionAggregates> aggregates = new LinkedHashMap<>();
+    final Iterator<Map.Entry<BucketKey, Bucket>> iterator = buckets.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Bucket bucket = iterator.next().getValue();
+      if (!force && bucket.key.started >= currentStarted) {
+        // requests may still be counted in this minute
+        continue;
+      }
+      iterator.remove();
+      bucket.close();
+
+      final BucketKey attrsKey = new BucketKey(0, bucket.key.release, bucket.key.environment);
+      SessionAggregates sessionAggregates = aggregates.get(attrsKey);
+      if (sessionAggregates == null) {
+        sessionAggregates = new SessionAggregates(bucket.key.release, bucket.key.environment);
+        aggregates.put(attrsKey, sessionAggregates);
+      }
+      sessionAggregates.addAggregate(
+          new Date(bucket.key.started),
+          bucket.sum(Outcome.EXITED),
+          bucket.sum(Outcome.ERRORED),
+          bucket.sum(Outcome.CRASHED));
+    }
+    return new ArrayList<>(aggregates.values());
+  }
+
+  private static final class Bucket {
+    private final @NotNull BucketKey key;
+    private final @NotNull AtomicLongArray counts = new AtomicLongArray(STRIPES * STRIPE_SIZE);
+    private volatile boolean closed;
+
+    Bucket(final @NotNull BucketKey key) {
+      this.key = key;
+    }
+
+    /** Closes the bucket and waits for the records in flight, so the counts are final. */
+    void close() {
+      closed = true;
+      for (int stripe = 0; stripe < STRIPES; stripe++) {
+        while (counts.get(stripe * STRIPE_SIZE + IN_FLIGHT) != 0) {
+          Thread.yield();
+        }
+      }
+    }
+
+    long sum(final @NotNull Outcome outcome) {
+      long sum = 0;
+      for (int stripe = 0; stripe < STRIPES; stripe++) {
+        sum += counts.get(stripe * STRIPE_SIZE + outcome.ordinal());
+      }
+      return sum;
+    }
+  }
+
+  private static final class BucketKey {
+    private final long started;
+    private final @NotNull String release;
+    private final @Nullable String environment;
+
+    BucketKey(
+        final long started, final @NotNull String release, final @Nullable String environment) {
+      this.started = started;
+      this.release = release;
+      this.environment = environment;
+    }
+
+    boolean matches(
+        final long started, final @NotNull String release, final @Nullable String environment) {
+      return this.started == started
+          && this.release.equals(release)
+          && (this.environment == null
+              ? environment == null
+              : this.environment.equals(environment));
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object o) {
+      if (this == o) return true;
+      if (!(o instanceof BucketKey)) return false;
+      final BucketKey other = (BucketKey) o;
+      return other.matches(started, release, environment);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = (int) (started ^ (started >>> 32));
+      result = 31 * result + release.hashCode();
+      result = 31 * result + (environment != null ? environment.hashCode() : 0);
+      return result;
+    }
+  }
+}
@@ -10,9 +10,9 @@ import org.jetbrains.annotations.Nullable;
 public final class Span extends SpanContext implements ISpan {
 
   /** The moment in time when span was started. */
-  private final @NotNull Date startTimestamp;
+  private final @NotNull SentryTimestamp startTimestamp;
   /** The moment in time when span has ended. */
-  private @Nullable Date timestamp;
+  private @Nullable SentryTimestamp timestamp;
 
   /**
    * A transaction this span is attached to. Marked as transient to be ignored during JSON
@@ -35,15 +35,25 @@ public final class Span extends SpanContext implements ISpan {
       final @NotNull IHub hub) {
     super(traceId, new SpanId(), operation, parentSpanId, transaction.isSampled());
     this.transaction = Objects.requireNonNull(transaction, "transaction is required");
-    this.startTimestamp = DateUtils.getCurrentDateTime();
+    this.startTimestamp = transaction.now();
     this.hub = Objects.requireNonNull(hub, "hub is required");
   }
 
   public @NotNull Date getStartTimestamp() {
-    return startTimestamp;
+    return startTimestamp.toDate();
   }
 
   public @Nullable Date getTimestamp() {
+    return timestamp != null ? timestamp.toDate() : null;
+  }
+
+  @NotNull
+  SentryTimestamp getStartTime() {
+    return startTimestamp;
+  }
+
+  @Nullable
+  SentryTimestamp getFinishTime() {
     return timestamp;
   }
 
@@ -76,7 +86,7 @@ public final class Span extends SpanContext implements ISpan {
     }
 
     this.status = status;
-    timestamp = DateUtils.getCurrentDateTime();
+    timestamp = transaction.now();
     if (throwable != null) {
       hub.setSpanContext(throwable, this);
     }
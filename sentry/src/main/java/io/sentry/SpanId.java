@@ -1,24 +1,28 @@
 package io.sentry;
 
 import io.sentry.util.Objects;
+import io.sentry.util.SentryRandom;
+import io.sentry.util.StringUtils;
 import java.util.UUID;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public final class SpanId {
   public static final SpanId EMPTY_ID = new SpanId(new UUID(0, 0).toString());
 
-  private final @NotNull String value;
+  /** The random id of a generated SpanId, unused if the SpanId was created from a String. */
+  private final long id;
+
+  /** The hex representation, computed on first use for generated SpanIds. */
+  private @Nullable String value;
 
   public SpanId(final @NotNull String value) {
     this.value = Objects.requireNonNull(value, "value is required");
+    this.id = 0;
   }
 
   public SpanId() {
-    this(UUID.randomUUID());
-  }
-
-  private SpanId(final @NotNull UUID uuid) {
-    this(uuid.toString().replace("-", "").substring(0, 16));
+    this.id = SentryRandom.nextLong();
   }
 
   @Override
@@ -26,16 +30,24 @@ public final class SpanId {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     SpanId spanId = (SpanId) o;
-    return value.equals(spanId.value);
+    return toString().equals(spanId.toString());
   }
 
   @Override
   public int hashCode() {
-    return value.hashCode();
+    return toString().hashCode();
   }
 
   @Override
   public String toString() {
-    return this.value;
+    // racy single-check: threads may compute the same String concurrently, which is harmless
+    String value = this.value;
+    if (value == null) {
+      final char[] chars = new char[16];
+      StringUtils.writeHex(id, chars, 0);
+      value = new String(chars);
+      this.value = value;
+    }
+    return value;
   }
 }
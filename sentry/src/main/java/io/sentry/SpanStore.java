@@ -0,0 +1,166 @@
+package io.sentry;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Append-only list of the spans of a transaction.
+ *
+ * <p>Spans are kept in fixed size chunks, so appending never copies the spans that were added
+ * before, unlike {@link java.util.concurrent.CopyOnWriteArrayList} which copies the whole array on
+ * every add. Appends are serialized by a lock held only for a couple of array stores, reads don't
+ * lock and see every span added before the size they read. Removing is only supported in bulk, for
+ * pruning the spans of a finished transaction.
+ */
+final class SpanStore extends AbstractList<Span> implements RandomAccess {
+  private static final int CHUNK_SHIFT = 6;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private final int maxSpans;
+
+  private volatile @NotNull Span[][] chunks = new Span[1][];
+
+  private volatile int size;
+
+  private int droppedSpans;
+
+  /** Creates a store without limit, used by the deserializer. */
+  SpanStore() {
+    this(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a store that keeps at most {@code maxSpans} spans.
+   *
+   * @param maxSpans the max number of spans
+   */
+  SpanStore(final int maxSpans) {
+    this.maxSpans = maxSpans;
+  }
+
+  /**
+   * Checks if the store reached its limit, so a span can be dropped before it is even created.
+   *
+   * @return true if spans added from now on are dropped
+   */
+  boolean isFull() {
+    return size >= maxSpans;
+  }
+
+  /**
+   * Adds the span unless the store reached its limit, in which case the span is counted as dropped.
+   *
+   * @param span the span
+   * @return true if the span was added
+   */
+  synchronized boolean tryAdd(final @NotNull Span span) {
+    if (size >= maxSpans) {
+      droppedSpans++;
+      return false;
+    }
+    append(span);
+    return true;
+  }
+
+  /** Counts a span that was dropped without trying to add it because the store is full. */
+  synchronized void drop() {
+    droppedSpans++;
+  }
+
+  /**
+   * Returns the number of spans dropped because the store reached its limit.
+   *
+   * @return the number of dropped spans
+   */
+  synchronized int getDroppedSpans() {
+    return droppedSpans;
+  }
+
+  @Override
+  public synchronized boolean add(final @NotNull Span span) {
+    append(span);
+    return true;
+  }
+
+  /**
+   * Removes the given spans, keeping the order of the remaining ones. Meant to run once the
+   * transaction is finished, readers running concurrently may see the spans shift. The spans are
+   * compacted in place and the slots past the new size are left as they are, so a reader that read
+   * the previous size still finds a span in every slot below it, never null.
+   *
+   * @param spans the spans to remove
+   * @return true if any span was removed
+   */
+  @Override
+  public synchronized boolean removeAll(final @NotNull Collection<?> spans) {
+    final Span[][] current = chunks;
+    final int size = this.size;
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      final Span span = current[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+      if (!spans.contains(span)) {
+        current[kept >>> CHUNK_SHIFT][kept & CHUNK_MASK] = span;
+        kept++;
+      }
+    }
+    this.size = kept;
+    return kept != size;
+  }
+
+  @Override
+  public @NotNull Span get(final int index) {
+    // read the size before the chunks, so the chunks are at least as recent as the size
+    final int size = this.size;
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+  }
+
+  /**
+   * Returns the latest span that is not finished, reading the size once so it is safe to call while
+   * spans are removed concurrently.
+   *
+   * @return the span or null if every span is finished
+   */
+  @Nullable
+  Span getLatestUnfinished() {
+    // read the size before the chunks, so the chunks are at least as recent as the size
+    final int size = this.size;
+    final Span[][] current = chunks;
+    for (int i = size - 1; i >= 0; i--) {
+      final Span span = current[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+      if (!span.isFinished()) {
+        return span;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  private void append(final @NotNull Span span) {
+    final int index = size;
+    final int chunk = index >>> CHUNK_SHIFT;
+    Span[][] current = chunks;
+    if (chunk == current.length) {
+      // only the references to the chunks are copied, the spans stay where they are
+      current = Arrays.copyOf(current, current.length * 2);
+    }
+    if (current[chunk] == null) {
+      current[chunk] = new Span[CHUNK_SIZE];
+    }
+    current[chunk][index & CHUNK_MASK] = span;
+    // publish the chunks before the size
+    chunks = current;
+    size = index + 1;
+  }
+}
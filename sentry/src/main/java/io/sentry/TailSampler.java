@@ -0,0 +1,121 @@
+package io.sentry;
+
+import io.sentry.util.Objects;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Decides once a transaction has finished if it should be sent even though the {@link
+ * TracesSampler} dropped it at start, because it failed or was slower than most of the recent
+ * transactions with the same name.
+ *
+ * <p>Durations of recent transactions are kept in fixed size windows per transaction name and at
+ * most {@link #MAX_NAMES} names are tracked, the least recently finished name is evicted first, so
+ * memory stays bounded regardless of the traffic.
+ */
+final class TailSampler {
+  /** Number of recent durations kept per transaction name. */
+  static final int WINDOW_SIZE = 100;
+
+  /** Number of durations a window needs before slow transactions are detected. */
+  static final int MIN_DURATIONS = 20;
+
+  /** Max number of transaction names tracked. */
+  static final int MAX_NAMES = 200;
+
+  private final @NotNull SentryOptions options;
+
+  private final @NotNull Map<String, long[]> windows =
+      new LinkedHashMap<String, long[]>(16, 0.75f, true) {
+        private static final long serialVersionUID = 6476227457376541574L;
+
+        @Override
+        protected boolean removeEldestEntry(final @NotNull Map.Entry<String, long[]> eldest) {
+          return size() > MAX_NAMES;
+        }
+      };
+
+  /** Durations are copied and sorted here to find the percentile, guarded by {@link #windows}. */
+  private final @NotNull long[] sorted = new long[WINDOW_SIZE];
+
+  TailSampler(final @NotNull SentryOptions options) {
+    this.options = Objects.requireNonNull(options, "options are required");
+  }
+
+  /**
+   * Records the duration of the finished transaction and checks if it failed or is slow.
+   *
+   * @param transaction the finished transaction
+   * @return true if the transaction should be kept
+   */
+  boolean sample(final @NotNull ITransaction transaction) {
+    final boolean failed = isFailed(transaction);
+    boolean slow = false;
+    if (transaction instanceof SentryTransaction) {
+      final SentryTransaction sentryTransaction = (SentryTransaction) transaction;
+      final SentryTimestamp finishTime = sentryTransaction.getFinishTime();
+      if (finishTime != null) {
+        final long duration =
+            finishTime.getEpochNanos() - sentryTransaction.getStartTime().getEpochNanos();
+        slow = record(transaction.getName(), duration);
+      }
+    }
+    return failed || slow;
+  }
+
+  private static boolean isFailed(final @NotNull ITransaction transaction) {
+    if (transaction.getThrowable() != null) {
+      return true;
+    }
+    final SpanStatus status = transaction.getStatus();
+    return status != null && status != SpanStatus.OK && status != SpanStatus.CANCELLED;
+  }
+
+  /**
+   * Adds the duration to the window of the transaction name.
+   *
+   * @param name the transaction name
+   * @param duration the duration in nanoseconds
+   * @return true if the duration is above the percentile of the durations recorded before
+   */
+  boolean record(final @NotNull String name, final long duration) {
+    synchronized (windows) {
+      long[] window = windows.get(name);
+      if (window == null) {
+        // the last slot holds the number of durations ever recorded
+        window = new long[WINDOW_SIZE + 1];
+        windows.put(name, window);
+      }
+      final long recorded = window[WINDOW_SIZE];
+      final int count = (int) Math.min(recorded, WINDOW_SIZE);
+
+      boolean slow = false;
+      if (count >= MIN_DURATIONS) {
+        System.arraycopy(window, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        final int index = (int) Math.ceil(options.getTailSamplingPercentile() * count) - 1;
+        slow = duration > sorted[Math.max(0, Math.min(index, count - 1))];
+      }
+
+      window[(int) (recorded % WINDOW_SIZE)] = duration;
+      window[WINDOW_SIZE] = recorded + 1;
+      return slow;
+    }
+  }
+
+  /**
+   * Returns the number of durations kept for the transaction name.
+   *
+   * @param name the transaction name
+   * @return the number of durations or 0 if the name is not tracked
+   */
+  int getDurationCount(final @Nullable String name) {
+    synchronized (windows) {
+      final long[] window = windows.get(name);
+      return window == null ? 0 : (int) Math.min(window[WINDOW_SIZE], WINDOW_SIZE);
+    }
+  }
+}
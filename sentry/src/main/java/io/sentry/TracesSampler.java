@@ -32,8 +32,10 @@ final class TracesSampler {
     if (samplingContext.getTransactionContext().getParentSampled() != null) {
       return samplingContext.getTransactionContext().getParentSampled();
     }
-    if (options.getTracesSampleRate() != null) {
-      return sample(options.getTracesSampleRate());
+    // read once, the traces sample rate can be changed at runtime
+    final Double tracesSampleRate = options.getTracesSampleRate();
+    if (tracesSampleRate != null) {
+      return sample(tracesSampleRate);
     }
     return false;
   }
@@ -0,0 +1,100 @@
+package io.sentry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Lock-free histogram of the durations and statuses of the transactions with the same name and
+ * operation.
+ *
+ * <p>Buckets follow the HDR histogram layout: durations are recorded in microseconds, every power
+ * of two range is split in {@link #SUB_BUCKET_COUNT} linear buckets, so the relative error stays
+ * below 1/{@link #SUB_BUCKET_COUNT} and 464 buckets cover durations from 1 microsecond to more than
+ * an hour. Longer durations are recorded in the last bucket.
+ */
+final class TransactionHistogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_MAGNITUDE = 32;
+  static final long MAX_MICROS = (1L << MAX_MAGNITUDE) - 1;
+  static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+  private static final @NotNull SpanStatus[] STATUSES = SpanStatus.values();
+
+  private final @NotNull AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final @NotNull AtomicLongArray statuses = new AtomicLongArray(STATUSES.length);
+  private final @NotNull AtomicLong sumMicros = new AtomicLong();
+
+  /**
+   * Records a finished transaction.
+   *
+   * @param durationMicros the duration in microseconds
+   * @param status the status or null if not set
+   */
+  void record(final long durationMicros, final @Nullable SpanStatus status) {
+    buckets.incrementAndGet(bucketIndex(durationMicros));
+    sumMicros.addAndGet(Math.max(0, durationMicros));
+    if (status != null) {
+      statuses.incrementAndGet(status.ordinal());
+    }
+  }
+
+  /**
+   * Moves the recorded values to a snapshot and resets the histogram. Values recorded concurrently
+   * end up either in this snapshot or in the next one.
+   *
+   * @param transaction the transaction name
+   * @param operation the transaction operation
+   * @return the snapshot or null if nothing was recorded since the last one
+   */
+  @Nullable
+  TransactionMetrics.Histogram snapshot(
+      final @NotNull String transaction, final @NotNull String operation) {
+    final List<long[]> nonEmptyBuckets = new ArrayList<>();
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      if (buckets.get(i) != 0) {
+        final long bucketCount = buckets.getAndSet(i, 0);
+        nonEmptyBuckets.add(new long[] {lowerBound(i), bucketCount});
+        count += bucketCount;
+      }
+    }
+    if (count == 0) {
+      return null;
+    }
+    final Map<String, Long> statusCounts = new HashMap<>();
+    for (int i = 0; i < STATUSES.length; i++) {
+      if (statuses.get(i) != 0) {
+        statusCounts.put(STATUSES[i].name().toLowerCase(Locale.ROOT), statuses.getAndSet(i, 0));
+      }
+    }
+    return new TransactionMetrics.Histogram(
+        transaction, operation, count, sumMicros.getAndSet(0), nonEmptyBuckets, statusCounts);
+  }
+
+  static int bucketIndex(long micros) {
+    if (micros < SUB_BUCKET_COUNT) {
+      return (int) Math.max(0, micros);
+    }
+    if (micros > MAX_MICROS) {
+      micros = MAX_MICROS;
+    }
+    final int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKET_COUNT + (int) ((micros >>> shift) & (SUB_BUCKET_COUNT - 1));
+  }
+
+  static long lowerBound(final int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int shift = index / SUB_BUCKET_COUNT - 1;
+    return (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+  }
+}
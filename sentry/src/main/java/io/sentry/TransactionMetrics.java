@@ -0,0 +1,101 @@
+package io.sentry;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The transaction histograms recorded during a flush interval, sent as a single {@link
+ * SentryItemType#TransactionMetrics} envelope item.
+ */
+final class TransactionMetrics {
+  /** The start of the interval. */
+  private final @NotNull Date startTimestamp;
+
+  /** The end of the interval. */
+  private final @NotNull Date timestamp;
+
+  private final @NotNull List<Histogram> histograms;
+
+  TransactionMetrics(
+      final @NotNull Date startTimestamp,
+      final @NotNull Date timestamp,
+      final @NotNull List<Histogram> histograms) {
+    this.startTimestamp = startTimestamp;
+    this.timestamp = timestamp;
+    this.histograms = histograms;
+  }
+
+  @NotNull
+  Date getStartTimestamp() {
+    return startTimestamp;
+  }
+
+  @NotNull
+  Date getTimestamp() {
+    return timestamp;
+  }
+
+  @NotNull
+  List<Histogram> getHistograms() {
+    return histograms;
+  }
+
+  /** The durations and statuses of the transactions with the same name and operation. */
+  static final class Histogram {
+    private final @NotNull String transaction;
+    private final @NotNull String op;
+    private final long count;
+    private final long sumMicros;
+
+    /** Pairs of the lower bound of a bucket, in microseconds, and its count. */
+    private final @NotNull List<long[]> buckets;
+
+    /** Number of transactions per status, transactions without status are not counted. */
+    private final @NotNull Map<String, Long> statuses;
+
+    Histogram(
+        final @NotNull String transaction,
+        final @NotNull String op,
+        final long count,
+        final long sumMicros,
+        final @NotNull List<long[]> buckets,
+        final @NotNull Map<String, Long> statuses) {
+      this.transaction = transaction;
+      this.op = op;
+      this.count = count;
+      this.sumMicros = sumMicros;
+      this.buckets = buckets;
+      this.statuses = statuses;
+    }
+
+    @NotNull
+    String getTransaction() {
+      return transaction;
+    }
+
+    @NotNull
+    String getOp() {
+      return op;
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    long getSumMicros() {
+      return sumMicros;
+    }
+
+    @NotNull
+    List<long[]> getBuckets() {
+      return buckets;
+    }
+
+    @NotNull
+    Map<String, Long> getStatuses() {
+      return statuses;
+    }
+  }
+}
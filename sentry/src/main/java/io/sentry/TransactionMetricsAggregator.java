@@ -0,0 +1,122 @@
+package io.sentry;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Records the duration and status of every finished transaction, sampled or not, into a {@link
+ * TransactionHistogram} per transaction name and operation. {@link TransactionMetricsIntegration}
+ * flushes the histograms periodically.
+ *
+ * <p>At most {@link #MAX_HISTOGRAMS} name and operation pairs are tracked per flush interval,
+ * transactions of other pairs are counted as dropped.
+ */
+final class TransactionMetricsAggregator {
+  static final int MAX_HISTOGRAMS = 500;
+
+  private final @NotNull ConcurrentMap<Key, TransactionHistogram> histograms =
+      new ConcurrentHashMap<>();
+
+  private final @NotNull AtomicLong droppedTransactions = new AtomicLong();
+
+  private @NotNull Date intervalStart = DateUtils.getCurrentDateTime();
+
+  /**
+   * Records the finished transaction.
+   *
+   * @param transaction the transaction
+   */
+  void record(final @NotNull ITransaction transaction) {
+    if (!(transaction instanceof SentryTransaction)) {
+      return;
+    }
+    final SentryTransaction sentryTransaction = (SentryTransaction) transaction;
+    final SentryTimestamp finishTime = sentryTransaction.getFinishTime();
+    if (finishTime == null) {
+      return;
+    }
+    final long durationNanos =
+        finishTime.getEpochNanos() - sentryTransaction.getStartTime().getEpochNanos();
+
+    final Key key = new Key(transaction.getName(), transaction.getOperation());
+    TransactionHistogram histogram = histograms.get(key);
+    if (histogram == null) {
+      if (histograms.size() >= MAX_HISTOGRAMS) {
+        droppedTransactions.incrementAndGet();
+        return;
+      }
+      final TransactionHistogram created = new TransactionHistogram();
+      histogram = histograms.putIfAbsent(key, created);
+      if (histogram == null) {
+        histogram = created;
+      }
+    }
+    histogram.record(TimeUnit.NANOSECONDS.toMicros(durationNanos), transaction.getStatus());
+  }
+
+  /**
+   * Takes the histograms recorded since the last flush. Histograms that didn't record anything are
+   * removed, so names that are not used anymore don't count towards the limit.
+   *
+   * @return the metrics or null if no transaction finished since the last flush
+   */
+  synchronized @Nullable TransactionMetrics flush() {
+    final Date start = intervalStart;
+    final Date end = DateUtils.getCurrentDateTime();
+    intervalStart = end;
+
+    final List<TransactionMetrics.Histogram> snapshots = new ArrayList<>();
+    for (final Map.Entry<Key, TransactionHistogram> entry : histograms.entrySet()) {
+      final Key key = entry.getKey();
+      final TransactionMetrics.Histogram snapshot =
+          entry.getValue().snapshot(key.transaction, key.operation);
+      if (snapshot == null) {
+        histograms.remove(key, entry.getValue());
+      } else {
+        snapshots.add(snapshot);
+      }
+    }
+    return snapshots.isEmpty() ? null : new TransactionMetrics(start, end, snapshots);
+  }
+
+  /**
+   * Returns and resets the number of transactions not recorded because too many histograms were
+   * tracked.
+   *
+   * @return the number of dropped transactions since the last call
+   */
+  long takeDroppedTransactions() {
+    return droppedTransactions.getAndSet(0);
+  }
+
+  private static final class Key {
+    private final @NotNull String transaction;
+    private final @NotNull String operation;
+
+    Key(final @NotNull String transaction, final @NotNull String operation) {
+      this.transaction = transaction;
+      this.operation = operation;
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      final Key key = (Key) o;
+      return transaction.equals(key.transaction) && operation.equals(key.operation);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * transaction.hashCode() + operation.hashCode();
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package io.sentry;
+
+import io.sentry.util.Objects;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Timer;
+import java.util.TimerTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Periodically sends the transaction histograms recorded when {@link
+ * SentryOptions#isEnableTransactionMetrics()} is enabled, as one envelope item per flush interval.
+ * Remaining histograms are sent when the Hub is closed.
+ */
+public final class TransactionMetricsIntegration implements Integration, Closeable {
+  private @Nullable IHub hub;
+  private @Nullable SentryOptions options;
+  private @Nullable Timer timer;
+
+  @Override
+  public void register(final @NotNull IHub hub, final @NotNull SentryOptions options) {
+    this.hub = Objects.requireNonNull(hub, "Hub is required");
+    this.options = Objects.requireNonNull(options, "SentryOptions is required");
+
+    if (!options.isEnableTransactionMetrics()) {
+      options.getLogger().log(SentryLevel.DEBUG, "TransactionMetricsIntegration is disabled.");
+      return;
+    }
+
+    final long interval = options.getTransactionMetricsFlushIntervalMillis();
+    final Timer timer = new Timer("SentryTransactionMetrics", true);
+    timer.schedule(
+        new TimerTask() {
+          @Override
+          public void run() {
+            flush();
+          }
+        },
+        interval,
+        interval);
+    this.timer = timer;
+    options.getLogger().log(SentryLevel.DEBUG, "TransactionMetricsIntegration installed.");
+  }
+
+  /** Sends the histograms recorded since the last flush, if any. */
+  void flush() {
+    final IHub hub = this.hub;
+    final SentryOptions options = this.options;
+    if (hub == null || options == null) {
+      return;
+    }
+    final TransactionMetricsAggregator aggregator = options.getTransactionMetricsAggregator();
+    final long droppedTransactions = aggregator.takeDroppedTransactions();
+    if (droppedTransactions > 0) {
+      options
+          .getLogger()
+          .log(
+              SentryLevel.WARNING,
+              "%d transactions were not aggregated, max of %d histograms has been reached.",
+              droppedTransactions,
+              TransactionMetricsAggregator.MAX_HISTOGRAMS);
+    }
+    final TransactionMetrics metrics = aggregator.flush();
+    if (metrics == null) {
+      return;
+    }
+    try {
+      final SentryEnvelopeItem item =
+          SentryEnvelopeItem.fromTransactionMetrics(options.getSerializer(), metrics);
+      hub.captureEnvelope(new SentryEnvelope(null, options.getSdkVersion(), item));
+    } catch (Exception e) {
+      options.getLogger().log(SentryLevel.ERROR, "Failed to send transaction metrics.", e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    final Timer timer = this.timer;
+    if (timer != null) {
+      timer.cancel();
+      this.timer = null;
+      flush();
+    }
+  }
+}
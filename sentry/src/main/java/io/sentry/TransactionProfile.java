@@ -0,0 +1,84 @@
+package io.sentry;
+
+import io.sentry.protocol.SentryId;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The stack samples taken during a transaction by the {@link TransactionProfiler}, sent as a JSON
+ * attachment named {@link #ATTACHMENT_FILENAME} along with the transaction.
+ */
+final class TransactionProfile {
+  static final String ATTACHMENT_FILENAME = "profile.json";
+
+  /** The event id of the transaction. */
+  private final @NotNull SentryId transactionId;
+
+  private final @NotNull SentryId traceId;
+
+  /** The name of the transaction. */
+  private final @NotNull String transaction;
+
+  /** The interval between two samples, longer when the sampler backed off. */
+  private final long intervalMillis;
+
+  private final long sampleCount;
+
+  /** If frames, samples or the end of the transaction weren't sampled due to the caps. */
+  private final boolean truncated;
+
+  /**
+   * The number of samples per stack, in the folded format: the frames from the outermost as {@code
+   * class.method}, separated by ';'.
+   */
+  private final @NotNull Map<String, Long> stacks;
+
+  TransactionProfile(
+      final @NotNull SentryId transactionId,
+      final @NotNull SentryId traceId,
+      final @NotNull String transaction,
+      final long intervalMillis,
+      final long sampleCount,
+      final boolean truncated,
+      final @NotNull Map<String, Long> stacks) {
+    this.transactionId = transactionId;
+    this.traceId = traceId;
+    this.transaction = transaction;
+    this.intervalMillis = intervalMillis;
+    this.sampleCount = sampleCount;
+    this.truncated = truncated;
+    this.stacks = stacks;
+  }
+
+  @NotNull
+  SentryId getTransactionId() {
+    return transactionId;
+  }
+
+  @NotNull
+  SentryId getTraceId() {
+    return traceId;
+  }
+
+  @NotNull
+  String getTransaction() {
+    return transaction;
+  }
+
+  long getIntervalMillis() {
+    return intervalMillis;
+  }
+
+  long getSampleCount() {
+    return sampleCount;
+  }
+
+  boolean isTruncated() {
+    return truncated;
+  }
+
+  @NotNull
+  Map<String, Long> getStacks() {
+    return stacks;
+  }
+}
@@ -0,0 +1,355 @@
+package io.sentry;
+
+import io.sentry.util.Objects;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+
+/**
+ * Samples the stacks of the threads bound to the active sampled transactions, when {@link
+ * SentryOptions#isEnableProfiling()} is enabled. A transaction is bound to the thread that started
+ * it and to the threads that start its spans. The samples of a transaction are aggregated in a trie
+ * of frames and sent as a {@link TransactionProfile} along with the transaction.
+ *
+ * <p>The overhead has hard caps: the sampling interval is at least {@link #MIN_INTERVAL_MILLIS},
+ * the sampler backs off so it spends at most {@link #MAX_OVERHEAD} of a core, and the number of
+ * transactions, threads, frames and nodes sampled is bounded.
+ *
+ * <p>The overhead measured by the sampler is only its own time. Taking the stack of another thread
+ * with {@link Thread#getStackTrace()} also stops that thread at a safepoint, and depending on the
+ * VM all the threads, which isn't measured. So at most {@link #MAX_STACKS_PER_SAMPLE} stacks are
+ * taken per sample, the transactions take turns when they have more threads.
+ */
+final class TransactionProfiler implements Closeable {
+  /** The shortest sampling interval. */
+  static final long MIN_INTERVAL_MILLIS = 5;
+
+  /** The max share of a core the sampler spends, it samples less often when above it. */
+  static final double MAX_OVERHEAD = 0.01;
+
+  /** The max number of threads sampled per transaction. */
+  static final int MAX_THREADS = 8;
+
+  /** The max number of stacks taken per sample, as many safepoint pauses. */
+  static final int MAX_STACKS_PER_SAMPLE = 16;
+
+  /** The max number of innermost frames kept per sample. */
+  static final int MAX_STACK_DEPTH = 128;
+
+  /** The max number of nodes of the trie of a transaction. */
+  static final int MAX_NODES = 10_000;
+
+  /** Transactions are sampled at most this long, so unfinished ones don't stay active. */
+  static final long MAX_DURATION_MILLIS = 60 * 1000;
+
+  private final @NotNull SentryOptions options;
+  private final long intervalNanos;
+  private final int maxProfiledTransactions;
+
+  private final @NotNull List<ActiveProfile> activeProfiles = new CopyOnWriteArrayList<>();
+  private final @NotNull Object lock = new Object();
+  private @Nullable Thread samplerThread;
+  private boolean closed;
+
+  /** The number of samples taken, only accessed by the sampler thread. */
+  private long sampleCount;
+
+  TransactionProfiler(final @NotNull SentryOptions options) {
+    this.options = Objects.requireNonNull(options, "SentryOptions is required");
+    this.intervalNanos =
+        TimeUnit.MILLISECONDS.toNanos(
+            Math.max(MIN_INTERVAL_MILLIS, options.getProfilingIntervalMillis()));
+    this.maxProfiledTransactions = options.getMaxProfiledTransactions();
+  }
+
+  /**
+   * Starts sampling the thread that started the transaction.
+   *
+   * @param transaction the sampled transaction
+   */
+  void start(final @NotNull SentryTransaction transaction) {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      if (activeProfiles.size() >= maxProfiledTransactions) {
+        options
+            .getLogger()
+            .log(
+                SentryLevel.DEBUG,
+                "Transaction %s is not profiled, %d transactions are profiled already.",
+                transaction.getEventId(),
+                maxProfiledTransactions);
+        return;
+      }
+      final ActiveProfile profile = new ActiveProfile(this, Thread.currentThread());
+      transaction.setActiveProfile(profile);
+      activeProfiles.add(profile);
+
+      if (samplerThread == null) {
+        final Thread thread = new Thread(() -> sampleLoop(), "SentryProfiler");
+        thread.setDaemon(true);
+        thread.start();
+        samplerThread = thread;
+      }
+      lock.notifyAll();
+    }
+  }
+
+  private void sampleLoop() {
+    final long backoffFactor = (long) ((1 - MAX_OVERHEAD) / MAX_OVERHEAD);
+    try {
+      while (true) {
+        synchronized (lock) {
+          while (!closed && activeProfiles.isEmpty()) {
+            lock.wait();
+          }
+          if (closed) {
+            return;
+          }
+        }
+        final long start = System.nanoTime();
+        sample(activeProfiles, start);
+        final long elapsed = System.nanoTime() - start;
+        final long delay = Math.max(intervalNanos, elapsed * backoffFactor);
+        synchronized (lock) {
+          if (!closed) {
+            TimeUnit.NANOSECONDS.timedWait(lock, delay);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Throwable e) {
+      options.getLogger().log(SentryLevel.ERROR, "The profiler stopped sampling.", e);
+    }
+  }
+
+  /**
+   * Takes a sample of every thread bound to the active transactions, a thread bound to several
+   * transactions is sampled once. The transactions whose threads would exceed {@link
+   * #MAX_STACKS_PER_SAMPLE} are skipped, the first transaction sampled rotates so each one is
+   * sampled in turn.
+   *
+   * @param profiles the active profiles
+   * @param now the time of the sample in nanos
+   */
+  void sample(final @NotNull List<ActiveProfile> profiles, final long now) {
+    final List<ActiveProfile> snapshot = new ArrayList<>(profiles);
+    if (snapshot.isEmpty()) {
+      return;
+    }
+    final Map<Thread, StackTraceElement[]> stacks = new HashMap<>();
+    final long maxDurationNanos = TimeUnit.MILLISECONDS.toNanos(MAX_DURATION_MILLIS);
+    final int first = (int) (sampleCount++ % snapshot.size());
+    for (int i = 0; i < snapshot.size(); i++) {
+      final ActiveProfile profile = snapshot.get((first + i) % snapshot.size());
+      if (now - profile.startNanos > maxDurationNanos) {
+        profile.truncate();
+        activeProfiles.remove(profile);
+        continue;
+      }
+      final List<Thread> threads = profile.getThreads();
+      int missing = 0;
+      for (final Thread thread : threads) {
+        if (!stacks.containsKey(thread)) {
+          missing++;
+        }
+      }
+      if (stacks.size() + missing > MAX_STACKS_PER_SAMPLE) {
+        continue;
+      }
+      for (final Thread thread : threads) {
+        StackTraceElement[] stack = stacks.get(thread);
+        if (stack == null) {
+          if (!thread.isAlive()) {
+            continue;
+          }
+          stack = thread.getStackTrace();
+          stacks.put(thread, stack);
+        }
+        profile.add(stack);
+      }
+    }
+  }
+
+  private void remove(final @NotNull ActiveProfile profile) {
+    activeProfiles.remove(profile);
+  }
+
+  @TestOnly
+  int getActiveProfileCount() {
+    return activeProfiles.size();
+  }
+
+  @Override
+  public void close() {
+    final Thread thread;
+    synchronized (lock) {
+      closed = true;
+      thread = samplerThread;
+      samplerThread = null;
+      lock.notifyAll();
+    }
+    activeProfiles.clear();
+    if (thread != null) {
+      try {
+        thread.join(TimeUnit.NANOSECONDS.toMillis(intervalNanos) + 1000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /** The threads and the samples of an active transaction. */
+  static final class ActiveProfile {
+    private final @NotNull TransactionProfiler profiler;
+    private final long startNanos = System.nanoTime();
+    private final @NotNull Thread startThread;
+    private final @NotNull List<Thread> threads = new ArrayList<>();
+    private final @NotNull Node root = new Node();
+    private int nodeCount;
+    private long sampleCount;
+    private boolean truncated;
+    private boolean stopped;
+
+    ActiveProfile(final @NotNull TransactionProfiler profiler, final @NotNull Thread startThread) {
+      this.profiler = profiler;
+      this.startThread = startThread;
+      this.threads.add(startThread);
+    }
+
+    /** Binds the current thread to the transaction, at most {@link #MAX_THREADS} threads. */
+    void bindCurrentThread() {
+      final Thread thread = Thread.currentThread();
+      if (thread == startThread) {
+        return;
+      }
+      synchronized (this) {
+        if (!stopped && threads.size() < MAX_THREADS && !threads.contains(thread)) {
+          threads.add(thread);
+        }
+      }
+    }
+
+    synchronized @NotNull List<Thread> getThreads() {
+      return new ArrayList<>(threads);
+    }
+
+    /**
+     * Adds a sample to the trie, from the outermost frame kept to the innermost one. Frames are
+     * counted where the trie ends once it reached {@link #MAX_NODES}.
+     *
+     * @param stack the stack of a thread, innermost frame first
+     */
+    synchronized void add(final @NotNull StackTraceElement[] stack) {
+      if (stopped || stack.length == 0) {
+        return;
+      }
+      Node node = root;
+      for (int i = Math.min(stack.length, MAX_STACK_DEPTH) - 1; i >= 0; i--) {
+        Node child = node.children != null ? node.children.get(stack[i]) : null;
+        if (child == null) {
+          if (nodeCount >= MAX_NODES) {
+            truncated = true;
+            break;
+          }
+          if (node.children == null) {
+            node.children = new HashMap<>();
+          }
+          child = new Node();
+          node.children.put(stack[i], child);
+          nodeCount++;
+        }
+        node = child;
+      }
+      if (stack.length > MAX_STACK_DEPTH) {
+        truncated = true;
+      }
+      node.selfCount++;
+      sampleCount++;
+    }
+
+    synchronized void truncate() {
+      truncated = true;
+    }
+
+    @TestOnly
+    synchronized long getSampleCount() {
+      return sampleCount;
+    }
+
+    /**
+     * Stops sampling and folds the trie into the profile of the transaction.
+     *
+     * @param transaction the transaction
+     * @return the profile or null if no sample was taken
+     */
+    @Nullable
+    TransactionProfile stop(final @NotNull SentryTransaction transaction) {
+      profiler.remove(this);
+      final Map<String, Long> stacks = new HashMap<>();
+      final long samples;
+      final boolean truncated;
+      synchronized (this) {
+        stopped = true;
+        threads.clear();
+        if (sampleCount == 0) {
+          return null;
+        }
+        fold(root, new StringBuilder(), stacks);
+        samples = sampleCount;
+        truncated = this.truncated;
+      }
+      return new TransactionProfile(
+          transaction.getEventId(),
+          transaction.getTraceId(),
+          transaction.getName(),
+          TimeUnit.NANOSECONDS.toMillis(profiler.intervalNanos),
+          samples,
+          truncated,
+          stacks);
+    }
+
+    /**
+     * Folds the stacks of the trie into lines of frames from the outermost, separated by ';', as
+     * {@code class.method}. The frames that differ only by their line are merged.
+     */
+    private static void fold(
+        final @NotNull Node node,
+        final @NotNull StringBuilder path,
+        final @NotNull Map<String, Long> stacks) {
+      if (node.selfCount > 0 && path.length() > 0) {
+        final String stack = path.toString();
+        final Long count = stacks.get(stack);
+        stacks.put(stack, count != null ? count + node.selfCount : node.selfCount);
+      }
+      if (node.children == null) {
+        return;
+      }
+      final int length = path.length();
+      for (final Map.Entry<StackTraceElement, Node> child : node.children.entrySet()) {
+        if (length > 0) {
+          path.append(';');
+        }
+        path.append(child.getKey().getClassName()).append('.');
+        path.append(child.getKey().getMethodName());
+        fold(child.getValue(), path, stacks);
+        path.setLength(length);
+      }
+    }
+  }
+
+  /** A frame of the trie, the samples ending at this frame are counted by selfCount. */
+  private static final class Node {
+    private @Nullable Map<StackTraceElement, Node> children;
+    private long selfCount;
+  }
+}
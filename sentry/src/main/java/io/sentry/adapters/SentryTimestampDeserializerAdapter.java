@@ -0,0 +1,44 @@
+package io.sentry.adapters;
+
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import io.sentry.DateUtils;
+import io.sentry.ILogger;
+import io.sentry.SentryLevel;
+import io.sentry.SentryTimestamp;
+import java.lang.reflect.Type;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+@ApiStatus.Internal
+public final class SentryTimestampDeserializerAdapter implements JsonDeserializer<SentryTimestamp> {
+
+  private final @NotNull ILogger logger;
+
+  public SentryTimestampDeserializerAdapter(final @NotNull ILogger logger) {
+    this.logger = logger;
+  }
+
+  @Override
+  public SentryTimestamp deserialize(
+      JsonElement json, Type typeOfT, JsonDeserializationContext context)
+      throws JsonParseException {
+    try {
+      return json == null ? null : new SentryTimestamp(DateUtils.getEpochNanos(json.getAsString()));
+    } catch (Exception e) {
+      logger.log(
+          SentryLevel.DEBUG,
+          "Error when deserializing UTC timestamp format, it might be millis timestamp format.",
+          e);
+    }
+    try {
+      return new SentryTimestamp(
+          DateUtils.getDateTimeWithMillisPrecision(json.getAsString()).getTime() * 1_000_000);
+    } catch (Exception e) {
+      logger.log(SentryLevel.ERROR, "Error when deserializing millis timestamp format.", e);
+    }
+    return null;
+  }
+}
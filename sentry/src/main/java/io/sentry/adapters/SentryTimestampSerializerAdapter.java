@@ -0,0 +1,36 @@
+package io.sentry.adapters;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import io.sentry.DateUtils;
+import io.sentry.ILogger;
+import io.sentry.SentryLevel;
+import io.sentry.SentryTimestamp;
+import java.lang.reflect.Type;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+@ApiStatus.Internal
+public final class SentryTimestampSerializerAdapter implements JsonSerializer<SentryTimestamp> {
+
+  private final @NotNull ILogger logger;
+
+  public SentryTimestampSerializerAdapter(final @NotNull ILogger logger) {
+    this.logger = logger;
+  }
+
+  @Override
+  public JsonElement serialize(
+      SentryTimestamp src, Type typeOfSrc, JsonSerializationContext context) {
+    try {
+      return src == null
+          ? null
+          : new JsonPrimitive(DateUtils.getTimestampWithMicros(src.getEpochNanos()));
+    } catch (Exception e) {
+      logger.log(SentryLevel.ERROR, "Error when serializing SentryTimestamp", e);
+    }
+    return null;
+  }
+}
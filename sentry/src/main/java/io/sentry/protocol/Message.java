@@ -4,6 +4,8 @@ import io.sentry.IUnknownPropertiesConsumer;
 import java.util.List;
 import java.util.Map;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 // https://docs.sentry.io/development/sdk-dev/event-payloads/message/
 
@@ -20,6 +22,18 @@ import org.jetbrains.annotations.ApiStatus;
  * "params": {"foo": "this"} } } ```
  */
 public final class Message implements IUnknownPropertiesConsumer {
+
+  /** Sets the formatted message and the params of a message once they are needed. */
+  @ApiStatus.Internal
+  public interface Formatter {
+    /**
+     * Sets the formatted message and the params.
+     *
+     * @param message the message
+     */
+    void format(@NotNull Message message);
+  }
+
   /**
    * The formatted message. If `message` and `params` are given, Sentry will attempt to backfill
    * `formatted` if empty.
@@ -46,7 +60,11 @@ public final class Message implements IUnknownPropertiesConsumer {
   @SuppressWarnings("unused")
   private Map<String, Object> unknown;
 
+  /** Formats the message on first access, so dropped events are never formatted. */
+  private transient @Nullable Formatter formatter;
+
   public String getFormatted() {
+    applyFormatter();
     return formatted;
   }
 
@@ -56,6 +74,7 @@ public final class Message implements IUnknownPropertiesConsumer {
    * @param formatted a formatted String
    */
   public void setFormatted(String formatted) {
+    applyFormatter();
     this.formatted = formatted;
   }
 
@@ -68,13 +87,35 @@ public final class Message implements IUnknownPropertiesConsumer {
   }
 
   public List<String> getParams() {
+    applyFormatter();
     return params;
   }
 
   public void setParams(List<String> params) {
+    applyFormatter();
     this.params = params;
   }
 
+  /**
+   * Defers formatting the message and its params until they are read or the event is sent.
+   *
+   * @param formatter sets the formatted message and the params
+   */
+  @ApiStatus.Internal
+  public void setFormatter(final @Nullable Formatter formatter) {
+    this.formatter = formatter;
+  }
+
+  /** Runs the deferred formatting, if any. Must be called before the message is serialized. */
+  @ApiStatus.Internal
+  public void applyFormatter() {
+    final Formatter formatter = this.formatter;
+    if (formatter != null) {
+      this.formatter = null;
+      formatter.format(this);
+    }
+  }
+
   @ApiStatus.Internal
   @Override
   public void acceptUnknownProperties(Map<String, Object> unknown) {
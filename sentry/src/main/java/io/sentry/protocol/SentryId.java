@@ -1,5 +1,7 @@
 package io.sentry.protocol;
 
+import io.sentry.util.SentryRandom;
+import io.sentry.util.StringUtils;
 import java.util.UUID;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -7,6 +9,9 @@ import org.jetbrains.annotations.Nullable;
 public final class SentryId {
   private final @NotNull UUID uuid;
 
+  /** The UUID without dashes, computed on first use. */
+  private @Nullable String value;
+
   public static final SentryId EMPTY_ID = new SentryId(new UUID(0, 0));
 
   public SentryId() {
@@ -15,7 +20,7 @@ public final class SentryId {
 
   public SentryId(@Nullable UUID uuid) {
     if (uuid == null) {
-      uuid = UUID.randomUUID();
+      uuid = randomUUID();
     }
     this.uuid = uuid;
   }
@@ -26,7 +31,16 @@ public final class SentryId {
 
   @Override
   public String toString() {
-    return uuid.toString().replace("-", "");
+    // racy single-check: threads may compute the same String concurrently, which is harmless
+    String value = this.value;
+    if (value == null) {
+      final char[] chars = new char[32];
+      StringUtils.writeHex(uuid.getMostSignificantBits(), chars, 0);
+      StringUtils.writeHex(uuid.getLeastSignificantBits(), chars, 16);
+      value = new String(chars);
+      this.value = value;
+    }
+    return value;
   }
 
   @Override
@@ -42,6 +56,22 @@ public final class SentryId {
     return uuid.hashCode();
   }
 
+  /**
+   * Creates a random version 4 UUID like {@link UUID#randomUUID()} does, but from {@link
+   * SentryRandom} which doesn't block nor contend.
+   *
+   * @return the UUID
+   */
+  private static @NotNull UUID randomUUID() {
+    long mostSigBits = SentryRandom.nextLong();
+    long leastSigBits = SentryRandom.nextLong();
+    // version 4
+    mostSigBits = (mostSigBits & 0xffffffffffff0fffL) | 0x0000000000004000L;
+    // IETF variant
+    leastSigBits = (leastSigBits & 0x3fffffffffffffffL) | 0x8000000000000000L;
+    return new UUID(mostSigBits, leastSigBits);
+  }
+
   private UUID fromStringSentryId(String sentryIdString) {
     if (sentryIdString == null) {
       return null;
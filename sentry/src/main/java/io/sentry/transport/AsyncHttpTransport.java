@@ -3,6 +3,7 @@ package io.sentry.transport;
 import io.sentry.ILogger;
 import io.sentry.RequestDetails;
 import io.sentry.SentryEnvelope;
+import io.sentry.SentryEnvelopeItem;
 import io.sentry.SentryLevel;
 import io.sentry.SentryOptions;
 import io.sentry.cache.IEnvelopeCache;
@@ -12,6 +13,7 @@ import io.sentry.hints.Retryable;
 import io.sentry.hints.SubmissionResult;
 import io.sentry.util.LogUtils;
 import io.sentry.util.Objects;
+import io.sentry.util.VirtualThreadUtils;
 import java.io.IOException;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
@@ -39,7 +41,10 @@ public final class AsyncHttpTransport implements ITransport {
       final @NotNull RequestDetails requestDetails) {
     this(
         initExecutor(
-            options.getMaxQueueSize(), options.getEnvelopeDiskCache(), options.getLogger()),
+            options.getMaxQueueSize(),
+            options.getEnvelopeDiskCache(),
+            options.getLogger(),
+            initThreadFactory(options)),
         options,
         rateLimiter,
         transportGate,
@@ -89,10 +94,26 @@ public final class AsyncHttpTransport implements ITransport {
     executor.waitTillIdle(timeoutMillis);
   }
 
+  @Override
+  public @NotNull RateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  @Override
+  public int getQueueSize() {
+    return executor.getUnfinishedTaskCount();
+  }
+
+  @Override
+  public long getDroppedEnvelopeCount() {
+    return executor.getCancelledTaskCount();
+  }
+
   private static QueuedThreadPoolExecutor initExecutor(
       final int maxQueueSize,
       final @NotNull IEnvelopeCache envelopeCache,
-      final @NotNull ILogger logger) {
+      final @NotNull ILogger logger,
+      final @NotNull ThreadFactory threadFactory) {
 
     final RejectedExecutionHandler storeEvents =
         (r, executor) -> {
@@ -108,8 +129,23 @@ public final class AsyncHttpTransport implements ITransport {
           }
         };
 
-    return new QueuedThreadPoolExecutor(
-        1, maxQueueSize, new AsyncConnectionThreadFactory(), storeEvents, logger);
+    return new QueuedThreadPoolExecutor(1, maxQueueSize, threadFactory, storeEvents, logger);
+  }
+
+  private static @NotNull ThreadFactory initThreadFactory(final @NotNull SentryOptions options) {
+    if (options.isEnableVirtualThreads()) {
+      final ThreadFactory threadFactory =
+          VirtualThreadUtils.newThreadFactory("SentryAsyncConnection-");
+      if (threadFactory != null) {
+        return threadFactory;
+      }
+      options
+          .getLogger()
+          .log(
+              SentryLevel.WARNING,
+              "Virtual threads are not supported by this runtime, using platform threads instead.");
+    }
+    return new AsyncConnectionThreadFactory();
   }
 
   @Override
@@ -191,6 +227,12 @@ public final class AsyncHttpTransport implements ITransport {
               .log(SentryLevel.DEBUG, "Marking envelope submission result: %s", result.isSuccess());
           ((SubmissionResult) hint).setResult(result.isSuccess());
         }
+        for (final SentryEnvelopeItem item : envelope.getItems()) {
+          final SubmissionResult submissionResult = item.getSubmissionResult();
+          if (submissionResult != null) {
+            submissionResult.setResult(result.isSuccess());
+          }
+        }
       }
     }
 
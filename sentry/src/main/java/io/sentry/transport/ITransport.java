@@ -3,6 +3,7 @@ package io.sentry.transport;
 import io.sentry.SentryEnvelope;
 import java.io.Closeable;
 import java.io.IOException;
+import org.jetbrains.annotations.Nullable;
 
 /** A transport is in charge of sending the event to the Sentry server. */
 public interface ITransport extends Closeable {
@@ -18,4 +19,31 @@ public interface ITransport extends Closeable {
    * @param timeoutMillis time in milliseconds
    */
   void flush(long timeoutMillis);
+
+  /**
+   * Returns the rate limiter applied to the envelopes sent, used to drop events early.
+   *
+   * @return the rate limiter or null if the transport doesn't rate limit
+   */
+  default @Nullable RateLimiter getRateLimiter() {
+    return null;
+  }
+
+  /**
+   * Returns the number of envelopes queued or being sent.
+   *
+   * @return the number of envelopes or 0 if the transport doesn't queue
+   */
+  default int getQueueSize() {
+    return 0;
+  }
+
+  /**
+   * Returns the number of envelopes dropped because the queue was full.
+   *
+   * @return the number of envelopes or 0 if the transport doesn't queue
+   */
+  default long getDroppedEnvelopeCount() {
+    return 0;
+  }
 }
@@ -9,6 +9,7 @@ import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -24,6 +25,7 @@ final class QueuedThreadPoolExecutor extends ThreadPoolExecutor {
   private final int maxQueueSize;
   private final @NotNull ILogger logger;
   private final @NotNull ReusableCountLatch unfinishedTasksCount = new ReusableCountLatch();
+  private final @NotNull AtomicLong cancelledTasksCount = new AtomicLong();
 
   /**
    * Creates a new instance of the thread pool.
@@ -59,6 +61,7 @@ final class QueuedThreadPoolExecutor extends ThreadPoolExecutor {
       return super.submit(task);
     } else {
       // if the thread pool is full, we don't cache it
+      cancelledTasksCount.incrementAndGet();
       logger.log(SentryLevel.WARNING, "Submit cancelled");
       return new CancelledFuture<>();
     }
@@ -84,6 +87,24 @@ final class QueuedThreadPoolExecutor extends ThreadPoolExecutor {
     }
   }
 
+  /**
+   * Returns the number of tasks queued or running.
+   *
+   * @return the number of tasks
+   */
+  int getUnfinishedTaskCount() {
+    return unfinishedTasksCount.getCount();
+  }
+
+  /**
+   * Returns the number of tasks cancelled because the queue was full.
+   *
+   * @return the number of tasks
+   */
+  long getCancelledTaskCount() {
+    return cancelledTasksCount.get();
+  }
+
   private boolean isSchedulingAllowed() {
     return unfinishedTasksCount.getCount() < maxQueueSize;
   }
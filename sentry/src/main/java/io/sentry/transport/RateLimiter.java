@@ -11,9 +11,11 @@ import io.sentry.hints.SubmissionResult;
 import io.sentry.util.StringUtils;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -46,6 +48,7 @@ public final class RateLimiter {
   private final @NotNull ICurrentDateProvider currentDateProvider;
   private final @NotNull ILogger logger;
   private final @NotNull Map<DataCategory, Date> sentryRetryAfterLimit = new ConcurrentHashMap<>();
+  private final @NotNull AtomicLong droppedItemCount = new AtomicLong();
 
   public RateLimiter(
       final @NotNull ICurrentDateProvider currentDateProvider, final @NotNull ILogger logger) {
@@ -76,6 +79,8 @@ public final class RateLimiter {
     }
 
     if (dropItems != null) {
+      droppedItemCount.addAndGet(dropItems.size());
+
       //       Need a new envelope
       List<SentryEnvelopeItem> toSend = new ArrayList<>();
       for (SentryEnvelopeItem item : envelope.getItems()) {
@@ -112,6 +117,44 @@ public final class RateLimiter {
     }
   }
 
+  /**
+   * Checks if items of an itemType are currently rate limited, so they would be dropped by {@link
+   * #filter(SentryEnvelope, Object)}.
+   *
+   * @param itemType the itemType (eg event, session, etc...)
+   * @return true if rate limited or false otherwise
+   */
+  public boolean isRateLimited(final @NotNull String itemType) {
+    return isRetryAfter(itemType);
+  }
+
+  /**
+   * Returns the categories currently rate limited and the time until their limit expires.
+   *
+   * @return the remaining time in millis by category, eg error, session, __all__
+   */
+  @SuppressWarnings("JdkObsolete")
+  public @NotNull Map<String, Long> getActiveRateLimits() {
+    final long now = currentDateProvider.getCurrentTimeMillis();
+    final Map<String, Long> rateLimits = new HashMap<>();
+    for (final Map.Entry<DataCategory, Date> entry : sentryRetryAfterLimit.entrySet()) {
+      final long remaining = entry.getValue().getTime() - now;
+      if (remaining >= 0) {
+        rateLimits.put(entry.getKey().getCategory(), remaining);
+      }
+    }
+    return rateLimits;
+  }
+
+  /**
+   * Returns the number of envelope items dropped because their category was rate limited.
+   *
+   * @return the number of items
+   */
+  public long getDroppedItemCount() {
+    return droppedItemCount.get();
+  }
+
   /**
    * Check if an itemType is retry after or not
    *
@@ -156,6 +199,7 @@ public final class RateLimiter {
       case "event":
         return DataCategory.Error;
       case "session":
+      case "sessions":
         return DataCategory.Session;
       case "attachment":
         return DataCategory.Attachment;
@@ -0,0 +1,57 @@
+package io.sentry.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Fast, non-blocking source of random longs for span and event ids.
+ *
+ * <p>{@link java.util.UUID#randomUUID()} draws from a shared {@link java.security.SecureRandom},
+ * which is synchronized and may block while the system gathers entropy. Ids don't need to be
+ * unpredictable, only unique, so every thread runs its own SplitMix64 generator instead (the
+ * algorithm behind {@code java.util.SplittableRandom}, which isn't available on older Android
+ * versions). Threads are seeded from a shared counter, so their sequences don't overlap.
+ */
+@ApiStatus.Internal
+public final class SentryRandom {
+  /** The golden ratio gamma used by SplitMix64. */
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private static final AtomicLong seeder =
+      new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+  private static final ThreadLocal<State> state =
+      new ThreadLocal<State>() {
+        @Override
+        protected State initialValue() {
+          return new State(mix64(seeder.getAndAdd(2 * GOLDEN_GAMMA)));
+        }
+      };
+
+  private SentryRandom() {}
+
+  /**
+   * Returns the next random long of the current thread's generator.
+   *
+   * @return a random long
+   */
+  public static long nextLong() {
+    final State current = state.get();
+    current.seed += GOLDEN_GAMMA;
+    return mix64(current.seed);
+  }
+
+  private static long mix64(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  private static final class State {
+    private long seed;
+
+    State(final long seed) {
+      this.seed = seed;
+    }
+  }
+}
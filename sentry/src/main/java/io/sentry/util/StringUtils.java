@@ -2,11 +2,14 @@ package io.sentry.util;
 
 import java.util.Locale;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 @ApiStatus.Internal
 public final class StringUtils {
 
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
   private StringUtils() {}
 
   public static @Nullable String getStringAfterDot(final @Nullable String str) {
@@ -51,4 +54,18 @@ public final class StringUtils {
       return str;
     }
   }
+
+  /**
+   * Writes the 16 lower case hex digits of the given value into the buffer, most significant digit
+   * first and zero padded.
+   *
+   * @param value the value
+   * @param buffer the buffer, must have room for 16 chars starting at offset
+   * @param offset the index of the first digit in the buffer
+   */
+  public static void writeHex(final long value, final @NotNull char[] buffer, final int offset) {
+    for (int i = 15; i >= 0; i--) {
+      buffer[offset + 15 - i] = HEX_DIGITS[(int) (value >>> (i << 2)) & 0xf];
+    }
+  }
 }
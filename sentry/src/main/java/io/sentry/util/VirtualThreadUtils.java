@@ -0,0 +1,91 @@
+package io.sentry.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Access to virtual threads (JDK 21+) without compiling against them. The SDK targets Java 8 and
+ * Android, so everything goes through reflection which is resolved once when the class is loaded.
+ */
+@ApiStatus.Internal
+public final class VirtualThreadUtils {
+
+  private static final @Nullable Method IS_VIRTUAL;
+  private static final @Nullable Method OF_VIRTUAL;
+  private static final @Nullable Method BUILDER_NAME;
+  private static final @Nullable Method BUILDER_FACTORY;
+
+  static {
+    Method isVirtual = null;
+    Method ofVirtual = null;
+    Method builderName = null;
+    Method builderFactory = null;
+    try {
+      isVirtual = Thread.class.getMethod("isVirtual");
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builderName = builderClass.getMethod("name", String.class, long.class);
+      builderFactory = builderClass.getMethod("factory");
+    } catch (ClassNotFoundException | NoSuchMethodException | SecurityException e) {
+      // virtual threads are not available on this runtime
+      isVirtual = null;
+      ofVirtual = null;
+      builderName = null;
+      builderFactory = null;
+    }
+    IS_VIRTUAL = isVirtual;
+    OF_VIRTUAL = ofVirtual;
+    BUILDER_NAME = builderName;
+    BUILDER_FACTORY = builderFactory;
+  }
+
+  private VirtualThreadUtils() {}
+
+  /**
+   * Checks if the runtime supports virtual threads.
+   *
+   * @return true if virtual threads can be created, false otherwise
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Checks if the given thread is a virtual thread.
+   *
+   * @param thread the thread
+   * @return true if it's a virtual thread, false if not or if the runtime does not support them
+   */
+  public static boolean isVirtual(final @NotNull Thread thread) {
+    if (IS_VIRTUAL == null) {
+      return false;
+    }
+    try {
+      return Boolean.TRUE.equals(IS_VIRTUAL.invoke(thread));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Creates a {@link ThreadFactory} that starts virtual threads named {@code prefix} followed by a
+   * counter.
+   *
+   * @param prefix the thread name prefix
+   * @return the ThreadFactory or null if the runtime does not support virtual threads
+   */
+  public static @Nullable ThreadFactory newThreadFactory(final @NotNull String prefix) {
+    if (OF_VIRTUAL == null || BUILDER_NAME == null || BUILDER_FACTORY == null) {
+      return null;
+    }
+    try {
+      final Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+      return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package io.sentry
+
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+import org.awaitility.kotlin.await
+
+class AsyncCaptureQueueTest {
+
+    private class Fixture {
+        val processed: MutableList<Int> = Collections.synchronizedList(mutableListOf())
+        val batchSizes: MutableList<Int> = Collections.synchronizedList(mutableListOf())
+        val release = CountDownLatch(1)
+
+        fun getSut(
+            capacity: Int = 10,
+            batchSize: Int = 10,
+            discardPolicy: AsyncCaptureQueue.DiscardPolicy = AsyncCaptureQueue.DiscardPolicy.DISCARD_NEWEST,
+            blocked: Boolean = false
+        ): AsyncCaptureQueue<Int> {
+            return AsyncCaptureQueue("test", capacity, batchSize, discardPolicy, {
+                if (blocked) {
+                    release.await(5, TimeUnit.SECONDS)
+                }
+                batchSizes.add(it.size)
+                processed.addAll(it)
+            }, NoOpLogger.getInstance())
+        }
+    }
+
+    private val fixture = Fixture()
+
+    @Test
+    fun `processes offered records in order`() {
+        val sut = fixture.getSut()
+        (1..5).forEach { assertTrue(sut.offer(it)) }
+        await.untilAsserted { assertEquals(listOf(1, 2, 3, 4, 5), fixture.processed) }
+        sut.close(1000)
+    }
+
+    @Test
+    fun `processes records in batches of at most batch size`() {
+        val sut = fixture.getSut(capacity = 100, batchSize = 3, blocked = true)
+        sut.offer(0)
+        await.until { sut.size() == 0 }
+        (1..7).forEach { sut.offer(it) }
+        fixture.release.countDown()
+        sut.close(1000)
+        assertEquals((0..7).toList(), fixture.processed)
+        assertEquals(listOf(1, 3, 3, 1), fixture.batchSizes)
+    }
+
+    @Test
+    fun `discards newest records when full`() {
+        val sut = fixture.getSut(capacity = 2, blocked = true)
+        sut.offer(0)
+        await.until { sut.size() == 0 }
+        assertTrue(sut.offer(1))
+        assertTrue(sut.offer(2))
+        assertFalse(sut.offer(3))
+        assertEquals(1, sut.discardedCount)
+        fixture.release.countDown()
+        sut.close(1000)
+        assertEquals(listOf(0, 1, 2), fixture.processed)
+    }
+
+    @Test
+    fun `creates records only when the queue takes them`() {
+        val sut = fixture.getSut(capacity = 1, blocked = true)
+        sut.offer(0)
+        await.until { sut.size() == 0 }
+        var created = 0
+        assertTrue(sut.offer(AsyncCaptureQueue.RecordFactory { created++; 1 }))
+        assertFalse(sut.offer(AsyncCaptureQueue.RecordFactory { created++; 2 }))
+        assertEquals(1, created)
+        fixture.release.countDown()
+        sut.close(1000)
+        assertEquals(listOf(0, 1), fixture.processed)
+    }
+
+    @Test
+    fun `discards oldest records when full`() {
+        val sut = fixture.getSut(capacity = 2, discardPolicy = AsyncCaptureQueue.DiscardPolicy.DISCARD_OLDEST, blocked = true)
+        sut.offer(0)
+        await.until { sut.size() == 0 }
+        assertTrue(sut.offer(1))
+        assertTrue(sut.offer(2))
+        assertTrue(sut.offer(3))
+        assertEquals(1, sut.discardedCount)
+        fixture.release.countDown()
+        sut.close(1000)
+        assertEquals(listOf(0, 2, 3), fixture.processed)
+    }
+
+    @Test
+    fun `close processes queued records and rejects new ones`() {
+        val sut = fixture.getSut(capacity = 100, blocked = true)
+        (1..20).forEach { sut.offer(it) }
+        fixture.release.countDown()
+        sut.close(1000)
+        assertEquals((1..20).toList(), fixture.processed)
+        assertFalse(sut.offer(21))
+    }
+
+    @Test
+    fun `keeps processing after a batch fails`() {
+        var failed = false
+        val processed = Collections.synchronizedList(mutableListOf<Int>())
+        val sut = AsyncCaptureQueue<Int>("test", 10, 1, AsyncCaptureQueue.DiscardPolicy.DISCARD_NEWEST, {
+            if (!failed) {
+                failed = true
+                throw RuntimeException()
+            }
+            processed.addAll(it)
+        }, NoOpLogger.getInstance())
+        sut.offer(1)
+        sut.offer(2)
+        sut.close(1000)
+        assertEquals(listOf(2), processed)
+    }
+
+    @Test
+    fun `parses discard policy ignoring case`() {
+        assertEquals(AsyncCaptureQueue.DiscardPolicy.DISCARD_OLDEST, AsyncCaptureQueue.DiscardPolicy.parse(" discard_oldest "))
+        assertEquals(null, AsyncCaptureQueue.DiscardPolicy.parse("unknown"))
+        assertEquals(null, AsyncCaptureQueue.DiscardPolicy.parse(null))
+    }
+
+    @Test
+    fun `capacity must be greater than 0`() {
+        assertFailsWith<IllegalArgumentException> { fixture.getSut(capacity = 0) }
+    }
+}
@@ -0,0 +1,111 @@
+package io.sentry
+
+import io.sentry.transport.ICurrentDateProvider
+import java.io.File
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertNotEquals
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+
+class AttachmentDeduplicatorTest {
+
+    private class Fixture {
+        var now = 0L
+        val maxAttachmentSize = 1024L
+
+        fun getSut() = AttachmentDeduplicator(ICurrentDateProvider { now })
+    }
+
+    private val fixture = Fixture()
+
+    @Test
+    fun `identical attachments have the same digest`() {
+        val sut = fixture.getSut()
+        val file = File.createTempFile("attachment", ".txt").apply { deleteOnExit() }
+        file.writeText("hello")
+
+        val fromBytes = sut.digest(Attachment("hello".toByteArray(), "hello.txt"), fixture.maxAttachmentSize)
+        val fromFile = sut.digest(Attachment(file.absolutePath, "hello.txt"), fixture.maxAttachmentSize)
+
+        assertEquals(fromBytes, fromFile)
+    }
+
+    @Test
+    fun `attachments with different filenames have different digests`() {
+        val sut = fixture.getSut()
+
+        val first = sut.digest(Attachment("hello".toByteArray(), "first.txt"), fixture.maxAttachmentSize)
+        val second = sut.digest(Attachment("hello".toByteArray(), "second.txt"), fixture.maxAttachmentSize)
+
+        assertNotEquals(first, second)
+    }
+
+    @Test
+    fun `unreadable and too big files have no digest`() {
+        val sut = fixture.getSut()
+        val file = File.createTempFile("attachment", ".txt").apply { deleteOnExit() }
+        file.writeBytes(ByteArray(2048))
+
+        assertNull(sut.digest(Attachment("non-existent.txt"), fixture.maxAttachmentSize))
+        assertNull(sut.digest(Attachment(file.absolutePath), fixture.maxAttachmentSize))
+    }
+
+    @Test
+    fun `digest of an unchanged file is not computed again`() {
+        val sut = fixture.getSut()
+        val file = File.createTempFile("attachment", ".txt").apply { deleteOnExit() }
+        file.writeText("hello")
+        file.setLastModified(1_000_000)
+        val digest = sut.digest(Attachment(file.absolutePath, "hello.txt"), fixture.maxAttachmentSize)
+
+        file.writeText("world")
+        file.setLastModified(1_000_000)
+        assertEquals(digest, sut.digest(Attachment(file.absolutePath, "hello.txt"), fixture.maxAttachmentSize))
+
+        file.setLastModified(2_000_000)
+        assertEquals(
+            sut.digest(Attachment("world".toByteArray(), "hello.txt"), fixture.maxAttachmentSize),
+            sut.digest(Attachment(file.absolutePath, "hello.txt"), fixture.maxAttachmentSize)
+        )
+    }
+
+    @Test
+    fun `digest is sent only within the window after it was marked as sent`() {
+        val sut = fixture.getSut()
+
+        assertFalse(sut.isSent("digest", 1000))
+        assertFalse(sut.isSent("digest", 1000))
+        sut.markSent("digest")
+        fixture.now = 999
+        assertTrue(sut.isSent("digest", 1000))
+        fixture.now = 1000
+        assertFalse(sut.isSent("digest", 1000))
+        sut.markSent("digest")
+        assertTrue(sut.isSent("digest", 1000))
+    }
+
+    @Test
+    fun `least recently seen digests are evicted`() {
+        val sut = fixture.getSut()
+
+        (0..AttachmentDeduplicator.MAX_DIGESTS).forEach { sut.markSent("digest$it") }
+
+        assertFalse(sut.isSent("digest0", 1000))
+        assertTrue(sut.isSent("digest${AttachmentDeduplicator.MAX_DIGESTS}", 1000))
+    }
+
+    @Test
+    fun `digest is marked as sent only once the item was delivered`() {
+        val sut = fixture.getSut()
+
+        sut.markSentOnDelivery("failed").setResult(false)
+        val delivery = sut.markSentOnDelivery("delivered")
+        assertFalse(sut.isSent("delivered", 1000))
+        delivery.setResult(true)
+
+        assertFalse(sut.isSent("failed", 1000))
+        assertTrue(sut.isSent("delivered", 1000))
+    }
+}
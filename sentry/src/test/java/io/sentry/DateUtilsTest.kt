@@ -5,8 +5,10 @@ import java.time.LocalDateTime
 import java.time.ZoneId
 import java.time.format.DateTimeFormatter
 import java.util.Date
+import kotlin.random.Random
 import kotlin.test.Test
 import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
 import kotlin.test.assertTrue
 
 class DateUtilsTest {
@@ -79,6 +81,70 @@ class DateUtilsTest {
         assertEquals("2020-06-07T12:38:12.631Z", timestamp)
     }
 
+    @Test
+    fun `Formats epoch nanos with microsecond precision`() {
+        val epochNanos = Instant.parse("2020-03-27T08:52:58.015042Z").toEpochMilli() * 1_000_000 + 42_123
+
+        assertEquals("2020-03-27T08:52:58.015042Z", DateUtils.getTimestampWithMicros(epochNanos))
+    }
+
+    @Test
+    fun `Parses ISO timestamps with fractional seconds to epoch nanos`() {
+        val seconds = Instant.parse("2020-03-27T08:52:58Z").epochSecond * 1_000_000_000
+
+        assertEquals(seconds, DateUtils.getEpochNanos("2020-03-27T08:52:58Z"))
+        assertEquals(seconds + 15_000_000, DateUtils.getEpochNanos("2020-03-27T08:52:58.015Z"))
+        assertEquals(seconds + 15_042_000, DateUtils.getEpochNanos("2020-03-27T08:52:58.015042Z"))
+        assertEquals(seconds + 15_042_123, DateUtils.getEpochNanos("2020-03-27T08:52:58.015042123Z"))
+    }
+
+    @Test
+    fun `Formats and parses the same timestamps as java time`() {
+        val random = Random(42)
+        val timestamps = listOf(0L, -1L, 951_782_400_000L, 4_107_542_400_000L, -62_135_596_800_000L) +
+            List(1000) { random.nextLong(-62_135_596_800_000L, 253_402_300_799_999L) }
+        timestamps.forEach {
+            val expected = isoFormat.format(Instant.ofEpochMilli(it).atZone(utcTimeZone))
+
+            assertEquals(expected, DateUtils.getTimestamp(Date(it)))
+            assertEquals(it, DateUtils.getDateTime(expected).time)
+        }
+    }
+
+    @Test
+    fun `Parses fractions as decimal fractions of a second`() {
+        assertEquals(500, DateUtils.getDateTime("1970-01-01T00:00:00.5Z").time)
+        assertEquals(123, DateUtils.getDateTime("1970-01-01T00:00:00.123456789Z").time)
+    }
+
+    @Test
+    fun `When timestamp is not ISO format, throws`() {
+        listOf(
+            "",
+            "2020-03-27",
+            "2020-03-27T08:52:58",
+            "2020-03-27 08:52:58Z",
+            "2020-3-27T08:52:58Z",
+            "2020-02-30T08:52:58Z",
+            "2020-03-27T24:52:58Z",
+            "2020-03-27T08:52:58.Z",
+            "2020-03-27T08:52:58.1234567890Z",
+            "2020-03-27T08:52:58.12a4Z",
+            "1591533492.631"
+        ).forEach {
+            assertFailsWith<IllegalArgumentException>(it) { DateUtils.getDateTime(it) }
+        }
+    }
+
+    @Test
+    fun `Parses leap days`() {
+        assertEquals(
+            Instant.parse("2020-02-29T00:00:00Z").toEpochMilli(),
+            DateUtils.getDateTime("2020-02-29T00:00:00.000Z").time
+        )
+        assertFailsWith<IllegalArgumentException> { DateUtils.getDateTime("2100-02-29T00:00:00Z") }
+    }
+
     private fun convertDate(date: Date): LocalDateTime {
         return Instant.ofEpochMilli(date.time)
                 .atZone(utcTimeZone)
@@ -8,14 +8,19 @@ import com.nhaarman.mockitokotlin2.never
 import com.nhaarman.mockitokotlin2.verify
 import com.nhaarman.mockitokotlin2.whenever
 import io.sentry.hints.ApplyScopeData
+import io.sentry.hints.Retryable
 import io.sentry.protocol.User
 import io.sentry.util.noFlushTimeout
 import java.io.File
 import java.nio.file.Files
 import java.nio.file.Paths
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CopyOnWriteArraySet
 import kotlin.test.AfterTest
 import kotlin.test.BeforeTest
 import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
 import kotlin.test.assertTrue
 
 class DirectoryProcessorTest {
@@ -78,6 +83,80 @@ class DirectoryProcessorTest {
         verify(fixture.hub, never()).captureEnvelope(any(), any())
     }
 
+    @Test
+    fun `claims files while they are processed`() {
+        val envelope = File(file, "1.envelope").apply { writeText("{}") }
+        var claimed = false
+        val sut = RecordingProcessor { processed ->
+            claimed = processed.name == DirectoryProcessor.CLAIMED_FILE_PREFIX + "1.envelope" && !envelope.exists()
+        }
+        sut.processDirectory(file)
+        assertTrue(claimed)
+        assertEquals(listOf("1.envelope"), sut.processed)
+        assertFalse(envelope.exists())
+    }
+
+    @Test
+    fun `releases the claim of files to retry`() {
+        val envelope = File(file, "1.envelope").apply { writeText("{}") }
+        val sut = RecordingProcessor(retry = true)
+        sut.processDirectory(file)
+        assertEquals(listOf("1.envelope"), sut.processed)
+        assertTrue(envelope.exists())
+        assertFalse(File(file, DirectoryProcessor.CLAIMED_FILE_PREFIX + "1.envelope").exists())
+    }
+
+    @Test
+    fun `skips files claimed by another processor`() {
+        val claimed = File(file, DirectoryProcessor.CLAIMED_FILE_PREFIX + "1.envelope").apply { writeText("{}") }
+        val sut = RecordingProcessor()
+        sut.processDirectory(file)
+        assertTrue(sut.processed.isEmpty())
+        assertTrue(claimed.exists())
+    }
+
+    @Test
+    fun `processes files whose claim is stale`() {
+        val claimed = File(file, DirectoryProcessor.CLAIMED_FILE_PREFIX + "1.envelope").apply { writeText("{}") }
+        claimed.setLastModified(System.currentTimeMillis() - DirectoryProcessor.STALE_CLAIM_MILLIS - 1000)
+        val sut = RecordingProcessor()
+        sut.processDirectory(file)
+        assertEquals(listOf("1.envelope"), sut.processed)
+        assertTrue(file.listFiles()!!.isEmpty())
+    }
+
+    @Test
+    fun `processes every file once in parallel`() {
+        val names = (1..20).map { "$it.envelope" }
+        names.forEach { File(file, it).writeText("{}") }
+        val threads = CopyOnWriteArraySet<String>()
+        val sut = RecordingProcessor(parallelism = 4) { threads.add(Thread.currentThread().name) }
+        sut.processDirectory(file)
+        assertEquals(names.toSet(), sut.processed.toSet())
+        assertEquals(names.size, sut.processed.size)
+        assertTrue(threads.any { it.startsWith("SentryDirectoryProcessor-") })
+        assertTrue(file.listFiles()!!.isEmpty())
+    }
+
+    private class RecordingProcessor(
+        parallelism: Int = 1,
+        private val retry: Boolean = false,
+        private val onProcess: (File) -> Unit = {}
+    ) : DirectoryProcessor(mock(), 15000, parallelism) {
+        val processed = CopyOnWriteArrayList<String>()
+
+        override fun processFile(file: File, hint: Any?) {
+            onProcess(file)
+            processed.add(file.name.removePrefix(CLAIMED_FILE_PREFIX))
+            (hint as Retryable).isRetry = retry
+            if (!retry) {
+                file.delete()
+            }
+        }
+
+        override fun isRelevantFileName(fileName: String?): Boolean = true
+    }
+
     private fun getTempEnvelope(fileName: String): String {
         val testFile = this::class.java.classLoader.getResource(fileName)
         val testFileBytes = testFile!!.readBytes()
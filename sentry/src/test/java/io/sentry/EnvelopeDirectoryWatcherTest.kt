@@ -0,0 +1,185 @@
+package io.sentry
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.times
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
+import io.sentry.hints.Retryable
+import io.sentry.protocol.SentryId
+import java.io.File
+import java.nio.file.Files
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+import org.awaitility.kotlin.await
+
+class EnvelopeDirectoryWatcherTest {
+
+    private class Fixture {
+        val hub = mock<IHub>()
+        val options = SentryOptions().apply {
+            envelopeWatchDebounceMillis = 1000
+        }
+
+        init {
+            whenever(hub.options).thenReturn(SentryOptions())
+        }
+
+        fun getSut(dir: File): EnvelopeDirectoryWatcher {
+            val sender = OutboxSender(hub, EnvelopeReader(), options.serializer, options.logger, 0)
+            return EnvelopeDirectoryWatcher(dir, sender, options)
+        }
+    }
+
+    private val fixture = Fixture()
+
+    private lateinit var dir: File
+
+    @BeforeTest
+    fun `set up`() {
+        dir = Files.createTempDirectory("sentry-envelope-watch-test").toFile()
+    }
+
+    @AfterTest
+    fun shutdown() {
+        dir.deleteRecursively()
+    }
+
+    @Test
+    fun `sends files once they are unchanged for the debounce time`() {
+        val file = writeEnvelope("1.envelope")
+        val sut = fixture.getSut(dir)
+
+        sut.scan(0)
+        sut.submitUnchangedFiles(500)
+        verify(fixture.hub, never()).captureEnvelope(any(), any())
+
+        sut.submitUnchangedFiles(1000)
+        sut.close()
+        verify(fixture.hub).captureEnvelope(any(), any())
+        assertFalse(file.exists())
+    }
+
+    @Test
+    fun `waits for files being written`() {
+        val file = File(dir, "1.envelope")
+        file.writeText("{\"event_id\":\"9ec79c33ec9942ab8353589fcb2e04dc\"}\n")
+        val sut = fixture.getSut(dir)
+
+        sut.onFileChanged("1.envelope", 0)
+        file.appendBytes(resource().readBytes().dropWhile { it != '\n'.toByte() }.drop(1).toByteArray())
+        sut.submitUnchangedFiles(1000)
+        verify(fixture.hub, never()).captureEnvelope(any(), any())
+
+        sut.submitUnchangedFiles(2000)
+        sut.close()
+        verify(fixture.hub).captureEnvelope(any(), any())
+    }
+
+    @Test
+    fun `ignores hidden and temporary files`() {
+        writeEnvelope(".1.envelope")
+        writeEnvelope("2.envelope.tmp")
+        val sut = fixture.getSut(dir)
+
+        sut.scan(0)
+        sut.onFileChanged(".1.envelope", 0)
+        sut.submitUnchangedFiles(10000)
+        sut.close()
+        verify(fixture.hub, never()).captureEnvelope(any(), any())
+    }
+
+    @Test
+    fun `retries files after a backoff`() {
+        val file = writeEnvelope("1.envelope")
+        whenever(fixture.hub.captureEnvelope(any(), any())).thenAnswer {
+            (it.arguments[1] as Retryable).isRetry = true
+            SentryId.EMPTY_ID
+        }
+        val sut = fixture.getSut(dir)
+
+        sut.onFileChanged("1.envelope", 0)
+        sut.submitUnchangedFiles(1000)
+        await.untilAsserted {
+            assertEquals(EnvelopeDirectoryWatcher.MIN_RETRY_DELAY_MILLIS, sut.getRetryDelayMillis("1.envelope"))
+        }
+        assertTrue(file.isFile)
+
+        // the file is renamed back when released
+        sut.onFileChanged("1.envelope", 2000)
+        sut.submitUnchangedFiles(3000)
+        verify(fixture.hub, times(1)).captureEnvelope(any(), any())
+
+        await.untilAsserted {
+            sut.submitUnchangedFiles(3000 + EnvelopeDirectoryWatcher.MIN_RETRY_DELAY_MILLIS)
+            verify(fixture.hub, times(2)).captureEnvelope(any(), any())
+        }
+        await.untilAsserted {
+            assertEquals(2 * EnvelopeDirectoryWatcher.MIN_RETRY_DELAY_MILLIS, sut.getRetryDelayMillis("1.envelope"))
+        }
+        sut.close()
+    }
+
+    @Test
+    fun `scan releases stale claims`() {
+        val claimed = writeEnvelope(DirectoryProcessor.CLAIMED_FILE_PREFIX + "1.envelope")
+        claimed.setLastModified(System.currentTimeMillis() - DirectoryProcessor.STALE_CLAIM_MILLIS - 1000)
+        val sut = fixture.getSut(dir)
+
+        sut.scan(0)
+        sut.submitUnchangedFiles(1000)
+        sut.close()
+        verify(fixture.hub).captureEnvelope(any(), any())
+        assertFalse(claimed.exists())
+        assertFalse(File(dir, "1.envelope").exists())
+    }
+
+    @Test
+    fun `scan leaves recent claims alone`() {
+        val claimed = writeEnvelope(DirectoryProcessor.CLAIMED_FILE_PREFIX + "1.envelope")
+        val sut = fixture.getSut(dir)
+
+        sut.scan(0)
+        sut.submitUnchangedFiles(1000)
+        sut.close()
+        verify(fixture.hub, never()).captureEnvelope(any(), any())
+        assertTrue(claimed.exists())
+    }
+
+    @Test
+    fun `integration sends files written after it started`() {
+        fixture.options.envelopeWatchDirPath = dir.absolutePath
+        fixture.options.envelopeWatchDebounceMillis = 50
+        fixture.options.envelopeWatchPollIntervalMillis = 0
+        val sut = EnvelopeDirectoryWatcherIntegration()
+        sut.register(fixture.hub, fixture.options)
+
+        val file = File(dir, "1.envelope.tmp")
+        file.writeBytes(resource().readBytes())
+        file.renameTo(File(dir, "1.envelope"))
+
+        await.untilAsserted { verify(fixture.hub).captureEnvelope(any(), any()) }
+        sut.close()
+    }
+
+    @Test
+    fun `integration does nothing without a dir`() {
+        val sut = EnvelopeDirectoryWatcherIntegration()
+        sut.register(fixture.hub, fixture.options)
+        sut.close()
+        verify(fixture.hub, never()).captureEnvelope(any(), any())
+    }
+
+    private fun resource() = this::class.java.classLoader.getResource("envelope-event-attachment.txt")!!
+
+    private fun writeEnvelope(name: String): File {
+        val file = File(dir, name)
+        file.writeBytes(resource().readBytes())
+        return file
+    }
+}
@@ -0,0 +1,113 @@
+package io.sentry
+
+import com.google.gson.GsonBuilder
+import io.sentry.protocol.SentryId
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNotNull
+import kotlin.test.assertNull
+
+class EnvelopeHeaderScannerTest {
+
+    private val gson = GsonBuilder()
+        .registerTypeAdapter(SentryEnvelopeHeader::class.java, SentryEnvelopeHeaderAdapter())
+        .registerTypeAdapter(SentryEnvelopeItemHeader::class.java, SentryEnvelopeItemHeaderAdapter())
+        .create()
+
+    private fun scanEnvelopeHeader(json: String): SentryEnvelopeHeader? {
+        // surrounding bytes make sure the scanner stays within its range
+        val bytes = "x$json\n".toByteArray()
+        return EnvelopeHeaderScanner.scanEnvelopeHeader(bytes, 1, bytes.size - 2)
+    }
+
+    private fun scanItemHeader(json: String): SentryEnvelopeItemHeader? {
+        val bytes = "x$json\n".toByteArray()
+        return EnvelopeHeaderScanner.scanItemHeader(bytes, 1, bytes.size - 2)
+    }
+
+    private fun assertSameAsGson(json: String) {
+        val expected = gson.fromJson(json, SentryEnvelopeHeader::class.java)
+        val actual = scanEnvelopeHeader(json)
+        assertNotNull(actual)
+        assertEquals(expected.eventId, actual.eventId)
+        assertEquals(expected.sdkVersion?.name, actual.sdkVersion?.name)
+        assertEquals(expected.sdkVersion?.version, actual.sdkVersion?.version)
+        assertEquals(expected.sdkVersion?.integrations, actual.sdkVersion?.integrations)
+        assertEquals(expected.sdkVersion?.packages?.map { it.name to it.version }, actual.sdkVersion?.packages?.map { it.name to it.version })
+    }
+
+    private fun assertItemSameAsGson(json: String) {
+        val expected = gson.fromJson(json, SentryEnvelopeItemHeader::class.java)
+        val actual = scanItemHeader(json)
+        assertNotNull(actual)
+        assertEquals(expected.type, actual.type)
+        assertEquals(expected.length, actual.length)
+        assertEquals(expected.contentType, actual.contentType)
+        assertEquals(expected.fileName, actual.fileName)
+    }
+
+    @Test
+    fun `scans envelope header like gson`() {
+        assertSameAsGson("{\"event_id\":\"${SentryId()}\"}")
+        assertSameAsGson("{}")
+        assertSameAsGson(" { \"event_id\" : \"${SentryId()}\" , \"sdk\" : { \"name\" : \"test\" , \"version\" : \"1.2.3\" } } ")
+        assertSameAsGson("{\"sdk\":{\"name\":\"test\",\"version\":\"1.2.3\",\"integrations\":[\"NdkIntegration\",\"Ok\"],\"packages\":[{\"name\":\"io.sentry:sentry\",\"version\":\"4.5.6\"},{\"name\":\"no-version\"}]}}")
+    }
+
+    @Test
+    fun `item types survive a write and read round trip`() {
+        SentryItemType.values().filter { it != SentryItemType.Unknown }.forEach { type ->
+            val json = gson.toJson(SentryEnvelopeItemHeader(type, 2, null, null))
+
+            val scanned = scanItemHeader(json)!!
+            assertEquals(type, scanned.type)
+            assertEquals(type, gson.fromJson(json, SentryEnvelopeItemHeader::class.java).type)
+            assertEquals(json, gson.toJson(scanned))
+        }
+    }
+
+    @Test
+    fun `unknown item types are read as Unknown`() {
+        assertItemSameAsGson("{\"type\":\"new_type\",\"length\":2}")
+    }
+
+    @Test
+    fun `skips unknown fields of any type`() {
+        assertSameAsGson("{\"unknown\":{\"a\":[1,2.5e3,{\"b\":null}],\"c\":true},\"event_id\":\"${SentryId()}\",\"sdk\":{\"other\":false,\"name\":\"test\"},\"n\":-1}")
+        assertItemSameAsGson("{\"type\":\"event\",\"extra\":[\"x\",{}],\"length\":10}")
+    }
+
+    @Test
+    fun `scans item header like gson`() {
+        assertItemSameAsGson("{\"content_type\":\"application/json\",\"type\":\"session\",\"length\":306}")
+        assertItemSameAsGson("{\"content_type\":\"text/plain\",\"filename\":\"données.txt\",\"type\":\"attachment\",\"length\":2147483647}")
+        assertItemSameAsGson("{\"type\":\"user_report\",\"length\":-1}")
+        assertItemSameAsGson("{\"type\":\"unknown_type\"}")
+    }
+
+    @Test
+    fun `returns null for headers left to gson`() {
+        // escaped characters
+        assertNull(scanItemHeader("{\"filename\":\"a\\\"b.txt\",\"type\":\"attachment\",\"length\":1}"))
+        // values of another type than the schema
+        assertNull(scanItemHeader("{\"type\":\"event\",\"length\":\"10\"}"))
+        assertNull(scanItemHeader("{\"type\":\"event\",\"length\":1.0}"))
+        assertNull(scanItemHeader("{\"type\":null,\"length\":1}"))
+        assertNull(scanItemHeader("{\"type\":\"event\",\"length\":99999999999}"))
+        assertNull(scanEnvelopeHeader("{\"sdk\":null}"))
+        assertNull(scanEnvelopeHeader("null"))
+        // malformed
+        assertNull(scanEnvelopeHeader("{\"event_id\":\"${SentryId()}\""))
+        assertNull(scanEnvelopeHeader("{\"sdk\":{\"integrations\":[\"a\"}}"))
+        assertNull(scanItemHeader("{\"type\":\"event\",}"))
+        assertNull(scanItemHeader("{\"type\":\"event\"} trailing"))
+        assertNull(scanItemHeader(""))
+    }
+
+    @Test
+    fun `envelope reader falls back to gson for headers the scanner doesn't support`() {
+        val envelope = "{\"event_id\":\"${SentryId()}\"}\n{\"filename\":\"a\\\"b.txt\",\"type\":\"attachment\",\"length\":1}\na"
+        val actual = EnvelopeReader().read(envelope.byteInputStream())
+        assertEquals("a\"b.txt", actual!!.items.single().header.fileName)
+    }
+}
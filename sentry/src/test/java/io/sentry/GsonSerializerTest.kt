@@ -13,6 +13,7 @@ import io.sentry.protocol.Device
 import io.sentry.protocol.SdkVersion
 import io.sentry.protocol.SentryId
 import java.io.BufferedWriter
+import java.io.File
 import java.io.ByteArrayInputStream
 import java.io.ByteArrayOutputStream
 import java.io.IOException
@@ -141,6 +142,19 @@ class GsonSerializerTest {
         assertEquals(expected, actual!!.timestamp)
     }
 
+    @Test
+    fun `when serializing event with many breadcrumbs, timestamps round trip`() {
+        val sentryEvent = generateEmptySentryEvent(DateUtils.getDateTime(1581410911988))
+        for (i in 0 until 100) {
+            sentryEvent.addBreadcrumb(Breadcrumb(DateUtils.getDateTime(1581410911988 + i * 1001L)))
+        }
+
+        val actual = fixture.serializer.deserialize(StringReader(serializeToString(sentryEvent)), SentryEvent::class.java)
+
+        assertEquals(sentryEvent.timestamp, actual!!.timestamp)
+        assertEquals(sentryEvent.breadcrumbs!!.map { it.timestamp }, actual.breadcrumbs!!.map { it.timestamp })
+    }
+
     @Test
     fun `when deserializing unknown properties, it should be added to unknown field`() {
         val sentryEvent = generateEmptySentryEvent()
@@ -422,6 +436,18 @@ class GsonSerializerTest {
         })
     }
 
+    @Test
+    fun `When serializing an envelope, the item types survive the round trip`() {
+        val types = SentryItemType.values().filter { it != SentryItemType.Unknown }
+        val items = types.map { SentryEnvelopeItem(SentryEnvelopeItemHeader(it, 2, "application/json", null), "{}".toByteArray()) }
+        val sentryEnvelope = SentryEnvelope(SentryId(), null, items)
+
+        val jsonEnvelope = serializeToString(sentryEnvelope)
+        val envelope = fixture.serializer.deserializeEnvelope(ByteArrayInputStream(jsonEnvelope.toByteArray(Charsets.UTF_8)))!!
+
+        assertEquals(types, envelope.items.map { it.header.type })
+    }
+
     @Test
     fun `when serializing a data map, data should be stringfied`() {
         val data = mapOf("a" to "b")
@@ -452,6 +478,9 @@ class GsonSerializerTest {
         assertNotNull(element["start_timestamp"].asString)
         assertNotNull(element["event_id"].asString)
         assertNotNull(element["spans"].asJsonArray)
+        val microsTimestamp = Regex("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{6}Z")
+        assertTrue(microsTimestamp.matches(element["start_timestamp"].asString))
+        assertTrue(microsTimestamp.matches(element["spans"].asJsonArray[0].asJsonObject["timestamp"].asString))
         val jsonTrace = element["contexts"].asJsonObject["trace"]
         assertNotNull(jsonTrace.asJsonObject["trace_id"].asString)
         assertNotNull(jsonTrace.asJsonObject["span_id"].asString)
@@ -544,6 +573,40 @@ class GsonSerializerTest {
                         any<SentryEnvelopeException>())
     }
 
+    @Test
+    fun `serialize envelope with file attachment streams the file`() {
+        val file = File.createTempFile("attachment", ".txt")
+        file.deleteOnExit()
+        file.writeText("file content")
+        val eventID = SentryId()
+        val attachment = Attachment(file.absolutePath, "file.txt")
+        val item = SentryEnvelopeItem.fromAttachment(attachment, 1024)
+        val envelope = SentryEnvelope(SentryEnvelopeHeader(eventID), listOf(item))
+
+        val actualJson = serializeToString(envelope)
+
+        val expectedJson = "{\"event_id\":\"${eventID}\"}\n" +
+                "{\"content_type\":\"${attachment.contentType}\"," +
+                "\"filename\":\"file.txt\"," +
+                "\"type\":\"attachment\",\"length\":12}\n" +
+                "file content\n"
+        assertEquals(expectedJson, actualJson)
+    }
+
+    @Test
+    fun `serialize envelope with file attachment writes the length of the header if the file grows`() {
+        val file = File.createTempFile("attachment", ".txt")
+        file.deleteOnExit()
+        file.writeText("line 1\n")
+        val item = SentryEnvelopeItem.fromAttachment(Attachment(file.absolutePath, "file.txt"), 1024)
+        assertEquals(7, item.header.length)
+        file.appendText("line 2\n")
+
+        val actualJson = serializeToString(SentryEnvelope(SentryEnvelopeHeader(SentryId()), listOf(item)))
+
+        assertTrue(actualJson.endsWith("\"length\":7}\nline 1\n\n"))
+    }
+
     @Test
     fun `empty maps are serialized to null`() {
         val event = SentryEvent()
@@ -31,7 +31,9 @@ import kotlin.test.assertEquals
 import kotlin.test.assertFailsWith
 import kotlin.test.assertFalse
 import kotlin.test.assertNotNull
+import kotlin.test.assertNotSame
 import kotlin.test.assertNull
+import kotlin.test.assertSame
 import kotlin.test.assertTrue
 
 class HubTest {
@@ -106,6 +108,88 @@ class HubTest {
         assertEquals("b", cloneScope!!.tags["hub"])
     }
 
+    @Test
+    fun `when hub is forked, scope changes are isolated`() {
+        val options = SentryOptions()
+        options.cacheDirPath = file.absolutePath
+        options.dsn = "https://key@sentry.io/proj"
+        options.setSerializer(mock())
+        val hub = Hub(options)
+        var firstScope: Scope? = null
+        hub.configureScope {
+            firstScope = it
+            it.setTag("hub", "a")
+        }
+        var forkScope: Scope? = null
+        val fork = hub.fork()
+        fork.configureScope {
+            forkScope = it
+            assertEquals("a", it.tags["hub"])
+            it.setTag("hub", "b")
+        }
+        assertEquals("a", firstScope!!.tags["hub"])
+        assertEquals("b", forkScope!!.tags["hub"])
+    }
+
+    @Test
+    fun `when hub is forked, only the top-most scope is copied`() {
+        val options = SentryOptions()
+        options.cacheDirPath = file.absolutePath
+        options.dsn = "https://key@sentry.io/proj"
+        options.setSerializer(mock())
+        val hub = Hub(options)
+        hub.pushScope()
+        hub.setTag("top", "value")
+
+        val fork = hub.fork()
+        fork.popScope()
+
+        var tags: Map<String, String>? = null
+        fork.configureScope { tags = it.tags }
+        assertEquals(mapOf("top" to "value"), tags)
+    }
+
+    @Test
+    fun `when hub is forked, the active span is pinned to the fork`() {
+        val options = SentryOptions()
+        options.cacheDirPath = file.absolutePath
+        options.dsn = "https://key@sentry.io/proj"
+        options.setSerializer(mock())
+        val hub = Hub(options)
+        val transaction = hub.startTransaction("name", "op")
+        hub.configureScope { it.setTransaction(transaction) }
+        val span = transaction.startChild("op")
+
+        val fork = hub.fork()
+        span.startChild("other")
+
+        assertEquals(span, fork.span)
+    }
+
+    @Test
+    fun `when hub is snapshotted, the snapshot is reused until the scope changes`() {
+        val options = SentryOptions()
+        options.cacheDirPath = file.absolutePath
+        options.dsn = "https://key@sentry.io/proj"
+        options.setSerializer(mock())
+        val hub = Hub(options)
+        hub.setTag("tag", "a")
+
+        val snapshot = hub.snapshot()
+        hub.fork()
+        assertSame(snapshot, hub.snapshot())
+
+        hub.setTag("tag", "b")
+        val changed = hub.snapshot()
+        assertNotSame(snapshot, changed)
+        var tags: Map<String, String>? = null
+        snapshot.configureScope { tags = it.tags }
+        assertEquals(mapOf("tag" to "a"), tags)
+
+        hub.setUser(User())
+        assertNotSame(changed, hub.snapshot())
+    }
+
     @Test
     fun `when hub is initialized, breadcrumbs are capped as per options`() {
         val options = SentryOptions()
@@ -354,6 +438,43 @@ class HubTest {
     }
     //endregion
 
+    //region captureEvents tests
+    @Test
+    fun `when captureEvents is called on disabled client, returns empty ids`() {
+        val (sut, mockClient) = getEnabledHub()
+        sut.close()
+
+        val ids = sut.captureEvents(listOf(SentryEvent(), SentryEvent()))
+        verify(mockClient, never()).captureEvents(any(), anyOrNull(), anyOrNull())
+        assertEquals(listOf(SentryId.EMPTY_ID, SentryId.EMPTY_ID), ids)
+    }
+
+    @Test
+    fun `when captureEvents is called with null on disabled client, returns no ids`() {
+        val (sut, mockClient) = getEnabledHub()
+        sut.close()
+
+        // the parameter is not nullable in Kotlin
+        val ids = Hub::class.java.getMethod("captureEvents", Collection::class.java, Any::class.java)
+            .invoke(sut, null, null)
+        verify(mockClient, never()).captureEvents(any(), anyOrNull(), anyOrNull())
+        assertEquals(emptyList<SentryId>(), ids)
+    }
+
+    @Test
+    fun `when captureEvents is called, captureEvents on the client should be called with the scope`() {
+        val (sut, mockClient) = getEnabledHub()
+        val events = listOf(SentryEvent(), SentryEvent())
+        whenever(mockClient.captureEvents(any(), any(), anyOrNull())).thenReturn(events.map { it.eventId })
+
+        val hint = { }
+        val ids = sut.captureEvents(events, hint)
+        verify(mockClient).captureEvents(eq(events), any(), eq(hint))
+        assertEquals(events.map { it.eventId }, ids)
+        assertEquals(events[1].eventId, sut.lastEventId)
+    }
+    //endregion
+
     //region captureMessage tests
     @Test
     fun `when captureMessage is called and event is null, lastEventId is empty`() {
@@ -1027,6 +1148,55 @@ class HubTest {
         verify(mockClient, times(0)).captureTransaction(any(), any(), eq(null))
     }
 
+    @Test
+    fun `when captureTransaction and transaction is not sampled but failed, with tail sampling, captureTransaction on the client should be called`() {
+        val (sut, mockClient) = getEnabledHub()
+        sut.options.isEnableTailSampling = true
+
+        val transaction = SentryTransaction("name", SpanContext("op", false), NoOpHub.getInstance())
+        transaction.status = SpanStatus.INTERNAL_ERROR
+        sut.captureTransaction(transaction, null)
+        verify(mockClient).captureTransaction(eq(transaction), any(), eq(null))
+    }
+
+    @Test
+    fun `when captureTransaction and transaction is not sampled and succeeded, with tail sampling, captureTransaction on the client should not be called`() {
+        val (sut, mockClient) = getEnabledHub()
+        sut.options.isEnableTailSampling = true
+
+        val transaction = SentryTransaction("name", SpanContext("op", false), NoOpHub.getInstance())
+        transaction.status = SpanStatus.OK
+        sut.captureTransaction(transaction, null)
+        verify(mockClient, never()).captureTransaction(any(), any(), any())
+    }
+
+    @Test
+    fun `when captureTransaction with tail sampling, clones and forks of the hub record to the same windows`() {
+        val (sut, _) = getEnabledHub()
+        sut.options.isEnableTailSampling = true
+
+        listOf(sut, sut.clone(), sut.fork(), sut.clone().clone()).forEach {
+            val transaction = SentryTransaction("name", SpanContext("op", false), NoOpHub.getInstance())
+            transaction.finish(SpanStatus.OK)
+            it.captureTransaction(transaction, null)
+        }
+
+        assertEquals(4, sut.options.tailSampler.getDurationCount("name"))
+    }
+
+    @Test
+    fun `when captureTransaction and transaction metrics are enabled, records unsampled transactions`() {
+        val (sut, mockClient) = getEnabledHub()
+        sut.options.isEnableTransactionMetrics = true
+
+        val transaction = SentryTransaction("name", SpanContext("op", false), NoOpHub.getInstance())
+        transaction.finish(SpanStatus.OK)
+        sut.captureTransaction(transaction, null)
+
+        verify(mockClient, never()).captureTransaction(any(), any(), any())
+        assertEquals(1, sut.options.transactionMetricsAggregator.flush()!!.histograms.single().count)
+    }
+
     @Test
     fun `when transaction is set on scope, captureTransaction clears it from the scope`() {
         val options = SentryOptions()
@@ -1092,6 +1262,30 @@ class HubTest {
         assertFalse(transaction.isSampled!!)
     }
 
+    @Test
+    fun `when startTransaction and profiling is enabled, profiles sampled transactions`() {
+        val options = SentryOptions().apply {
+            dsn = "https://key@sentry.io/proj"
+            cacheDirPath = file.absolutePath
+            setSerializer(mock())
+        }
+        val profiler = TransactionProfiler(options)
+        options.transactionProfiler = profiler
+        val hub = Hub(options)
+
+        options.tracesSampleRate = 1.0
+        val sampled = hub.startTransaction("sampled", "op")
+        assertEquals(1, profiler.activeProfileCount)
+
+        options.tracesSampleRate = null
+        hub.startTransaction("not sampled", "op")
+        assertEquals(1, profiler.activeProfileCount)
+
+        sampled.finish()
+        assertEquals(0, profiler.activeProfileCount)
+        profiler.close()
+    }
+
     @Test
     fun `when startTransaction with parent sampled and no traces sampler provided, transaction inherits sampling decision`() {
         val hub = generateHub()
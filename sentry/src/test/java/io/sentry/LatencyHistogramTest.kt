@@ -0,0 +1,60 @@
+package io.sentry
+
+import kotlin.test.Test
+import kotlin.test.assertEquals
+
+class LatencyHistogramTest {
+
+    @Test
+    fun `counts latencies in power of two buckets`() {
+        val sut = LatencyHistogram()
+        sut.record(0)
+        sut.record(1)
+        sut.record(5)
+        sut.record(7)
+        sut.record(8)
+
+        val buckets = sut.bucketCounts
+        assertEquals(1, buckets[0])
+        assertEquals(1, buckets[1])
+        assertEquals(2, buckets[3])
+        assertEquals(1, buckets[4])
+        assertEquals(5, sut.count)
+        assertEquals(21, sut.totalNanos)
+    }
+
+    @Test
+    fun `negative latencies count as 0`() {
+        val sut = LatencyHistogram()
+        sut.record(-10)
+
+        assertEquals(1, sut.bucketCounts[0])
+        assertEquals(0, sut.totalNanos)
+    }
+
+    @Test
+    fun `percentile returns the upper bound of the bucket`() {
+        val sut = LatencyHistogram()
+        repeat(98) { sut.record(100) }
+        repeat(2) { sut.record(5000) }
+
+        assertEquals(127, sut.getPercentileNanos(0.5))
+        assertEquals(8191, sut.getPercentileNanos(0.99))
+    }
+
+    @Test
+    fun `percentile of an empty histogram is 0`() {
+        assertEquals(0, LatencyHistogram().getPercentileNanos(0.99))
+    }
+
+    @Test
+    fun `sums the stripes of all threads`() {
+        val sut = LatencyHistogram()
+        val threads = (1..16).map { Thread { repeat(1000) { sut.record(10) } } }
+        threads.forEach { it.start() }
+        threads.forEach { it.join() }
+
+        assertEquals(16000, sut.count)
+        assertEquals(160000, sut.totalNanos)
+    }
+}
@@ -0,0 +1,99 @@
+package io.sentry
+
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+class LogBreadcrumbsTest {
+
+    private val formatter = LogBreadcrumbs.MessageFormatter { "formatted $it" }
+
+    @Test
+    fun `materializes breadcrumbs oldest first`() {
+        val sut = LogBreadcrumbs(3)
+        sut.add(1000, SentryLevel.INFO, "logger", "a", formatter, NoOpLogger.getInstance())
+        sut.add(2000, SentryLevel.ERROR, "other", "b", formatter, NoOpLogger.getInstance())
+
+        val breadcrumbs = sut.merge(listOf())
+
+        assertEquals(listOf("formatted a", "formatted b"), breadcrumbs.map { it.message })
+        assertEquals(listOf(1000L, 2000L), breadcrumbs.map { it.timestamp.time })
+        assertEquals(listOf(SentryLevel.INFO, SentryLevel.ERROR), breadcrumbs.map { it.level })
+        assertEquals(listOf("logger", "other"), breadcrumbs.map { it.category })
+    }
+
+    @Test
+    fun `overwrites the oldest breadcrumbs when full`() {
+        val sut = LogBreadcrumbs(2)
+        sut.add(1, null, null, "a", formatter, NoOpLogger.getInstance())
+        sut.add(2, null, null, "b", formatter, NoOpLogger.getInstance())
+        sut.add(3, null, null, "c", formatter, NoOpLogger.getInstance())
+
+        val breadcrumbs = sut.merge(listOf())
+
+        assertEquals(listOf("formatted b", "formatted c"), breadcrumbs.map { it.message })
+    }
+
+    @Test
+    fun `formats messages when they are added`() {
+        val arguments = mutableListOf("a")
+        val sut = LogBreadcrumbs(2)
+        sut.add(1, null, null, arguments, formatter, NoOpLogger.getInstance())
+        arguments[0] = "b"
+
+        assertEquals("formatted [a]", sut.merge(listOf()).single().message)
+    }
+
+    @Test
+    fun `creates the breadcrumbs once`() {
+        val sut = LogBreadcrumbs(2)
+        sut.add(1, null, null, "a", formatter, NoOpLogger.getInstance())
+
+        assertSame(sut.merge(listOf()).single(), sut.merge(listOf()).single())
+        assertSame(sut.merge(listOf()).single(), sut.copy().merge(listOf()).single())
+    }
+
+    @Test
+    fun `merges breadcrumbs by date`() {
+        val sut = LogBreadcrumbs(3)
+        sut.add(1000, null, null, "log 1", formatter, NoOpLogger.getInstance())
+        sut.add(3000, null, null, "log 3", formatter, NoOpLogger.getInstance())
+        val breadcrumbs = listOf(Breadcrumb(DateUtils.getDateTime(2000)).apply { message = "2" },
+            Breadcrumb(DateUtils.getDateTime(3000)).apply { message = "3" },
+            Breadcrumb(DateUtils.getDateTime(4000)).apply { message = "4" })
+
+        assertEquals(listOf("formatted log 1", "2", "3", "formatted log 3", "4"), sut.merge(breadcrumbs).map { it.message })
+    }
+
+    @Test
+    fun `uses the raw message when formatting fails`() {
+        val sut = LogBreadcrumbs(2)
+        sut.add(1, null, null, "a", { throw IllegalArgumentException() }, NoOpLogger.getInstance())
+
+        val breadcrumbs = sut.merge(listOf())
+        assertEquals("a", breadcrumbs.single().message)
+    }
+
+    @Test
+    fun `copy is independent of the original`() {
+        val sut = LogBreadcrumbs(2)
+        sut.add(1, null, null, "a", formatter, NoOpLogger.getInstance())
+        val copy = sut.copy()
+        sut.add(2, null, null, "b", formatter, NoOpLogger.getInstance())
+        sut.clear()
+
+        assertTrue(sut.isEmpty)
+        assertFalse(copy.isEmpty)
+        val breadcrumbs = copy.merge(listOf())
+        assertEquals(listOf("formatted a"), breadcrumbs.map { it.message })
+    }
+
+    @Test
+    fun `ignores breadcrumbs without capacity`() {
+        val sut = LogBreadcrumbs(0)
+        sut.add(1, null, null, "a", formatter, NoOpLogger.getInstance())
+        assertTrue(sut.isEmpty)
+    }
+}
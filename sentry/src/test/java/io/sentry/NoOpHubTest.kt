@@ -74,6 +74,9 @@ class NoOpHubTest {
     @Test
     fun `clone returns the same instance`() = assertSame(NoOpHub.getInstance(), sut.clone())
 
+    @Test
+    fun `fork returns the same instance`() = assertSame(NoOpHub.getInstance(), sut.fork())
+
     @Test
     fun `traceHeaders is not null`() {
         assertNotNull(sut.traceHeaders())
@@ -8,6 +8,7 @@ import com.nhaarman.mockitokotlin2.never
 import com.nhaarman.mockitokotlin2.verify
 import com.nhaarman.mockitokotlin2.whenever
 import io.sentry.cache.EnvelopeCache
+import io.sentry.hints.Cached
 import io.sentry.hints.Retryable
 import io.sentry.protocol.SentryId
 import java.io.File
@@ -109,6 +110,35 @@ class OutboxSenderTest {
         verify(fixture.logger, never()).log(eq(SentryLevel.ERROR), any<String>(), any())
     }
 
+    @Test
+    fun `when hint does not apply the scope and no callback is set, envelope is forwarded without deserializing events`() {
+        fixture.envelopeReader = EnvelopeReader()
+        whenever(fixture.hub.options).thenReturn(SentryOptions())
+
+        val sut = fixture.getSut()
+        val path = getTempEnvelope()
+        sut.processEnvelopeFile(path, CachedHint())
+
+        verify(fixture.hub).captureEnvelope(argWhere { it.items.count() == 3 }, any())
+        verify(fixture.hub, never()).captureEvent(any(), any())
+        verify(fixture.serializer, never()).deserialize(any(), eq(SentryEvent::class.java))
+        assertFalse(File(path).exists())
+    }
+
+    @Test
+    fun `when hint does not apply the scope and beforeSend is set, events are captured`() {
+        fixture.envelopeReader = EnvelopeReader()
+        whenever(fixture.hub.options).thenReturn(SentryOptions().apply { setBeforeSend { e, _ -> e } })
+        whenever(fixture.serializer.deserialize(any(), eq(SentryEvent::class.java))).thenReturn(SentryEvent(SentryId("9ec79c33ec9942ab8353589fcb2e04dc"), Date()))
+
+        val sut = fixture.getSut()
+        val path = getTempEnvelope()
+        sut.processEnvelopeFile(path, CachedHint())
+
+        verify(fixture.hub).captureEvent(any(), any())
+        assertFalse(File(path).exists())
+    }
+
     @Test
     fun `when parser is EnvelopeReader and serializer returns a null event, file error logged, no event captured `() {
         fixture.envelopeReader = EnvelopeReader()
@@ -193,4 +223,14 @@ class OutboxSenderTest {
     fun `when file name is relevant, should return true`() {
         assertTrue(fixture.getSut().isRelevantFileName("123.envelope"))
     }
+
+    private class CachedHint : Cached, Retryable {
+        private var retry = false
+
+        override fun isRetry(): Boolean = retry
+
+        override fun setRetry(retry: Boolean) {
+            this.retry = retry
+        }
+    }
 }
@@ -14,10 +14,89 @@ import kotlin.test.assertEquals
 import kotlin.test.assertNotNull
 import kotlin.test.assertNotSame
 import kotlin.test.assertNull
+import kotlin.test.assertSame
 import kotlin.test.assertTrue
 import org.junit.Assert.assertArrayEquals
 
 class ScopeTest {
+    @Test
+    fun `forked scope shares the breadcrumbs until it adds one`() {
+        val scope = Scope(SentryOptions())
+        scope.addBreadcrumb(Breadcrumb("parent"))
+
+        val fork = scope.fork()
+        assertSame(scope.breadcrumbs, fork.breadcrumbs)
+
+        fork.addBreadcrumb(Breadcrumb("fork"))
+        assertNotSame(scope.breadcrumbs, fork.breadcrumbs)
+        assertEquals(listOf("parent"), scope.breadcrumbs.map { it.message })
+        assertEquals(listOf("parent", "fork"), fork.breadcrumbs.map { it.message })
+    }
+
+    @Test
+    fun `scope copies the breadcrumbs shared with its fork when it adds one`() {
+        val scope = Scope(SentryOptions())
+        scope.addBreadcrumb(Breadcrumb("parent"))
+
+        val fork = scope.fork()
+        val shared = fork.breadcrumbs
+        scope.addBreadcrumb(Breadcrumb("later"))
+
+        assertSame(shared, fork.breadcrumbs)
+        assertEquals(listOf("parent"), fork.breadcrumbs.map { it.message })
+        assertEquals(listOf("parent", "later"), scope.breadcrumbs.map { it.message })
+    }
+
+    @Test
+    fun `forked scope shares the collections it does not change`() {
+        val scope = Scope(SentryOptions())
+        scope.setTag("tag", "parent")
+        scope.setExtra("extra", "parent")
+        scope.setContexts("context", "parent")
+        scope.addAttachment(Attachment("a".toByteArray(), "a.txt"))
+
+        val fork = scope.fork()
+        fork.setTag("tag", "fork")
+        fork.clearBreadcrumbs()
+
+        assertNotSame(scope.tags, fork.tags)
+        assertSame(scope.extras, fork.extras)
+        assertSame(scope.peekContexts(), fork.peekContexts())
+        assertEquals("parent", scope.tags["tag"])
+        assertEquals("fork", fork.tags["tag"])
+
+        fork.setExtra("extra", "fork")
+        fork.setContexts("context", "fork")
+        fork.addAttachment(Attachment("b".toByteArray(), "b.txt"))
+        assertEquals("parent", scope.extras["extra"])
+        assertEquals(mapOf("value" to "parent"), scope.contexts["context"])
+        assertEquals(1, scope.attachments.size)
+        assertEquals(2, fork.attachments.size)
+    }
+
+    @Test
+    fun `forked scope gets a copy of the user`() {
+        val scope = Scope(SentryOptions())
+        scope.user = User().apply { id = "parent" }
+
+        val fork = scope.fork()
+        fork.user!!.id = "fork"
+
+        assertEquals("parent", scope.user!!.id)
+    }
+
+    @Test
+    fun `clearing a forked scope leaves the scope it forked`() {
+        val scope = Scope(SentryOptions())
+        scope.setTag("tag", "parent")
+        scope.addBreadcrumb(Breadcrumb("parent"))
+
+        scope.fork().clear()
+
+        assertEquals("parent", scope.tags["tag"])
+        assertEquals(1, scope.breadcrumbs.size)
+    }
+
     @Test
     fun `cloning scope wont have the same references`() {
         val scope = Scope(SentryOptions())
@@ -284,6 +363,71 @@ class ScopeTest {
         assertEquals(1, scope.breadcrumbs.count())
     }
 
+    @Test
+    fun `log breadcrumbs are created only when breadcrumbs are copied`() {
+        val options = SentryOptions().apply { maxBreadcrumbs = 3 }
+        val scope = Scope(options)
+        scope.addBreadcrumb(Breadcrumb(DateUtils.getDateTime(2000)).apply { message = "manual" })
+        scope.addLogBreadcrumb(1000, SentryLevel.INFO, "logger", "first") { it.toString() }
+        scope.addLogBreadcrumb(3000, SentryLevel.INFO, "logger", "last") { it.toString() }
+
+        assertEquals(1, scope.breadcrumbs.count())
+        assertEquals(listOf("first", "manual", "last"), scope.copyBreadcrumbs().map { it.message })
+    }
+
+    @Test
+    fun `copied breadcrumbs are limited to maxBreadcrumbs`() {
+        val options = SentryOptions().apply { maxBreadcrumbs = 2 }
+        val scope = Scope(options)
+        scope.addBreadcrumb(Breadcrumb(DateUtils.getDateTime(2000)).apply { message = "manual" })
+        scope.addLogBreadcrumb(1000, null, null, "first") { it.toString() }
+        scope.addLogBreadcrumb(3000, null, null, "last") { it.toString() }
+
+        assertEquals(listOf("manual", "last"), scope.copyBreadcrumbs().map { it.message })
+    }
+
+    @Test
+    fun `copied breadcrumbs are limited to maxBreadcrumbs lowered after the scope was created`() {
+        val options = SentryOptions().apply { maxBreadcrumbs = 3 }
+        val scope = Scope(options)
+        scope.addBreadcrumb(Breadcrumb().apply { message = "first" })
+        scope.addBreadcrumb(Breadcrumb().apply { message = "second" })
+        scope.addBreadcrumb(Breadcrumb().apply { message = "third" })
+
+        options.maxBreadcrumbs = 1
+
+        assertEquals(listOf("third"), scope.copyBreadcrumbs().map { it.message })
+    }
+
+    @Test
+    fun `log breadcrumbs go through beforeBreadcrumb`() {
+        val options = SentryOptions().apply {
+            setBeforeBreadcrumb { breadcrumb, _ -> breadcrumb.apply { message = "changed" } }
+        }
+        val scope = Scope(options)
+        scope.addLogBreadcrumb(1000, null, null, "message") { it.toString() }
+
+        assertEquals("changed", scope.breadcrumbs.single().message)
+        assertEquals(listOf("changed"), scope.copyBreadcrumbs().map { it.message })
+    }
+
+    @Test
+    fun `clearing breadcrumbs clears log breadcrumbs`() {
+        val scope = Scope(SentryOptions())
+        scope.addLogBreadcrumb(1000, null, null, "message") { it.toString() }
+        scope.clearBreadcrumbs()
+        assertTrue(scope.copyBreadcrumbs().isEmpty())
+    }
+
+    @Test
+    fun `cloned scope keeps its own log breadcrumbs`() {
+        val scope = Scope(SentryOptions())
+        scope.addLogBreadcrumb(1000, null, null, "message") { it.toString() }
+        val clone = scope.clone()
+        scope.clearBreadcrumbs()
+        assertEquals(listOf("message"), clone.copyBreadcrumbs().map { it.message })
+    }
+
     @Test
     fun `when adding eventProcessor, eventProcessor should be in the list`() {
         val processor = CustomEventProcessor()
@@ -669,6 +813,30 @@ class ScopeTest {
         assertEquals(innerSpan, scope.span)
     }
 
+    @Test
+    fun `Scope getSpan returns the pinned active span while it is not finished`() {
+        val scope = Scope(SentryOptions())
+        val transaction = SentryTransaction("name", "op")
+        scope.setTransaction(transaction)
+        val span = transaction.startChild("op")
+        scope.setActiveSpan(span)
+        val laterSpan = transaction.startChild("op")
+        assertEquals(span, scope.span)
+
+        span.finish()
+        assertEquals(laterSpan, scope.span)
+    }
+
+    @Test
+    fun `Scope clearTransaction unpins the active span`() {
+        val scope = Scope(SentryOptions())
+        val transaction = SentryTransaction("name", "op")
+        scope.setTransaction(transaction)
+        scope.setActiveSpan(transaction.startChild("op"))
+        scope.clearTransaction()
+        assertNull(scope.span)
+    }
+
     @Test
     fun `attachments are thread safe`() {
         val scope = Scope(SentryOptions())
@@ -751,4 +919,49 @@ class ScopeTest {
             assertNull(it)
         }
     }
+
+    @Test
+    fun `when session aggregation is disabled, request session is not counted`() {
+        val options = SentryOptions().apply { release = "1.0" }
+        val scope = Scope(options)
+
+        scope.startRequestSession()
+        scope.endRequestSession()
+
+        assertTrue(options.sessionAggregator.flush(true).isEmpty())
+    }
+
+    @Test
+    fun `request session is counted once with its worst outcome`() {
+        val options = SentryOptions().apply {
+            release = "1.0"
+            environment = "production"
+            isEnableSessionAggregation = true
+        }
+        val scope = Scope(options)
+
+        scope.startRequestSession()
+        scope.updateRequestSession(true)
+        scope.updateRequestSession(false)
+        scope.endRequestSession()
+        scope.endRequestSession()
+
+        val aggregates = options.sessionAggregator.flush(true).single()
+        assertEquals("1.0", aggregates.attrs.release)
+        assertEquals("production", aggregates.attrs.environment)
+        assertEquals(1, aggregates.aggregates.single().crashed)
+        assertEquals(0, aggregates.aggregates.single().errored)
+    }
+
+    @Test
+    fun `when release is not set, request session is not started`() {
+        val options = SentryOptions().apply { isEnableSessionAggregation = true }
+        val scope = Scope(options)
+
+        scope.startRequestSession()
+        scope.updateRequestSession(false)
+        scope.endRequestSession()
+
+        assertTrue(options.sessionAggregator.flush(true).isEmpty())
+    }
 }
@@ -0,0 +1,89 @@
+package io.sentry
+
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.verifyZeroInteractions
+import java.lang.management.ManagementFactory
+import javax.management.ObjectName
+import javax.management.openmbean.TabularData
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class SdkMetricsIntegrationTest {
+
+    private class Fixture {
+        val hub = mock<IHub>()
+        val listener = mock<SentryOptions.SdkMetricsListener>()
+        val options = SentryOptions().apply {
+            sdkMetricsListener = listener
+        }
+
+        fun getSut() = SdkMetricsIntegration()
+    }
+
+    private val fixture = Fixture()
+
+    private val name = ObjectName("io.sentry:type=SdkMetrics")
+
+    private val sut = fixture.getSut()
+
+    @AfterTest
+    fun shutdown() {
+        sut.close()
+    }
+
+    @Test
+    fun `when sdk metrics are disabled, does not register the MXBean`() {
+        sut.register(fixture.hub, fixture.options)
+
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name))
+        verifyZeroInteractions(fixture.listener)
+    }
+
+    @Test
+    fun `registers the MXBean and unregisters it on close`() {
+        fixture.options.isEnableSdkMetrics = true
+        sut.register(fixture.hub, fixture.options)
+
+        val server = ManagementFactory.getPlatformMBeanServer()
+        assertTrue(server.isRegistered(name))
+
+        fixture.options.sdkMetrics.getLatency(SdkMetrics.Stage.BEFORE_SEND).record(100)
+        fixture.options.sdkMetrics.recordDrop(SdkMetrics.Stage.BEFORE_SEND)
+        assertEquals(1L, getValue("Counts", "before_send"))
+        assertEquals(1L, getValue("DroppedCounts", "before_send"))
+        assertEquals(0L, getValue("DroppedCounts", "sample_rate"))
+
+        sut.close()
+        assertFalse(server.isRegistered(name))
+    }
+
+    @Test
+    fun `report calls the listener`() {
+        fixture.options.isEnableSdkMetrics = true
+        sut.register(fixture.hub, fixture.options)
+
+        sut.report()
+
+        verify(fixture.listener).onReport(fixture.options.sdkMetrics, fixture.options.preFilterStats)
+    }
+
+    @Test
+    fun `report does not throw if the listener throws`() {
+        fixture.options.isEnableSdkMetrics = true
+        val listener = SentryOptions.SdkMetricsListener { _, _ -> throw RuntimeException() }
+        fixture.options.sdkMetricsListener = listener
+        sut.register(fixture.hub, fixture.options)
+
+        sut.report()
+    }
+
+    private fun getValue(attribute: String, key: String): Any? {
+        // MXBeans expose maps as tabular data
+        val data = ManagementFactory.getPlatformMBeanServer().getAttribute(name, attribute) as TabularData
+        return data.get(arrayOf(key))["value"]
+    }
+}
@@ -0,0 +1,36 @@
+package io.sentry
+
+import kotlin.test.Test
+import kotlin.test.assertEquals
+
+class SdkMetricsTest {
+
+    @Test
+    fun `sums the drops of all threads per stage`() {
+        val sut = SdkMetrics()
+        sut.isEnabled = true
+        val threads = (1..16).map {
+            Thread {
+                repeat(1000) {
+                    sut.recordDrop(SdkMetrics.Stage.BEFORE_SEND)
+                    sut.recordDrop(SdkMetrics.Stage.TRANSPORT_SEND)
+                }
+            }
+        }
+        threads.forEach { it.start() }
+        threads.forEach { it.join() }
+
+        SdkMetrics.Stage.values().forEach {
+            val expected = if (it == SdkMetrics.Stage.BEFORE_SEND || it == SdkMetrics.Stage.TRANSPORT_SEND) 16000L else 0L
+            assertEquals(expected, sut.getDroppedCount(it), it.name)
+        }
+    }
+
+    @Test
+    fun `does not count drops when disabled`() {
+        val sut = SdkMetrics()
+        sut.recordDrop(SdkMetrics.Stage.BEFORE_SEND)
+
+        assertEquals(0, sut.getDroppedCount(SdkMetrics.Stage.BEFORE_SEND))
+    }
+}
@@ -0,0 +1,135 @@
+package io.sentry
+
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import io.sentry.transport.ITransport
+import io.sentry.transport.RateLimiter
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.nio.file.Files
+import javax.management.Attribute
+import javax.management.ObjectName
+import javax.management.openmbean.TabularData
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+
+class SdkStateIntegrationTest {
+
+    private class Fixture {
+        val hub = mock<IHub>()
+        val transport = mock<ITransport>()
+        val rateLimiter = mock<RateLimiter>()
+        val cacheDir: File = Files.createTempDirectory("sentry-sdk-state-test").toFile()
+        val options = SentryOptions().apply {
+            cacheDirPath = cacheDir.absolutePath
+            transport = this@Fixture.transport
+        }
+
+        init {
+            whenever(transport.rateLimiter).thenReturn(rateLimiter)
+        }
+
+        fun getSut() = SdkStateIntegration()
+    }
+
+    private val fixture = Fixture()
+
+    private val name = ObjectName("io.sentry:type=SdkState")
+
+    private val server = ManagementFactory.getPlatformMBeanServer()
+
+    private val sut = fixture.getSut()
+
+    @AfterTest
+    fun shutdown() {
+        sut.close()
+        fixture.cacheDir.deleteRecursively()
+    }
+
+    @Test
+    fun `when sdk state MBean is disabled, does not register it`() {
+        sut.register(fixture.hub, fixture.options)
+
+        assertFalse(server.isRegistered(name))
+    }
+
+    @Test
+    fun `registers the MXBean and unregisters it on close`() {
+        fixture.options.isEnableSdkStateMBean = true
+        sut.register(fixture.hub, fixture.options)
+        assertTrue(server.isRegistered(name))
+
+        sut.close()
+        assertFalse(server.isRegistered(name))
+    }
+
+    @Test
+    fun `exposes the transport queue and rate limits`() {
+        whenever(fixture.transport.queueSize).thenReturn(3)
+        whenever(fixture.transport.droppedEnvelopeCount).thenReturn(2)
+        whenever(fixture.rateLimiter.activeRateLimits).thenReturn(mapOf("error" to 1000L))
+        whenever(fixture.rateLimiter.droppedItemCount).thenReturn(5)
+        fixture.options.isEnableSdkStateMBean = true
+        sut.register(fixture.hub, fixture.options)
+
+        assertEquals(3, server.getAttribute(name, "TransportQueueSize"))
+        assertEquals(1000L, getValue("ActiveRateLimits", "error"))
+        assertEquals(2L, getValue("DroppedCounts", "transport_queue_full"))
+        assertEquals(5L, getValue("DroppedCounts", "transport_rate_limited_items"))
+        assertEquals(0L, getValue("DroppedCounts", "sample_rate"))
+    }
+
+    @Test
+    fun `exposes the size of the cache and the outbox`() {
+        File(fixture.cacheDir, "1.envelope").writeText("12345")
+        File(fixture.cacheDir, "session.json").writeText("123")
+        val outbox = File(fixture.options.outboxPath!!).apply { mkdirs() }
+        File(outbox, "1").writeText("1")
+        File(outbox, ".claimed.2").writeText("2")
+        fixture.options.isEnableSdkStateMBean = true
+        sut.register(fixture.hub, fixture.options)
+
+        assertEquals(8L, server.getAttribute(name, "CacheDirBytes"))
+        assertEquals(1, server.getAttribute(name, "CachedEnvelopeCount"))
+        assertEquals(1, server.getAttribute(name, "OutboxEnvelopeCount"))
+    }
+
+    @Test
+    fun `sets the options at runtime`() {
+        fixture.options.isEnableSdkStateMBean = true
+        sut.register(fixture.hub, fixture.options)
+
+        server.setAttribute(name, Attribute("SampleRate", 0.5))
+        server.setAttribute(name, Attribute("TracesSampleRate", 0.25))
+        server.setAttribute(name, Attribute("MaxBreadcrumbs", 10))
+
+        assertEquals(0.5, fixture.options.sampleRate)
+        assertEquals(0.25, fixture.options.tracesSampleRate)
+        assertEquals(10, fixture.options.maxBreadcrumbs)
+
+        server.setAttribute(name, Attribute("SampleRate", null))
+        assertNull(fixture.options.sampleRate)
+    }
+
+    @Test
+    fun `rejects invalid options`() {
+        fixture.options.isEnableSdkStateMBean = true
+        sut.register(fixture.hub, fixture.options)
+
+        assertFailsWith<Exception> { server.setAttribute(name, Attribute("SampleRate", 2.0)) }
+        assertFailsWith<Exception> { server.setAttribute(name, Attribute("MaxBreadcrumbs", -1)) }
+        assertNull(fixture.options.sampleRate)
+        assertEquals(100, fixture.options.maxBreadcrumbs)
+    }
+
+    private fun getValue(attribute: String, key: String): Any? {
+        // MXBeans expose maps as tabular data
+        val data = server.getAttribute(name, attribute) as TabularData
+        return data.get(arrayOf(key))["value"]
+    }
+}
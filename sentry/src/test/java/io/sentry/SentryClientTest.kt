@@ -2,21 +2,27 @@ package io.sentry
 
 import com.nhaarman.mockitokotlin2.any
 import com.nhaarman.mockitokotlin2.anyOrNull
+import com.nhaarman.mockitokotlin2.argumentCaptor
 import com.nhaarman.mockitokotlin2.check
+import com.nhaarman.mockitokotlin2.doAnswer
+import com.nhaarman.mockitokotlin2.doThrow
 import com.nhaarman.mockitokotlin2.eq
 import com.nhaarman.mockitokotlin2.isNull
 import com.nhaarman.mockitokotlin2.mock
 import com.nhaarman.mockitokotlin2.mockingDetails
 import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.times
 import com.nhaarman.mockitokotlin2.verify
 import com.nhaarman.mockitokotlin2.verifyNoMoreInteractions
 import com.nhaarman.mockitokotlin2.whenever
+import io.sentry.exception.ExceptionMechanismException
 import io.sentry.exception.InvalidDsnException
 import io.sentry.exception.SentryEnvelopeException
 import io.sentry.hints.ApplyScopeData
 import io.sentry.hints.Cached
 import io.sentry.hints.DiskFlushNotification
 import io.sentry.protocol.Mechanism
+import io.sentry.protocol.Message
 import io.sentry.protocol.Request
 import io.sentry.protocol.SdkVersion
 import io.sentry.protocol.SentryException
@@ -24,6 +30,7 @@ import io.sentry.protocol.SentryId
 import io.sentry.protocol.User
 import io.sentry.transport.ITransport
 import io.sentry.transport.ITransportGate
+import io.sentry.transport.RateLimiter
 import java.io.ByteArrayInputStream
 import java.io.ByteArrayOutputStream
 import java.io.IOException
@@ -39,6 +46,7 @@ import kotlin.test.assertFailsWith
 import kotlin.test.assertFalse
 import kotlin.test.assertNotEquals
 import kotlin.test.assertNotNull
+import kotlin.test.assertNotSame
 import kotlin.test.assertNull
 import kotlin.test.assertSame
 import kotlin.test.assertTrue
@@ -145,6 +153,38 @@ class SentryClientTest {
         verify(fixture.transport, never()).send(any())
     }
 
+    @Test
+    fun `when beforeSend returns null, message formatting is skipped`() {
+        var formatted = false
+        fixture.sentryOptions.setBeforeSend { _: SentryEvent, _: Any? -> null }
+        val sut = fixture.getSut()
+        val event = SentryEvent().apply {
+            message = Message().apply { setFormatter { formatted = true } }
+        }
+        sut.captureEvent(event)
+        assertFalse(formatted)
+    }
+
+    @Test
+    fun `when event is sent, deferred message formatting is applied`() {
+        val sut = fixture.getSut()
+        val event = SentryEvent().apply {
+            message = Message().apply {
+                message = "message {}"
+                setFormatter {
+                    it.formatted = "message 1"
+                    it.params = listOf("1")
+                }
+            }
+        }
+        sut.captureEvent(event)
+        verify(fixture.transport).send(check {
+            val sentEvent = getEventFromData(it.items.first().data)
+            assertEquals("message 1", sentEvent.message.formatted)
+            assertEquals(listOf("1"), sentEvent.message.params)
+        }, anyOrNull())
+    }
+
     @Test
     fun `when beforeSend is returns new instance, new instance is sent`() {
         val expected = SentryEvent().apply {
@@ -158,6 +198,7 @@ class SentryClientTest {
             val event = getEventFromData(it.items.first().data)
             assertEquals("test", event.tags["test"])
         }, anyOrNull())
+        verify(fixture.transport).rateLimiter
         verifyNoMoreInteractions(fixture.transport)
     }
 
@@ -361,7 +402,23 @@ class SentryClientTest {
 
         val allEvents = 10
         (0..allEvents).forEach { _ -> sut.captureEvent(SentryEvent()) }
-        assertTrue(allEvents > mockingDetails(fixture.transport).invocations.size)
+        assertTrue(allEvents > mockingDetails(fixture.transport).invocations.count { it.method.name == "send" })
+    }
+
+    @Test
+    fun `when sampleRate is set after the client was created, some events not captured`() {
+        val sut = fixture.getSut()
+        fixture.sentryOptions.sampleRate = 0.000000001
+
+        val allEvents = 10
+        (0..allEvents).forEach { _ -> sut.captureEvent(SentryEvent()) }
+        assertTrue(allEvents > mockingDetails(fixture.transport).invocations.count { it.method.name == "send" })
+    }
+
+    @Test
+    fun `client sets its transport on the options`() {
+        fixture.getSut()
+        assertSame(fixture.transport, fixture.sentryOptions.transport)
     }
 
     @Test
@@ -371,7 +428,7 @@ class SentryClientTest {
 
         val allEvents = 10
         (0..allEvents).forEach { _ -> sut.captureEvent(SentryEvent()) }
-        assertEquals(allEvents, mockingDetails(fixture.transport).invocations.size - 1) // 1 extra invocation outside .send()
+        assertEquals(allEvents + 1, mockingDetails(fixture.transport).invocations.count { it.method.name == "send" })
     }
 
     @Test
@@ -681,6 +738,38 @@ class SentryClientTest {
         assertEquals(userAgent, session.userAgent)
     }
 
+    @Test
+    fun `When errors are captured within the update interval, only the first one sends the session`() {
+        val scope = Scope(fixture.sentryOptions)
+        scope.startSession().current
+        val event = SentryEvent().apply {
+            exceptions = listOf(SentryException())
+        }
+        assertNotNull(fixture.getSut().updateSessionData(event, null, scope))
+        assertNull(fixture.getSut().updateSessionData(event, null, scope))
+        scope.withSession {
+            assertEquals(2, it!!.errorCount())
+        }
+    }
+
+    @Test
+    fun `When a crash is captured after an error, the session is sent`() {
+        val scope = Scope(fixture.sentryOptions)
+        scope.startSession().current
+        fixture.getSut().updateSessionData(SentryEvent().apply { exceptions = listOf(SentryException()) }, null, scope)
+        val session = fixture.getSut().updateSessionData(SentryEvent().apply { exceptions = createNonHandledException() }, null, scope)
+        assertNotNull(session)
+        assertEquals(Session.State.Crashed, session.status)
+        assertEquals(2, session.errorCount())
+    }
+
+    @Test
+    fun `When event is handled and not errored, the session is not sent`() {
+        val scope = Scope(fixture.sentryOptions)
+        scope.startSession().current
+        assertNull(fixture.getSut().updateSessionData(SentryEvent(), null, scope))
+    }
+
     @Test
     fun `When capture an event and there's no session, do nothing`() {
         val scope = Scope(fixture.sentryOptions)
@@ -708,6 +797,37 @@ class SentryClientTest {
         }
     }
 
+    @Test
+    fun `when captureEvent with unhandled exception, request session is crashed`() {
+        fixture.sentryOptions.isEnableSessionAggregation = true
+        fixture.sentryOptions.release = "1.0"
+        val sut = fixture.getSut()
+
+        val scope = Scope(fixture.sentryOptions)
+        scope.startRequestSession()
+        sut.captureEvent(SentryEvent().apply { exceptions = createNonHandledException() }, scope, null)
+        scope.endRequestSession()
+
+        val aggregate = fixture.sentryOptions.sessionAggregator.flush(true).single().aggregates.single()
+        assertEquals(1, aggregate.crashed)
+    }
+
+    @Test
+    fun `when captureEvent with a message, request session is not errored`() {
+        fixture.sentryOptions.isEnableSessionAggregation = true
+        fixture.sentryOptions.release = "1.0"
+        val sut = fixture.getSut()
+
+        val scope = Scope(fixture.sentryOptions)
+        scope.startRequestSession()
+        sut.captureMessage("message", SentryLevel.INFO, scope)
+        scope.endRequestSession()
+
+        val aggregate = fixture.sentryOptions.sessionAggregator.flush(true).single().aggregates.single()
+        assertEquals(1, aggregate.exited)
+        assertEquals(0, aggregate.errored)
+    }
+
     @Test
     fun `when context property is missing on the event, property from scope contexts is applied`() {
         val sut = fixture.getSut()
@@ -757,6 +877,26 @@ class SentryClientTest {
         }, eq(null))
     }
 
+    @Test
+    fun `when transaction was profiled, profile is sent along with the transaction`() {
+        val sut = fixture.getSut()
+        val transaction = SentryTransaction("a-transaction", "op", mock<IHub>())
+        val profile = TransactionProfiler.ActiveProfile(TransactionProfiler(fixture.sentryOptions), Thread.currentThread())
+        profile.add(arrayOf(StackTraceElement("B", "b", null, 2), StackTraceElement("A", "a", null, 1)))
+        transaction.setActiveProfile(profile)
+        transaction.finish()
+
+        sut.captureTransaction(transaction, mock(), null)
+        verify(fixture.transport).send(check {
+            assertEquals(SentryItemType.Transaction, it.items.first().header.type)
+            val profileItem = it.items.single { item -> item.header.fileName == TransactionProfile.ATTACHMENT_FILENAME }
+            assertEquals(SentryItemType.Attachment, profileItem.header.type)
+            val json = String(profileItem.data, Charsets.UTF_8)
+            assertTrue(json.contains("\"transaction\":\"a-transaction\""))
+            assertTrue(json.contains("\"stacks\":{\"A.a;B.b\":1}"))
+        }, eq(null))
+    }
+
     @Test
     fun `when captureTransactions unfinished spans are removed`() {
         val sut = fixture.getSut()
@@ -865,6 +1005,256 @@ class SentryClientTest {
         assertEquals(mapOf("tag1" to "value1", "tag2" to "transaction-tag", "tag3" to "value3"), transaction.tags)
     }
 
+    @Test
+    fun `when exception type is ignored, event is dropped before event processors run`() {
+        val processor = mock<EventProcessor>()
+        fixture.sentryOptions.addEventProcessor(processor)
+        fixture.sentryOptions.addIgnoredExceptionForType(IllegalStateException::class.java)
+        val sut = fixture.getSut()
+
+        val sentryId = sut.captureEvent(SentryEvent(IllegalStateException()))
+
+        assertEquals(SentryId.EMPTY_ID, sentryId)
+        verify(processor, never()).process(any(), anyOrNull())
+        verify(fixture.transport, never()).send(any(), anyOrNull())
+        assertEquals(1, fixture.sentryOptions.preFilterStats.getDroppedCount(PreFilterStats.Stage.IGNORED_EXCEPTION))
+    }
+
+    @Test
+    fun `when exception type is a subclass of an ignored type, event is sent`() {
+        fixture.sentryOptions.addIgnoredExceptionForType(RuntimeException::class.java)
+        val sut = fixture.getSut()
+
+        sut.captureEvent(SentryEvent(IllegalStateException()))
+
+        verify(fixture.transport).send(any(), anyOrNull())
+        assertEquals(0, fixture.sentryOptions.preFilterStats.droppedCount)
+    }
+
+    @Test
+    fun `when errors are rate limited, event is dropped before event processors run`() {
+        val rateLimiter = RateLimiter(NoOpLogger.getInstance())
+        rateLimiter.updateRetryAfterLimits("60:error:key", null, 429)
+        whenever(fixture.transport.rateLimiter).thenReturn(rateLimiter)
+        val processor = mock<EventProcessor>()
+        fixture.sentryOptions.addEventProcessor(processor)
+        val sut = fixture.getSut()
+
+        sut.captureEvent(SentryEvent())
+
+        verify(processor, never()).process(any(), anyOrNull())
+        verify(fixture.transport, never()).send(any(), anyOrNull())
+        assertEquals(1, fixture.sentryOptions.preFilterStats.getDroppedCount(PreFilterStats.Stage.RATE_LIMIT))
+    }
+
+    @Test
+    fun `when exception is captured twice, duplicate is dropped before event processors run`() {
+        val processor = mock<EventProcessor>()
+        whenever(processor.process(any(), anyOrNull())).thenAnswer { it.arguments[0] }
+        fixture.sentryOptions.addEventProcessor(processor)
+        val sut = fixture.getSut()
+        val exception = RuntimeException()
+
+        sut.captureEvent(SentryEvent(exception))
+        sut.captureEvent(SentryEvent(RuntimeException(exception)))
+
+        verify(processor).process(any(), anyOrNull())
+        verify(fixture.transport).send(any(), anyOrNull())
+        assertEquals(1, fixture.sentryOptions.preFilterStats.getDroppedCount(PreFilterStats.Stage.DUPLICATE))
+    }
+
+    @Test
+    fun `when event is not sampled, scope and event processors are not applied`() {
+        fixture.sentryOptions.sampleRate = 0.000000001
+        val processor = mock<EventProcessor>()
+        fixture.sentryOptions.addEventProcessor(processor)
+        val scopeProcessor = mock<EventProcessor>()
+        val scope = Scope(fixture.sentryOptions).apply { addEventProcessor(scopeProcessor) }
+        val sut = fixture.getSut()
+
+        val event = SentryEvent()
+        sut.captureEvent(event, scope)
+
+        verify(processor, never()).process(any(), anyOrNull())
+        verify(scopeProcessor, never()).process(any(), anyOrNull())
+        assertTrue(event.breadcrumbs.isNullOrEmpty())
+        assertEquals(1, fixture.sentryOptions.preFilterStats.getDroppedCount(PreFilterStats.Stage.SAMPLE_RATE))
+    }
+
+    @Test
+    fun `when event with unhandled throwable is not sampled, session is crashed`() {
+        fixture.sentryOptions.sampleRate = 0.000000001
+        val sut = fixture.getSut()
+        val scope = Scope(fixture.sentryOptions)
+        scope.startSession()
+
+        val mechanism = Mechanism().apply { isHandled = false }
+        sut.captureEvent(SentryEvent(ExceptionMechanismException(mechanism, RuntimeException(), Thread.currentThread())), scope, null)
+
+        scope.withSession {
+            assertEquals(Session.State.Crashed, it!!.status)
+            assertEquals(1, it.errorCount())
+        }
+        verify(fixture.transport).send(check {
+            assertEquals(SentryItemType.Session, it.items.single().header.type)
+        }, anyOrNull())
+    }
+
+    @Test
+    fun `when attachment was sent within the deduplication window, it is referenced instead of sent`() {
+        fixture.sentryOptions.attachmentDeduplicationWindowMillis = 60_000
+        val sut = fixture.getSut()
+        deliverEnvelopes()
+        val scope = Scope(fixture.sentryOptions).apply { addAttachment(fixture.attachment) }
+
+        sut.captureEvent(SentryEvent(), scope)
+        val second = SentryEvent()
+        sut.captureEvent(second, scope)
+
+        val envelopes = mutableListOf<SentryEnvelope>()
+        verify(fixture.transport, times(2)).send(check { envelopes.add(it) }, anyOrNull())
+        assertEquals(1, envelopes[0].items.count { it.header.type == SentryItemType.Attachment })
+        assertEquals(0, envelopes[1].items.count { it.header.type == SentryItemType.Attachment })
+        val duplicates = second.contexts["duplicate_attachments"] as Map<*, *>
+        assertEquals(40, (duplicates[fixture.attachment.filename] as String).length)
+    }
+
+    @Test
+    fun `when sending the attachment failed, it is sent again within the deduplication window`() {
+        fixture.sentryOptions.attachmentDeduplicationWindowMillis = 60_000
+        val sut = fixture.getSut()
+        doThrow(IOException()).doNothing().whenever(fixture.transport).send(any(), anyOrNull())
+        val scope = Scope(fixture.sentryOptions).apply { addAttachment(fixture.attachment) }
+
+        sut.captureEvent(SentryEvent(), scope)
+        val second = SentryEvent()
+        sut.captureEvent(second, scope)
+
+        val envelopes = argumentCaptor<SentryEnvelope>()
+        verify(fixture.transport, times(2)).send(envelopes.capture(), anyOrNull())
+        assertTrue(envelopes.allValues.all { envelope -> envelope.items.count { it.header.type == SentryItemType.Attachment } == 1 })
+        assertNull(second.contexts["duplicate_attachments"])
+    }
+
+    @Test
+    fun `when the transport didn't deliver the attachment, it is sent again within the deduplication window`() {
+        fixture.sentryOptions.attachmentDeduplicationWindowMillis = 60_000
+        val sut = fixture.getSut()
+        val scope = Scope(fixture.sentryOptions).apply { addAttachment(fixture.attachment) }
+
+        sut.captureEvent(SentryEvent(), scope)
+        val second = SentryEvent()
+        sut.captureEvent(second, scope)
+
+        val envelopes = argumentCaptor<SentryEnvelope>()
+        verify(fixture.transport, times(2)).send(envelopes.capture(), anyOrNull())
+        assertTrue(envelopes.allValues.all { envelope -> envelope.items.count { it.header.type == SentryItemType.Attachment } == 1 })
+        assertNull(second.contexts["duplicate_attachments"])
+    }
+
+    @Test
+    fun `while attachments are rate limited, they are not deduplicated`() {
+        fixture.sentryOptions.attachmentDeduplicationWindowMillis = 60_000
+        val rateLimiter = mock<RateLimiter>()
+        whenever(fixture.transport.rateLimiter).thenReturn(rateLimiter)
+        val sut = fixture.getSut()
+        deliverEnvelopes()
+        val scope = Scope(fixture.sentryOptions).apply { addAttachment(fixture.attachment) }
+
+        sut.captureEvent(SentryEvent(), scope)
+        whenever(rateLimiter.isRateLimited("attachment")).thenReturn(true)
+        val second = SentryEvent()
+        sut.captureEvent(second, scope)
+
+        val envelopes = argumentCaptor<SentryEnvelope>()
+        verify(fixture.transport, times(2)).send(envelopes.capture(), anyOrNull())
+        assertTrue(envelopes.allValues.all { envelope -> envelope.items.count { it.header.type == SentryItemType.Attachment } == 1 })
+        assertNull(second.contexts["duplicate_attachments"])
+    }
+
+    @Test
+    fun `when attachment deduplication is disabled, attachments are always sent`() {
+        val sut = fixture.getSut()
+        val scope = Scope(fixture.sentryOptions).apply { addAttachment(fixture.attachment) }
+
+        sut.captureEvent(SentryEvent(), scope)
+        sut.captureEvent(SentryEvent(), scope)
+
+        val envelopes = mutableListOf<SentryEnvelope>()
+        verify(fixture.transport, times(2)).send(check { envelopes.add(it) }, anyOrNull())
+        assertTrue(envelopes.all { envelope -> envelope.items.count { it.header.type == SentryItemType.Attachment } == 1 })
+    }
+
+    @Test
+    fun `captureEvents sends each event and returns the ids in order`() {
+        val events = listOf(SentryEvent(), SentryEvent(), SentryEvent())
+        val sut = fixture.getSut()
+
+        val ids = sut.captureEvents(events, createScope(), null)
+
+        assertEquals(events.map { it.eventId }, ids)
+        val envelopes = argumentCaptor<SentryEnvelope>()
+        verify(fixture.transport, times(3)).send(envelopes.capture(), anyOrNull())
+        assertEquals(events.map { it.eventId }, envelopes.allValues.map { it.header.eventId })
+    }
+
+    @Test
+    fun `captureEvents applies the scope to each event`() {
+        val events = listOf(createEvent(), SentryEvent())
+        val sut = fixture.getSut()
+
+        sut.captureEvents(events, createScope(), null)
+
+        events.forEach {
+            assertEquals("extra", it.getExtra("extra"))
+            assertEquals("tags", it.getTag("tags"))
+            assertEquals(SentryLevel.FATAL, it.level)
+            assertTrue(it.breadcrumbs.any { b -> b.message == "message" })
+        }
+        assertEquals("eventId", events[0].user!!.id)
+        assertEquals("id", events[1].user!!.id)
+        assertEquals(listOf("message"), events[1].breadcrumbs.map { it.message })
+        assertNotSame(events[0].breadcrumbs, events[1].breadcrumbs)
+        assertNotSame(events[0].contexts, events[1].contexts)
+    }
+
+    @Test
+    fun `captureEvents returns an empty id for dropped events`() {
+        val dropped = SentryEvent()
+        fixture.sentryOptions.setBeforeSend { e, _ -> if (e === dropped) null else e }
+        val kept = SentryEvent()
+        val sut = fixture.getSut()
+
+        val ids = sut.captureEvents(listOf(dropped, kept), null, null)
+
+        assertEquals(listOf(SentryId.EMPTY_ID, kept.eventId), ids)
+        verify(fixture.transport).send(check { assertEquals(kept.eventId, it.header.eventId) }, anyOrNull())
+    }
+
+    @Test
+    fun `captureEvents sends the session update once with the last event`() {
+        val scope = Scope(fixture.sentryOptions)
+        scope.startSession()
+        val events = listOf(
+            SentryEvent().apply { exceptions = listOf(SentryException()) },
+            SentryEvent().apply { exceptions = listOf(SentryException()) }
+        )
+        val sut = fixture.getSut()
+
+        sut.captureEvents(events, scope, null)
+
+        val envelopes = argumentCaptor<SentryEnvelope>()
+        verify(fixture.transport, times(2)).send(envelopes.capture(), anyOrNull())
+        assertEquals(listOf(SentryItemType.Event), envelopes.firstValue.items.map { it.header.type })
+        assertEquals(listOf(SentryItemType.Event, SentryItemType.Session), envelopes.secondValue.items.map { it.header.type })
+    }
+
+    private fun deliverEnvelopes() {
+        doAnswer { invocation ->
+            invocation.getArgument<SentryEnvelope>(0).items.forEach { it.submissionResult?.setResult(true) }
+        }.whenever(fixture.transport).send(any(), anyOrNull())
+    }
+
     private fun createScope(): Scope {
         return Scope(SentryOptions()).apply {
             addBreadcrumb(Breadcrumb().apply {
@@ -977,6 +1367,56 @@ class SentryClientTest {
         }, isNull())
     }
 
+    @Test
+    fun `when sdk metrics are enabled, measures the stages of capturing an event`() {
+        fixture.sentryOptions.isEnableSdkMetrics = true
+        fixture.sentryOptions.addEventProcessor { event, _ -> event }
+        val sut = fixture.getSut()
+
+        sut.captureEvent(SentryEvent(), Scope(fixture.sentryOptions))
+
+        val metrics = fixture.sentryOptions.sdkMetrics
+        assertEquals(1, metrics.getLatency(SdkMetrics.Stage.APPLY_SCOPE).count)
+        assertEquals(1, metrics.getLatency(SdkMetrics.Stage.BEFORE_SEND).count)
+        assertEquals(1, metrics.getLatency(SdkMetrics.Stage.TRANSPORT_SEND).count)
+        assertTrue(metrics.getLatency(SdkMetrics.Stage.EVENT_PROCESSOR).count > 0)
+        assertTrue(metrics.eventProcessorLatencies.keys.contains(MainEventProcessor::class.java.name))
+
+        verify(fixture.transport).send(check {
+            it.items.first().data
+        }, anyOrNull())
+        assertEquals(1, metrics.getLatency(SdkMetrics.Stage.SERIALIZATION).count)
+    }
+
+    @Test
+    fun `when sdk metrics are enabled, counts the events dropped by each stage`() {
+        fixture.sentryOptions.isEnableSdkMetrics = true
+        fixture.sentryOptions.setBeforeSend { _, _ -> null }
+        val sut = fixture.getSut()
+
+        sut.captureEvent(SentryEvent())
+
+        fixture.sentryOptions.addEventProcessor { _, _ -> null }
+        sut.captureEvent(SentryEvent())
+
+        val metrics = fixture.sentryOptions.sdkMetrics
+        assertEquals(1, metrics.getDroppedCount(SdkMetrics.Stage.BEFORE_SEND))
+        assertEquals(1, metrics.getDroppedCount(SdkMetrics.Stage.EVENT_PROCESSOR))
+    }
+
+    @Test
+    fun `when sdk metrics are disabled, does not measure`() {
+        val sut = fixture.getSut()
+
+        sut.captureEvent(SentryEvent(), Scope(fixture.sentryOptions))
+
+        val metrics = fixture.sentryOptions.sdkMetrics
+        for (stage in SdkMetrics.Stage.values()) {
+            assertEquals(0, metrics.getLatency(stage).count)
+        }
+        assertTrue(metrics.eventProcessorLatencies.isEmpty())
+    }
+
     internal class CustomCachedApplyScopeDataHint : Cached, ApplyScopeData
 
     internal class DiskFlushNotificationHint : DiskFlushNotification {
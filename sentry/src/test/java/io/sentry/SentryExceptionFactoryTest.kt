@@ -14,8 +14,12 @@ import kotlin.test.assertTrue
 class SentryExceptionFactoryTest {
     private class Fixture {
 
-        fun getSut(stackTraceFactory: SentryStackTraceFactory = SentryStackTraceFactory(listOf("io.sentry"), listOf())): SentryExceptionFactory {
-            return SentryExceptionFactory(stackTraceFactory)
+        fun getSut(
+            stackTraceFactory: SentryStackTraceFactory = SentryStackTraceFactory(listOf("io.sentry"), listOf()),
+            trimCommonFrames: Boolean = false,
+            maxFrames: Int = 0
+        ): SentryExceptionFactory {
+            return SentryExceptionFactory(stackTraceFactory, trimCommonFrames, maxFrames)
         }
     }
 
@@ -133,6 +137,80 @@ class SentryExceptionFactoryTest {
         assertEquals(thread.id, queue.first.threadId)
     }
 
+    @Test
+    fun `when trimCommonFrames is enabled, frames shared with the enclosing exception are removed from the cause`() {
+        val cause = RuntimeException("cause").apply { stackTrace = frames("inner", "a", "b", "main") }
+        val exception = RuntimeException("wrapper", cause).apply { stackTrace = frames("wrap", "a", "b", "main") }
+
+        val queue = fixture.getSut(trimCommonFrames = true).extractExceptionQueue(exception)
+
+        assertEquals(listOf("wrap", "a", "b", "main").reversed(), queue.last.stacktrace!!.frames!!.map { it.function })
+        assertEquals(listOf("inner"), queue.first.stacktrace!!.frames!!.map { it.function })
+    }
+
+    @Test
+    fun `when trimCommonFrames is enabled and the cause shares all its frames, the innermost frame is kept`() {
+        val cause = RuntimeException("cause").apply { stackTrace = frames("a", "b", "main") }
+        val exception = RuntimeException("wrapper", cause).apply { stackTrace = frames("a", "b", "main") }
+
+        val queue = fixture.getSut(trimCommonFrames = true).extractExceptionQueue(exception)
+
+        assertEquals(listOf("a"), queue.first.stacktrace!!.frames!!.map { it.function })
+    }
+
+    @Test
+    fun `when trimCommonFrames is disabled, causes keep all their frames`() {
+        val cause = RuntimeException("cause").apply { stackTrace = frames("inner", "a", "b", "main") }
+        val exception = RuntimeException("wrapper", cause).apply { stackTrace = frames("wrap", "a", "b", "main") }
+
+        val queue = fixture.getSut().extractExceptionQueue(exception)
+
+        assertEquals(4, queue.first.stacktrace!!.frames!!.size)
+    }
+
+    @Test
+    fun `when frames exceed maxFrames, middle frames are removed keeping both ends`() {
+        val exception = RuntimeException().apply { stackTrace = frames("f1", "f2", "f3", "f4", "f5", "f6", "f7", "f8") }
+
+        val queue = fixture.getSut(maxFrames = 5).extractExceptionQueue(exception)
+
+        // frames are sorted from the outermost to the innermost
+        assertEquals(listOf("f8", "f7", "f3", "f2", "f1"), queue.first.stacktrace!!.frames!!.map { it.function })
+    }
+
+    @Test
+    fun `when frames exceed maxFrames, unused share of small stack traces goes to bigger ones`() {
+        val cause = RuntimeException().apply { stackTrace = frames("c1", "c2") }
+        val exception = RuntimeException(cause).apply { stackTrace = frames("e1", "e2", "e3", "e4", "e5", "e6", "e7", "e8", "e9", "e10") }
+
+        val queue = fixture.getSut(maxFrames = 8).extractExceptionQueue(exception)
+
+        assertEquals(2, queue.first.stacktrace!!.frames!!.size)
+        assertEquals(6, queue.last.stacktrace!!.frames!!.size)
+    }
+
+    @Test
+    fun `when there are more exceptions than maxFrames, every exception keeps its innermost frame`() {
+        val cause = RuntimeException().apply { stackTrace = frames("c1", "c2", "c3") }
+        val exception = RuntimeException(cause).apply { stackTrace = frames("e1", "e2", "e3") }
+
+        val queue = fixture.getSut(maxFrames = 1).extractExceptionQueue(exception)
+
+        assertEquals(listOf("c1"), queue.first.stacktrace!!.frames!!.map { it.function })
+        assertEquals(listOf("e1"), queue.last.stacktrace!!.frames!!.map { it.function })
+    }
+
+    @Test
+    fun `when frames are within maxFrames, all frames are kept`() {
+        val exception = RuntimeException().apply { stackTrace = frames("f1", "f2", "f3") }
+
+        val queue = fixture.getSut(maxFrames = 3).extractExceptionQueue(exception)
+
+        assertEquals(3, queue.first.stacktrace!!.frames!!.size)
+    }
+
+    private fun frames(vararg methods: String) = methods.map { StackTraceElement("com.example.App", it, "App.java", 1) }.toTypedArray()
+
     internal class InnerClassThrowable constructor(cause: Throwable? = null) : Throwable(cause)
 
     private val anonymousException = object : Exception() {
@@ -63,6 +63,15 @@ class SentryOptionsTest {
         assertEquals(1, options.maxBreadcrumbs)
     }
 
+    @Test
+    fun `when options is initialized, default maxSpans is 1000`() =
+        assertEquals(1000, SentryOptions().maxSpans)
+
+    @Test
+    fun `when maxSpans is negative, throws`() {
+        assertFailsWith<IllegalArgumentException> { SentryOptions().maxSpans = -1 }
+    }
+
     @Test
     fun `when options is initialized, default sampling is null`() =
         assertNull(SentryOptions().sampleRate)
@@ -462,4 +471,88 @@ class SentryOptionsTest {
     fun `when options are initialized, maxAttachmentSize is 20`() {
         assertEquals(20 * 1024 * 1024, SentryOptions().maxAttachmentSize)
     }
+
+    @Test
+    fun `when options are initialized, hubPropagationMode is THREAD_LOCAL`() {
+        assertEquals(HubPropagationMode.THREAD_LOCAL, SentryOptions().hubPropagationMode)
+    }
+
+    @Test
+    fun `when options are initialized, virtual threads are disabled`() {
+        assertFalse(SentryOptions().isEnableVirtualThreads)
+    }
+
+    @Test
+    fun `when executorService is set, it is not the default one anymore`() {
+        val options = SentryOptions()
+        assertTrue(options.isDefaultExecutorService)
+        options.executorService = mock()
+        assertFalse(options.isDefaultExecutorService)
+    }
+
+    @Test
+    fun `when options are initialized, tail sampling is disabled`() {
+        assertFalse(SentryOptions().isEnableTailSampling)
+        assertEquals(0.95, SentryOptions().tailSamplingPercentile)
+    }
+
+    @Test
+    fun `when tailSamplingPercentile is out of range, throws`() {
+        assertFailsWith<IllegalArgumentException> { SentryOptions().tailSamplingPercentile = 1.01 }
+        assertFailsWith<IllegalArgumentException> { SentryOptions().tailSamplingPercentile = -0.01 }
+    }
+
+    @Test
+    fun `when options is initialized, integrations contain TransactionMetricsIntegration`() {
+        assertTrue(SentryOptions().integrations.any { it is TransactionMetricsIntegration })
+    }
+
+    @Test
+    fun `when options are initialized, transaction metrics are disabled`() {
+        assertFalse(SentryOptions().isEnableTransactionMetrics)
+        assertEquals(60_000, SentryOptions().transactionMetricsFlushIntervalMillis)
+    }
+
+    @Test
+    fun `when options are initialized, session aggregation is disabled`() {
+        assertFalse(SentryOptions().isEnableSessionAggregation)
+        assertEquals(60_000, SentryOptions().sessionAggregationFlushIntervalMillis)
+        assertTrue(SentryOptions().integrations.any { it is SessionAggregationIntegration })
+    }
+
+    @Test
+    fun `when options are initialized, envelope dir watcher is disabled`() {
+        assertNull(SentryOptions().envelopeWatchDirPath)
+        assertEquals(1_000, SentryOptions().envelopeWatchDebounceMillis)
+        assertEquals(30_000, SentryOptions().envelopeWatchPollIntervalMillis)
+        assertTrue(SentryOptions().integrations.any { it is EnvelopeDirectoryWatcherIntegration })
+    }
+
+    @Test
+    fun `when options are initialized, sdk metrics are disabled`() {
+        assertFalse(SentryOptions().isEnableSdkMetrics)
+        assertNull(SentryOptions().sdkMetricsListener)
+        assertEquals(60_000, SentryOptions().sdkMetricsReportIntervalMillis)
+        assertTrue(SentryOptions().integrations.any { it is SdkMetricsIntegration })
+    }
+
+    @Test
+    fun `when options are initialized, sdk state MBean is disabled`() {
+        assertFalse(SentryOptions().isEnableSdkStateMBean)
+        assertTrue(SentryOptions().integrations.any { it is SdkStateIntegration })
+    }
+
+    @Test
+    fun `when options are initialized, profiling is disabled`() {
+        assertFalse(SentryOptions().isEnableProfiling)
+        assertEquals(10, SentryOptions().profilingIntervalMillis)
+        assertEquals(8, SentryOptions().maxProfiledTransactions)
+        assertNull(SentryOptions().transactionProfiler)
+        assertTrue(SentryOptions().integrations.any { it is ProfilingIntegration })
+    }
+
+    @Test
+    fun `when profilingIntervalMillis is below the min interval, throws`() {
+        assertFailsWith<IllegalArgumentException> { SentryOptions().profilingIntervalMillis = 4 }
+    }
 }
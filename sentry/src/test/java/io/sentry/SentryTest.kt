@@ -1,18 +1,27 @@
 package io.sentry
 
+import com.nhaarman.mockitokotlin2.any
 import com.nhaarman.mockitokotlin2.argThat
 import com.nhaarman.mockitokotlin2.eq
 import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
 import com.nhaarman.mockitokotlin2.verify
 import io.sentry.protocol.SentryId
 import java.io.File
 import java.nio.file.Files
+import java.lang.management.ManagementFactory
+import java.util.concurrent.Callable
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executors
+import java.util.concurrent.ForkJoinPool
 import kotlin.test.AfterTest
 import kotlin.test.BeforeTest
 import kotlin.test.Test
 import kotlin.test.assertEquals
 import kotlin.test.assertFalse
+import kotlin.test.assertNotNull
+import kotlin.test.assertNotSame
+import kotlin.test.assertSame
 import kotlin.test.assertTrue
 import org.junit.rules.TemporaryFolder
 
@@ -91,6 +100,167 @@ class SentryTest {
         }
     }
 
+    @Test
+    fun `child threads clone the main hub by default`() {
+        Sentry.init {
+            it.dsn = dsn
+        }
+        val parentHub = Sentry.getCurrentHub()
+
+        var childHub: IHub? = null
+        val thread = Thread { childHub = Sentry.getCurrentHub() }
+        thread.start()
+        thread.join()
+
+        assertNotNull(childHub)
+        assertNotSame(parentHub, childHub)
+    }
+
+    @Test
+    fun `child threads fork the parent hub with INHERITABLE hub propagation mode`() {
+        Sentry.init {
+            it.dsn = dsn
+            it.hubPropagationMode = HubPropagationMode.INHERITABLE
+        }
+        var parentHub: IHub? = null
+        var childHub: IHub? = null
+        val parent = Thread {
+            Sentry.setCurrentHub(Sentry.getCurrentHub().clone())
+            parentHub = Sentry.getCurrentHub()
+            Sentry.configureScope { it.setTag("a", "a") }
+
+            val child = Thread {
+                childHub = Sentry.getCurrentHub()
+                Sentry.configureScope {
+                    assertEquals(setOf("a"), it.tags.keys)
+                    it.setTag("b", "b")
+                }
+            }
+            child.start()
+            child.join()
+
+            Sentry.configureScope { assertEquals(setOf("a"), it.tags.keys) }
+        }
+        parent.start()
+        parent.join()
+
+        assertNotNull(childHub)
+        assertNotSame(parentHub, childHub)
+    }
+
+    @Test
+    fun `pool workers do not keep the hub of the thread creating them with INHERITABLE hub propagation mode`() {
+        Sentry.init {
+            it.dsn = dsn
+            it.hubPropagationMode = HubPropagationMode.INHERITABLE
+        }
+        val executor = Executors.newSingleThreadExecutor()
+        val forkJoinPool = ForkJoinPool(1)
+        var tags: Map<String, String>? = null
+        var forkJoinTags: Map<String, String>? = null
+        val parent = Thread {
+            Sentry.setCurrentHub(Sentry.getCurrentHub().clone())
+            Sentry.setTag("request", "a")
+
+            tags = executor.submit(Callable { Sentry.getCurrentHub().scopeTags() }).get()
+            forkJoinTags = forkJoinPool.submit(Callable { Sentry.getCurrentHub().scopeTags() }).get()
+        }
+        parent.start()
+        parent.join()
+        executor.shutdown()
+        forkJoinPool.shutdown()
+
+        assertEquals(emptyMap(), tags)
+        assertEquals(emptyMap(), forkJoinTags)
+    }
+
+    @Test
+    fun `child threads allocate less to get their hub with INHERITABLE than with THREAD_LOCAL hub propagation mode`() {
+        val cloneBytes = allocatedBytesToGetChildHub(HubPropagationMode.THREAD_LOCAL)
+        val forkBytes = allocatedBytesToGetChildHub(HubPropagationMode.INHERITABLE)
+
+        assertTrue(forkBytes * 4 < cloneBytes, "fork: $forkBytes bytes, clone: $cloneBytes bytes")
+    }
+
+    private fun allocatedBytesToGetChildHub(mode: HubPropagationMode): Long {
+        Sentry.init {
+            it.dsn = dsn
+            it.hubPropagationMode = mode
+        }
+        repeat(100) { Sentry.addBreadcrumb("breadcrumb $it") }
+        val threadMXBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        var allocated = 0L
+        val parent = Thread {
+            Sentry.getCurrentHub()
+            // the second child is measured, the first one loads the classes
+            repeat(2) {
+                val child = Thread {
+                    val threadId = Thread.currentThread().id
+                    val before = threadMXBean.getThreadAllocatedBytes(threadId)
+                    Sentry.getCurrentHub()
+                    allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before
+                }
+                child.start()
+                child.join()
+            }
+        }
+        parent.start()
+        parent.join()
+        Sentry.close()
+        return allocated
+    }
+
+    @Test
+    fun `children of the init thread clone the main hub with INHERITABLE hub propagation mode`() {
+        Sentry.init {
+            it.dsn = dsn
+            it.hubPropagationMode = HubPropagationMode.INHERITABLE
+        }
+        val mainHub = Sentry.getCurrentHub()
+        Sentry.configureScope { it.setTag("a", "a") }
+
+        var childHub: IHub? = null
+        val thread = Thread {
+            childHub = Sentry.getCurrentHub()
+            Sentry.configureScope { assertEquals(setOf("a"), it.tags.keys) }
+        }
+        thread.start()
+        thread.join()
+
+        assertNotNull(childHub)
+        assertNotSame(mainHub, childHub)
+    }
+
+    @Test
+    fun `does not replace the executor service set by the user`() {
+        val executor = mock<ISentryExecutorService>()
+        Sentry.init {
+            it.dsn = dsn
+            it.isEnableVirtualThreads = true
+            it.executorService = executor
+        }
+
+        verify(executor, never()).close(any())
+    }
+
+    @Test
+    fun `setCurrentHub binds the hub to the current thread`() {
+        Sentry.init {
+            it.dsn = dsn
+        }
+        val hub = mock<IHub>()
+
+        var childHub: IHub? = null
+        val thread = Thread {
+            Sentry.setCurrentHub(hub)
+            childHub = Sentry.getCurrentHub()
+        }
+        thread.start()
+        thread.join()
+
+        assertSame(hub, childHub)
+    }
+
     @Test
     fun `warns about multiple Sentry initializations`() {
         val logger = mock<ILogger>()
@@ -171,4 +341,10 @@ class SentryTest {
         assertFalse(tempFile.exists())
         return tempFile.absolutePath
     }
+
+    private fun IHub.scopeTags(): Map<String, String> {
+        var tags: Map<String, String> = emptyMap()
+        configureScope { tags = HashMap(it.tags) }
+        return tags
+    }
 }
@@ -2,11 +2,13 @@ package io.sentry
 
 import com.nhaarman.mockitokotlin2.mock
 import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
 import kotlin.test.Test
 import kotlin.test.assertEquals
 import kotlin.test.assertFalse
 import kotlin.test.assertNotNull
 import kotlin.test.assertNull
+import kotlin.test.assertSame
 import kotlin.test.assertTrue
 
 class SentryTransactionTest {
@@ -247,6 +249,45 @@ class SentryTransactionTest {
         assertTrue(transaction.isFinished)
     }
 
+    @Test
+    fun `when max spans is reached, new spans are dropped and counted`() {
+        val options = SentryOptions().apply { maxSpans = 2 }
+        whenever(fixture.hub.options).thenReturn(options)
+        val transaction = SentryTransaction(TransactionContext("name", "op"), fixture.hub)
+
+        val first = transaction.startChild("op1")
+        first.startChild("op2")
+        val dropped = first.startChild("op3")
+
+        assertEquals(2, transaction.spans.size)
+        assertSame(NoOpSpan.getInstance(), dropped)
+        assertSame(NoOpSpan.getInstance(), dropped.startChild("op4"))
+        assertEquals(1, transaction.droppedSpans)
+    }
+
+    @Test
+    fun `when max spans is 0, every span is dropped and counted`() {
+        val options = SentryOptions().apply { maxSpans = 0 }
+        whenever(fixture.hub.options).thenReturn(options)
+        val transaction = SentryTransaction(TransactionContext("name", "op"), fixture.hub)
+
+        assertSame(NoOpSpan.getInstance(), transaction.startChild("op1"))
+        assertSame(NoOpSpan.getInstance(), transaction.startChild("op2"))
+
+        assertTrue(transaction.spans.isEmpty())
+        assertEquals(2, transaction.droppedSpans)
+    }
+
+    @Test
+    fun `getLatestActiveSpan returns the latest span that is not finished`() {
+        val transaction = fixture.getSut()
+        val first = transaction.startChild("op1")
+        val second = transaction.startChild("op2")
+        second.finish()
+
+        assertSame(first, transaction.latestActiveSpan)
+    }
+
     private fun startChildFromTransaction(transaction: SentryTransaction): Span {
         return transaction.startChild("op", "description") as Span
     }
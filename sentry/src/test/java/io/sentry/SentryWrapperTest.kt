@@ -0,0 +1,183 @@
+package io.sentry
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.TimeUnit
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNotSame
+import kotlin.test.assertNull
+import kotlin.test.assertSame
+
+class SentryWrapperTest {
+
+    private val executor = Executors.newSingleThreadExecutor()
+
+    @BeforeTest
+    fun beforeTest() {
+        Sentry.init {
+            it.dsn = "http://key@localhost/proj"
+        }
+    }
+
+    @AfterTest
+    fun afterTest() {
+        executor.shutdownNow()
+        Sentry.close()
+    }
+
+    @Test
+    fun `wrapped runnable runs with a fork of the current hub`() {
+        val mainHub = Sentry.getCurrentHub()
+        Sentry.setTag("a", "a")
+
+        var taskHub: IHub? = null
+        var tags: Map<String, String>? = null
+        executor.submit(SentryWrapper.wrapRunnable {
+            taskHub = Sentry.getCurrentHub()
+            Sentry.setTag("b", "b")
+            Sentry.configureScope { tags = HashMap(it.tags) }
+        }).get()
+
+        assertNotSame(mainHub, taskHub)
+        assertEquals(mapOf("a" to "a", "b" to "b"), tags)
+        Sentry.configureScope { assertEquals(setOf("a"), it.tags.keys) }
+    }
+
+    @Test
+    fun `the hub is captured at submit time`() {
+        Sentry.setTag("a", "before")
+        val callable = SentryWrapper.wrapCallable(Callable {
+            var tag: String? = null
+            Sentry.configureScope { tag = it.tags["a"] }
+            tag
+        })
+        Sentry.setTag("a", "after")
+
+        assertEquals("before", executor.submit(callable).get())
+    }
+
+    @Test
+    fun `the previous hub of the executing thread is restored`() {
+        val threadHub = executor.submit(Callable { Sentry.getCurrentHub() }).get()
+
+        executor.submit(SentryWrapper.wrapRunnable { }).get()
+
+        assertSame(threadHub, executor.submit(Callable { Sentry.getCurrentHub() }).get())
+    }
+
+    @Test
+    fun `the executing thread has no hub bound after the task if it had none before`() {
+        executor.submit(SentryWrapper.wrapRunnable { }).get()
+
+        assertNull(executor.submit(Callable { Sentry.peekCurrentHub() }).get())
+    }
+
+    @Test
+    fun `the active span is propagated`() {
+        val transaction = Sentry.startTransaction("name", "op")
+        Sentry.configureScope { it.setTransaction(transaction) }
+        val span = transaction.startChild("child")
+
+        val callable = SentryWrapper.wrapCallable(Callable { Sentry.getSpan() })
+        span.startChild("other")
+
+        assertSame(span, executor.submit(callable).get())
+    }
+
+    @Test
+    fun `wrapped ExecutorService propagates the hub`() {
+        val sut = SentryWrapper.wrapExecutorService(executor)
+        Sentry.setTag("a", "a")
+
+        val tag = sut.submit(Callable {
+            var tag: String? = null
+            Sentry.configureScope { tag = it.tags["a"] }
+            tag
+        }).get()
+
+        assertEquals("a", tag)
+    }
+
+    @Test
+    fun `wrapped ExecutorService propagates the hub to invokeAll`() {
+        val sut = SentryWrapper.wrapExecutorService(executor)
+        Sentry.setTag("a", "a")
+
+        val tags = sut.invokeAll(listOf(Callable {
+            var tag: String? = null
+            Sentry.configureScope { tag = it.tags["a"] }
+            tag
+        })).map { it.get() }
+
+        assertEquals(listOf<String?>("a"), tags)
+    }
+
+    @Test
+    fun `wrapped ScheduledExecutorService propagates the hub`() {
+        val scheduledExecutor = Executors.newSingleThreadScheduledExecutor()
+        try {
+            val sut = SentryWrapper.wrapScheduledExecutorService(scheduledExecutor)
+            Sentry.setTag("a", "a")
+
+            val tag = sut.schedule(Callable {
+                var tag: String? = null
+                Sentry.configureScope { tag = it.tags["a"] }
+                tag
+            }, 1, TimeUnit.MILLISECONDS).get()
+
+            assertEquals("a", tag)
+        } finally {
+            scheduledExecutor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun `wrapped ForkJoinPool propagates the hub`() {
+        val pool = ForkJoinPool(1)
+        try {
+            val sut = SentryWrapper.wrapForkJoinPool(pool)
+            Sentry.setTag("a", "a")
+
+            val tag = sut.submit(Callable {
+                var tag: String? = null
+                Sentry.configureScope { tag = it.tags["a"] }
+                tag
+            }).get()
+
+            assertEquals("a", tag)
+        } finally {
+            pool.shutdownNow()
+        }
+    }
+
+    @Test
+    fun `supplyAsync propagates the hub`() {
+        Sentry.setTag("a", "a")
+
+        val tag = SentryWrapper.supplyAsync({
+            var tag: String? = null
+            Sentry.configureScope { tag = it.tags["a"] }
+            tag
+        }, executor).get()
+
+        assertEquals("a", tag)
+    }
+
+    @Test
+    fun `wrapped Executor propagates the hub to CompletableFuture stages`() {
+        Sentry.setTag("a", "a")
+
+        val tag = SentryWrapper.runAsync({ }, executor)
+            .thenApplyAsync({
+                var tag: String? = null
+                Sentry.configureScope { tag = it.tags["a"] }
+                tag
+            }, SentryWrapper.wrapExecutor(executor)).get()
+
+        assertEquals("a", tag)
+    }
+}
@@ -0,0 +1,72 @@
+package io.sentry
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.argumentCaptor
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.verifyZeroInteractions
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class SessionAggregationIntegrationTest {
+    private class Fixture {
+        val hub = mock<IHub>()
+        val options = SentryOptions().apply {
+            release = "1.0"
+            environment = "production"
+            isEnableSessionAggregation = true
+        }
+
+        fun getSut() = SessionAggregationIntegration()
+
+        fun recordRequest() {
+            val scope = Scope(options)
+            scope.startRequestSession()
+            scope.endRequestSession()
+        }
+    }
+
+    private val fixture = Fixture()
+
+    @Test
+    fun `close sends the aggregates as a sessions item`() {
+        val sut = fixture.getSut()
+        sut.register(fixture.hub, fixture.options)
+        fixture.recordRequest()
+        fixture.recordRequest()
+
+        sut.close()
+
+        val captor = argumentCaptor<SentryEnvelope>()
+        verify(fixture.hub).captureEnvelope(captor.capture())
+        val item = captor.firstValue.items.single()
+        assertEquals(SentryItemType.Sessions, item.header.type)
+        val json = String(item.data, Charsets.UTF_8)
+        assertTrue(json.contains("\"attrs\":{\"release\":\"1.0\",\"environment\":\"production\"}"), json)
+        assertTrue(json.contains("\"exited\":2"), json)
+    }
+
+    @Test
+    fun `when nothing was recorded, flush does not send anything`() {
+        val sut = fixture.getSut()
+        sut.register(fixture.hub, fixture.options)
+
+        sut.flush(true)
+
+        verify(fixture.hub, never()).captureEnvelope(any())
+        sut.close()
+    }
+
+    @Test
+    fun `when disabled, close does not send anything`() {
+        val sut = fixture.getSut()
+        fixture.options.isEnableSessionAggregation = false
+        sut.register(fixture.hub, fixture.options)
+
+        sut.close()
+
+        verifyZeroInteractions(fixture.hub)
+    }
+}
@@ -0,0 +1,128 @@
+package io.sentry
+
+import io.sentry.transport.ICurrentDateProvider
+import java.util.Date
+import java.util.concurrent.atomic.AtomicBoolean
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class SessionAggregatorTest {
+    private class Fixture {
+        var currentTimeMillis = 1_600_000_020_000L
+        val dateProvider = ICurrentDateProvider { currentTimeMillis }
+
+        fun getSut() = SessionAggregator(dateProvider)
+    }
+
+    private val fixture = Fixture()
+
+    @Test
+    fun `counts outcomes per minute`() {
+        val sut = fixture.getSut()
+        sut.record(SessionAggregator.Outcome.EXITED, "1.0", "production")
+        sut.record(SessionAggregator.Outcome.EXITED, "1.0", "production")
+        sut.record(SessionAggregator.Outcome.ERRORED, "1.0", "production")
+        fixture.currentTimeMillis += 60_000
+        sut.record(SessionAggregator.Outcome.CRASHED, "1.0", "production")
+
+        val aggregates = sut.flush(true).single()
+
+        assertEquals("1.0", aggregates.attrs.release)
+        assertEquals("production", aggregates.attrs.environment)
+        val byMinute = aggregates.aggregates.sortedBy { it.started }
+        assertEquals(Date(1_600_000_020_000L), byMinute[0].started)
+        assertEquals(2, byMinute[0].exited)
+        assertEquals(1, byMinute[0].errored)
+        assertEquals(0, byMinute[0].crashed)
+        assertEquals(Date(1_600_000_080_000L), byMinute[1].started)
+        assertEquals(1, byMinute[1].crashed)
+    }
+
+    @Test
+    fun `aggregates are grouped per release and environment`() {
+        val sut = fixture.getSut()
+        sut.record(SessionAggregator.Outcome.EXITED, "1.0", "production")
+        sut.record(SessionAggregator.Outcome.EXITED, "1.0", null)
+        sut.record(SessionAggregator.Outcome.EXITED, "2.0", "production")
+        sut.record(SessionAggregator.Outcome.EXITED, "1.0", "production")
+
+        val aggregates = sut.flush(true).associateBy { it.attrs.release to it.attrs.environment }
+
+        assertEquals(3, aggregates.size)
+        assertEquals(2, aggregates["1.0" to "production"]!!.aggregates.single().exited)
+        assertEquals(1, aggregates["1.0" to null]!!.aggregates.single().exited)
+        assertEquals(1, aggregates["2.0" to "production"]!!.aggregates.single().exited)
+    }
+
+    @Test
+    fun `flush keeps the current minute unless forced`() {
+        val sut = fixture.getSut()
+        sut.record(SessionAggregator.Outcome.EXITED, "1.0", null)
+
+        assertTrue(sut.flush(false).isEmpty())
+
+        fixture.currentTimeMillis += 60_000
+        assertEquals(1, sut.flush(false).single().aggregates.single().exited)
+        assertTrue(sut.flush(true).isEmpty())
+    }
+
+    @Test
+    fun `concurrent records are not lost`() {
+        val sut = fixture.getSut()
+        val threads = List(8) {
+            Thread { repeat(10_000) { sut.record(SessionAggregator.Outcome.EXITED, "1.0", null) } }
+        }
+        threads.forEach { it.start() }
+        threads.forEach { it.join() }
+
+        assertEquals(80_000, sut.flush(true).single().aggregates.single().exited)
+    }
+
+    @Test
+    fun `records after a forced flush are counted in a new bucket`() {
+        val sut = fixture.getSut()
+        sut.record(SessionAggregator.Outcome.EXITED, "1.0", null)
+        assertEquals(1, sut.flush(true).single().aggregates.single().exited)
+
+        sut.record(SessionAggregator.Outcome.EXITED, "1.0", null)
+
+        assertEquals(1, sut.flush(true).single().aggregates.single().exited)
+    }
+
+    @Test
+    fun `records racing with flushes are counted once`() {
+        val sut = fixture.getSut()
+        val running = AtomicBoolean(true)
+        val threads = List(4) {
+            Thread { repeat(20_000) { sut.record(SessionAggregator.Outcome.EXITED, "1.0", null) } }
+        }
+        threads.forEach { it.start() }
+        var exited = 0L
+        val flusher = Thread {
+            while (running.get()) {
+                exited += sut.flush(true).sumOf { it.aggregates.sumOf { aggregate -> aggregate.exited } }
+            }
+        }
+        flusher.start()
+        threads.forEach { it.join() }
+        running.set(false)
+        flusher.join()
+        exited += sut.flush(true).sumOf { it.aggregates.sumOf { aggregate -> aggregate.exited } }
+
+        assertEquals(80_000, exited)
+    }
+
+    @Test
+    fun `request session keeps the worst outcome`() {
+        val session = RequestSession()
+        assertEquals(SessionAggregator.Outcome.EXITED, session.outcome)
+
+        session.update(false)
+        assertEquals(SessionAggregator.Outcome.ERRORED, session.outcome)
+
+        session.update(true)
+        session.update(false)
+        assertEquals(SessionAggregator.Outcome.CRASHED, session.outcome)
+    }
+}
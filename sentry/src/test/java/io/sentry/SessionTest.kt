@@ -6,6 +6,7 @@ import io.sentry.protocol.User
 import java.util.Date
 import kotlin.test.Test
 import kotlin.test.assertEquals
+import kotlin.test.assertFalse
 import kotlin.test.assertNotNull
 import kotlin.test.assertNotSame
 import kotlin.test.assertNull
@@ -127,6 +128,72 @@ class SessionTest {
         assertNotSame(clone, session)
     }
 
+    @Test
+    fun `recordEvent sends the first error right away`() {
+        val session = createSession()
+        assertTrue(session.recordEvent(false, true, null, 60_000))
+        assertEquals(1, session.errorCount())
+        assertNull(session.init)
+        assertNotNull(session.sequence)
+    }
+
+    @Test
+    fun `recordEvent coalesces errors within the update interval`() {
+        val session = createSession()
+        session.recordEvent(false, true, null, 60_000)
+        val sequence = session.sequence
+
+        assertFalse(session.recordEvent(false, true, null, 60_000))
+        assertFalse(session.recordEvent(false, true, null, 60_000))
+        assertEquals(3, session.errorCount())
+        assertEquals(sequence, session.sequence)
+    }
+
+    @Test
+    fun `recordEvent sends every error without update interval`() {
+        val session = createSession()
+        assertTrue(session.recordEvent(false, true, null, 0))
+        assertTrue(session.recordEvent(false, true, null, 0))
+        assertEquals(2, session.errorCount())
+    }
+
+    @Test
+    fun `recordEvent sends a crash right away`() {
+        val session = createSession()
+        session.recordEvent(false, true, null, 60_000)
+        assertTrue(session.recordEvent(true, true, null, 60_000))
+        assertEquals(Session.State.Crashed, session.status)
+        assertEquals(2, session.errorCount())
+    }
+
+    @Test
+    fun `recordEvent sends a new user agent right away`() {
+        val session = createSession()
+        assertTrue(session.recordEvent(false, false, "agent", 60_000))
+        assertFalse(session.recordEvent(false, false, "agent", 60_000))
+        assertEquals("agent", session.userAgent)
+        assertEquals(0, session.errorCount())
+    }
+
+    @Test
+    fun `recordEvent doesn't send events that are not errors`() {
+        val session = createSession()
+        assertFalse(session.recordEvent(false, false, null, 0))
+        assertEquals(0, session.errorCount())
+        assertTrue(session.init!!)
+    }
+
+    @Test
+    fun `recordEvent counts concurrent errors`() {
+        val session = createSession()
+        val threads = (1..4).map {
+            Thread { repeat(1000) { session.recordEvent(false, true, null, 60_000) } }
+        }
+        threads.forEach { it.start() }
+        threads.forEach { it.join() }
+        assertEquals(4000, session.errorCount())
+    }
+
     private fun createSession(user: User = User()): Session {
         return Session("distinctId", user, "env", "rel")
     }
@@ -0,0 +1,41 @@
+package io.sentry
+
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNotEquals
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+class SpanIdTest {
+
+    @Test
+    fun `generated span id is 16 lower case hex chars`() {
+        val spanId = SpanId().toString()
+
+        assertEquals(16, spanId.length)
+        assertTrue(spanId.all { it in '0'..'9' || it in 'a'..'f' })
+    }
+
+    @Test
+    fun `toString is cached`() {
+        val spanId = SpanId()
+
+        assertSame(spanId.toString(), spanId.toString())
+    }
+
+    @Test
+    fun `generated span ids are different`() = assertNotEquals(SpanId(), SpanId())
+
+    @Test
+    fun `generated span id equals the span id parsed from its string`() {
+        val spanId = SpanId()
+        val parsed = SpanId(spanId.toString())
+
+        assertEquals(spanId, parsed)
+        assertEquals(spanId.hashCode(), parsed.hashCode())
+    }
+
+    @Test
+    fun `span id created from a string keeps the string`() =
+        assertEquals("0a53026963414893", SpanId("0a53026963414893").toString())
+}
@@ -0,0 +1,123 @@
+package io.sentry
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
+import kotlin.test.assertNull
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+class SpanStoreTest {
+
+    private val transaction = SentryTransaction("name", "op")
+
+    @Test
+    fun `keeps spans in insertion order across chunks`() {
+        val sut = SpanStore()
+        val spans = (0 until 200).map { span() }
+
+        spans.forEach { sut.add(it) }
+
+        assertEquals(200, sut.size)
+        spans.forEachIndexed { index, span -> assertSame(span, sut[index]) }
+        assertEquals(spans, sut.toList())
+    }
+
+    @Test
+    fun `get throws when index is out of bounds`() {
+        val sut = SpanStore()
+        sut.add(span())
+
+        assertFailsWith<IndexOutOfBoundsException> { sut[1] }
+    }
+
+    @Test
+    fun `tryAdd drops and counts spans over the limit`() {
+        val sut = SpanStore(1)
+
+        assertTrue(sut.tryAdd(span()))
+        assertTrue(sut.isFull)
+        assertFalse(sut.tryAdd(span()))
+        sut.drop()
+
+        assertEquals(1, sut.size)
+        assertEquals(2, sut.droppedSpans)
+    }
+
+    @Test
+    fun `removeAll keeps the order of the remaining spans`() {
+        val sut = SpanStore()
+        val spans = (0 until 100).map { span() }
+        spans.forEach { sut.add(it) }
+        val removed = spans.filterIndexed { index, _ -> index % 3 == 0 }
+
+        assertTrue(sut.removeAll(removed))
+
+        assertEquals(spans - removed, sut.toList())
+        assertFalse(sut.removeAll(removed))
+    }
+
+    @Test
+    fun `getLatestUnfinished returns the latest span that is not finished`() {
+        val sut = SpanStore()
+        val spans = (0 until 3).map { span() }
+        spans.forEach { sut.add(it) }
+        spans[2].finish()
+
+        assertSame(spans[1], sut.latestUnfinished)
+        spans[1].finish()
+        spans[0].finish()
+        assertNull(sut.latestUnfinished)
+    }
+
+    @Test
+    fun `readers never see null while spans are removed`() {
+        repeat(100) {
+            val sut = SpanStore()
+            val spans = (0 until 200).map { span() }
+            spans.forEach { sut.add(it) }
+            spans.forEach { it.finish() }
+            val removed = spans.filterIndexed { index, _ -> index % 2 == 0 }
+            val failure = AtomicReference<Throwable>()
+            val reader = Thread {
+                try {
+                    repeat(50) { sut.latestUnfinished }
+                } catch (e: Throwable) {
+                    failure.set(e)
+                }
+            }
+            reader.start()
+            sut.removeAll(removed)
+            reader.join()
+
+            assertNull(failure.get())
+            assertEquals(spans - removed, sut.toList())
+        }
+    }
+
+    @Test
+    fun `concurrent adds keep every span`() {
+        val sut = SpanStore()
+        val executor = Executors.newFixedThreadPool(4)
+        val latch = CountDownLatch(1)
+        repeat(4) {
+            executor.submit {
+                latch.await()
+                repeat(500) { sut.add(span()) }
+            }
+        }
+        latch.countDown()
+        executor.shutdown()
+        executor.awaitTermination(10, TimeUnit.SECONDS)
+
+        assertEquals(2000, sut.size)
+        assertEquals(2000, sut.toSet().size)
+    }
+
+    private fun span() = Span(transaction.traceId, transaction.spanId, transaction, "op", NoOpHub.getInstance())
+}
@@ -3,6 +3,7 @@ package io.sentry
 import com.nhaarman.mockitokotlin2.any
 import com.nhaarman.mockitokotlin2.mock
 import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.whenever
 import io.sentry.protocol.SentryId
 import kotlin.test.Test
 import kotlin.test.assertEquals
@@ -15,6 +16,10 @@ class SpanTest {
     private class Fixture {
         val hub = mock<IHub>()
 
+        init {
+            whenever(hub.options).thenReturn(SentryOptions())
+        }
+
         fun getSut(): Span {
             return Span(SentryId(), SpanId(),
                     SentryTransaction("name", "op"), "op", hub)
@@ -31,6 +36,14 @@ class SpanTest {
         assertNotNull(span.timestamp)
     }
 
+    @Test
+    fun `span timestamps are measured with the transaction clock`() {
+        val span = fixture.getSut()
+        span.finish()
+
+        assertTrue(span.finishTime!!.epochNanos > span.startTime.epochNanos)
+    }
+
     @Test
     fun `finishing span with status sets the timestamp and status`() {
         val span = fixture.getSut()
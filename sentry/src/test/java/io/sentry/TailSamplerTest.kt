@@ -0,0 +1,131 @@
+package io.sentry
+
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class TailSamplerTest {
+    private class Fixture {
+        val options = SentryOptions()
+
+        fun getSut() = TailSampler(options)
+
+        fun transaction(sampled: Boolean = false) =
+            SentryTransaction("name", SpanContext("op", sampled), NoOpHub.getInstance())
+    }
+
+    private val fixture = Fixture()
+
+    @Test
+    fun `keeps transactions that finished with a failed status`() {
+        val sut = fixture.getSut()
+        val transaction = fixture.transaction()
+        transaction.finish(SpanStatus.INTERNAL_ERROR)
+
+        assertTrue(sut.sample(transaction))
+    }
+
+    @Test
+    fun `keeps transactions with a throwable`() {
+        val sut = fixture.getSut()
+        val transaction = fixture.transaction()
+        transaction.throwable = RuntimeException()
+        transaction.finish()
+
+        assertTrue(sut.sample(transaction))
+    }
+
+    @Test
+    fun `drops transactions that finished ok or were cancelled`() {
+        val sut = fixture.getSut()
+        val ok = fixture.transaction()
+        ok.finish(SpanStatus.OK)
+        val cancelled = fixture.transaction()
+        cancelled.finish(SpanStatus.CANCELLED)
+
+        assertFalse(sut.sample(ok))
+        assertFalse(sut.sample(cancelled))
+    }
+
+    @Test
+    fun `records the duration of finished transactions`() {
+        val sut = fixture.getSut()
+        val transaction = fixture.transaction()
+        transaction.finish()
+
+        sut.sample(transaction)
+
+        assertEquals(1, sut.getDurationCount("name"))
+    }
+
+    @Test
+    fun `does not detect slow transactions until enough durations are recorded`() {
+        val sut = fixture.getSut()
+
+        for (i in 1 until TailSampler.MIN_DURATIONS) {
+            assertFalse(sut.record("name", 1))
+        }
+        assertFalse(sut.record("name", 1_000))
+    }
+
+    @Test
+    fun `keeps transactions slower than the percentile`() {
+        val sut = fixture.getSut()
+        for (i in 1..100) {
+            sut.record("name", i.toLong())
+        }
+
+        assertFalse(sut.record("name", 95))
+        assertTrue(sut.record("name", 97))
+    }
+
+    @Test
+    fun `uses the configured percentile`() {
+        fixture.options.tailSamplingPercentile = 0.5
+        val sut = fixture.getSut()
+        for (i in 1..100) {
+            sut.record("name", i.toLong())
+        }
+
+        assertTrue(sut.record("name", 60))
+    }
+
+    @Test
+    fun `durations are tracked per transaction name`() {
+        val sut = fixture.getSut()
+        for (i in 1..100) {
+            sut.record("fast", 1)
+            sut.record("slow", 1_000)
+        }
+
+        assertTrue(sut.record("fast", 10))
+        assertFalse(sut.record("slow", 10))
+    }
+
+    @Test
+    fun `keeps only the most recent durations`() {
+        val sut = fixture.getSut()
+        for (i in 1..100) {
+            sut.record("name", 1_000)
+        }
+        for (i in 1..TailSampler.WINDOW_SIZE) {
+            sut.record("name", 1)
+        }
+
+        assertEquals(TailSampler.WINDOW_SIZE, sut.getDurationCount("name"))
+        assertTrue(sut.record("name", 10))
+    }
+
+    @Test
+    fun `evicts the least recently finished transaction names`() {
+        val sut = fixture.getSut()
+        sut.record("first", 1)
+        for (i in 0 until TailSampler.MAX_NAMES) {
+            sut.record("name-$i", 1)
+        }
+
+        assertEquals(0, sut.getDurationCount("first"))
+        assertEquals(1, sut.getDurationCount("name-0"))
+    }
+}
@@ -0,0 +1,83 @@
+package io.sentry
+
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNotNull
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+
+class TransactionHistogramTest {
+
+    @Test
+    fun `small durations have a bucket each`() {
+        for (micros in 0L until 2L * TransactionHistogram.SUB_BUCKET_COUNT) {
+            assertEquals(micros.toInt(), TransactionHistogram.bucketIndex(micros))
+            assertEquals(micros, TransactionHistogram.lowerBound(micros.toInt()))
+        }
+    }
+
+    @Test
+    fun `bucket bounds stay within the relative error`() {
+        var micros = 1L
+        while (micros <= TransactionHistogram.MAX_MICROS) {
+            val index = TransactionHistogram.bucketIndex(micros)
+            val lowerBound = TransactionHistogram.lowerBound(index)
+            assertTrue(lowerBound <= micros)
+            assertTrue(micros - lowerBound <= micros / TransactionHistogram.SUB_BUCKET_COUNT)
+            micros = micros * 3 / 2 + 1
+        }
+    }
+
+    @Test
+    fun `bucket indexes are monotonic and bounded`() {
+        var previous = 0
+        for (index in 0 until TransactionHistogram.BUCKET_COUNT) {
+            val lowerBound = TransactionHistogram.lowerBound(index)
+            assertEquals(index, TransactionHistogram.bucketIndex(lowerBound))
+            assertTrue(index >= previous)
+            previous = index
+        }
+        assertEquals(TransactionHistogram.BUCKET_COUNT - 1, TransactionHistogram.bucketIndex(Long.MAX_VALUE))
+        assertEquals(0, TransactionHistogram.bucketIndex(-1))
+    }
+
+    @Test
+    fun `snapshot contains the recorded durations and statuses`() {
+        val sut = TransactionHistogram()
+        sut.record(10, SpanStatus.OK)
+        sut.record(10, SpanStatus.OK)
+        sut.record(1_000, SpanStatus.INTERNAL_ERROR)
+        sut.record(1_000, null)
+
+        val snapshot = sut.snapshot("name", "op")
+
+        assertNotNull(snapshot)
+        assertEquals("name", snapshot.transaction)
+        assertEquals("op", snapshot.op)
+        assertEquals(4, snapshot.count)
+        assertEquals(2_020, snapshot.sumMicros)
+        assertEquals(listOf(listOf(10L, 2L), listOf(992L, 2L)), snapshot.buckets.map { it.toList() })
+        assertEquals(mapOf("ok" to 2L, "internal_error" to 1L), snapshot.statuses)
+    }
+
+    @Test
+    fun `snapshot resets the histogram`() {
+        val sut = TransactionHistogram()
+        sut.record(10, SpanStatus.OK)
+        sut.snapshot("name", "op")
+
+        assertNull(sut.snapshot("name", "op"))
+    }
+
+    @Test
+    fun `concurrent records are not lost`() {
+        val sut = TransactionHistogram()
+        val threads = List(4) {
+            Thread { repeat(10_000) { sut.record(it.toLong(), SpanStatus.OK) } }
+        }
+        threads.forEach { it.start() }
+        threads.forEach { it.join() }
+
+        assertEquals(40_000, sut.snapshot("name", "op")!!.count)
+    }
+}
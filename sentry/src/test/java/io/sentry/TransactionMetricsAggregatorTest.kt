@@ -0,0 +1,77 @@
+package io.sentry
+
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNotNull
+import kotlin.test.assertNull
+
+class TransactionMetricsAggregatorTest {
+
+    private fun finishedTransaction(name: String = "name", op: String = "op", status: SpanStatus = SpanStatus.OK) =
+        SentryTransaction(name, SpanContext(op), NoOpHub.getInstance()).also { it.finish(status) }
+
+    @Test
+    fun `records finished transactions per name and operation`() {
+        val sut = TransactionMetricsAggregator()
+        sut.record(finishedTransaction())
+        sut.record(finishedTransaction(status = SpanStatus.INTERNAL_ERROR))
+        sut.record(finishedTransaction(op = "other"))
+
+        val metrics = sut.flush()
+
+        assertNotNull(metrics)
+        val histograms = metrics.histograms.associateBy { it.transaction to it.op }
+        assertEquals(2, histograms.size)
+        assertEquals(2, histograms["name" to "op"]!!.count)
+        assertEquals(mapOf("ok" to 1L, "internal_error" to 1L), histograms["name" to "op"]!!.statuses)
+        assertEquals(1, histograms["name" to "other"]!!.count)
+    }
+
+    @Test
+    fun `does not record unfinished transactions`() {
+        val sut = TransactionMetricsAggregator()
+        sut.record(SentryTransaction("name", SpanContext("op"), NoOpHub.getInstance()))
+
+        assertNull(sut.flush())
+    }
+
+    @Test
+    fun `flush covers the interval since the previous flush`() {
+        val sut = TransactionMetricsAggregator()
+        sut.record(finishedTransaction())
+        val first = sut.flush()!!
+        sut.record(finishedTransaction())
+        val second = sut.flush()!!
+
+        assertEquals(first.timestamp, second.startTimestamp)
+        assertEquals(1, second.histograms.single().count)
+    }
+
+    @Test
+    fun `when max histograms is reached, transactions of new names are dropped`() {
+        val sut = TransactionMetricsAggregator()
+        for (i in 0 until TransactionMetricsAggregator.MAX_HISTOGRAMS) {
+            sut.record(finishedTransaction(name = "name-$i"))
+        }
+        sut.record(finishedTransaction(name = "new"))
+        sut.record(finishedTransaction(name = "name-0"))
+
+        assertEquals(1, sut.takeDroppedTransactions())
+        assertEquals(0, sut.takeDroppedTransactions())
+        assertEquals(2, sut.flush()!!.histograms.single { it.transaction == "name-0" }.count)
+    }
+
+    @Test
+    fun `histograms without records are removed on flush`() {
+        val sut = TransactionMetricsAggregator()
+        for (i in 0 until TransactionMetricsAggregator.MAX_HISTOGRAMS) {
+            sut.record(finishedTransaction(name = "name-$i"))
+        }
+        sut.flush()
+        sut.flush()
+        sut.record(finishedTransaction(name = "new"))
+
+        assertEquals(0, sut.takeDroppedTransactions())
+        assertEquals("new", sut.flush()!!.histograms.single().transaction)
+    }
+}
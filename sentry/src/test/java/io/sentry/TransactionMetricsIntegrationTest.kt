@@ -0,0 +1,82 @@
+package io.sentry
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.argumentCaptor
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.verify
+import com.nhaarman.mockitokotlin2.verifyZeroInteractions
+import kotlin.test.Test
+import kotlin.test.assertEquals
+
+class TransactionMetricsIntegrationTest {
+    private class Fixture {
+        val hub = mock<IHub>()
+        val options = SentryOptions().apply {
+            isEnableTransactionMetrics = true
+            transactionMetricsFlushIntervalMillis = 60_000
+        }
+
+        fun getSut() = TransactionMetricsIntegration()
+
+        fun recordTransaction() {
+            val transaction = SentryTransaction("name", SpanContext("op"), NoOpHub.getInstance())
+            transaction.finish(SpanStatus.OK)
+            options.transactionMetricsAggregator.record(transaction)
+        }
+    }
+
+    private val fixture = Fixture()
+
+    @Test
+    fun `flush sends the histograms as one envelope item`() {
+        val sut = fixture.getSut()
+        sut.register(fixture.hub, fixture.options)
+        fixture.recordTransaction()
+        fixture.recordTransaction()
+
+        sut.flush()
+
+        val captor = argumentCaptor<SentryEnvelope>()
+        verify(fixture.hub).captureEnvelope(captor.capture())
+        val item = captor.firstValue.items.single()
+        assertEquals(SentryItemType.TransactionMetrics, item.header.type)
+        val json = String(item.data, Charsets.UTF_8)
+        assertEquals(true, json.contains("\"count\":2"), json)
+        sut.close()
+    }
+
+    @Test
+    fun `when nothing was recorded, flush does not send anything`() {
+        val sut = fixture.getSut()
+        sut.register(fixture.hub, fixture.options)
+
+        sut.flush()
+
+        verify(fixture.hub, never()).captureEnvelope(any())
+        sut.close()
+    }
+
+    @Test
+    fun `close sends the remaining histograms`() {
+        val sut = fixture.getSut()
+        sut.register(fixture.hub, fixture.options)
+        fixture.recordTransaction()
+
+        sut.close()
+
+        verify(fixture.hub).captureEnvelope(any())
+    }
+
+    @Test
+    fun `when disabled, close does not send anything`() {
+        val sut = fixture.getSut()
+        fixture.options.isEnableTransactionMetrics = false
+        sut.register(fixture.hub, fixture.options)
+        fixture.recordTransaction()
+
+        sut.close()
+
+        verifyZeroInteractions(fixture.hub)
+    }
+}
@@ -0,0 +1,179 @@
+package io.sentry
+
+import com.nhaarman.mockitokotlin2.mock
+import java.util.concurrent.CountDownLatch
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertNotNull
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+import org.awaitility.kotlin.await
+
+class TransactionProfilerTest {
+
+    private class Fixture {
+        val hub = mock<IHub>()
+        val options = SentryOptions().apply {
+            maxProfiledTransactions = 2
+        }
+
+        fun getSut() = TransactionProfiler(options)
+    }
+
+    private val fixture = Fixture()
+
+    private val sut = fixture.getSut()
+
+    @AfterTest
+    fun shutdown() {
+        sut.close()
+    }
+
+    @Test
+    fun `folds the samples from the outermost frame`() {
+        val profile = TransactionProfiler.ActiveProfile(sut, Thread.currentThread())
+        profile.add(stack("C.c", "B.b", "A.a"))
+        profile.add(stack("C.c", "B.b", "A.a"))
+        profile.add(stack("D.d", "A.a"))
+        profile.add(stack("A.a"))
+
+        val result = profile.stop(SentryTransaction("name", "op", fixture.hub))
+
+        assertNotNull(result)
+        assertEquals(4, result.sampleCount)
+        assertFalse(result.isTruncated)
+        assertEquals(mapOf("A.a;B.b;C.c" to 2L, "A.a;D.d" to 1L, "A.a" to 1L), result.stacks)
+        assertEquals("name", result.transaction)
+        assertEquals(10, result.intervalMillis)
+    }
+
+    @Test
+    fun `merges frames that differ only by their line`() {
+        val profile = TransactionProfiler.ActiveProfile(sut, Thread.currentThread())
+        profile.add(arrayOf(StackTraceElement("B", "b", null, 1), StackTraceElement("A", "a", null, 1)))
+        profile.add(arrayOf(StackTraceElement("B", "b", null, 2), StackTraceElement("A", "a", null, 1)))
+
+        val result = profile.stop(SentryTransaction("name", "op", fixture.hub))
+
+        assertEquals(mapOf("A.a;B.b" to 2L), result!!.stacks)
+    }
+
+    @Test
+    fun `keeps the innermost frames of deep stacks`() {
+        val profile = TransactionProfiler.ActiveProfile(sut, Thread.currentThread())
+        val frames = (0 until TransactionProfiler.MAX_STACK_DEPTH + 10).map { "C$it.m" }
+        profile.add(stack(*frames.toTypedArray()))
+
+        val result = profile.stop(SentryTransaction("name", "op", fixture.hub))!!
+
+        assertTrue(result.isTruncated)
+        val folded = result.stacks.keys.single().split(";")
+        assertEquals(TransactionProfiler.MAX_STACK_DEPTH, folded.size)
+        assertEquals("C0.m", folded.last())
+    }
+
+    @Test
+    fun `stops adding nodes at the max nodes`() {
+        val profile = TransactionProfiler.ActiveProfile(sut, Thread.currentThread())
+        repeat(TransactionProfiler.MAX_NODES + 1) { profile.add(stack("C$it.m")) }
+
+        val result = profile.stop(SentryTransaction("name", "op", fixture.hub))!!
+
+        assertTrue(result.isTruncated)
+        assertEquals(TransactionProfiler.MAX_NODES.toLong() + 1, result.sampleCount)
+        assertEquals(TransactionProfiler.MAX_NODES, result.stacks.size)
+    }
+
+    @Test
+    fun `when no sample was taken, profile is null`() {
+        val profile = TransactionProfiler.ActiveProfile(sut, Thread.currentThread())
+        assertNull(profile.stop(SentryTransaction("name", "op", fixture.hub)))
+    }
+
+    @Test
+    fun `binds at most the max threads`() {
+        val profile = TransactionProfiler.ActiveProfile(sut, Thread.currentThread())
+        val threads = (1..TransactionProfiler.MAX_THREADS + 2).map { Thread { profile.bindCurrentThread() } }
+        threads.forEach { it.start() }
+        threads.forEach { it.join() }
+
+        assertEquals(TransactionProfiler.MAX_THREADS, profile.threads.size)
+    }
+
+    @Test
+    fun `takes at most the max stacks per sample and samples the transactions in turn`() {
+        val finish = CountDownLatch(1)
+        val profiles = (1..3).map {
+            val bound = CountDownLatch(TransactionProfiler.MAX_THREADS)
+            lateinit var profile: TransactionProfiler.ActiveProfile
+            val threads = (1..TransactionProfiler.MAX_THREADS).map {
+                Thread {
+                    profile.bindCurrentThread()
+                    bound.countDown()
+                    finish.await()
+                }
+            }
+            profile = TransactionProfiler.ActiveProfile(sut, threads.first())
+            threads.forEach { it.start() }
+            bound.await()
+            profile
+        }
+
+        sut.sample(profiles, System.nanoTime())
+        assertEquals(TransactionProfiler.MAX_STACKS_PER_SAMPLE.toLong(), profiles.map { it.sampleCount }.sum())
+        sut.sample(profiles, System.nanoTime())
+        sut.sample(profiles, System.nanoTime())
+        finish.countDown()
+
+        assertTrue(profiles.all { it.sampleCount == 2L * TransactionProfiler.MAX_THREADS })
+    }
+
+    @Test
+    fun `samples the threads of the transaction until it finishes`() {
+        val transaction = SentryTransaction("name", "op", fixture.hub)
+        sut.start(transaction)
+        assertEquals(1, sut.activeProfileCount)
+
+        val started = CountDownLatch(1)
+        val finish = CountDownLatch(1)
+        val thread = Thread {
+            transaction.startChild("span")
+            started.countDown()
+            finish.await()
+        }
+        thread.start()
+        started.await()
+
+        val profile = transaction.activeProfile!!
+        assertEquals(2, profile.threads.size)
+        await.until { profile.sampleCount > 0 }
+        transaction.finish()
+        finish.countDown()
+        thread.join()
+
+        assertEquals(0, sut.activeProfileCount)
+        assertNotNull(transaction.profile)
+    }
+
+    @Test
+    fun `does not profile more than the max transactions`() {
+        sut.start(SentryTransaction("1", "op", fixture.hub))
+        sut.start(SentryTransaction("2", "op", fixture.hub))
+        sut.start(SentryTransaction("3", "op", fixture.hub))
+
+        assertEquals(2, sut.activeProfileCount)
+    }
+
+    @Test
+    fun `does not profile after close`() {
+        sut.close()
+        sut.start(SentryTransaction("1", "op", fixture.hub))
+
+        assertEquals(0, sut.activeProfileCount)
+    }
+
+    private fun stack(vararg frames: String): Array<StackTraceElement> =
+        frames.map { StackTraceElement(it.substringBefore('.'), it.substringAfter('.'), null, 1) }.toTypedArray()
+}
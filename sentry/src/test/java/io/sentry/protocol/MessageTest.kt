@@ -0,0 +1,38 @@
+package io.sentry.protocol
+
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+
+class MessageTest {
+
+    @Test
+    fun `formatter runs once when formatted is read`() {
+        var calls = 0
+        val message = Message()
+        message.setFormatter {
+            calls++
+            it.formatted = "formatted"
+            it.params = listOf("param")
+        }
+        assertEquals(0, calls)
+        assertEquals("formatted", message.formatted)
+        assertEquals(listOf("param"), message.params)
+        assertEquals(1, calls)
+    }
+
+    @Test
+    fun `setting formatted overrides the formatter`() {
+        val message = Message()
+        message.setFormatter { it.formatted = "lazy" }
+        message.formatted = "manual"
+        assertEquals("manual", message.formatted)
+    }
+
+    @Test
+    fun `applyFormatter without formatter keeps the values`() {
+        val message = Message()
+        message.applyFormatter()
+        assertNull(message.formatted)
+    }
+}
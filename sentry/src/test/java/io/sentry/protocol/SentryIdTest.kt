@@ -0,0 +1,45 @@
+package io.sentry.protocol
+
+import java.util.UUID
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNotEquals
+import kotlin.test.assertSame
+
+class SentryIdTest {
+
+    @Test
+    fun `generated id is a version 4 UUID`() {
+        val uuid = UUID.fromString(SentryId().toString().replace(Regex("(.{8})(.{4})(.{4})(.{4})(.{12})"), "$1-$2-$3-$4-$5"))
+
+        assertEquals(4, uuid.version())
+        assertEquals(2, uuid.variant())
+    }
+
+    @Test
+    fun `generated ids are different`() = assertNotEquals(SentryId(), SentryId())
+
+    @Test
+    fun `toString is the UUID without dashes`() {
+        val uuid = UUID.randomUUID()
+
+        assertEquals(uuid.toString().replace("-", ""), SentryId(uuid).toString())
+    }
+
+    @Test
+    fun `toString is cached`() {
+        val sentryId = SentryId()
+
+        assertSame(sentryId.toString(), sentryId.toString())
+    }
+
+    @Test
+    fun `id parsed from its string is equal`() {
+        val sentryId = SentryId()
+
+        assertEquals(sentryId, SentryId(sentryId.toString()))
+    }
+
+    @Test
+    fun `empty id is all zeros`() = assertEquals("0".repeat(32), SentryId.EMPTY_ID.toString())
+}
@@ -17,6 +17,7 @@ import io.sentry.SentryEvent
 import io.sentry.SentryOptions
 import io.sentry.Session
 import io.sentry.dsnString
+import io.sentry.hints.SubmissionResult
 import io.sentry.protocol.User
 import java.io.IOException
 import kotlin.test.Test
@@ -226,6 +227,30 @@ class AsyncHttpTransportTest {
         })
     }
 
+    @Test
+    fun `tells the items of a delivered envelope, not the rate limited ones`() {
+        val sessionItem = SentryEnvelopeItem.fromSession(fixture.sentryOptions.serializer, createSession())
+        val eventItem = SentryEnvelopeItem.fromEvent(fixture.sentryOptions.serializer, SentryEvent())
+        val results = mutableMapOf<SentryEnvelopeItem, Boolean>()
+        listOf(sessionItem, eventItem).forEach { item ->
+            item.submissionResult = object : SubmissionResult {
+                override fun setResult(success: Boolean) {
+                    results[item] = success
+                }
+
+                override fun isSuccess() = results[item] == true
+            }
+        }
+        val envelope = SentryEnvelope(SentryEnvelopeHeader(), arrayListOf(sessionItem, eventItem))
+
+        whenever(fixture.rateLimiter.filter(any(), anyOrNull())).thenAnswer { SentryEnvelope(SentryEnvelopeHeader(), arrayListOf(eventItem)) }
+        whenever(fixture.transportGate.isConnected).thenReturn(true)
+        whenever(fixture.connection.send(any<SentryEnvelope>())).thenReturn(TransportResult.success())
+        fixture.getSUT().send(envelope)
+
+        assertEquals(mapOf(eventItem to true), results)
+    }
+
     @Test
     fun `when event is filtered out and cached, discard session`() {
         // given
@@ -108,8 +108,11 @@ class QueuedThreadPoolExecutorTest {
             assertFalse(it.isCancelled, "No task below the max queue size should be cancelled.")
         }
 
+        assertEquals(fixture.maxQueueSize, sut.unfinishedTaskCount)
+
         var f = sut.submit { synchronized(jobBlocker) { jobBlocker.wait() } }
         assertTrue(f.isCancelled, "A task above the queue size should have been cancelled.")
+        assertEquals(1, sut.cancelledTaskCount)
 
         // wake up a single job and wait on the main thread for that to finish
         synchronized(jobBlocker) { jobBlocker.notify() }
@@ -14,6 +14,7 @@ import kotlin.test.Test
 import kotlin.test.assertEquals
 import kotlin.test.assertNotNull
 import kotlin.test.assertNull
+import kotlin.test.assertTrue
 
 class RateLimiterTest {
 
@@ -135,4 +136,39 @@ class RateLimiterTest {
         val result = rateLimiter.filter(envelope, null)
         assertNull(result)
     }
+
+    @Test
+    fun `returns the active rate limits with their remaining time`() {
+        val rateLimiter = fixture.getSUT()
+        whenever(fixture.currentDateProvider.currentTimeMillis).thenReturn(0)
+        rateLimiter.updateRetryAfterLimits("50:transaction:key, 10:error:organization", null, 1)
+
+        whenever(fixture.currentDateProvider.currentTimeMillis).thenReturn(1000)
+        assertEquals(mapOf("transaction" to 49_000L, "error" to 9_000L), rateLimiter.activeRateLimits)
+    }
+
+    @Test
+    fun `expired rate limits are not active`() {
+        val rateLimiter = fixture.getSUT()
+        whenever(fixture.currentDateProvider.currentTimeMillis).thenReturn(0)
+        rateLimiter.updateRetryAfterLimits("1:error:key", null, 1)
+
+        whenever(fixture.currentDateProvider.currentTimeMillis).thenReturn(1001)
+        assertTrue(rateLimiter.activeRateLimits.isEmpty())
+    }
+
+    @Test
+    fun `counts the items dropped`() {
+        val rateLimiter = fixture.getSUT()
+        whenever(fixture.currentDateProvider.currentTimeMillis).thenReturn(0)
+        val eventItem = SentryEnvelopeItem.fromEvent(fixture.serializer, SentryEvent())
+        val transactionItem = SentryEnvelopeItem.fromEvent(fixture.serializer, SentryTransaction("", SpanContext("op"), mock()))
+        val envelope = SentryEnvelope(SentryEnvelopeHeader(), arrayListOf(eventItem, transactionItem))
+
+        rateLimiter.updateRetryAfterLimits("50:transaction:key", null, 1)
+        rateLimiter.filter(envelope, null)
+        rateLimiter.filter(envelope, null)
+
+        assertEquals(2, rateLimiter.droppedItemCount)
+    }
 }
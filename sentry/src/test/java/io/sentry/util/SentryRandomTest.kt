@@ -0,0 +1,30 @@
+package io.sentry.util
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import kotlin.test.Test
+import kotlin.test.assertEquals
+
+class SentryRandomTest {
+
+    @Test
+    fun `nextLong does not repeat values`() {
+        val values = (0 until 10_000).map { SentryRandom.nextLong() }.toSet()
+
+        assertEquals(10_000, values.size)
+    }
+
+    @Test
+    fun `threads get different sequences`() {
+        val executor = Executors.newFixedThreadPool(4)
+        try {
+            val values = executor.invokeAll((0 until 4).map { Callable { (0 until 1_000).map { SentryRandom.nextLong() } } })
+                .flatMap { it.get() }
+                .toSet()
+
+            assertEquals(4_000, values.size)
+        } finally {
+            executor.shutdown()
+        }
+    }
+}
@@ -74,4 +74,22 @@ class StringUtilsTest {
     fun `removeSurrounding returns trimmed string if first char is the same as the last char and equal to delimiter`() {
         assertEquals("test", StringUtils.removeSurrounding("\"test\"", "\""))
     }
+
+    @Test
+    fun `writeHex writes 16 zero padded lower case hex digits at the offset`() {
+        val buffer = CharArray(18) { '-' }
+
+        StringUtils.writeHex(0xabcL, buffer, 1)
+
+        assertEquals("-0000000000000abc-", String(buffer))
+    }
+
+    @Test
+    fun `writeHex writes negative values as unsigned`() {
+        val buffer = CharArray(16)
+
+        StringUtils.writeHex(-1L, buffer, 0)
+
+        assertEquals("ffffffffffffffff", String(buffer))
+    }
 }
@@ -0,0 +1,34 @@
+package io.sentry.util
+
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertNotNull
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+
+class VirtualThreadUtilsTest {
+
+    @Test
+    fun `platform threads are not virtual`() {
+        assertFalse(VirtualThreadUtils.isVirtual(Thread.currentThread()))
+    }
+
+    @Test
+    fun `newThreadFactory returns null when virtual threads are not supported`() {
+        if (!VirtualThreadUtils.isSupported()) {
+            assertNull(VirtualThreadUtils.newThreadFactory("test-"))
+        }
+    }
+
+    @Test
+    fun `newThreadFactory creates named virtual threads when supported`() {
+        if (VirtualThreadUtils.isSupported()) {
+            val threadFactory = VirtualThreadUtils.newThreadFactory("test-")
+            assertNotNull(threadFactory)
+            val thread = threadFactory.newThread { }
+            assertTrue(VirtualThreadUtils.isVirtual(thread))
+            assertEquals("test-0", thread.name)
+        }
+    }
+}
@@ -13,6 +13,7 @@ include("sentry-android",
     "sentry-apache-http-client-5",
     "sentry-spring",
     "sentry-spring-boot-starter",
+    "sentry-spring-webflux",
     "sentry-android-timber",
     "sentry-samples:sentry-samples-android",
     "sentry-samples:sentry-samples-console",